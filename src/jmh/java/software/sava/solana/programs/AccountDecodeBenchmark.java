@@ -0,0 +1,94 @@
+package software.sava.solana.programs;
+
+import org.openjdk.jmh.annotations.*;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.solana.programs.stake.StakeAccount;
+import software.sava.solana.programs.stake.StakeState;
+import software.sava.solana.programs.stake.ValidatorStakeInfo;
+import software.sava.solana.programs.stakepool.AccountType;
+import software.sava.solana.programs.stakepool.StakePoolState;
+import software.sava.solana.programs.stakepool.ValidatorList;
+import software.sava.solana.programs.system.NonceAccount;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AccountDecodeBenchmark {
+
+  @Param({"100", "2000"})
+  public int numValidators;
+
+  private PublicKey address;
+  private byte[] stakeAccountData;
+  private byte[] validatorListData;
+  private byte[] stakePoolStateData;
+  private byte[] nonceAccountData;
+
+  @Setup
+  public void setup() {
+    final var random = new Random(42);
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    random.nextBytes(key);
+    address = PublicKey.createPubKey(key);
+
+    stakeAccountData = new byte[StakeAccount.BYTES];
+    random.nextBytes(stakeAccountData);
+    ByteUtil.putInt32LE(stakeAccountData, StakeAccount.STATE_OFFSET, StakeState.Stake.ordinal());
+    stakeAccountData[StakeAccount.STAKE_FLAGS_OFFSET] = 0;
+
+    final int validatorListHeader = 1 + Integer.BYTES + Integer.BYTES;
+    validatorListData = new byte[validatorListHeader + (numValidators * ValidatorStakeInfo.BYTES)];
+    random.nextBytes(validatorListData);
+    validatorListData[0] = (byte) AccountType.ValidatorList.ordinal();
+    ByteUtil.putInt32LE(validatorListData, 1, numValidators);
+    ByteUtil.putInt32LE(validatorListData, 1 + Integer.BYTES, numValidators);
+    for (int i = 0, statusOffset = validatorListHeader + ValidatorStakeInfo.BYTES - PUBLIC_KEY_LENGTH - 1;
+         i < numValidators;
+         ++i, statusOffset += ValidatorStakeInfo.BYTES) {
+      validatorListData[statusOffset] = 0;
+    }
+
+    // All optional fields absent.
+    stakePoolStateData = new byte[1024];
+    stakePoolStateData[0] = (byte) AccountType.StakePool.ordinal();
+    for (int i = 1; i < StakePoolState.TOTAL_LAMPORTS_OFFSET; ++i) {
+      stakePoolStateData[i] = (byte) random.nextInt();
+    }
+    ByteUtil.putInt64LE(stakePoolStateData, StakePoolState.TOTAL_LAMPORTS_OFFSET, 7_654_321_000_000_000L);
+    ByteUtil.putInt64LE(stakePoolStateData, StakePoolState.POOL_TOKEN_SUPPLY_OFFSET, 6_543_210_000_000_000L);
+
+    nonceAccountData = new byte[NonceAccount.BYTES];
+    random.nextBytes(nonceAccountData);
+    ByteUtil.putInt32LE(nonceAccountData, 0, 1);
+    ByteUtil.putInt32LE(nonceAccountData, Integer.BYTES, NonceAccount.State.Initialized.ordinal());
+  }
+
+  @Benchmark
+  public StakeAccount stakeAccountRead() {
+    return StakeAccount.read(address, stakeAccountData);
+  }
+
+  @Benchmark
+  public ValidatorList validatorListRead() {
+    return ValidatorList.read(address, validatorListData);
+  }
+
+  @Benchmark
+  public StakePoolState stakePoolStateParse() {
+    return StakePoolState.parseProgramData(address, stakePoolStateData);
+  }
+
+  @Benchmark
+  public NonceAccount nonceAccountRead() {
+    return NonceAccount.read(address, nonceAccountData);
+  }
+}
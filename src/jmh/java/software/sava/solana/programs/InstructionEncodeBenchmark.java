@@ -0,0 +1,126 @@
+package software.sava.solana.programs;
+
+import org.openjdk.jmh.annotations.*;
+import software.sava.core.accounts.ProgramDerivedAddress;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.encoding.InstructionBuffer;
+import software.sava.solana.programs.stake.StakeProgram;
+import software.sava.solana.programs.stakepool.StakePoolAccounts;
+import software.sava.solana.programs.stakepool.StakePoolProgram;
+import software.sava.solana.programs.system.SystemProgram;
+import software.sava.solana.programs.token.AssociatedTokenProgram;
+import software.sava.solana.programs.token.TokenProgram;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InstructionEncodeBenchmark {
+
+  private static final int NUM_KEYS = 1 << 10;
+
+  private final SolanaAccounts solanaAccounts = SolanaAccounts.MAIN_NET;
+  private final StakePoolAccounts stakePoolAccounts = StakePoolAccounts.MAIN_NET;
+
+  private PublicKey[] keys;
+  private ProgramDerivedAddress stakePoolWithdrawAuthority;
+  private int next;
+  private final InstructionBuffer buffer = InstructionBuffer.createBuffer();
+
+  @Setup
+  public void setup() {
+    final var random = new Random(42);
+    keys = new PublicKey[NUM_KEYS];
+    for (int i = 0; i < NUM_KEYS; ++i) {
+      final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+      random.nextBytes(key);
+      keys[i] = PublicKey.createPubKey(key);
+    }
+    stakePoolWithdrawAuthority = StakePoolProgram.findStakePoolWithdrawAuthority(
+        keys[0], stakePoolAccounts.stakePoolProgram()
+    );
+  }
+
+  private PublicKey nextKey() {
+    return keys[next++ & (NUM_KEYS - 1)];
+  }
+
+  @Benchmark
+  public Instruction systemTransfer() {
+    return SystemProgram.transfer(solanaAccounts.invokedSystemProgram(), nextKey(), nextKey(), 1_000_000);
+  }
+
+  @Benchmark
+  public Instruction systemTransferBuffered() {
+    buffer.reset();
+    return SystemProgram.transfer(buffer, solanaAccounts.invokedSystemProgram(), nextKey(), nextKey(), 1_000_000);
+  }
+
+  @Benchmark
+  public Instruction tokenTransferChecked() {
+    return TokenProgram.transferChecked(
+        solanaAccounts.invokedTokenProgram(),
+        nextKey(), nextKey(),
+        1_000_000, 9,
+        nextKey(), nextKey()
+    );
+  }
+
+  @Benchmark
+  public Instruction stakeSplit() {
+    return StakeProgram.split(solanaAccounts, nextKey(), nextKey(), nextKey(), 1_000_000_000);
+  }
+
+  @Benchmark
+  public Instruction stakeMerge() {
+    return StakeProgram.merge(solanaAccounts, nextKey(), nextKey(), nextKey());
+  }
+
+  // Includes the stake pool withdraw authority PDA search.
+  @Benchmark
+  public Instruction stakePoolDepositSol() {
+    return StakePoolProgram.depositSol(
+        solanaAccounts,
+        stakePoolAccounts.invokedStakePoolProgram(),
+        keys[0],
+        keys[1], keys[4],
+        nextKey(), keys[2], keys[2],
+        keys[3], solanaAccounts.tokenProgram(),
+        1_000_000_000
+    );
+  }
+
+  @Benchmark
+  public Instruction stakePoolDepositSolResolvedAuthority() {
+    return StakePoolProgram.depositSol(
+        solanaAccounts,
+        stakePoolAccounts.invokedStakePoolProgram(),
+        keys[0],
+        stakePoolWithdrawAuthority,
+        keys[1], keys[4],
+        nextKey(), keys[2], keys[2],
+        keys[3], solanaAccounts.tokenProgram(),
+        1_000_000_000
+    );
+  }
+
+  // Cycles through more owners than fit in a small cache, but fewer than the default capacity.
+  @Benchmark
+  public ProgramDerivedAddress findATACached() {
+    return AssociatedTokenProgram.findATA(solanaAccounts, nextKey(), keys[0]);
+  }
+
+  @Benchmark
+  public ProgramDerivedAddress deriveATA() {
+    return AssociatedTokenProgram.deriveATA(solanaAccounts, nextKey(), solanaAccounts.tokenProgram(), keys[0]);
+  }
+}
@@ -8,7 +8,9 @@ module software.sava.solana_programs {
 
   exports software.sava.solana.programs.address_lookup_table;
   exports software.sava.solana.programs.clients;
+  exports software.sava.solana.programs.collections;
   exports software.sava.solana.programs.compute_budget;
+  exports software.sava.solana.programs.encoding;
   exports software.sava.solana.programs.stake;
   exports software.sava.solana.programs.stakepool;
   exports software.sava.solana.programs.system;
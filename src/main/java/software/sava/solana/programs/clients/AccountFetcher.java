@@ -0,0 +1,50 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+// Coalesces single account lookups into getMultipleAccounts requests.  Keys requested within the batch window are
+// sent together, concurrent requests for the same key share one in flight request, and each caller decodes the
+// shared account data with its own factory.
+public interface AccountFetcher {
+
+  int MAX_ACCOUNTS_PER_REQUEST = 100;
+  Duration DEFAULT_BATCH_WINDOW = Duration.ofMillis(2);
+
+  static AccountFetcher createFetcher(final SolanaRpcClient rpcClient,
+                                      final Duration batchWindow,
+                                      final int maxAccountsPerRequest) {
+    if (maxAccountsPerRequest < 1 || maxAccountsPerRequest > MAX_ACCOUNTS_PER_REQUEST) {
+      throw new IllegalArgumentException("Accounts per request must be within [1, 100]: " + maxAccountsPerRequest);
+    }
+    return new AccountFetcherImpl(rpcClient, batchWindow, maxAccountsPerRequest);
+  }
+
+  static AccountFetcher createFetcher(final SolanaRpcClient rpcClient) {
+    return createFetcher(rpcClient, DEFAULT_BATCH_WINDOW, MAX_ACCOUNTS_PER_REQUEST);
+  }
+
+  SolanaRpcClient rpcClient();
+
+  // Completes with null if the account does not exist.
+  <T> CompletableFuture<AccountInfo<T>> fetch(final PublicKey account, final BiFunction<PublicKey, byte[], T> factory);
+
+  <T> CompletableFuture<List<AccountInfo<T>>> fetch(final List<PublicKey> accounts,
+                                                    final BiFunction<PublicKey, byte[], T> factory);
+
+  // Sends the pending batch without waiting for the window to close.
+  void flush();
+
+  long requestCount();
+
+  // Requests served by a request already in flight.
+  long coalescedCount();
+
+  long rpcCount();
+}
@@ -0,0 +1,208 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+final class AccountFetcherImpl implements AccountFetcher {
+
+  private static final BiFunction<PublicKey, byte[], byte[]> RAW = (_, data) -> data;
+  // Flushes run off the JDK's shared delay scheduler thread, which must never block on an RPC request.
+  private static final Executor VIRTUAL_THREAD_EXECUTOR = Thread.ofVirtual().name("account-fetcher-", 0)::start;
+
+  private final SolanaRpcClient rpcClient;
+  private final Executor delayedExecutor;
+  private final int maxAccountsPerRequest;
+  private final ConcurrentHashMap<PublicKey, CompletableFuture<AccountInfo<byte[]>>> inFlight;
+  private final ReentrantLock lock;
+  private final LongAdder requests;
+  private final LongAdder coalesced;
+  private final LongAdder rpcCalls;
+
+  private ArrayList<PublicKey> batch;
+
+  AccountFetcherImpl(final SolanaRpcClient rpcClient, final Duration batchWindow, final int maxAccountsPerRequest) {
+    this.rpcClient = rpcClient;
+    this.delayedExecutor = batchWindow.isZero() || batchWindow.isNegative()
+        ? null
+        : CompletableFuture.delayedExecutor(batchWindow.toNanos(), NANOSECONDS, VIRTUAL_THREAD_EXECUTOR);
+    this.maxAccountsPerRequest = maxAccountsPerRequest;
+    this.inFlight = new ConcurrentHashMap<>();
+    this.lock = new ReentrantLock();
+    this.requests = new LongAdder();
+    this.coalesced = new LongAdder();
+    this.rpcCalls = new LongAdder();
+    this.batch = new ArrayList<>(maxAccountsPerRequest);
+  }
+
+  @Override
+  public SolanaRpcClient rpcClient() {
+    return rpcClient;
+  }
+
+  private static <T> AccountInfo<T> decode(final AccountInfo<byte[]> accountInfo,
+                                           final BiFunction<PublicKey, byte[], T> factory) {
+    if (accountInfo == null) {
+      return null;
+    }
+    final var pubKey = accountInfo.pubKey();
+    return new AccountInfo<>(
+        pubKey,
+        accountInfo.context(),
+        accountInfo.executable(),
+        accountInfo.lamports(),
+        accountInfo.owner(),
+        accountInfo.rentEpoch(),
+        accountInfo.space(),
+        factory.apply(pubKey, accountInfo.data())
+    );
+  }
+
+  private CompletableFuture<AccountInfo<byte[]>> fetchRaw(final PublicKey account) {
+    requests.increment();
+    final var existing = inFlight.get(account);
+    if (existing != null) {
+      coalesced.increment();
+      return existing;
+    }
+    final var future = new CompletableFuture<AccountInfo<byte[]>>();
+    final var previous = inFlight.putIfAbsent(account, future);
+    if (previous != null) {
+      coalesced.increment();
+      return previous;
+    }
+    enqueue(account);
+    return future;
+  }
+
+  private void enqueue(final PublicKey account) {
+    final ArrayList<PublicKey> scheduled;
+    final ArrayList<PublicKey> full;
+    lock.lock();
+    try {
+      batch.add(account);
+      scheduled = batch.size() == 1 && delayedExecutor != null ? batch : null;
+      if (delayedExecutor == null || batch.size() == maxAccountsPerRequest) {
+        full = batch;
+        batch = new ArrayList<>(maxAccountsPerRequest);
+      } else {
+        full = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (full != null) {
+      send(full);
+    } else if (scheduled != null) {
+      delayedExecutor.execute(() -> flush(scheduled));
+    }
+  }
+
+  // Only sends the batch the flush was scheduled for, it may have already been sent once full.
+  private void flush(final ArrayList<PublicKey> scheduled) {
+    lock.lock();
+    try {
+      if (batch != scheduled || batch.isEmpty()) {
+        return;
+      }
+      batch = new ArrayList<>(maxAccountsPerRequest);
+    } finally {
+      lock.unlock();
+    }
+    send(scheduled);
+  }
+
+  @Override
+  public void flush() {
+    final ArrayList<PublicKey> pending;
+    lock.lock();
+    try {
+      if (batch.isEmpty()) {
+        return;
+      }
+      pending = batch;
+      batch = new ArrayList<>(maxAccountsPerRequest);
+    } finally {
+      lock.unlock();
+    }
+    send(pending);
+  }
+
+  private void send(final List<PublicKey> keys) {
+    rpcCalls.increment();
+    final CompletableFuture<List<AccountInfo<byte[]>>> response;
+    try {
+      response = rpcClient.getMultipleAccounts(keys, RAW);
+    } catch (final RuntimeException ex) {
+      complete(keys, null, ex);
+      return;
+    }
+    response.whenComplete((accountInfos, throwable) -> complete(keys, accountInfos, throwable));
+  }
+
+  private void complete(final List<PublicKey> keys,
+                        final List<AccountInfo<byte[]>> accountInfos,
+                        final Throwable throwable) {
+    for (int i = 0; i < keys.size(); ++i) {
+      final var future = inFlight.remove(keys.get(i));
+      if (future == null) {
+        continue;
+      }
+      if (throwable != null) {
+        future.completeExceptionally(throwable);
+      } else {
+        future.complete(i < accountInfos.size() ? accountInfos.get(i) : null);
+      }
+    }
+  }
+
+  @Override
+  public <T> CompletableFuture<AccountInfo<T>> fetch(final PublicKey account,
+                                                     final BiFunction<PublicKey, byte[], T> factory) {
+    return fetchRaw(account).thenApply(accountInfo -> decode(accountInfo, factory));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> CompletableFuture<List<AccountInfo<T>>> fetch(final List<PublicKey> accounts,
+                                                           final BiFunction<PublicKey, byte[], T> factory) {
+    final var futures = new CompletableFuture[accounts.size()];
+    for (int i = 0; i < futures.length; ++i) {
+      futures[i] = fetch(accounts.get(i), factory);
+    }
+    return CompletableFuture.allOf(futures).thenApply(_ -> {
+      final var accountInfos = new ArrayList<AccountInfo<T>>(futures.length);
+      for (final var future : futures) {
+        accountInfos.add((AccountInfo<T>) future.join());
+      }
+      return accountInfos;
+    });
+  }
+
+  @Override
+  public long requestCount() {
+    return requests.sum();
+  }
+
+  @Override
+  public long coalescedCount() {
+    return coalesced.sum();
+  }
+
+  @Override
+  public long rpcCount() {
+    return rpcCalls.sum();
+  }
+}
@@ -0,0 +1,10 @@
+package software.sava.solana.programs.clients;
+
+// Limits the data returned for each account to length bytes starting at offset.  Filters still apply to the full
+// account data.
+public record DataSlice(int offset, int length) {
+
+  public String toJson() {
+    return String.format("{\"offset\":%d,\"length\":%d}", offset, length);
+  }
+}
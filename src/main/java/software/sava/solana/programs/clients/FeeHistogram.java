@@ -0,0 +1,122 @@
+package software.sava.solana.programs.clients;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free sliding window histogram of fees.  Values are bucketed log-linearly, eight sub-buckets per power of two,
+// so reported percentiles are within 12.5% of the recorded value.  The window is a ring of slot intervals, an
+// interval's counts are cleared by the first writer to roll it over.
+final class FeeHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40;
+  static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+  static final int NUM_BUCKETS = ((MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS) + SUB_BUCKETS;
+  static final int NUM_INTERVALS = 4;
+
+  private final long intervalSlots;
+  private final AtomicLongArray intervals;
+  private final AtomicIntegerArray counts;
+  private final AtomicLong lastSlot;
+
+  FeeHistogram(final long intervalSlots) {
+    this.intervalSlots = intervalSlots;
+    this.intervals = new AtomicLongArray(NUM_INTERVALS);
+    for (int i = 0; i < NUM_INTERVALS; ++i) {
+      intervals.set(i, -1);
+    }
+    this.counts = new AtomicIntegerArray(NUM_INTERVALS * NUM_BUCKETS);
+    this.lastSlot = new AtomicLong(-1);
+  }
+
+  // Highest slot recorded, -1 if none.
+  long lastSlot() {
+    return lastSlot.get();
+  }
+
+  static int bucket(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) Math.max(0, value);
+    }
+    final long clamped = Math.min(value, MAX_VALUE);
+    final int exponent = 63 - Long.numberOfLeadingZeros(clamped);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((clamped >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  // Upper bound of the values mapped to bucket.
+  static long bucketValue(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+    final long lower = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+    return lower + (1L << shift) - 1;
+  }
+
+  long interval(final long slot) {
+    return slot / intervalSlots;
+  }
+
+  void record(final long slot, final long value) {
+    lastSlot.accumulateAndGet(slot, Math::max);
+    final long interval = interval(slot);
+    final int row = (int) (interval % NUM_INTERVALS);
+    final long current = intervals.get(row);
+    if (current != interval) {
+      if (interval < current) {
+        return;
+      } else if (intervals.compareAndSet(row, current, interval)) {
+        for (int i = row * NUM_BUCKETS, to = i + NUM_BUCKETS; i < to; ++i) {
+          counts.set(i, 0);
+        }
+      }
+    }
+    counts.getAndIncrement((row * NUM_BUCKETS) + bucket(value));
+  }
+
+  private boolean inWindow(final int row, final long latestInterval) {
+    final long interval = intervals.get(row);
+    return interval >= 0 && interval <= latestInterval && interval > latestInterval - NUM_INTERVALS;
+  }
+
+  // -1 if nothing was recorded within the window ending at latestSlot.
+  long percentile(final double percentile, final long latestSlot) {
+    final long latestInterval = interval(latestSlot);
+    int validRows = 0;
+    for (int row = 0; row < NUM_INTERVALS; ++row) {
+      if (inWindow(row, latestInterval)) {
+        validRows |= 1 << row;
+      }
+    }
+    if (validRows == 0) {
+      return -1;
+    }
+    long total = 0;
+    for (int row = 0; row < NUM_INTERVALS; ++row) {
+      if ((validRows & (1 << row)) != 0) {
+        for (int i = row * NUM_BUCKETS, to = i + NUM_BUCKETS; i < to; ++i) {
+          total += counts.get(i);
+        }
+      }
+    }
+    if (total == 0) {
+      return -1;
+    }
+    final long target = Math.max(1, (long) Math.ceil(percentile * total));
+    long cumulative = 0;
+    for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+      for (int row = 0; row < NUM_INTERVALS; ++row) {
+        if ((validRows & (1 << row)) != 0) {
+          cumulative += counts.get((row * NUM_BUCKETS) + bucket);
+        }
+      }
+      if (cumulative >= target) {
+        return bucketValue(bucket);
+      }
+    }
+    return bucketValue(NUM_BUCKETS - 1);
+  }
+}
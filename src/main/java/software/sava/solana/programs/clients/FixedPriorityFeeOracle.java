@@ -0,0 +1,26 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.tx.Instruction;
+
+import java.util.Collection;
+import java.util.List;
+
+record FixedPriorityFeeOracle(long microLamportComputeUnitPrice) implements PriorityFeeOracle {
+
+  @Override
+  public void record(final long slot,
+                     final Collection<PublicKey> writableAccounts,
+                     final long microLamportComputeUnitPrice) {
+  }
+
+  @Override
+  public long microLamportComputeUnitPrice(final Collection<PublicKey> writableAccounts) {
+    return microLamportComputeUnitPrice;
+  }
+
+  @Override
+  public long microLamportComputeUnitPrice(final List<Instruction> instructions) {
+    return microLamportComputeUnitPrice;
+  }
+}
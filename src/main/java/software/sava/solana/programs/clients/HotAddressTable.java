@@ -0,0 +1,65 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bounded usage counts which halve once the table fills up, so that recent usage outweighs old usage.
+final class HotAddressTable {
+
+  private final int capacity;
+  private final HashMap<PublicKey, int[]> counts;
+
+  HotAddressTable(final int capacity) {
+    this.capacity = capacity;
+    this.counts = HashMap.newHashMap(capacity << 1);
+  }
+
+  void increment(final PublicKey address) {
+    final int[] count = counts.get(address);
+    if (count != null) {
+      ++count[0];
+    } else {
+      if (counts.size() >= capacity << 1) {
+        age();
+      }
+      counts.put(address, new int[]{1});
+    }
+  }
+
+  private void age() {
+    counts.values().removeIf(count -> (count[0] >>>= 1) == 0);
+    final int excess = counts.size() - capacity;
+    if (excess > 0) {
+      final var coldest = new ArrayList<>(counts.entrySet());
+      coldest.sort(Map.Entry.comparingByValue((a, b) -> Integer.compare(a[0], b[0])));
+      for (int i = 0; i < excess; ++i) {
+        counts.remove(coldest.get(i).getKey());
+      }
+    }
+  }
+
+  int frequency(final PublicKey address) {
+    final int[] count = counts.get(address);
+    return count == null ? 0 : count[0];
+  }
+
+  // Addresses used at least minFrequency times, most used first.
+  List<PublicKey> hottest(final int minFrequency) {
+    final var hot = new ArrayList<Map.Entry<PublicKey, int[]>>();
+    for (final var entry : counts.entrySet()) {
+      if (entry.getValue()[0] >= minFrequency) {
+        hot.add(entry);
+      }
+    }
+    hot.sort(Map.Entry.comparingByValue((a, b) -> Integer.compare(b[0], a[0])));
+    return hot.stream().map(Map.Entry::getKey).toList();
+  }
+
+  int size() {
+    return counts.size();
+  }
+}
@@ -0,0 +1,92 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.tx.Instruction;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.accounts.lookup.AddressLookupTable.LOOKUP_TABLE_MAX_ADDRESSES;
+import static software.sava.core.programs.Discriminator.NATIVE_DISCRIMINATOR_LENGTH;
+import static software.sava.core.tx.Transaction.*;
+
+// Maintains the lookup tables owned by the fee payer of an account client.  Usage is recorded per address, and the
+// hottest addresses which cannot be resolved through an active table are planned into existing tables with room,
+// or a newly created table.
+public interface LookupTableManager {
+
+  // A deactivated table may be closed once its deactivation slot has left the slot hashes sysvar.
+  int DEACTIVATION_COOLDOWN_SLOTS = 513;
+  // One extend instruction per legacy transaction, with the fee payer as authority and funder, accounting for the
+  // prepended compute budget instructions.
+  int MAX_ADDRESSES_PER_EXTEND = (MAX_SERIALIZED_LENGTH
+      - (1 + SIGNATURE_LENGTH)
+      - (3 + 1 + (5 * PUBLIC_KEY_LENGTH) + BLOCK_HASH_LENGTH + 1)
+      - ((1 + 1 + 5) + (1 + 1 + 9))
+      - (1 + 1 + 4 + 2 + NATIVE_DISCRIMINATOR_LENGTH + Long.BYTES)) / PUBLIC_KEY_LENGTH;
+  int MAX_ADDRESSES = LOOKUP_TABLE_MAX_ADDRESSES;
+  // Planned extensions not observed within the lifetime of a recent block hash are assumed to have failed.
+  int PENDING_EXTENSION_EXPIRY_SLOTS = 150;
+  int DEFAULT_HOT_ADDRESS_CAPACITY = 1 << 12;
+  int DEFAULT_MIN_HOT_FREQUENCY = 4;
+
+  static LookupTableManager createManager(final NativeProgramAccountClient accountClient,
+                                          final int hotAddressCapacity,
+                                          final int minHotFrequency) {
+    return new LookupTableManagerImpl(accountClient, hotAddressCapacity, minHotFrequency);
+  }
+
+  static LookupTableManager createManager(final NativeProgramAccountClient accountClient) {
+    return createManager(accountClient, DEFAULT_HOT_ADDRESS_CAPACITY, DEFAULT_MIN_HOT_FREQUENCY);
+  }
+
+  // Replaces the index with the tables owned by the account client.
+  CompletableFuture<Collection<AddressLookupTable>> refresh(final SolanaRpcClient rpcClient);
+
+  void refresh(final Collection<AddressLookupTable> tables);
+
+  void update(final AddressLookupTable table);
+
+  Collection<AddressLookupTable> tables();
+
+  AddressLookupTable table(final PublicKey tableAddress);
+
+  // An active table containing the address, or null.
+  AddressLookupTable findTable(final PublicKey address);
+
+  // Selects from the active tables, rebuilt when the index changes.
+  LookupTableSelector selector();
+
+  // Counts the addresses which may be resolved through a lookup table, signers and programs are ignored.
+  void recordUsage(final List<Instruction> instructions);
+
+  int frequency(final PublicKey address);
+
+  List<PublicKey> hotAddresses();
+
+  // Hot addresses which are neither in an active table nor pending an extension.
+  List<PublicKey> unresolvedHotAddresses();
+
+  // One instruction per transaction, each with at most MAX_ADDRESSES_PER_EXTEND addresses.
+  List<Instruction> extendLookupTable(final PublicKey tableAddress, final List<PublicKey> addresses);
+
+  // Create and extend instructions resolving the unresolved hot addresses.  A new table is derived from the
+  // recent slot if the existing tables are full.  Each planned address is pending until an update or refresh observes
+  // it in the table, or PENDING_EXTENSION_EXPIRY_SLOTS have passed since the table's latest extension was planned.
+  List<Instruction> planExtensions(final long recentSlot);
+
+  // Drops the addresses pending for the table, for example after its extend transaction failed, so that they are
+  // planned again.
+  void cancelPendingExtensions(final PublicKey tableAddress);
+
+  Instruction deactivateLookupTable(final PublicKey tableAddress, final long slot);
+
+  List<PublicKey> reclaimableTables(final long currentSlot);
+
+  // Close instructions for the deactivated tables past their cooldown, which are removed from the index.
+  List<Instruction> closeReclaimableTables(final long currentSlot);
+}
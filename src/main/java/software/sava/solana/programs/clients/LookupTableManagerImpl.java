@@ -0,0 +1,301 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.tx.Instruction;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+final class LookupTableManagerImpl implements LookupTableManager {
+
+  private final NativeProgramAccountClient accountClient;
+  private final PublicKey authority;
+  private final int minHotFrequency;
+  private final HotAddressTable hotAddresses;
+  private final LinkedHashMap<PublicKey, AddressLookupTable> tables;
+  private final HashMap<PublicKey, Long> deactivationSlots;
+  // Addresses planned into each table which have not been observed yet.
+  private final HashMap<PublicKey, List<PublicKey>> pendingExtensions;
+  // Slot of the latest extension planned into each table.
+  private final HashMap<PublicKey, Long> pendingSlots;
+  private final HashSet<PublicKey> pendingAddresses;
+
+  private Map<PublicKey, AddressLookupTable> addressIndex;
+  private LookupTableSelector selector;
+
+  LookupTableManagerImpl(final NativeProgramAccountClient accountClient,
+                         final int hotAddressCapacity,
+                         final int minHotFrequency) {
+    this.accountClient = accountClient;
+    this.authority = accountClient.feePayer().publicKey();
+    this.minHotFrequency = minHotFrequency;
+    this.hotAddresses = new HotAddressTable(hotAddressCapacity);
+    this.tables = new LinkedHashMap<>();
+    this.deactivationSlots = new HashMap<>();
+    this.pendingExtensions = new HashMap<>();
+    this.pendingSlots = new HashMap<>();
+    this.pendingAddresses = new HashSet<>();
+  }
+
+  @Override
+  public CompletableFuture<Collection<AddressLookupTable>> refresh(final SolanaRpcClient rpcClient) {
+    return accountClient.fetchLookupTableAccountsByAuthority(rpcClient).thenApply(accountInfos -> {
+      final var tables = accountInfos.stream().map(AccountInfo::data).toList();
+      refresh(tables);
+      return tables;
+    });
+  }
+
+  private void index(final AddressLookupTable table) {
+    final var tableAddress = table.address();
+    tables.put(tableAddress, table);
+    if (table.isActive()) {
+      deactivationSlots.remove(tableAddress);
+    } else {
+      deactivationSlots.put(tableAddress, table.deactivationSlot());
+    }
+  }
+
+  private void invalidate() {
+    addressIndex = null;
+    selector = null;
+  }
+
+  @Override
+  public synchronized void refresh(final Collection<AddressLookupTable> tables) {
+    this.tables.clear();
+    deactivationSlots.clear();
+    for (final var table : tables) {
+      index(table);
+      removeLanded(table);
+    }
+    invalidate();
+  }
+
+  @Override
+  public synchronized void update(final AddressLookupTable table) {
+    index(table);
+    removeLanded(table);
+    invalidate();
+  }
+
+  // Extensions spanning several transactions land one at a time, only the addresses now in the table stop pending.
+  private void removeLanded(final AddressLookupTable table) {
+    final var tableAddress = table.address();
+    final var pending = pendingExtensions.get(tableAddress);
+    if (pending == null) {
+      return;
+    }
+    final var landed = HashSet.<PublicKey>newHashSet(table.numAccounts());
+    for (int i = 0, numAccounts = table.numAccounts(); i < numAccounts; ++i) {
+      landed.add(table.account(i));
+    }
+    pending.removeIf(address -> landed.contains(address) && pendingAddresses.remove(address));
+    if (pending.isEmpty()) {
+      pendingExtensions.remove(tableAddress);
+      pendingSlots.remove(tableAddress);
+    }
+  }
+
+  private void removePending(final PublicKey tableAddress) {
+    pendingSlots.remove(tableAddress);
+    if (pendingExtensions.remove(tableAddress) != null) {
+      pendingAddresses.clear();
+      pendingExtensions.values().forEach(pendingAddresses::addAll);
+    }
+  }
+
+  @Override
+  public synchronized void cancelPendingExtensions(final PublicKey tableAddress) {
+    removePending(tableAddress);
+  }
+
+  @Override
+  public synchronized Collection<AddressLookupTable> tables() {
+    return List.copyOf(tables.values());
+  }
+
+  @Override
+  public synchronized AddressLookupTable table(final PublicKey tableAddress) {
+    return tables.get(tableAddress);
+  }
+
+  private boolean isActive(final AddressLookupTable table) {
+    return table.isActive() && !deactivationSlots.containsKey(table.address());
+  }
+
+  private List<AddressLookupTable> activeTables() {
+    return tables.values().stream().filter(this::isActive).toList();
+  }
+
+  private Map<PublicKey, AddressLookupTable> addressIndex() {
+    if (addressIndex == null) {
+      final var index = new HashMap<PublicKey, AddressLookupTable>();
+      for (final var table : activeTables()) {
+        for (int i = 0, numAccounts = table.numAccounts(); i < numAccounts; ++i) {
+          index.putIfAbsent(table.account(i), table);
+        }
+      }
+      addressIndex = index;
+    }
+    return addressIndex;
+  }
+
+  @Override
+  public synchronized AddressLookupTable findTable(final PublicKey address) {
+    return addressIndex().get(address);
+  }
+
+  @Override
+  public synchronized LookupTableSelector selector() {
+    if (selector == null) {
+      selector = LookupTableSelector.createSelector(activeTables());
+    }
+    return selector;
+  }
+
+  @Override
+  public synchronized void recordUsage(final List<Instruction> instructions) {
+    final var staticKeys = new HashSet<PublicKey>();
+    final var indexable = new LinkedHashSet<PublicKey>();
+    for (final var instruction : instructions) {
+      staticKeys.add(instruction.programId().publicKey());
+      for (final var account : instruction.accounts()) {
+        if (account.signer()) {
+          staticKeys.add(account.publicKey());
+        } else {
+          indexable.add(account.publicKey());
+        }
+      }
+    }
+    for (final var address : indexable) {
+      if (!staticKeys.contains(address)) {
+        hotAddresses.increment(address);
+      }
+    }
+  }
+
+  @Override
+  public synchronized int frequency(final PublicKey address) {
+    return hotAddresses.frequency(address);
+  }
+
+  @Override
+  public synchronized List<PublicKey> hotAddresses() {
+    return hotAddresses.hottest(minHotFrequency);
+  }
+
+  @Override
+  public synchronized List<PublicKey> unresolvedHotAddresses() {
+    final var index = addressIndex();
+    final var unresolved = new ArrayList<PublicKey>();
+    for (final var address : hotAddresses.hottest(minHotFrequency)) {
+      if (!index.containsKey(address) && !pendingAddresses.contains(address)) {
+        unresolved.add(address);
+      }
+    }
+    return unresolved;
+  }
+
+  @Override
+  public List<Instruction> extendLookupTable(final PublicKey tableAddress, final List<PublicKey> addresses) {
+    final int numAddresses = addresses.size();
+    final var instructions = new ArrayList<Instruction>((numAddresses + MAX_ADDRESSES_PER_EXTEND - 1) / MAX_ADDRESSES_PER_EXTEND);
+    for (int from = 0; from < numAddresses; from += MAX_ADDRESSES_PER_EXTEND) {
+      final var chunk = addresses.subList(from, Math.min(numAddresses, from + MAX_ADDRESSES_PER_EXTEND));
+      instructions.add(accountClient.extendLookupTable(tableAddress, List.copyOf(chunk)));
+    }
+    return instructions;
+  }
+
+  private int plan(final List<Instruction> instructions,
+                   final long recentSlot,
+                   final PublicKey tableAddress,
+                   final int room,
+                   final List<PublicKey> unresolved,
+                   final int from) {
+    final int to = Math.min(unresolved.size(), from + room);
+    final var addresses = List.copyOf(unresolved.subList(from, to));
+    instructions.addAll(extendLookupTable(tableAddress, addresses));
+    pendingExtensions.computeIfAbsent(tableAddress, _ -> new ArrayList<>()).addAll(addresses);
+    pendingSlots.merge(tableAddress, recentSlot, Math::max);
+    pendingAddresses.addAll(addresses);
+    return to;
+  }
+
+  @Override
+  public synchronized List<Instruction> planExtensions(final long recentSlot) {
+    final var expired = new ArrayList<PublicKey>();
+    pendingSlots.forEach((tableAddress, plannedSlot) -> {
+      if (recentSlot - plannedSlot > PENDING_EXTENSION_EXPIRY_SLOTS) {
+        expired.add(tableAddress);
+      }
+    });
+    expired.forEach(this::removePending);
+    final var unresolved = unresolvedHotAddresses();
+    if (unresolved.isEmpty()) {
+      return List.of();
+    }
+    final var instructions = new ArrayList<Instruction>();
+    int from = 0;
+    for (final var table : tables.values()) {
+      if (from == unresolved.size()) {
+        return instructions;
+      }
+      // Frozen tables no longer have an authority.
+      if (isActive(table) && authority.equals(table.authority())) {
+        final var pending = pendingExtensions.get(table.address());
+        final int room = MAX_ADDRESSES - table.numAccounts() - (pending == null ? 0 : pending.size());
+        if (room > 0) {
+          from = plan(instructions, recentSlot, table.address(), room, unresolved, from);
+        }
+      }
+    }
+    if (from < unresolved.size()) {
+      final var newTable = accountClient.findLookupTableAddress(recentSlot);
+      final var tableAddress = newTable.publicKey();
+      if (!tables.containsKey(tableAddress) && !pendingExtensions.containsKey(tableAddress)) {
+        instructions.add(accountClient.createLookupTable(newTable, recentSlot));
+        plan(instructions, recentSlot, tableAddress, MAX_ADDRESSES, unresolved, from);
+      }
+    }
+    return instructions;
+  }
+
+  @Override
+  public synchronized Instruction deactivateLookupTable(final PublicKey tableAddress, final long slot) {
+    deactivationSlots.put(tableAddress, slot);
+    invalidate();
+    return accountClient.deactivateLookupTable(tableAddress);
+  }
+
+  @Override
+  public synchronized List<PublicKey> reclaimableTables(final long currentSlot) {
+    final var reclaimable = new ArrayList<PublicKey>();
+    deactivationSlots.forEach((tableAddress, deactivationSlot) -> {
+      if (currentSlot - deactivationSlot >= DEACTIVATION_COOLDOWN_SLOTS) {
+        reclaimable.add(tableAddress);
+      }
+    });
+    return reclaimable;
+  }
+
+  @Override
+  public synchronized List<Instruction> closeReclaimableTables(final long currentSlot) {
+    final var reclaimable = reclaimableTables(currentSlot);
+    final var instructions = new ArrayList<Instruction>(reclaimable.size());
+    for (final var tableAddress : reclaimable) {
+      instructions.add(accountClient.closeLookupTable(tableAddress));
+      tables.remove(tableAddress);
+      deactivationSlots.remove(tableAddress);
+      removePending(tableAddress);
+    }
+    if (!reclaimable.isEmpty()) {
+      invalidate();
+    }
+    return instructions;
+  }
+}
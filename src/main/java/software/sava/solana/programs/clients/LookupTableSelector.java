@@ -0,0 +1,26 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.LookupTableAccountMeta;
+import software.sava.core.tx.Instruction;
+
+import java.util.Collection;
+import java.util.List;
+
+// Chooses which of a set of candidate lookup tables to reference from a transaction.  Tables are picked greedily by
+// the number of bytes they save, net of their own overhead, until no remaining table reduces the serialized size.
+public interface LookupTableSelector {
+
+  static LookupTableSelector createSelector(final Collection<AddressLookupTable> candidates) {
+    return LookupTableSelectorImpl.createSelector(candidates);
+  }
+
+  List<AddressLookupTable> candidates();
+
+  // The fee payer is always a static key, so it is never counted towards a table's savings.
+  List<AddressLookupTable> selectTables(final PublicKey feePayer, final List<Instruction> instructions);
+
+  // Returns an empty array if no candidate reduces the serialized size of the instructions.
+  LookupTableAccountMeta[] select(final PublicKey feePayer, final List<Instruction> instructions);
+}
@@ -0,0 +1,143 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.LookupTableAccountMeta;
+import software.sava.core.tx.Instruction;
+
+import java.util.*;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class LookupTableSelectorImpl implements LookupTableSelector {
+
+  private static final LookupTableAccountMeta[] NO_TABLES = new LookupTableAccountMeta[0];
+  // An indexed key replaces a static 32 byte key with a one byte index.
+  private static final int KEY_SAVINGS = PUBLIC_KEY_LENGTH - 1;
+  // Table address plus the writable and read only index array lengths.
+  private static final int TABLE_OVERHEAD = PUBLIC_KEY_LENGTH + 1 + 1;
+
+  private final List<AddressLookupTable> candidates;
+  private final int numWords;
+  // Bitset over the candidate tables containing each address.
+  private final Map<PublicKey, long[]> tablesByAddress;
+
+  private LookupTableSelectorImpl(final List<AddressLookupTable> candidates,
+                                  final int numWords,
+                                  final Map<PublicKey, long[]> tablesByAddress) {
+    this.candidates = candidates;
+    this.numWords = numWords;
+    this.tablesByAddress = tablesByAddress;
+  }
+
+  static LookupTableSelector createSelector(final Collection<AddressLookupTable> candidates) {
+    final var tables = candidates.stream().filter(AddressLookupTable::isActive).toList();
+    final int numWords = (tables.size() + 63) >>> 6;
+    final var tablesByAddress = new HashMap<PublicKey, long[]>();
+    for (int t = 0; t < tables.size(); ++t) {
+      final var table = tables.get(t);
+      for (int i = 0, numAccounts = table.numAccounts(); i < numAccounts; ++i) {
+        final long[] bits = tablesByAddress.computeIfAbsent(table.account(i), _ -> new long[numWords]);
+        bits[t >>> 6] |= 1L << t;
+      }
+    }
+    return new LookupTableSelectorImpl(tables, numWords, Map.copyOf(tablesByAddress));
+  }
+
+  @Override
+  public List<AddressLookupTable> candidates() {
+    return candidates;
+  }
+
+  // The fee payer, signers and invoked programs must be static keys, everything else may be indexed.
+  private List<long[]> indexableKeys(final PublicKey feePayer, final List<Instruction> instructions) {
+    final var staticKeys = new HashSet<PublicKey>();
+    staticKeys.add(feePayer);
+    final var keys = new LinkedHashMap<PublicKey, long[]>();
+    for (final var instruction : instructions) {
+      staticKeys.add(instruction.programId().publicKey());
+      for (final var account : instruction.accounts()) {
+        final var publicKey = account.publicKey();
+        if (account.signer()) {
+          staticKeys.add(publicKey);
+        } else {
+          final long[] tables = tablesByAddress.get(publicKey);
+          if (tables != null) {
+            keys.putIfAbsent(publicKey, tables);
+          }
+        }
+      }
+    }
+    keys.keySet().removeAll(staticKeys);
+    return new ArrayList<>(keys.values());
+  }
+
+  private int[] selectIndexes(final PublicKey feePayer, final List<Instruction> instructions) {
+    final var keys = indexableKeys(feePayer, instructions);
+    final int numTables = candidates.size();
+    final int[] coverage = new int[numTables];
+    final long[] selected = new long[numWords];
+    int[] selection = new int[4];
+    int numSelected = 0;
+    for (; ; ) {
+      Arrays.fill(coverage, 0);
+      for (final long[] tables : keys) {
+        for (int w = 0; w < numWords; ++w) {
+          for (long bits = tables[w]; bits != 0; bits &= bits - 1) {
+            ++coverage[(w << 6) + Long.numberOfTrailingZeros(bits)];
+          }
+        }
+      }
+      int best = -1;
+      int bestSavings = 0;
+      for (int t = 0; t < numTables; ++t) {
+        final int savings = (coverage[t] * KEY_SAVINGS) - TABLE_OVERHEAD;
+        if (savings > bestSavings) {
+          best = t;
+          bestSavings = savings;
+        }
+      }
+      if (best < 0) {
+        return Arrays.copyOf(selection, numSelected);
+      }
+      if (numSelected == selection.length) {
+        selection = Arrays.copyOf(selection, numSelected << 1);
+      }
+      selection[numSelected++] = best;
+      selected[best >>> 6] |= 1L << best;
+      // Drop the keys now covered by a selected table.
+      keys.removeIf(tables -> {
+        for (int w = 0; w < numWords; ++w) {
+          if ((tables[w] & selected[w]) != 0) {
+            return true;
+          }
+        }
+        return false;
+      });
+    }
+  }
+
+  @Override
+  public List<AddressLookupTable> selectTables(final PublicKey feePayer, final List<Instruction> instructions) {
+    final int[] selection = selectIndexes(feePayer, instructions);
+    final var tables = new AddressLookupTable[selection.length];
+    for (int i = 0; i < selection.length; ++i) {
+      tables[i] = candidates.get(selection[i]);
+    }
+    return List.of(tables);
+  }
+
+  @Override
+  public LookupTableAccountMeta[] select(final PublicKey feePayer, final List<Instruction> instructions) {
+    final int[] selection = selectIndexes(feePayer, instructions);
+    if (selection.length == 0) {
+      return NO_TABLES;
+    }
+    final var tableAccountMetas = new LookupTableAccountMeta[selection.length];
+    for (int i = 0; i < selection.length; ++i) {
+      final var table = candidates.get(selection[i]);
+      tableAccountMetas[i] = LookupTableAccountMeta.createMeta(table, table.numAccounts());
+    }
+    return tableAccountMetas;
+  }
+}
@@ -4,6 +4,7 @@ import software.sava.core.accounts.*;
 import software.sava.core.accounts.lookup.AddressLookupTable;
 import software.sava.core.accounts.meta.AccountMeta;
 import software.sava.core.accounts.meta.LookupTableAccountMeta;
+import software.sava.core.accounts.sysvar.Clock;
 import software.sava.core.accounts.token.TokenAccount;
 import software.sava.core.tx.Instruction;
 import software.sava.core.tx.Transaction;
@@ -11,20 +12,31 @@ import software.sava.rpc.json.http.client.SolanaRpcClient;
 import software.sava.rpc.json.http.response.AccountInfo;
 import software.sava.solana.programs.stake.StakeAccount;
 import software.sava.solana.programs.stake.StakeAuthorize;
+import software.sava.solana.programs.stake.StakeMergePlanner;
 import software.sava.solana.programs.stake.StakeState;
 import software.sava.solana.programs.token.AssociatedTokenProgram;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.MAX_COMPUTE_BUDGET;
+
 public interface NativeProgramAccountClient {
 
   static NativeProgramAccountClient createClient(final SolanaAccounts accounts,
                                                  final PublicKey owner,
-                                                 final AccountMeta feePayer) {
+                                                 final AccountMeta feePayer,
+                                                 final PriorityFeeOracle priorityFeeOracle) {
     final var nativeClient = NativeProgramClient.createClient(accounts);
-    return new NativeProgramAccountClientImpl(nativeClient, owner, feePayer);
+    return nativeClient.createAccountClient(owner, feePayer, priorityFeeOracle);
+  }
+
+  static NativeProgramAccountClient createClient(final SolanaAccounts accounts,
+                                                 final PublicKey owner,
+                                                 final AccountMeta feePayer) {
+    return createClient(accounts, owner, feePayer, PriorityFeeOracle.NONE);
   }
 
   static NativeProgramAccountClient createClient(final SolanaAccounts accounts, final AccountMeta ownerAndFeePayer) {
@@ -85,6 +97,10 @@ public interface NativeProgramAccountClient {
 
   NativeProgramClient nativeProgramClient();
 
+  PriorityFeeOracle priorityFeeOracle();
+
+  TransactionPacker transactionPacker();
+
   Transaction createTransaction(final PublicKey feePayer,
                                 final int computeUnitLimit,
                                 final long microLamportComputeUnitPrice,
@@ -167,6 +183,79 @@ public interface NativeProgramAccountClient {
                                 final List<Instruction> instructions,
                                 final LookupTableAccountMeta[] tableAccountMetas);
 
+  // References only the candidate tables which reduce the serialized size, a legacy transaction if none do.
+  default Transaction createTransaction(final int computeUnitLimit,
+                                        final long microLamportComputeUnitPrice,
+                                        final List<Instruction> instructions,
+                                        final LookupTableSelector lookupTableSelector) {
+    final var tableAccountMetas = lookupTableSelector.select(feePayer().publicKey(), instructions);
+    return tableAccountMetas.length == 0
+        ? createTransaction(computeUnitLimit, microLamportComputeUnitPrice, instructions)
+        : createTransaction(computeUnitLimit, microLamportComputeUnitPrice, instructions, tableAccountMetas);
+  }
+
+  default Transaction createTransaction(final List<Instruction> instructions,
+                                        final LookupTableSelector lookupTableSelector) {
+    final var tableAccountMetas = lookupTableSelector.select(feePayer().publicKey(), instructions);
+    return tableAccountMetas.length == 0
+        ? createTransaction(instructions)
+        : createTransaction(instructions, tableAccountMetas);
+  }
+
+  // Priced by priorityFeeOracle() from the accounts write locked by the instructions.
+  default Transaction createPrioritizedTransaction(final int computeUnitLimit, final List<Instruction> instructions) {
+    final long price = priorityFeeOracle().microLamportComputeUnitPrice(instructions);
+    return createTransaction(computeUnitLimit, price, instructions);
+  }
+
+  default Transaction createPrioritizedTransaction(final int computeUnitLimit, final Instruction instruction) {
+    final long price = priorityFeeOracle().microLamportComputeUnitPrice(instruction);
+    return createTransaction(computeUnitLimit, price, instruction);
+  }
+
+  default Transaction createPrioritizedTransaction(final int computeUnitLimit,
+                                                   final List<Instruction> instructions,
+                                                   final AddressLookupTable lookupTable) {
+    final long price = priorityFeeOracle().microLamportComputeUnitPrice(instructions);
+    return createTransaction(computeUnitLimit, price, instructions, lookupTable);
+  }
+
+  default Transaction createPrioritizedTransaction(final int computeUnitLimit,
+                                                   final List<Instruction> instructions,
+                                                   final LookupTableAccountMeta[] tableAccountMetas) {
+    final long price = priorityFeeOracle().microLamportComputeUnitPrice(instructions);
+    return createTransaction(computeUnitLimit, price, instructions, tableAccountMetas);
+  }
+
+  // Packs the instructions into the fewest transactions, each with an estimated compute unit limit and a price
+  // from priorityFeeOracle().  Packers without an estimator request the maximum compute budget.
+  default List<Transaction> packTransactions(final TransactionPacker packer,
+                                             final List<Instruction> instructions,
+                                             final AddressLookupTable lookupTable) {
+    final var computeUnitEstimator = packer.computeUnitEstimator();
+    final var batches = packer.pack(instructions, lookupTable);
+    final var transactions = new ArrayList<Transaction>(batches.size());
+    for (final var batch : batches) {
+      final int computeUnitLimit = computeUnitEstimator == null
+          ? MAX_COMPUTE_BUDGET
+          : computeUnitEstimator.computeUnitLimit(batch);
+      final long price = priorityFeeOracle().microLamportComputeUnitPrice(batch);
+      transactions.add(lookupTable == null
+          ? createTransaction(computeUnitLimit, price, batch)
+          : createTransaction(computeUnitLimit, price, batch, lookupTable));
+    }
+    return transactions;
+  }
+
+  default List<Transaction> packTransactions(final List<Instruction> instructions,
+                                             final AddressLookupTable lookupTable) {
+    return packTransactions(transactionPacker(), instructions, lookupTable);
+  }
+
+  default List<Transaction> packTransactions(final List<Instruction> instructions) {
+    return packTransactions(transactionPacker(), instructions, null);
+  }
+
   ProgramDerivedAddress findATA(final PublicKey mint);
 
   ProgramDerivedAddress findATA(final PublicKey tokenProgram, final PublicKey mint);
@@ -222,6 +311,17 @@ public interface NativeProgramAccountClient {
     return fetchStakeAccountsByWithdrawAuthority(rpcClient, StakeState.Stake);
   }
 
+  // Merges every group of compatible stake accounts, packed into as few transactions as possible.  The stake
+  // authority of the accounts must sign.
+  default List<Transaction> consolidateStakeAccounts(final StakeMergePlanner planner,
+                                                     final Collection<AccountInfo<StakeAccount>> stakeAccounts,
+                                                     final Clock clock) {
+    final var mergeGroups = planner.plan(stakeAccounts, clock);
+    return mergeGroups.isEmpty()
+        ? List.of()
+        : packTransactions(nativeProgramClient().mergeStakeAccountGroups(mergeGroups));
+  }
+
   CompletableFuture<List<AccountInfo<AddressLookupTable>>> fetchLookupTableAccountsByAuthority(final SolanaRpcClient rpcClient);
 
   Instruction createStakeAccount(final PublicKey newAccountPublicKey, final long lamports);
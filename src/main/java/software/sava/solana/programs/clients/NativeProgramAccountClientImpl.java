@@ -13,6 +13,7 @@ import software.sava.core.tx.Transaction;
 import software.sava.rpc.json.http.client.SolanaRpcClient;
 import software.sava.rpc.json.http.response.AccountInfo;
 import software.sava.solana.programs.address_lookup_table.AddressLookupTableProgram;
+import software.sava.solana.programs.compute_budget.ComputeUnitEstimator;
 import software.sava.solana.programs.stake.StakeAccount;
 import software.sava.solana.programs.stake.StakeAuthorize;
 import software.sava.solana.programs.stake.StakeState;
@@ -33,16 +34,25 @@ final class NativeProgramAccountClientImpl implements NativeProgramAccountClient
   private final AccountMeta feePayer;
   private final PublicKey feePayerPublicKey;
   private final ProgramDerivedAddress wrappedSolPDA;
+  private final PriorityFeeOracle priorityFeeOracle;
+  private final TransactionPacker transactionPacker;
 
   NativeProgramAccountClientImpl(final NativeProgramClient nativeProgramClient,
                                  final PublicKey owner,
-                                 final AccountMeta feePayer) {
+                                 final AccountMeta feePayer,
+                                 final PriorityFeeOracle priorityFeeOracle) {
     this.solanaAccounts = nativeProgramClient.accounts();
     this.nativeProgramClient = nativeProgramClient;
     this.owner = owner;
     this.feePayer = feePayer;
     this.feePayerPublicKey = feePayer.publicKey();
     this.wrappedSolPDA = findATA(solanaAccounts.wrappedSolTokenMint());
+    this.priorityFeeOracle = priorityFeeOracle;
+    this.transactionPacker = TransactionPacker.createPacker(
+        feePayer,
+        solanaAccounts.invokedComputeBudgetProgram(),
+        ComputeUnitEstimator.createEstimator(solanaAccounts, ComputeUnitEstimator.DEFAULT_MARGIN)
+    );
   }
 
   @Override
@@ -70,6 +80,16 @@ final class NativeProgramAccountClientImpl implements NativeProgramAccountClient
     return nativeProgramClient;
   }
 
+  @Override
+  public PriorityFeeOracle priorityFeeOracle() {
+    return priorityFeeOracle;
+  }
+
+  @Override
+  public TransactionPacker transactionPacker() {
+    return transactionPacker;
+  }
+
   @Override
   public Transaction createTransaction(final PublicKey feePayer,
                                        final int computeUnitLimit,
@@ -6,23 +6,33 @@ import software.sava.core.accounts.SolanaAccounts;
 import software.sava.core.accounts.lookup.AddressLookupTable;
 import software.sava.core.accounts.meta.AccountMeta;
 import software.sava.core.accounts.sysvar.Clock;
+import software.sava.core.rpc.Filter;
 import software.sava.core.tx.Instruction;
 import software.sava.rpc.json.http.client.SolanaRpcClient;
 import software.sava.rpc.json.http.response.AccountInfo;
 import software.sava.solana.programs.stake.LockUp;
 import software.sava.solana.programs.stake.StakeAccount;
 import software.sava.solana.programs.stake.StakeAuthorize;
+import software.sava.solana.programs.stake.StakeDelegation;
+import software.sava.solana.programs.stake.StakeDelegationColumns;
+import software.sava.solana.programs.stake.StakeMergePlanner;
 import software.sava.solana.programs.stake.StakeState;
 
+import java.net.URI;
+import java.net.http.HttpClient;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 public interface NativeProgramClient {
 
+  DataSlice STAKE_DELEGATION_SLICE = new DataSlice(StakeDelegation.SLICE_OFFSET, StakeDelegation.SLICE_LENGTH);
+
   static NativeProgramClient createClient(final SolanaAccounts programs) {
     return new NativeProgramClientImpl(programs);
   }
@@ -41,8 +51,16 @@ public interface NativeProgramClient {
 
   NativeProgramAccountClient createAccountClient(final PublicKey owner, final AccountMeta feePayer);
 
+  NativeProgramAccountClient createAccountClient(final PublicKey owner,
+                                                 final AccountMeta feePayer,
+                                                 final PriorityFeeOracle priorityFeeOracle);
+
   CompletableFuture<AccountInfo<Clock>> fetchClockSysVar(final SolanaRpcClient rpcClient);
 
+  default CompletableFuture<AccountInfo<Clock>> fetchClockSysVar(final AccountFetcher accountFetcher) {
+    return accountFetcher.fetch(accounts().clockSysVar(), Clock.FACTORY);
+  }
+
   Instruction computeUnitLimit(final int computeUnitLimit);
 
   Instruction computeUnitPrice(final long computeUnitPrice);
@@ -123,6 +141,55 @@ public interface NativeProgramClient {
     return fetchStakeAccountsForValidatorAndStakeAndWithdrawAuthority(rpcClient, StakeState.Stake, voteAccount, withdrawAuthority);
   }
 
+  // Whole program scan of stake accounts, split into shards on the prefix offset of the scan.
+  default CompletableFuture<ShardedProgramAccountsScan.Result<StakeAccount>> scanStakeAccounts(final ShardedProgramAccountsScan scan,
+                                                                                              final StakeState stakeState) {
+    final var filters = stakeState == null
+        ? List.of(StakeAccount.DATA_SIZE_FILTER)
+        : List.of(StakeAccount.DATA_SIZE_FILTER, StakeAccount.createStateFilter(stakeState));
+    return scan.scan(accounts().stakeProgram(), filters, StakeAccount.FACTORY);
+  }
+
+  CompletableFuture<Long> streamStakeAccounts(final HttpClient httpClient,
+                                              final URI rpcEndpoint,
+                                              final Collection<Filter> filters,
+                                              final Consumer<ProgramAccount<StakeAccount>> consumer);
+
+  // Streams only the delegation slice of each stake account, 56 of its 200 bytes.
+  default CompletableFuture<Long> streamStakeDelegations(final HttpClient httpClient,
+                                                         final URI rpcEndpoint,
+                                                         final Collection<Filter> filters,
+                                                         final Consumer<ProgramAccount<StakeDelegation>> consumer) {
+    return ProgramAccountsStream.forEach(
+        httpClient, rpcEndpoint,
+        accounts().stakeProgram(), filters, STAKE_DELEGATION_SLICE,
+        StakeDelegation.FACTORY, consumer
+    );
+  }
+
+  // Appends each delegation slice to the columns, which must not be read until the returned future completes.
+  default CompletableFuture<Long> streamStakeDelegations(final HttpClient httpClient,
+                                                         final URI rpcEndpoint,
+                                                         final Collection<Filter> filters,
+                                                         final StakeDelegationColumns columns) {
+    return ProgramAccountsStream.forEachData(
+        httpClient, rpcEndpoint,
+        accounts().stakeProgram(), filters, STAKE_DELEGATION_SLICE,
+        columns::add
+    );
+  }
+
+  Flow.Publisher<ProgramAccount<StakeAccount>> publishStakeAccounts(final HttpClient httpClient,
+                                                                    final URI rpcEndpoint,
+                                                                    final Collection<Filter> filters,
+                                                                    final int maxBufferedAccounts);
+
+  default Flow.Publisher<ProgramAccount<StakeAccount>> publishStakeAccounts(final HttpClient httpClient,
+                                                                            final URI rpcEndpoint,
+                                                                            final Collection<Filter> filters) {
+    return publishStakeAccounts(httpClient, rpcEndpoint, filters, ProgramAccountsStream.DEFAULT_MAX_BUFFERED_ACCOUNTS);
+  }
+
   CompletableFuture<List<AccountInfo<AddressLookupTable>>> fetchLookupTableAccountsByAuthority(final SolanaRpcClient rpcClient,
                                                                                                final PublicKey authority);
 
@@ -358,6 +425,17 @@ public interface NativeProgramClient {
         .toList();
   }
 
+  default List<Instruction> mergeStakeAccounts(final StakeMergePlanner.MergeGroup mergeGroup) {
+    return mergeStakeAccountInfosInto(mergeGroup.destination().data(), mergeGroup.sources());
+  }
+
+  default List<Instruction> mergeStakeAccountGroups(final Collection<StakeMergePlanner.MergeGroup> mergeGroups) {
+    return mergeGroups.stream()
+        .map(this::mergeStakeAccounts)
+        .flatMap(List::stream)
+        .toList();
+  }
+
   Instruction withdrawStakeAccount(final StakeAccount stakeAccount,
                                    final PublicKey recipient,
                                    final long lamports);
@@ -14,26 +14,37 @@ import software.sava.solana.programs.stake.*;
 import software.sava.solana.programs.system.SystemProgram;
 import software.sava.solana.programs.token.TokenProgram;
 
+import java.net.URI;
+import java.net.http.HttpClient;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 import static software.sava.core.rpc.Filter.createMemCompFilter;
-import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.setComputeUnitLimit;
-import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.setComputeUnitPrice;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.INSTRUCTION_CACHE;
 import static software.sava.solana.programs.stake.StakeAccount.*;
 
 record NativeProgramClientImpl(SolanaAccounts accounts) implements NativeProgramClient {
 
   @Override
   public NativeProgramAccountClient createAccountClient(final AccountMeta ownerAndFeePayer) {
-    return new NativeProgramAccountClientImpl(this, ownerAndFeePayer.publicKey(), ownerAndFeePayer);
+    return createAccountClient(ownerAndFeePayer.publicKey(), ownerAndFeePayer);
   }
 
   @Override
   public NativeProgramAccountClient createAccountClient(final PublicKey owner, final AccountMeta feePayer) {
-    return new NativeProgramAccountClientImpl(this, owner, feePayer);
+    return createAccountClient(owner, feePayer, PriorityFeeOracle.NONE);
+  }
+
+  @Override
+  public NativeProgramAccountClient createAccountClient(final PublicKey owner,
+                                                        final AccountMeta feePayer,
+                                                        final PriorityFeeOracle priorityFeeOracle) {
+    return new NativeProgramAccountClientImpl(this, owner, feePayer, priorityFeeOracle);
   }
 
   @Override
@@ -43,12 +54,12 @@ record NativeProgramClientImpl(SolanaAccounts accounts) implements NativeProgram
 
   @Override
   public Instruction computeUnitLimit(final int computeUnitLimit) {
-    return setComputeUnitLimit(accounts.invokedComputeBudgetProgram(), computeUnitLimit);
+    return INSTRUCTION_CACHE.computeUnitLimit(accounts.invokedComputeBudgetProgram(), computeUnitLimit);
   }
 
   @Override
   public Instruction computeUnitPrice(final long computeUnitPrice) {
-    return setComputeUnitPrice(accounts.invokedComputeBudgetProgram(), computeUnitPrice);
+    return INSTRUCTION_CACHE.computeUnitPrice(accounts.invokedComputeBudgetProgram(), computeUnitPrice);
   }
 
   @Override
@@ -155,6 +166,30 @@ record NativeProgramClientImpl(SolanaAccounts accounts) implements NativeProgram
     ));
   }
 
+  @Override
+  public CompletableFuture<Long> streamStakeAccounts(final HttpClient httpClient,
+                                                     final URI rpcEndpoint,
+                                                     final Collection<Filter> filters,
+                                                     final Consumer<ProgramAccount<StakeAccount>> consumer) {
+    return ProgramAccountsStream.forEach(
+        httpClient, rpcEndpoint,
+        accounts.stakeProgram(), filters,
+        StakeAccount.FACTORY, consumer
+    );
+  }
+
+  @Override
+  public Flow.Publisher<ProgramAccount<StakeAccount>> publishStakeAccounts(final HttpClient httpClient,
+                                                                           final URI rpcEndpoint,
+                                                                           final Collection<Filter> filters,
+                                                                           final int maxBufferedAccounts) {
+    return ProgramAccountsStream.publisher(
+        httpClient, rpcEndpoint,
+        accounts.stakeProgram(), filters,
+        StakeAccount.FACTORY, maxBufferedAccounts
+    );
+  }
+
   @Override
   public CompletableFuture<List<AccountInfo<AddressLookupTable>>> fetchLookupTableAccountsByAuthority(final SolanaRpcClient rpcClient, final PublicKey authority) {
     final var filters = List.of(createMemCompFilter(AddressLookupTable.AUTHORITY_OFFSET, authority));
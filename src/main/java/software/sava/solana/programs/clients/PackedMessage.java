@@ -0,0 +1,155 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+
+import java.util.HashMap;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.tx.Transaction.BLOCK_HASH_LENGTH;
+import static software.sava.core.tx.Transaction.SIGNATURE_LENGTH;
+
+// Tracks the serialized size and account usage of a transaction message as instructions are appended, without
+// serializing the message.
+final class PackedMessage {
+
+  private static final int SIGNER = 1;
+  private static final int WRITE = 1 << 1;
+  private static final int INVOKED = 1 << 2;
+
+  private static final int MESSAGE_HEADER_LENGTH = 3;
+  private static final int SET_COMPUTE_UNIT_LIMIT_LENGTH = 1 + 1 + 1 + 5;
+  private static final int SET_COMPUTE_UNIT_PRICE_LENGTH = 1 + 1 + 1 + 9;
+
+  private static final class Key {
+
+    private final PublicKey publicKey;
+    private final boolean inLookupTable;
+    private int flags;
+
+    private Key(final PublicKey publicKey, final boolean inLookupTable) {
+      this.publicKey = publicKey;
+      this.inLookupTable = inLookupTable;
+    }
+
+    // Signers and invoked programs must be static keys.
+    private boolean lookup() {
+      return inLookupTable && (flags & (SIGNER | INVOKED)) == 0;
+    }
+  }
+
+  private final AccountMeta feePayer;
+  private final AccountMeta invokedComputeBudgetProgram;
+  private final AddressLookupTable lookupTable;
+  private final HashMap<PublicKey, Key> keys;
+
+  private int numSigners;
+  private int numStaticKeys;
+  private int numLookupWritable;
+  private int numLookupReadOnly;
+  private int numInstructions;
+  private int instructionBytes;
+  private long computeUnits;
+
+  PackedMessage(final AccountMeta feePayer,
+                final AccountMeta invokedComputeBudgetProgram,
+                final AddressLookupTable lookupTable) {
+    this.feePayer = feePayer;
+    this.invokedComputeBudgetProgram = invokedComputeBudgetProgram;
+    this.lookupTable = lookupTable;
+    this.keys = HashMap.newHashMap(64);
+    reset();
+  }
+
+  static int compactU16Length(final int value) {
+    return value < 0x80 ? 1 : value < 0x4000 ? 2 : 3;
+  }
+
+  private static int instructionLength(final int numAccounts, final int dataLength) {
+    return 1 + compactU16Length(numAccounts) + numAccounts + compactU16Length(dataLength) + dataLength;
+  }
+
+  void reset() {
+    keys.clear();
+    numSigners = 0;
+    numStaticKeys = 0;
+    numLookupWritable = 0;
+    numLookupReadOnly = 0;
+    numInstructions = 0;
+    instructionBytes = 0;
+    computeUnits = 0;
+    merge(feePayer.publicKey(), SIGNER | WRITE);
+    if (invokedComputeBudgetProgram != null) {
+      merge(invokedComputeBudgetProgram.publicKey(), INVOKED);
+      numInstructions = 2;
+      instructionBytes = SET_COMPUTE_UNIT_LIMIT_LENGTH + SET_COMPUTE_UNIT_PRICE_LENGTH;
+    }
+  }
+
+  private void count(final Key key, final int sign) {
+    if ((key.flags & SIGNER) != 0) {
+      numSigners += sign;
+    }
+    if (!key.lookup()) {
+      numStaticKeys += sign;
+    } else if ((key.flags & WRITE) != 0) {
+      numLookupWritable += sign;
+    } else {
+      numLookupReadOnly += sign;
+    }
+  }
+
+  private void merge(final PublicKey publicKey, final int flags) {
+    var key = keys.get(publicKey);
+    if (key == null) {
+      key = new Key(publicKey, lookupTable != null && lookupTable.indexOf(publicKey) >= 0);
+      keys.put(publicKey, key);
+      key.flags = flags;
+      count(key, 1);
+    } else if ((key.flags | flags) != key.flags) {
+      count(key, -1);
+      key.flags |= flags;
+      count(key, 1);
+    }
+  }
+
+  void append(final Instruction instruction, final int computeUnits) {
+    merge(instruction.programId().publicKey(), INVOKED);
+    final var accounts = instruction.accounts();
+    for (final var account : accounts) {
+      merge(account.publicKey(), (account.signer() ? SIGNER : 0) | (account.write() ? WRITE : 0));
+    }
+    ++numInstructions;
+    instructionBytes += instructionLength(accounts.size(), instruction.len());
+    this.computeUnits += computeUnits;
+  }
+
+  int serializedLength() {
+    int length = compactU16Length(numSigners) + (numSigners * SIGNATURE_LENGTH)
+        + MESSAGE_HEADER_LENGTH
+        + compactU16Length(numStaticKeys) + (numStaticKeys * PUBLIC_KEY_LENGTH)
+        + BLOCK_HASH_LENGTH
+        + compactU16Length(numInstructions) + instructionBytes;
+    if (lookupTable != null) {
+      // Version prefix and the table lookup, counted even if no key is resolved through the table.
+      length += 1 + compactU16Length(1) + PUBLIC_KEY_LENGTH
+          + compactU16Length(numLookupWritable) + numLookupWritable
+          + compactU16Length(numLookupReadOnly) + numLookupReadOnly;
+    }
+    return length;
+  }
+
+  int numAccounts() {
+    return numStaticKeys + numLookupWritable + numLookupReadOnly;
+  }
+
+  int numSigners() {
+    return numSigners;
+  }
+
+  long computeUnits() {
+    return computeUnits;
+  }
+}
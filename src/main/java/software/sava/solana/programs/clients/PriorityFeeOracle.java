@@ -0,0 +1,57 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.tx.Instruction;
+
+import java.util.Collection;
+import java.util.List;
+
+// Supplies the micro-lamport compute unit price for a transaction based on the accounts it write locks.
+public interface PriorityFeeOracle {
+
+  PriorityFeeOracle NONE = createFixed(0);
+
+  int DEFAULT_WINDOW_SLOTS = 150;
+  double DEFAULT_PERCENTILE = 0.75;
+  int DEFAULT_MAX_TRACKED_ACCOUNTS = 1 << 12;
+
+  static PriorityFeeOracle createFixed(final long microLamportComputeUnitPrice) {
+    return new FixedPriorityFeeOracle(microLamportComputeUnitPrice);
+  }
+
+  // Prices a transaction at the highest configured percentile of recent fees paid by transactions write locking any
+  // of the same accounts, falling back to all recorded fees.  The result is clamped to [min, max].  Once
+  // maxTrackedAccounts are tracked, the accounts which have gone longest without a record are evicted to make room.
+  static PriorityFeeOracle createSlidingWindow(final int windowSlots,
+                                               final double percentile,
+                                               final long minMicroLamports,
+                                               final long maxMicroLamports,
+                                               final int maxTrackedAccounts) {
+    return new SlidingWindowPriorityFeeOracle(windowSlots, percentile, minMicroLamports, maxMicroLamports, maxTrackedAccounts);
+  }
+
+  static PriorityFeeOracle createSlidingWindow(final long minMicroLamports, final long maxMicroLamports) {
+    return createSlidingWindow(
+        DEFAULT_WINDOW_SLOTS,
+        DEFAULT_PERCENTILE,
+        minMicroLamports,
+        maxMicroLamports,
+        DEFAULT_MAX_TRACKED_ACCOUNTS
+    );
+  }
+
+  // Feed of observed prioritization fees, from a local block feed or replayed data.
+  void record(final long slot, final Collection<PublicKey> writableAccounts, final long microLamportComputeUnitPrice);
+
+  default void record(final long slot, final PublicKey writableAccount, final long microLamportComputeUnitPrice) {
+    record(slot, List.of(writableAccount), microLamportComputeUnitPrice);
+  }
+
+  long microLamportComputeUnitPrice(final Collection<PublicKey> writableAccounts);
+
+  long microLamportComputeUnitPrice(final List<Instruction> instructions);
+
+  default long microLamportComputeUnitPrice(final Instruction instruction) {
+    return microLamportComputeUnitPrice(List.of(instruction));
+  }
+}
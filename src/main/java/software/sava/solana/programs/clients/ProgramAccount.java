@@ -0,0 +1,6 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+
+public record ProgramAccount<T>(PublicKey pubKey, long lamports, PublicKey owner, T data) {
+}
@@ -0,0 +1,268 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.rpc.Filter;
+import systems.comodal.jsoniter.JsonIterator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Decodes getProgramAccounts responses while they are being received, each account is handed off as soon as its
+// JSON object has been parsed.  Peak memory is bounded by the read buffer plus any accounts buffered downstream,
+// rather than by the size of the full response.
+public final class ProgramAccountsStream {
+
+  public static final int DEFAULT_READ_BUFFER_SIZE = 1 << 16;
+  public static final int DEFAULT_MAX_BUFFERED_ACCOUNTS = 1 << 10;
+
+  private static final Executor VIRTUAL_THREAD_EXECUTOR = Thread.ofVirtual().name("program-accounts-stream-", 0)::start;
+
+  static HttpRequest createRequest(final URI endpoint,
+                                   final PublicKey programId,
+                                   final Collection<Filter> filters,
+                                   final DataSlice dataSlice) {
+    final var filtersJson = filters == null || filters.isEmpty()
+        ? ""
+        : filters.stream().map(Filter::toJson).collect(Collectors.joining(",", ",\"filters\":[", "]"));
+    final var dataSliceJson = dataSlice == null ? "" : ",\"dataSlice\":" + dataSlice.toJson();
+    final var body = String.format("""
+            {"jsonrpc":"2.0","id":1,"method":"getProgramAccounts","params":["%s",{"encoding":"base64"%s%s}]}""",
+        programId.toBase58(), filtersJson, dataSliceJson
+    );
+    return HttpRequest.newBuilder(endpoint)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body, UTF_8))
+        .build();
+  }
+
+  static HttpRequest createRequest(final URI endpoint,
+                                   final PublicKey programId,
+                                   final Collection<Filter> filters) {
+    return createRequest(endpoint, programId, filters, null);
+  }
+
+  private interface ResponseParser {
+
+    long parse(final InputStream in) throws IOException;
+  }
+
+  private static CompletableFuture<Long> send(final HttpClient httpClient,
+                                              final HttpRequest request,
+                                              final ResponseParser parser) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        final var response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (final var in = response.body()) {
+          if (response.statusCode() != 200) {
+            throw new IllegalStateException(String.format(
+                "getProgramAccounts failed with status %d: %s",
+                response.statusCode(), new String(in.readAllBytes(), UTF_8)
+            ));
+          }
+          return parser.parse(in);
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }, VIRTUAL_THREAD_EXECUTOR);
+  }
+
+  // Invokes the consumer from a virtual thread as each account is decoded. A slow consumer slows down reading the
+  // response. Completes with the number of accounts decoded.  The factory only receives the sliced bytes if a
+  // dataSlice is given.
+  public static <T> CompletableFuture<Long> forEach(final HttpClient httpClient,
+                                                    final URI endpoint,
+                                                    final PublicKey programId,
+                                                    final Collection<Filter> filters,
+                                                    final DataSlice dataSlice,
+                                                    final BiFunction<PublicKey, byte[], T> factory,
+                                                    final Consumer<ProgramAccount<T>> consumer) {
+    final var request = createRequest(endpoint, programId, filters, dataSlice);
+    return send(httpClient, request, in -> parse(in, factory, consumer));
+  }
+
+  // Hands only the account data, sliced if a dataSlice is given, to the sink.  The address and owner are skipped
+  // rather than decoded and no ProgramAccount is built, for sinks which append to columns.
+  public static CompletableFuture<Long> forEachData(final HttpClient httpClient,
+                                                    final URI endpoint,
+                                                    final PublicKey programId,
+                                                    final Collection<Filter> filters,
+                                                    final DataSlice dataSlice,
+                                                    final Consumer<byte[]> sink) {
+    final var request = createRequest(endpoint, programId, filters, dataSlice);
+    return send(httpClient, request, in -> parseData(in, sink));
+  }
+
+  public static <T> CompletableFuture<Long> forEach(final HttpClient httpClient,
+                                                    final URI endpoint,
+                                                    final PublicKey programId,
+                                                    final Collection<Filter> filters,
+                                                    final BiFunction<PublicKey, byte[], T> factory,
+                                                    final Consumer<ProgramAccount<T>> consumer) {
+    return forEach(httpClient, endpoint, programId, filters, null, factory, consumer);
+  }
+
+  // Cold publisher, each subscription issues its own request.  Decoding blocks once maxBufferedAccounts are
+  // waiting on the subscriber, which in turn stops reading from the connection.  Cancelling the subscription aborts
+  // the request rather than decoding the remainder of the response.
+  public static <T> Flow.Publisher<ProgramAccount<T>> publisher(final HttpClient httpClient,
+                                                                final URI endpoint,
+                                                                final PublicKey programId,
+                                                                final Collection<Filter> filters,
+                                                                final DataSlice dataSlice,
+                                                                final BiFunction<PublicKey, byte[], T> factory,
+                                                                final int maxBufferedAccounts) {
+    return subscriber -> {
+      final var publisher = new SubmissionPublisher<ProgramAccount<T>>(VIRTUAL_THREAD_EXECUTOR, maxBufferedAccounts);
+      publisher.subscribe(subscriber);
+      final Consumer<ProgramAccount<T>> consumer = account -> {
+        // Throwing out of parse closes the response body, which cancels the exchange.
+        if (publisher.getNumberOfSubscribers() == 0) {
+          throw new CancellationException("Subscription cancelled.");
+        }
+        publisher.submit(account);
+      };
+      forEach(httpClient, endpoint, programId, filters, dataSlice, factory, consumer).whenComplete((_, throwable) -> {
+        if (throwable == null) {
+          publisher.close();
+        } else {
+          publisher.closeExceptionally(throwable);
+        }
+      });
+    };
+  }
+
+  public static <T> Flow.Publisher<ProgramAccount<T>> publisher(final HttpClient httpClient,
+                                                                final URI endpoint,
+                                                                final PublicKey programId,
+                                                                final Collection<Filter> filters,
+                                                                final BiFunction<PublicKey, byte[], T> factory,
+                                                                final int maxBufferedAccounts) {
+    return publisher(httpClient, endpoint, programId, filters, null, factory, maxBufferedAccounts);
+  }
+
+  public static <T> Flow.Publisher<ProgramAccount<T>> publisher(final HttpClient httpClient,
+                                                                final URI endpoint,
+                                                                final PublicKey programId,
+                                                                final Collection<Filter> filters,
+                                                                final BiFunction<PublicKey, byte[], T> factory) {
+    return publisher(httpClient, endpoint, programId, filters, factory, DEFAULT_MAX_BUFFERED_ACCOUNTS);
+  }
+
+  static <T> long parse(final InputStream in,
+                        final BiFunction<PublicKey, byte[], T> factory,
+                        final Consumer<ProgramAccount<T>> consumer) throws IOException {
+    return parseResult(in, ji -> consumer.accept(parseProgramAccount(ji, factory)));
+  }
+
+  static long parseData(final InputStream in, final Consumer<byte[]> sink) throws IOException {
+    return parseResult(in, ji -> sink.accept(parseAccountData(ji)));
+  }
+
+  private static long parseResult(final InputStream in, final Consumer<JsonIterator> accountParser) throws IOException {
+    try (final var ji = JsonIterator.parse(in, DEFAULT_READ_BUFFER_SIZE)) {
+      long numAccounts = 0;
+      for (String field; (field = ji.readObjField()) != null; ) {
+        if (field.equals("result")) {
+          while (ji.readArray()) {
+            accountParser.accept(ji);
+            ++numAccounts;
+          }
+        } else if (field.equals("error")) {
+          throw new IllegalStateException(parseError(ji));
+        } else {
+          ji.skip();
+        }
+      }
+      return numAccounts;
+    }
+  }
+
+  private static String parseError(final JsonIterator ji) {
+    long code = 0;
+    String message = null;
+    for (String field; (field = ji.readObjField()) != null; ) {
+      switch (field) {
+        case "code" -> code = ji.readLong();
+        case "message" -> message = ji.readString();
+        default -> ji.skip();
+      }
+    }
+    return String.format("getProgramAccounts failed with error %d: %s", code, message);
+  }
+
+  private static byte[] readData(final JsonIterator ji) {
+    ji.readArray();
+    final byte[] data = ji.decodeBase64String();
+    while (ji.readArray()) {
+      ji.skip();
+    }
+    return data;
+  }
+
+  private static byte[] parseAccountData(final JsonIterator ji) {
+    byte[] data = null;
+    for (String field; (field = ji.readObjField()) != null; ) {
+      if (field.equals("account")) {
+        for (String accountField; (accountField = ji.readObjField()) != null; ) {
+          if (accountField.equals("data")) {
+            data = readData(ji);
+          } else {
+            ji.skip();
+          }
+        }
+      } else {
+        ji.skip();
+      }
+    }
+    return data;
+  }
+
+  // The RPC serializes "account" before "pubkey", so the account fields are held until the object closes.
+  private static <T> ProgramAccount<T> parseProgramAccount(final JsonIterator ji,
+                                                           final BiFunction<PublicKey, byte[], T> factory) {
+    PublicKey pubKey = null;
+    PublicKey owner = null;
+    long lamports = 0;
+    byte[] data = null;
+    for (String field; (field = ji.readObjField()) != null; ) {
+      if (field.equals("pubkey")) {
+        pubKey = PublicKey.fromBase58Encoded(ji.readString());
+      } else if (field.equals("account")) {
+        for (String accountField; (accountField = ji.readObjField()) != null; ) {
+          switch (accountField) {
+            case "data" -> data = readData(ji);
+            case "lamports" -> lamports = ji.readLong();
+            case "owner" -> owner = PublicKey.fromBase58Encoded(ji.readString());
+            default -> ji.skip();
+          }
+        }
+      } else {
+        ji.skip();
+      }
+    }
+    return new ProgramAccount<>(pubKey, lamports, owner, factory.apply(pubKey, data));
+  }
+
+  private ProgramAccountsStream() {
+  }
+}
@@ -0,0 +1,90 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.rpc.Filter;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+// Splits a getProgramAccounts scan into disjoint shards by adding a memcmp filter on the leading 1 or 2 bytes of a key
+// field, such as StakeAccount.WITHDRAW_AUTHORITY_OFFSET.  Memcmp filters match whole bytes, so a scan always has 256 or
+// 65,536 shards.  Shards run on virtual threads, at most maxConcurrency at a time, and each is retried on its own.
+// Shards which still fail are reported rather than failing the whole scan.
+//
+// Pick a field which is well distributed for the accounts being scanned, unset keys, such as the voter of undelegated
+// stake accounts, all land in shard zero.
+public interface ShardedProgramAccountsScan {
+
+  // RPC nodes reject requests with more filters.
+  int MAX_FILTERS = 4;
+  int DEFAULT_MAX_CONCURRENCY = 8;
+  int DEFAULT_MAX_ATTEMPTS = 3;
+  Duration DEFAULT_RETRY_DELAY = Duration.ofMillis(250);
+
+  static ShardedProgramAccountsScan createScan(final SolanaRpcClient rpcClient,
+                                               final int prefixOffset,
+                                               final int prefixBytes,
+                                               final int maxConcurrency,
+                                               final int maxAttempts,
+                                               final Duration retryDelay) {
+    if (prefixBytes < 1 || prefixBytes > 2) {
+      throw new IllegalArgumentException("Prefix must be 1 or 2 bytes: " + prefixBytes);
+    } else if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("Concurrency must be positive: " + maxConcurrency);
+    } else if (maxAttempts < 1) {
+      throw new IllegalArgumentException("Attempts must be positive: " + maxAttempts);
+    }
+    return new ShardedProgramAccountsScanImpl(rpcClient, prefixOffset, prefixBytes, maxConcurrency, maxAttempts, retryDelay);
+  }
+
+  static ShardedProgramAccountsScan createScan(final SolanaRpcClient rpcClient, final int prefixOffset) {
+    return createScan(rpcClient, prefixOffset, 1, DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY);
+  }
+
+  // failedShards is sorted, errors holds the last failure of each.
+  record Result<T>(List<AccountInfo<T>> accounts, int[] failedShards, List<Throwable> errors) {
+
+    public boolean isComplete() {
+      return failedShards.length == 0;
+    }
+  }
+
+  SolanaRpcClient rpcClient();
+
+  int prefixOffset();
+
+  int numShards();
+
+  // The given filters plus the prefix filter of the shard.
+  List<Filter> shardFilters(final Collection<Filter> filters, final int shard);
+
+  // Invokes the consumer with the accounts of each shard as it completes, possibly concurrently from different
+  // virtual threads.
+  <T> CompletableFuture<Result<T>> forEach(final PublicKey programId,
+                                           final Collection<Filter> filters,
+                                           final BiFunction<PublicKey, byte[], T> factory,
+                                           final int[] shards,
+                                           final Consumer<List<AccountInfo<T>>> consumer);
+
+  // Accounts are in shard order.
+  <T> CompletableFuture<Result<T>> scan(final PublicKey programId,
+                                        final Collection<Filter> filters,
+                                        final BiFunction<PublicKey, byte[], T> factory,
+                                        final int[] shards);
+
+  <T> CompletableFuture<Result<T>> scan(final PublicKey programId,
+                                        final Collection<Filter> filters,
+                                        final BiFunction<PublicKey, byte[], T> factory);
+
+  // Re-runs the failed shards of a previous scan, merging their accounts into it.
+  <T> CompletableFuture<Result<T>> retry(final PublicKey programId,
+                                         final Collection<Filter> filters,
+                                         final BiFunction<PublicKey, byte[], T> factory,
+                                         final Result<T> previous);
+}
@@ -0,0 +1,215 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.rpc.Filter;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+final class ShardedProgramAccountsScanImpl implements ShardedProgramAccountsScan {
+
+  private static final Executor VIRTUAL_THREAD_EXECUTOR = Thread.ofVirtual().name("sharded-program-accounts-", 0)::start;
+
+  private interface ShardConsumer<T> {
+
+    void accept(final int index, final List<AccountInfo<T>> accounts);
+  }
+
+  private final SolanaRpcClient rpcClient;
+  private final int prefixOffset;
+  private final int prefixBytes;
+  private final int maxAttempts;
+  private final Duration retryDelay;
+  // Shared by all scans run through this instance.
+  private final Semaphore permits;
+
+  ShardedProgramAccountsScanImpl(final SolanaRpcClient rpcClient,
+                                 final int prefixOffset,
+                                 final int prefixBytes,
+                                 final int maxConcurrency,
+                                 final int maxAttempts,
+                                 final Duration retryDelay) {
+    this.rpcClient = rpcClient;
+    this.prefixOffset = prefixOffset;
+    this.prefixBytes = prefixBytes;
+    this.maxAttempts = maxAttempts;
+    this.retryDelay = retryDelay;
+    this.permits = new Semaphore(maxConcurrency);
+  }
+
+  @Override
+  public SolanaRpcClient rpcClient() {
+    return rpcClient;
+  }
+
+  @Override
+  public int prefixOffset() {
+    return prefixOffset;
+  }
+
+  @Override
+  public int numShards() {
+    return 1 << (prefixBytes << 3);
+  }
+
+  @Override
+  public List<Filter> shardFilters(final Collection<Filter> filters, final int shard) {
+    if (filters.size() >= MAX_FILTERS) {
+      throw new IllegalArgumentException(String.format(
+          "Sharding requires a free filter slot, %d of %d are used.", filters.size(), MAX_FILTERS
+      ));
+    }
+    final byte[] prefix = prefixBytes == 1
+        ? new byte[]{(byte) shard}
+        : new byte[]{(byte) (shard >>> 8), (byte) shard};
+    final var shardFilters = new ArrayList<Filter>(filters.size() + 1);
+    shardFilters.addAll(filters);
+    shardFilters.add(Filter.createMemCompFilter(prefixOffset, prefix));
+    return shardFilters;
+  }
+
+  private <T> CompletableFuture<List<AccountInfo<T>>> fetchShard(final PublicKey programId,
+                                                                  final Collection<Filter> filters,
+                                                                  final BiFunction<PublicKey, byte[], T> factory,
+                                                                  final int shard) {
+    final var shardFilters = shardFilters(filters, shard);
+    return CompletableFuture.supplyAsync(() -> {
+      for (int attempt = 1; ; ++attempt) {
+        try {
+          permits.acquire();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        }
+        try {
+          return rpcClient.getProgramAccounts(programId, shardFilters, factory).join();
+        } catch (final RuntimeException e) {
+          if (attempt >= maxAttempts) {
+            throw e;
+          }
+        } finally {
+          permits.release();
+        }
+        try {
+          Thread.sleep(retryDelay.multipliedBy(attempt));
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        }
+      }
+    }, VIRTUAL_THREAD_EXECUTOR);
+  }
+
+  private static Throwable unwrap(final Throwable throwable) {
+    return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+  }
+
+  // Completes with the error of each shard index, null for those which succeeded.
+  private <T> CompletableFuture<Throwable[]> run(final PublicKey programId,
+                                                final Collection<Filter> filters,
+                                                final BiFunction<PublicKey, byte[], T> factory,
+                                                final int[] shards,
+                                                final ShardConsumer<T> consumer) {
+    final var errors = new Throwable[shards.length];
+    final var futures = new CompletableFuture<?>[shards.length];
+    for (int i = 0; i < shards.length; ++i) {
+      final int index = i;
+      futures[i] = fetchShard(programId, filters, factory, shards[i])
+          .thenAccept(accounts -> consumer.accept(index, accounts))
+          .handle((_, throwable) -> {
+            if (throwable != null) {
+              errors[index] = unwrap(throwable);
+            }
+            return null;
+          });
+    }
+    return CompletableFuture.allOf(futures).thenApply(_ -> errors);
+  }
+
+  private static <T> Result<T> result(final List<AccountInfo<T>> accounts,
+                                      final int[] shards,
+                                      final Throwable[] errors) {
+    final int[] order = IntStream.range(0, shards.length)
+        .filter(i -> errors[i] != null)
+        .boxed()
+        .sorted((a, b) -> Integer.compare(shards[a], shards[b]))
+        .mapToInt(Integer::intValue)
+        .toArray();
+    final int[] failedShards = new int[order.length];
+    final var failures = new ArrayList<Throwable>(order.length);
+    for (int i = 0; i < order.length; ++i) {
+      failedShards[i] = shards[order[i]];
+      failures.add(errors[order[i]]);
+    }
+    return new Result<>(accounts, failedShards, failures);
+  }
+
+  @Override
+  public <T> CompletableFuture<Result<T>> forEach(final PublicKey programId,
+                                                  final Collection<Filter> filters,
+                                                  final BiFunction<PublicKey, byte[], T> factory,
+                                                  final int[] shards,
+                                                  final Consumer<List<AccountInfo<T>>> consumer) {
+    return run(programId, filters, factory, shards, (ShardConsumer<T>) (_, accounts) -> consumer.accept(accounts))
+        .thenApply(errors -> result(List.of(), shards, errors));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<Result<T>> scan(final PublicKey programId,
+                                               final Collection<Filter> filters,
+                                               final BiFunction<PublicKey, byte[], T> factory,
+                                               final int[] shards) {
+    final List<AccountInfo<T>>[] shardAccounts = new List[shards.length];
+    return run(programId, filters, factory, shards, (ShardConsumer<T>) (index, accounts) -> shardAccounts[index] = accounts)
+        .thenApply(errors -> {
+          int numAccounts = 0;
+          for (final var accounts : shardAccounts) {
+            if (accounts != null) {
+              numAccounts += accounts.size();
+            }
+          }
+          final var merged = new ArrayList<AccountInfo<T>>(numAccounts);
+          for (final var accounts : shardAccounts) {
+            if (accounts != null) {
+              merged.addAll(accounts);
+            }
+          }
+          return result(merged, shards, errors);
+        });
+  }
+
+  @Override
+  public <T> CompletableFuture<Result<T>> scan(final PublicKey programId,
+                                               final Collection<Filter> filters,
+                                               final BiFunction<PublicKey, byte[], T> factory) {
+    return scan(programId, filters, factory, IntStream.range(0, numShards()).toArray());
+  }
+
+  @Override
+  public <T> CompletableFuture<Result<T>> retry(final PublicKey programId,
+                                                final Collection<Filter> filters,
+                                                final BiFunction<PublicKey, byte[], T> factory,
+                                                final Result<T> previous) {
+    if (previous.isComplete()) {
+      return CompletableFuture.completedFuture(previous);
+    }
+    return scan(programId, filters, factory, previous.failedShards()).thenApply(retried -> {
+      final var merged = new ArrayList<AccountInfo<T>>(previous.accounts().size() + retried.accounts().size());
+      merged.addAll(previous.accounts());
+      merged.addAll(retried.accounts());
+      return new Result<>(merged, retried.failedShards(), retried.errors());
+    });
+  }
+}
@@ -0,0 +1,129 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.tx.Instruction;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class SlidingWindowPriorityFeeOracle implements PriorityFeeOracle {
+
+  private final long intervalSlots;
+  private final long windowSlots;
+  private final double percentile;
+  private final long minMicroLamports;
+  private final long maxMicroLamports;
+  private final int maxTrackedAccounts;
+  private final FeeHistogram allFees;
+  private final ConcurrentHashMap<PublicKey, FeeHistogram> accountFees;
+  private final AtomicLong latestSlot;
+  private final ReentrantLock evictionLock;
+
+  SlidingWindowPriorityFeeOracle(final int windowSlots,
+                                 final double percentile,
+                                 final long minMicroLamports,
+                                 final long maxMicroLamports,
+                                 final int maxTrackedAccounts) {
+    if (percentile <= 0 || percentile > 1) {
+      throw new IllegalArgumentException("Percentile must be within (0, 1]: " + percentile);
+    }
+    this.intervalSlots = Math.max(1, (windowSlots + FeeHistogram.NUM_INTERVALS - 1) / FeeHistogram.NUM_INTERVALS);
+    this.windowSlots = intervalSlots * FeeHistogram.NUM_INTERVALS;
+    this.percentile = percentile;
+    this.minMicroLamports = minMicroLamports;
+    this.maxMicroLamports = maxMicroLamports;
+    this.maxTrackedAccounts = maxTrackedAccounts;
+    this.allFees = new FeeHistogram(intervalSlots);
+    this.accountFees = new ConcurrentHashMap<>();
+    this.latestSlot = new AtomicLong();
+    this.evictionLock = new ReentrantLock();
+  }
+
+  // Drops every histogram which has not been recorded to within the window, or if all are live, those last recorded
+  // at the oldest slot.  Many accounts are written per slot, so a single sweep usually frees more than one entry.
+  private void evict() {
+    if (!evictionLock.tryLock()) {
+      return;
+    }
+    try {
+      if (accountFees.size() < maxTrackedAccounts) {
+        return;
+      }
+      final long windowStart = latestSlot.get() - windowSlots;
+      long oldest = Long.MAX_VALUE;
+      for (final var histogram : accountFees.values()) {
+        oldest = Math.min(oldest, histogram.lastSlot());
+      }
+      final long evictThrough = Math.max(windowStart, oldest);
+      accountFees.values().removeIf(histogram -> histogram.lastSlot() <= evictThrough);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private FeeHistogram histogram(final PublicKey account) {
+    final var histogram = accountFees.get(account);
+    if (histogram != null) {
+      return histogram;
+    } else if (accountFees.size() >= maxTrackedAccounts) {
+      evict();
+      if (accountFees.size() >= maxTrackedAccounts) {
+        return null;
+      }
+    }
+    return accountFees.computeIfAbsent(account, _ -> new FeeHistogram(intervalSlots));
+  }
+
+  @Override
+  public void record(final long slot,
+                     final Collection<PublicKey> writableAccounts,
+                     final long microLamportComputeUnitPrice) {
+    latestSlot.accumulateAndGet(slot, Math::max);
+    allFees.record(slot, microLamportComputeUnitPrice);
+    for (final var account : writableAccounts) {
+      final var histogram = histogram(account);
+      if (histogram != null) {
+        histogram.record(slot, microLamportComputeUnitPrice);
+      }
+    }
+  }
+
+  private long accountPrice(final PublicKey account, final long slot) {
+    final var histogram = accountFees.get(account);
+    return histogram == null ? -1 : histogram.percentile(percentile, slot);
+  }
+
+  private long clamp(long price, final long slot) {
+    if (price < 0) {
+      price = allFees.percentile(percentile, slot);
+    }
+    return Math.min(maxMicroLamports, Math.max(minMicroLamports, price));
+  }
+
+  @Override
+  public long microLamportComputeUnitPrice(final Collection<PublicKey> writableAccounts) {
+    final long slot = latestSlot.get();
+    long price = -1;
+    for (final var account : writableAccounts) {
+      price = Math.max(price, accountPrice(account, slot));
+    }
+    return clamp(price, slot);
+  }
+
+  @Override
+  public long microLamportComputeUnitPrice(final List<Instruction> instructions) {
+    final long slot = latestSlot.get();
+    long price = -1;
+    for (final var instruction : instructions) {
+      for (final var meta : instruction.accounts()) {
+        if (meta.write()) {
+          price = Math.max(price, accountPrice(meta.publicKey(), slot));
+        }
+      }
+    }
+    return clamp(price, slot);
+  }
+}
@@ -0,0 +1,58 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.compute_budget.ComputeUnitEstimator;
+
+import java.util.List;
+
+import static software.sava.core.tx.Transaction.MAX_SERIALIZED_LENGTH;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.MAX_COMPUTE_BUDGET;
+
+// Splits a sequence of instructions into the fewest consecutive batches which each fit in a single transaction,
+// accounting for the set compute unit limit and price instructions prepended by NativeProgramAccountClient.
+public interface TransactionPacker {
+
+  int MAX_ACCOUNT_LOCKS = 64;
+
+  // Without a computeUnitEstimator batches are not bounded by compute units.
+  static TransactionPacker createPacker(final AccountMeta feePayer,
+                                        final AccountMeta invokedComputeBudgetProgram,
+                                        final ComputeUnitEstimator computeUnitEstimator,
+                                        final int maxSerializedLength,
+                                        final int maxComputeUnits,
+                                        final int maxAccountLocks,
+                                        final int maxSigners) {
+    return new TransactionPackerImpl(
+        feePayer,
+        invokedComputeBudgetProgram,
+        computeUnitEstimator,
+        maxSerializedLength,
+        maxComputeUnits,
+        maxAccountLocks,
+        maxSigners
+    );
+  }
+
+  static TransactionPacker createPacker(final AccountMeta feePayer,
+                                        final AccountMeta invokedComputeBudgetProgram,
+                                        final ComputeUnitEstimator computeUnitEstimator) {
+    return createPacker(
+        feePayer,
+        invokedComputeBudgetProgram,
+        computeUnitEstimator,
+        MAX_SERIALIZED_LENGTH,
+        MAX_COMPUTE_BUDGET,
+        MAX_ACCOUNT_LOCKS,
+        Integer.MAX_VALUE
+    );
+  }
+
+  ComputeUnitEstimator computeUnitEstimator();
+
+  // Instruction order is preserved, throws IllegalArgumentException if an instruction cannot fit on its own.
+  List<List<Instruction>> pack(final List<Instruction> instructions, final AddressLookupTable lookupTable);
+
+  List<List<Instruction>> pack(final List<Instruction> instructions);
+}
@@ -0,0 +1,94 @@
+package software.sava.solana.programs.clients;
+
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.compute_budget.ComputeUnitEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.COMPUTE_UNITS_CONSUMED;
+
+final class TransactionPackerImpl implements TransactionPacker {
+
+  private final AccountMeta feePayer;
+  private final AccountMeta invokedComputeBudgetProgram;
+  private final ComputeUnitEstimator computeUnitEstimator;
+  private final int maxSerializedLength;
+  private final int maxComputeUnits;
+  private final int maxAccountLocks;
+  private final int maxSigners;
+
+  TransactionPackerImpl(final AccountMeta feePayer,
+                        final AccountMeta invokedComputeBudgetProgram,
+                        final ComputeUnitEstimator computeUnitEstimator,
+                        final int maxSerializedLength,
+                        final int maxComputeUnits,
+                        final int maxAccountLocks,
+                        final int maxSigners) {
+    this.feePayer = feePayer;
+    this.invokedComputeBudgetProgram = invokedComputeBudgetProgram;
+    this.computeUnitEstimator = computeUnitEstimator;
+    this.maxSerializedLength = maxSerializedLength;
+    this.maxComputeUnits = maxComputeUnits;
+    this.maxAccountLocks = maxAccountLocks;
+    this.maxSigners = maxSigners;
+  }
+
+  @Override
+  public ComputeUnitEstimator computeUnitEstimator() {
+    return computeUnitEstimator;
+  }
+
+  private boolean fits(final PackedMessage message) {
+    if (message.serializedLength() > maxSerializedLength
+        || message.numAccounts() > maxAccountLocks
+        || message.numSigners() > maxSigners) {
+      return false;
+    } else if (computeUnitEstimator == null) {
+      return true;
+    } else {
+      final long units = (long) Math.ceil(message.computeUnits() * (1 + computeUnitEstimator.margin()));
+      return units + (invokedComputeBudgetProgram == null ? 0 : COMPUTE_UNITS_CONSUMED) <= maxComputeUnits;
+    }
+  }
+
+  // Greedy next fit, each batch is extended until the next instruction no longer fits.  Because every limit is
+  // monotonic in the instructions added, this yields the fewest batches that preserve instruction order.
+  @Override
+  public List<List<Instruction>> pack(final List<Instruction> instructions, final AddressLookupTable lookupTable) {
+    final var message = new PackedMessage(feePayer, invokedComputeBudgetProgram, lookupTable);
+    final var batches = new ArrayList<List<Instruction>>();
+    int from = 0;
+    for (int i = 0; i < instructions.size(); ++i) {
+      final var instruction = instructions.get(i);
+      final int units = computeUnitEstimator == null ? 0 : computeUnitEstimator.estimate(instruction);
+      message.append(instruction, units);
+      if (fits(message)) {
+        continue;
+      }
+      if (i > from) {
+        batches.add(List.copyOf(instructions.subList(from, i)));
+        from = i;
+        message.reset();
+        message.append(instruction, units);
+        if (fits(message)) {
+          continue;
+        }
+      }
+      throw new IllegalArgumentException(String.format(
+          "Instruction %d does not fit in a transaction by itself.", i
+      ));
+    }
+    if (from < instructions.size()) {
+      batches.add(List.copyOf(instructions.subList(from, instructions.size())));
+    }
+    return batches;
+  }
+
+  @Override
+  public List<List<Instruction>> pack(final List<Instruction> instructions) {
+    return pack(instructions, null);
+  }
+}
@@ -0,0 +1,50 @@
+package software.sava.solana.programs.collections;
+
+import software.sava.core.accounts.PublicKey;
+
+// PublicKeySet with a int value per entry, new entries start at zero.
+public interface PublicKeyIntMap extends PublicKeySet {
+
+  static PublicKeyIntMap createMap(final int expectedSize) {
+    return new PublicKeyIntMapImpl(expectedSize);
+  }
+
+  static PublicKeyIntMap createMap() {
+    return createMap(DEFAULT_EXPECTED_SIZE);
+  }
+
+  int value(final int index);
+
+  void setValue(final int index, final int value);
+
+  // Returns the updated value.
+  int addValue(final int index, final int delta);
+
+  default int get(final byte[] key, final int offset, final int defaultValue) {
+    final int index = indexOf(key, offset);
+    return index < 0 ? defaultValue : value(index);
+  }
+
+  default int get(final PublicKey key, final int defaultValue) {
+    return get(key.toByteArray(), 0, defaultValue);
+  }
+
+  // Returns the index of the entry.
+  default int put(final byte[] key, final int offset, final int value) {
+    final int index = add(key, offset);
+    setValue(index, value);
+    return index;
+  }
+
+  default int put(final PublicKey key, final int value) {
+    return put(key.toByteArray(), 0, value);
+  }
+
+  default int addTo(final byte[] key, final int offset, final int delta) {
+    return addValue(add(key, offset), delta);
+  }
+
+  default int addTo(final PublicKey key, final int delta) {
+    return addTo(key.toByteArray(), 0, delta);
+  }
+}
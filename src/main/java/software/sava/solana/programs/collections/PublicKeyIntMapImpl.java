@@ -0,0 +1,86 @@
+package software.sava.solana.programs.collections;
+
+import software.sava.core.accounts.PublicKey;
+
+import java.util.Arrays;
+
+final class PublicKeyIntMapImpl implements PublicKeyIntMap {
+
+  private final PublicKeySetImpl keys;
+  private int[] values;
+
+  PublicKeyIntMapImpl(final int expectedSize) {
+    this.keys = new PublicKeySetImpl(expectedSize);
+    this.values = new int[keys.capacity()];
+  }
+
+  @Override
+  public int size() {
+    return keys.size();
+  }
+
+  @Override
+  public int indexOf(final byte[] key, final int offset) {
+    return keys.indexOf(key, offset);
+  }
+
+  @Override
+  public int add(final byte[] key, final int offset) {
+    final int index = keys.add(key, offset);
+    if (index == values.length) {
+      values = Arrays.copyOf(values, keys.capacity());
+    }
+    return index;
+  }
+
+  @Override
+  public int remove(final byte[] key, final int offset) {
+    final int index = keys.remove(key, offset);
+    if (index >= 0) {
+      final int last = keys.size();
+      values[index] = values[last];
+      values[last] = 0;
+    }
+    return index;
+  }
+
+  @Override
+  public PublicKey key(final int index) {
+    return keys.key(index);
+  }
+
+  @Override
+  public void copyKey(final int index, final byte[] dest, final int offset) {
+    keys.copyKey(index, dest, offset);
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(values, 0, keys.size(), 0);
+    keys.clear();
+  }
+
+  private void checkIndex(final int index) {
+    if (index < 0 || index >= keys.size()) {
+      throw new IndexOutOfBoundsException(index);
+    }
+  }
+
+  @Override
+  public int value(final int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  @Override
+  public void setValue(final int index, final int value) {
+    checkIndex(index);
+    values[index] = value;
+  }
+
+  @Override
+  public int addValue(final int index, final int delta) {
+    checkIndex(index);
+    return values[index] += delta;
+  }
+}
@@ -0,0 +1,50 @@
+package software.sava.solana.programs.collections;
+
+import software.sava.core.accounts.PublicKey;
+
+// PublicKeySet with a long value per entry, new entries start at zero.
+public interface PublicKeyLongMap extends PublicKeySet {
+
+  static PublicKeyLongMap createMap(final int expectedSize) {
+    return new PublicKeyLongMapImpl(expectedSize);
+  }
+
+  static PublicKeyLongMap createMap() {
+    return createMap(DEFAULT_EXPECTED_SIZE);
+  }
+
+  long value(final int index);
+
+  void setValue(final int index, final long value);
+
+  // Returns the updated value.
+  long addValue(final int index, final long delta);
+
+  default long get(final byte[] key, final int offset, final long defaultValue) {
+    final int index = indexOf(key, offset);
+    return index < 0 ? defaultValue : value(index);
+  }
+
+  default long get(final PublicKey key, final long defaultValue) {
+    return get(key.toByteArray(), 0, defaultValue);
+  }
+
+  // Returns the index of the entry.
+  default int put(final byte[] key, final int offset, final long value) {
+    final int index = add(key, offset);
+    setValue(index, value);
+    return index;
+  }
+
+  default int put(final PublicKey key, final long value) {
+    return put(key.toByteArray(), 0, value);
+  }
+
+  default long addTo(final byte[] key, final int offset, final long delta) {
+    return addValue(add(key, offset), delta);
+  }
+
+  default long addTo(final PublicKey key, final long delta) {
+    return addTo(key.toByteArray(), 0, delta);
+  }
+}
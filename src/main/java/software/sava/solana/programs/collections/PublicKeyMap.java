@@ -0,0 +1,62 @@
+package software.sava.solana.programs.collections;
+
+import software.sava.core.accounts.PublicKey;
+
+import java.util.function.Function;
+
+// PublicKeySet with an object value per entry, new entries start as null.
+public interface PublicKeyMap<V> extends PublicKeySet {
+
+  static <V> PublicKeyMap<V> createMap(final int expectedSize) {
+    return new PublicKeyMapImpl<>(expectedSize);
+  }
+
+  static <V> PublicKeyMap<V> createMap() {
+    return createMap(DEFAULT_EXPECTED_SIZE);
+  }
+
+  V value(final int index);
+
+  void setValue(final int index, final V value);
+
+  // null if absent.
+  default V get(final byte[] key, final int offset) {
+    final int index = indexOf(key, offset);
+    return index < 0 ? null : value(index);
+  }
+
+  default V get(final PublicKey key) {
+    return get(key.toByteArray(), 0);
+  }
+
+  // Returns the index of the entry.
+  default int put(final byte[] key, final int offset, final V value) {
+    final int index = add(key, offset);
+    setValue(index, value);
+    return index;
+  }
+
+  default int put(final PublicKey key, final V value) {
+    return put(key.toByteArray(), 0, value);
+  }
+
+  // The PublicKey passed to the mapping function is only created if the key is absent.
+  default V computeIfAbsent(final byte[] key, final int offset, final Function<PublicKey, V> mappingFunction) {
+    final int index = indexOf(key, offset);
+    if (index >= 0) {
+      final var value = value(index);
+      if (value != null) {
+        return value;
+      }
+    }
+    final var value = mappingFunction.apply(PublicKey.readPubKey(key, offset));
+    if (value != null) {
+      put(key, offset, value);
+    }
+    return value;
+  }
+
+  default V computeIfAbsent(final PublicKey key, final Function<PublicKey, V> mappingFunction) {
+    return computeIfAbsent(key.toByteArray(), 0, mappingFunction);
+  }
+}
@@ -0,0 +1,81 @@
+package software.sava.solana.programs.collections;
+
+import software.sava.core.accounts.PublicKey;
+
+import java.util.Arrays;
+
+final class PublicKeyMapImpl<V> implements PublicKeyMap<V> {
+
+  private final PublicKeySetImpl keys;
+  private Object[] values;
+
+  PublicKeyMapImpl(final int expectedSize) {
+    this.keys = new PublicKeySetImpl(expectedSize);
+    this.values = new Object[keys.capacity()];
+  }
+
+  @Override
+  public int size() {
+    return keys.size();
+  }
+
+  @Override
+  public int indexOf(final byte[] key, final int offset) {
+    return keys.indexOf(key, offset);
+  }
+
+  @Override
+  public int add(final byte[] key, final int offset) {
+    final int index = keys.add(key, offset);
+    if (index == values.length) {
+      values = Arrays.copyOf(values, keys.capacity());
+    }
+    return index;
+  }
+
+  @Override
+  public int remove(final byte[] key, final int offset) {
+    final int index = keys.remove(key, offset);
+    if (index >= 0) {
+      final int last = keys.size();
+      values[index] = values[last];
+      values[last] = null;
+    }
+    return index;
+  }
+
+  @Override
+  public PublicKey key(final int index) {
+    return keys.key(index);
+  }
+
+  @Override
+  public void copyKey(final int index, final byte[] dest, final int offset) {
+    keys.copyKey(index, dest, offset);
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(values, 0, keys.size(), null);
+    keys.clear();
+  }
+
+  private void checkIndex(final int index) {
+    if (index < 0 || index >= keys.size()) {
+      throw new IndexOutOfBoundsException(index);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V value(final int index) {
+    checkIndex(index);
+    return (V) values[index];
+  }
+
+  @Override
+  public void setValue(final int index, final V value) {
+    checkIndex(index);
+    values[index] = value;
+  }
+}
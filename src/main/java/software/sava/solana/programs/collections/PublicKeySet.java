@@ -0,0 +1,61 @@
+package software.sava.solana.programs.collections;
+
+import software.sava.core.accounts.PublicKey;
+
+// Open addressing hash set of 32-byte keys held inline as four longs, so neither lookups nor inserts need a PublicKey
+// instance.  Entries are indexed densely in insertion order, removing an entry moves the last entry into its index.
+//
+// Not thread safe.
+public interface PublicKeySet {
+
+  int DEFAULT_EXPECTED_SIZE = 16;
+
+  static PublicKeySet createSet(final int expectedSize) {
+    return new PublicKeySetImpl(expectedSize);
+  }
+
+  static PublicKeySet createSet() {
+    return createSet(DEFAULT_EXPECTED_SIZE);
+  }
+
+  int size();
+
+  default boolean isEmpty() {
+    return size() == 0;
+  }
+
+  // -1 if absent.
+  int indexOf(final byte[] key, final int offset);
+
+  default int indexOf(final PublicKey key) {
+    return indexOf(key.toByteArray(), 0);
+  }
+
+  default boolean contains(final byte[] key, final int offset) {
+    return indexOf(key, offset) >= 0;
+  }
+
+  default boolean contains(final PublicKey key) {
+    return indexOf(key) >= 0;
+  }
+
+  // Returns the index of the key, inserting it if absent.
+  int add(final byte[] key, final int offset);
+
+  default int add(final PublicKey key) {
+    return add(key.toByteArray(), 0);
+  }
+
+  // Returns the index the key occupied, or -1 if absent.  The entry at size() - 1 takes its place.
+  int remove(final byte[] key, final int offset);
+
+  default int remove(final PublicKey key) {
+    return remove(key.toByteArray(), 0);
+  }
+
+  PublicKey key(final int index);
+
+  void copyKey(final int index, final byte[] dest, final int offset);
+
+  void clear();
+}
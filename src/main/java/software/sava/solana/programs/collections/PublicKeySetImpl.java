@@ -0,0 +1,173 @@
+package software.sava.solana.programs.collections;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.util.Arrays;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+// Keys are dense, four longs per entry, the table holds entry + 1 with zero marking an empty slot.  The table is kept
+// at most half full and removals shift later slots back rather than leaving tombstones.
+final class PublicKeySetImpl implements PublicKeySet {
+
+  private long[] keys;
+  private int size;
+  private int[] table;
+  private int mask;
+
+  PublicKeySetImpl(final int expectedSize) {
+    final int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize - 1)) << 1);
+    this.keys = new long[capacity << 2];
+    this.table = new int[capacity << 1];
+    this.mask = table.length - 1;
+  }
+
+  // Maps which keep values alongside the keys size their columns to this.
+  int capacity() {
+    return keys.length >> 2;
+  }
+
+  private static int hash(final long k0, final long k1, final long k2, final long k3) {
+    final long h = (k0 ^ k1 ^ k2 ^ k3) * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private int hash(final int entry) {
+    final int k = entry << 2;
+    return hash(keys[k], keys[k + 1], keys[k + 2], keys[k + 3]);
+  }
+
+  // Returns the table slot holding the key, or -(slot + 1) of the empty slot where it would be inserted.
+  private int slot(final long k0, final long k1, final long k2, final long k3) {
+    for (int i = hash(k0, k1, k2, k3) & mask; ; i = (i + 1) & mask) {
+      final int entry = table[i];
+      if (entry == 0) {
+        return -(i + 1);
+      }
+      final int k = (entry - 1) << 2;
+      if (keys[k] == k0 && keys[k + 1] == k1 && keys[k + 2] == k2 && keys[k + 3] == k3) {
+        return i;
+      }
+    }
+  }
+
+  private int slot(final byte[] key, final int offset) {
+    return slot(
+        ByteUtil.getInt64LE(key, offset),
+        ByteUtil.getInt64LE(key, offset + 8),
+        ByteUtil.getInt64LE(key, offset + 16),
+        ByteUtil.getInt64LE(key, offset + 24)
+    );
+  }
+
+  private void grow() {
+    final int capacity = capacity() << 1;
+    keys = Arrays.copyOf(keys, capacity << 2);
+    table = new int[capacity << 1];
+    mask = table.length - 1;
+    for (int entry = 0; entry < size; ++entry) {
+      int i = hash(entry) & mask;
+      while (table[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      table[i] = entry + 1;
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int indexOf(final byte[] key, final int offset) {
+    final int slot = slot(key, offset);
+    return slot < 0 ? -1 : table[slot] - 1;
+  }
+
+  @Override
+  public int add(final byte[] key, final int offset) {
+    final long k0 = ByteUtil.getInt64LE(key, offset);
+    final long k1 = ByteUtil.getInt64LE(key, offset + 8);
+    final long k2 = ByteUtil.getInt64LE(key, offset + 16);
+    final long k3 = ByteUtil.getInt64LE(key, offset + 24);
+    int slot = slot(k0, k1, k2, k3);
+    if (slot >= 0) {
+      return table[slot] - 1;
+    }
+    if (size == capacity()) {
+      grow();
+      slot = slot(k0, k1, k2, k3);
+    }
+    final int entry = size++;
+    final int k = entry << 2;
+    keys[k] = k0;
+    keys[k + 1] = k1;
+    keys[k + 2] = k2;
+    keys[k + 3] = k3;
+    table[-slot - 1] = entry + 1;
+    return entry;
+  }
+
+  @Override
+  public int remove(final byte[] key, final int offset) {
+    final int slot = slot(key, offset);
+    if (slot < 0) {
+      return -1;
+    }
+    final int entry = table[slot] - 1;
+    // Backward shift deletion, pull back each following slot which may not be probed past the hole.
+    int hole = slot;
+    for (int i = (hole + 1) & mask, moved; (moved = table[i]) != 0; i = (i + 1) & mask) {
+      final int home = hash(moved - 1) & mask;
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        table[hole] = moved;
+        hole = i;
+      }
+    }
+    table[hole] = 0;
+
+    final int last = --size;
+    if (entry != last) {
+      final int from = last << 2;
+      final int to = entry << 2;
+      System.arraycopy(keys, from, keys, to, 4);
+      int i = hash(entry) & mask;
+      while (table[i] != last + 1) {
+        i = (i + 1) & mask;
+      }
+      table[i] = entry + 1;
+    }
+    return entry;
+  }
+
+  private void checkIndex(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+  }
+
+  @Override
+  public PublicKey key(final int index) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    copyKey(index, key, 0);
+    return PublicKey.createPubKey(key);
+  }
+
+  @Override
+  public void copyKey(final int index, final byte[] dest, final int offset) {
+    checkIndex(index);
+    final int k = index << 2;
+    ByteUtil.putInt64LE(dest, offset, keys[k]);
+    ByteUtil.putInt64LE(dest, offset + 8, keys[k + 1]);
+    ByteUtil.putInt64LE(dest, offset + 16, keys[k + 2]);
+    ByteUtil.putInt64LE(dest, offset + 24, keys[k + 3]);
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(table, 0);
+    size = 0;
+  }
+}
@@ -0,0 +1,39 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+
+// Interns immutable compute budget instructions, keyed by the invoked program and the encoded value.  Lookups do
+// not allocate, the cache is bounded by a fixed number of two-way associative slots.
+public interface ComputeBudgetInstructionCache {
+
+  int DEFAULT_MAXIMUM_SIZE = 1 << 10;
+
+  static ComputeBudgetInstructionCache createCache(final int maximumSize) {
+    return new ComputeBudgetInstructionCacheImpl(maximumSize);
+  }
+
+  static ComputeBudgetInstructionCache createCache() {
+    return createCache(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  Instruction computeUnitLimit(final AccountMeta invokedProgram, final int units);
+
+  Instruction computeUnitPrice(final AccountMeta invokedProgram, final long microLamports);
+
+  int maximumSize();
+
+  long hitCount();
+
+  long missCount();
+
+  long evictionCount();
+
+  default double hitRate() {
+    final long hits = hitCount();
+    final long requests = hits + missCount();
+    return requests == 0 ? 1.0 : hits / (double) requests;
+  }
+
+  void invalidateAll();
+}
@@ -0,0 +1,117 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.setComputeUnitLimit;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.setComputeUnitPrice;
+
+final class ComputeBudgetInstructionCacheImpl implements ComputeBudgetInstructionCache {
+
+  private static final int LIMIT = 2;
+  private static final int PRICE = 3;
+
+  private record Entry(AccountMeta invokedProgram, int type, long value, Instruction instruction) {
+  }
+
+  private final AtomicReferenceArray<Entry> entries;
+  private final int mask;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+
+  ComputeBudgetInstructionCacheImpl(final int maximumSize) {
+    final int size = Math.max(2, Integer.highestOneBit(Math.max(1, maximumSize - 1)) << 1);
+    this.entries = new AtomicReferenceArray<>(size);
+    this.mask = size - 2;
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+  }
+
+  private static boolean matches(final Entry entry, final AccountMeta invokedProgram, final int type, final long value) {
+    return entry != null
+        && entry.value == value
+        && entry.type == type
+        && (entry.invokedProgram == invokedProgram || entry.invokedProgram.equals(invokedProgram));
+  }
+
+  private int slot(final int type, final long value) {
+    final long h = (value ^ ((long) type << 59)) * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private Instruction lookup(final AccountMeta invokedProgram, final int type, final long value) {
+    final int slot = slot(type, value);
+    final var first = entries.get(slot);
+    if (matches(first, invokedProgram, type, value)) {
+      hits.increment();
+      return first.instruction;
+    }
+    final var second = entries.get(slot + 1);
+    if (matches(second, invokedProgram, type, value)) {
+      hits.increment();
+      return second.instruction;
+    }
+    return null;
+  }
+
+  // Newest entry takes the first way, demoting the previous one and evicting the second.
+  private Instruction insert(final AccountMeta invokedProgram, final int type, final long value, final Instruction instruction) {
+    misses.increment();
+    final int slot = slot(type, value);
+    final var first = entries.getAndSet(slot, new Entry(invokedProgram, type, value, instruction));
+    if (first != null) {
+      if (entries.getAndSet(slot + 1, first) != null) {
+        evictions.increment();
+      }
+    }
+    return instruction;
+  }
+
+  @Override
+  public Instruction computeUnitLimit(final AccountMeta invokedProgram, final int units) {
+    final var cached = lookup(invokedProgram, LIMIT, units);
+    return cached != null
+        ? cached
+        : insert(invokedProgram, LIMIT, units, setComputeUnitLimit(invokedProgram, units));
+  }
+
+  @Override
+  public Instruction computeUnitPrice(final AccountMeta invokedProgram, final long microLamports) {
+    final var cached = lookup(invokedProgram, PRICE, microLamports);
+    return cached != null
+        ? cached
+        : insert(invokedProgram, PRICE, microLamports, setComputeUnitPrice(invokedProgram, microLamports));
+  }
+
+  @Override
+  public int maximumSize() {
+    return entries.length();
+  }
+
+  @Override
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  @Override
+  public long missCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public void invalidateAll() {
+    for (int i = 0, length = entries.length(); i < length; ++i) {
+      entries.set(i, null);
+    }
+  }
+}
@@ -3,6 +3,7 @@ package software.sava.solana.programs.compute_budget;
 import software.sava.core.accounts.meta.AccountMeta;
 import software.sava.core.encoding.ByteUtil;
 import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.encoding.InstructionBuffer;
 
 import static software.sava.core.accounts.meta.AccountMeta.NO_KEYS;
 import static software.sava.core.tx.Instruction.createInstruction;
@@ -17,6 +18,9 @@ public final class ComputeBudgetProgram {
 
   public static int MAX_COMPUTE_BUDGET = 1_400_000;
 
+  // Shared by the native program clients, see INSTRUCTION_CACHE.hitCount()/missCount()/evictionCount().
+  public static final ComputeBudgetInstructionCache INSTRUCTION_CACHE = ComputeBudgetInstructionCache.createCache();
+
   public static Instruction requestHeapFrame(final AccountMeta invokedProgram, final int heapRegionSize) {
     final byte[] data = new byte[5];
     data[0] = (byte) 1;
@@ -24,6 +28,16 @@ public final class ComputeBudgetProgram {
     return createInstruction(invokedProgram, NO_KEYS, data);
   }
 
+  public static Instruction requestHeapFrame(final InstructionBuffer buffer,
+                                             final AccountMeta invokedProgram,
+                                             final int heapRegionSize) {
+    final int offset = buffer.reserve(5);
+    final byte[] data = buffer.data();
+    data[offset] = (byte) 1;
+    ByteUtil.putInt32LE(data, offset + 1, heapRegionSize);
+    return buffer.instruction(invokedProgram, NO_KEYS, offset, 5);
+  }
+
   public static Instruction setComputeUnitLimit(final AccountMeta invokedProgram, final int units) {
     final byte[] data = new byte[5];
     data[0] = (byte) 2;
@@ -31,6 +45,16 @@ public final class ComputeBudgetProgram {
     return createInstruction(invokedProgram, NO_KEYS, data);
   }
 
+  public static Instruction setComputeUnitLimit(final InstructionBuffer buffer,
+                                                final AccountMeta invokedProgram,
+                                                final int units) {
+    final int offset = buffer.reserve(5);
+    final byte[] data = buffer.data();
+    data[offset] = (byte) 2;
+    ByteUtil.putInt32LE(data, offset + 1, units);
+    return buffer.instruction(invokedProgram, NO_KEYS, offset, 5);
+  }
+
   public static Instruction setComputeUnitPrice(final AccountMeta invokedProgram, final long microLamports) {
     final byte[] data = new byte[9];
     data[0] = (byte) 3;
@@ -38,6 +62,16 @@ public final class ComputeBudgetProgram {
     return createInstruction(invokedProgram, NO_KEYS, data);
   }
 
+  public static Instruction setComputeUnitPrice(final InstructionBuffer buffer,
+                                                final AccountMeta invokedProgram,
+                                                final long microLamports) {
+    final int offset = buffer.reserve(9);
+    final byte[] data = buffer.data();
+    data[offset] = (byte) 3;
+    ByteUtil.putInt64LE(data, offset + 1, microLamports);
+    return buffer.instruction(invokedProgram, NO_KEYS, offset, 9);
+  }
+
   public static Instruction setLoadedAccountsDataSizeLimit(final AccountMeta invokedProgram, final int limit) {
     final byte[] data = new byte[5];
     data[0] = (byte) 4;
@@ -45,6 +79,16 @@ public final class ComputeBudgetProgram {
     return createInstruction(invokedProgram, NO_KEYS, data);
   }
 
+  public static Instruction setLoadedAccountsDataSizeLimit(final InstructionBuffer buffer,
+                                                           final AccountMeta invokedProgram,
+                                                           final int limit) {
+    final int offset = buffer.reserve(5);
+    final byte[] data = buffer.data();
+    data[offset] = (byte) 4;
+    ByteUtil.putInt32LE(data, offset + 1, limit);
+    return buffer.instruction(invokedProgram, NO_KEYS, offset, 5);
+  }
+
   private ComputeBudgetProgram() {
   }
 }
@@ -0,0 +1,70 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.stakepool.StakePoolAccounts;
+
+import java.util.List;
+
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.MAX_COMPUTE_BUDGET;
+
+// Estimates the compute units consumed by native and SPL program instructions from per discriminator tables.
+// Estimates for BPF programs are raised, never lowered, by the log messages of executed transactions, see calibrate.
+public interface ComputeUnitEstimator {
+
+  double DEFAULT_MARGIN = 0.1;
+  // Runtime default limit per instruction for programs without a table.
+  int DEFAULT_UNKNOWN_INSTRUCTION_UNITS = 200_000;
+
+  static ComputeUnitEstimator createEstimator(final SolanaAccounts solanaAccounts,
+                                              final StakePoolAccounts stakePoolAccounts,
+                                              final double margin,
+                                              final int unknownInstructionUnits) {
+    return ComputeUnitEstimatorImpl.createEstimator(solanaAccounts, stakePoolAccounts, margin, unknownInstructionUnits);
+  }
+
+  static ComputeUnitEstimator createEstimator(final SolanaAccounts solanaAccounts, final double margin) {
+    return createEstimator(solanaAccounts, StakePoolAccounts.MAIN_NET, margin, DEFAULT_UNKNOWN_INSTRUCTION_UNITS);
+  }
+
+  static ComputeUnitEstimator createEstimator() {
+    return createEstimator(SolanaAccounts.MAIN_NET, DEFAULT_MARGIN);
+  }
+
+  double margin();
+
+  int estimate(final Instruction instruction);
+
+  default long estimate(final List<Instruction> instructions) {
+    long units = 0;
+    for (final var instruction : instructions) {
+      units += estimate(instruction);
+    }
+    return units;
+  }
+
+  // Sum of the instruction estimates plus the margin, bounded by MAX_COMPUTE_BUDGET.
+  default int computeUnitLimit(final List<Instruction> instructions) {
+    final long units = estimate(instructions);
+    return (int) Math.min(MAX_COMPUTE_BUDGET, (long) Math.ceil(units * (1 + margin())));
+  }
+
+  default int computeUnitLimit(final Transaction transaction) {
+    return computeUnitLimit(transaction.instructions());
+  }
+
+  // Returns false if the program is unknown or charges a fixed amount per instruction.
+  boolean calibrate(final Instruction instruction, final int consumedUnits);
+
+  // Attributes the top level "Program <id> consumed <n> of <m> compute units" log messages to the
+  // transaction instructions in order.  Failed instructions are skipped, returns the number of instructions calibrated.
+  // Program controlled output, such as "Program log: " lines, is never parsed as a runtime message.
+  int calibrate(final List<Instruction> instructions, final List<String> logMessages);
+
+  default int calibrate(final Transaction transaction, final List<String> logMessages) {
+    return calibrate(transaction.instructions(), logMessages);
+  }
+
+  void resetCalibration();
+}
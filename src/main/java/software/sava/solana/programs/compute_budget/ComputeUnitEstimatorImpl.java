@@ -0,0 +1,304 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.address_lookup_table.AddressLookupTableProgram;
+import software.sava.solana.programs.stake.StakeProgram;
+import software.sava.solana.programs.stakepool.StakePoolAccounts;
+import software.sava.solana.programs.stakepool.StakePoolProgram;
+import software.sava.solana.programs.system.SystemProgram;
+import software.sava.solana.programs.token.AssociatedTokenProgram;
+import software.sava.solana.programs.token.TokenProgram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static software.sava.core.programs.Discriminator.NATIVE_DISCRIMINATOR_LENGTH;
+import static software.sava.solana.programs.compute_budget.ComputeUnitTable.units;
+
+final class ComputeUnitEstimatorImpl implements ComputeUnitEstimator {
+
+  private static final int BUILTIN_UNITS = 150;
+  private static final int STAKE_UNITS = 10_000;
+  private static final int ADDRESS_LOOKUP_TABLE_UNITS = 750;
+
+  private static final String PROGRAM_PREFIX = "Program ";
+  // Emitted on behalf of the executing program, their content is program controlled.
+  private static final List<String> PROGRAM_OUTPUT_PREFIXES = List.of(
+      "Program log: ", "Program data: ", "Program return: ", "Program consumption: "
+  );
+  private static final String INVOKE = "invoke [";
+  private static final String CONSUMED = "consumed ";
+  private static final String SUCCESS = "success";
+  private static final String FAILED = "failed";
+
+  private final double margin;
+  private final int unknownInstructionUnits;
+  private final Map<PublicKey, ComputeUnitTable> tables;
+
+  private ComputeUnitEstimatorImpl(final double margin,
+                                   final int unknownInstructionUnits,
+                                   final Map<PublicKey, ComputeUnitTable> tables) {
+    this.margin = margin;
+    this.unknownInstructionUnits = unknownInstructionUnits;
+    this.tables = tables;
+  }
+
+  static ComputeUnitEstimator createEstimator(final SolanaAccounts solanaAccounts,
+                                              final StakePoolAccounts stakePoolAccounts,
+                                              final double margin,
+                                              final int unknownInstructionUnits) {
+    if (margin < 0) {
+      throw new IllegalArgumentException("Margin must be non-negative: " + margin);
+    }
+    final var tables = new HashMap<PublicKey, ComputeUnitTable>();
+    put(tables, new ComputeUnitTable(
+        solanaAccounts.computeBudgetProgram(), 1, -1, units(5, BUILTIN_UNITS), BUILTIN_UNITS, true
+    ));
+    put(tables, new ComputeUnitTable(
+        solanaAccounts.systemProgram(), NATIVE_DISCRIMINATOR_LENGTH, -1,
+        units(SystemProgram.Instructions.values().length, BUILTIN_UNITS), BUILTIN_UNITS, true
+    ));
+    // The stake program has migrated to Core BPF, so it is calibrated like any other BPF program.
+    put(tables, new ComputeUnitTable(
+        solanaAccounts.stakeProgram(), NATIVE_DISCRIMINATOR_LENGTH, -1,
+        stakeUnits(), STAKE_UNITS, false
+    ));
+    put(tables, new ComputeUnitTable(
+        solanaAccounts.addressLookupTableProgram(), NATIVE_DISCRIMINATOR_LENGTH, -1,
+        addressLookupTableUnits(), ADDRESS_LOOKUP_TABLE_UNITS, false
+    ));
+    put(tables, new ComputeUnitTable(
+        solanaAccounts.tokenProgram(), 1, -1, tokenUnits(1), unknownInstructionUnits, false
+    ));
+    // Token-2022 runs the same instructions through its extension checks.
+    put(tables, new ComputeUnitTable(
+        solanaAccounts.token2022Program(), 1, -1, tokenUnits(2), unknownInstructionUnits, false
+    ));
+    // An empty instruction is the legacy encoding of Create.
+    put(tables, new ComputeUnitTable(
+        solanaAccounts.associatedTokenAccountProgram(), 1, AssociatedTokenProgram.Instructions.Create.ordinal(),
+        associatedTokenUnits(), unknownInstructionUnits, false
+    ));
+    // The single validator and Sanctum programs are forks sharing the instruction layout.
+    for (final var program : List.of(
+        stakePoolAccounts.stakePoolProgram(),
+        stakePoolAccounts.singleValidatorStakePoolProgram(),
+        stakePoolAccounts.sanctumMultiValidatorStakePoolProgram(),
+        stakePoolAccounts.sanctumSingleValidatorStakePoolProgram()
+    )) {
+      put(tables, new ComputeUnitTable(program, 1, -1, stakePoolUnits(), unknownInstructionUnits, false));
+    }
+    return new ComputeUnitEstimatorImpl(margin, unknownInstructionUnits, Map.copyOf(tables));
+  }
+
+  private static void put(final Map<PublicKey, ComputeUnitTable> tables, final ComputeUnitTable table) {
+    tables.put(table.program(), table);
+  }
+
+  private static int[] stakeUnits() {
+    final int[] units = units(StakeProgram.Instructions.values().length, STAKE_UNITS);
+    units[StakeProgram.Instructions.Initialize.ordinal()] = 5_000;
+    units[StakeProgram.Instructions.InitializeChecked.ordinal()] = 5_000;
+    units[StakeProgram.Instructions.Authorize.ordinal()] = 6_000;
+    units[StakeProgram.Instructions.AuthorizeChecked.ordinal()] = 6_000;
+    units[StakeProgram.Instructions.AuthorizeWithSeed.ordinal()] = 8_000;
+    units[StakeProgram.Instructions.AuthorizeCheckedWithSeed.ordinal()] = 8_000;
+    units[StakeProgram.Instructions.SetLockup.ordinal()] = 6_000;
+    units[StakeProgram.Instructions.SetLockupChecked.ordinal()] = 6_000;
+    units[StakeProgram.Instructions.GetMinimumDelegation.ordinal()] = 1_000;
+    // Reads the vote account and stake history.
+    units[StakeProgram.Instructions.DelegateStake.ordinal()] = 15_000;
+    units[StakeProgram.Instructions.Redelegate.ordinal()] = 15_000;
+    units[StakeProgram.Instructions.DeactivateDelinquent.ordinal()] = 12_000;
+    // Both evaluate the activation state of each account against the stake history.
+    units[StakeProgram.Instructions.Split.ordinal()] = 15_000;
+    units[StakeProgram.Instructions.Merge.ordinal()] = 20_000;
+    return units;
+  }
+
+  private static int[] addressLookupTableUnits() {
+    final int[] units = units(AddressLookupTableProgram.Instructions.values().length, ADDRESS_LOOKUP_TABLE_UNITS);
+    // Create and extend invoke the system program to fund and size the table.
+    units[AddressLookupTableProgram.Instructions.CreateLookupTable.ordinal()] += 3 * BUILTIN_UNITS;
+    units[AddressLookupTableProgram.Instructions.ExtendLookupTable.ordinal()] += BUILTIN_UNITS;
+    return units;
+  }
+
+  private static int[] tokenUnits(final int scale) {
+    final int[] units = new int[TokenProgram.TokenInstruction.values().length];
+    units[TokenProgram.TokenInstruction.InitializeMint.ordinal()] = 3_000;
+    units[TokenProgram.TokenInstruction.InitializeAccount.ordinal()] = 4_600;
+    units[TokenProgram.TokenInstruction.InitializeMultisig.ordinal()] = 3_100;
+    units[TokenProgram.TokenInstruction.Transfer.ordinal()] = 4_700;
+    units[TokenProgram.TokenInstruction.Approve.ordinal()] = 3_000;
+    units[TokenProgram.TokenInstruction.Revoke.ordinal()] = 2_700;
+    units[TokenProgram.TokenInstruction.SetAuthority.ordinal()] = 3_100;
+    units[TokenProgram.TokenInstruction.MintTo.ordinal()] = 4_600;
+    units[TokenProgram.TokenInstruction.Burn.ordinal()] = 4_800;
+    units[TokenProgram.TokenInstruction.CloseAccount.ordinal()] = 3_000;
+    units[TokenProgram.TokenInstruction.FreezeAccount.ordinal()] = 4_300;
+    units[TokenProgram.TokenInstruction.ThawAccount.ordinal()] = 4_300;
+    units[TokenProgram.TokenInstruction.TransferChecked.ordinal()] = 6_300;
+    units[TokenProgram.TokenInstruction.ApproveChecked.ordinal()] = 4_500;
+    units[TokenProgram.TokenInstruction.MintToChecked.ordinal()] = 4_600;
+    units[TokenProgram.TokenInstruction.BurnChecked.ordinal()] = 4_800;
+    units[TokenProgram.TokenInstruction.InitializeAccount2.ordinal()] = 4_500;
+    units[TokenProgram.TokenInstruction.SyncNative.ordinal()] = 3_100;
+    units[TokenProgram.TokenInstruction.InitializeAccount3.ordinal()] = 4_300;
+    units[TokenProgram.TokenInstruction.InitializeMultisig2.ordinal()] = 3_100;
+    units[TokenProgram.TokenInstruction.InitializeMint2.ordinal()] = 2_900;
+    units[TokenProgram.TokenInstruction.GetAccountDataSize.ordinal()] = 1_700;
+    units[TokenProgram.TokenInstruction.InitializeImmutableOwner.ordinal()] = 1_500;
+    units[TokenProgram.TokenInstruction.AmountToUiAmount.ordinal()] = 3_000;
+    units[TokenProgram.TokenInstruction.UiAmountToAmount.ordinal()] = 4_000;
+    for (int i = 0; i < units.length; ++i) {
+      units[i] *= scale;
+    }
+    return units;
+  }
+
+  private static int[] associatedTokenUnits() {
+    final int[] units = new int[AssociatedTokenProgram.Instructions.values().length];
+    // Includes the system and token program invocations to create and initialize the account.
+    units[AssociatedTokenProgram.Instructions.Create.ordinal()] = 25_000;
+    units[AssociatedTokenProgram.Instructions.CreateIdempotent.ordinal()] = 25_000;
+    units[AssociatedTokenProgram.Instructions.RecoverNested.ordinal()] = 30_000;
+    return units;
+  }
+
+  private static int[] stakePoolUnits() {
+    final int[] units = units(StakePoolProgram.Instructions.values().length, 10_000);
+    units[StakePoolProgram.Instructions.Initialize.ordinal()] = 60_000;
+    units[StakePoolProgram.Instructions.AddValidatorToPool.ordinal()] = 60_000;
+    units[StakePoolProgram.Instructions.RemoveValidatorFromPool.ordinal()] = 40_000;
+    units[StakePoolProgram.Instructions.DecreaseValidatorStake.ordinal()] = 60_000;
+    units[StakePoolProgram.Instructions.IncreaseValidatorStake.ordinal()] = 70_000;
+    // Both scale with the size of the validator list.
+    units[StakePoolProgram.Instructions.UpdateValidatorListBalance.ordinal()] = 200_000;
+    units[StakePoolProgram.Instructions.UpdateStakePoolBalance.ordinal()] = 50_000;
+    units[StakePoolProgram.Instructions.CleanupRemovedValidatorEntries.ordinal()] = 20_000;
+    units[StakePoolProgram.Instructions.DepositStake.ordinal()] = 100_000;
+    units[StakePoolProgram.Instructions.WithdrawStake.ordinal()] = 80_000;
+    units[StakePoolProgram.Instructions.DepositSol.ordinal()] = 50_000;
+    units[StakePoolProgram.Instructions.WithdrawSol.ordinal()] = 60_000;
+    units[StakePoolProgram.Instructions.CreateTokenMetadata.ordinal()] = 60_000;
+    units[StakePoolProgram.Instructions.UpdateTokenMetadata.ordinal()] = 30_000;
+    units[StakePoolProgram.Instructions.IncreaseAdditionalValidatorStake.ordinal()] = 70_000;
+    units[StakePoolProgram.Instructions.DecreaseAdditionalValidatorStake.ordinal()] = 70_000;
+    units[StakePoolProgram.Instructions.DecreaseValidatorStakeWithReserve.ordinal()] = 60_000;
+    units[StakePoolProgram.Instructions.Redelegate.ordinal()] = 90_000;
+    units[StakePoolProgram.Instructions.DepositStakeWithSlippage.ordinal()] = 100_000;
+    units[StakePoolProgram.Instructions.WithdrawStakeWithSlippage.ordinal()] = 80_000;
+    units[StakePoolProgram.Instructions.DepositSolWithSlippage.ordinal()] = 50_000;
+    units[StakePoolProgram.Instructions.WithdrawSolWithSlippage.ordinal()] = 60_000;
+    return units;
+  }
+
+  @Override
+  public double margin() {
+    return margin;
+  }
+
+  @Override
+  public int estimate(final Instruction instruction) {
+    final var table = tables.get(instruction.programId().publicKey());
+    return table == null ? unknownInstructionUnits : table.estimate(table.discriminator(instruction));
+  }
+
+  @Override
+  public boolean calibrate(final Instruction instruction, final int consumedUnits) {
+    final var table = tables.get(instruction.programId().publicKey());
+    return table != null && table.calibrate(table.discriminator(instruction), consumedUnits);
+  }
+
+  private static boolean isProgramOutput(final String message) {
+    for (final var prefix : PROGRAM_OUTPUT_PREFIXES) {
+      if (message.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // -1 if the range is empty or not all digits.
+  private static int parseDigits(final String message, final int from, final int to) {
+    if (from >= to || to - from > 9) {
+      return -1;
+    }
+    int value = 0;
+    for (int i = from; i < to; ++i) {
+      final char c = message.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = (value * 10) + (c - '0');
+    }
+    return value;
+  }
+
+  @Override
+  public int calibrate(final List<Instruction> instructions, final List<String> logMessages) {
+    int index = -1;
+    int consumedUnits = -1;
+    int calibrated = 0;
+    // Program executing at each invoke depth, consumed, success and failed messages must come from the innermost.
+    final var invoked = new ArrayList<String>(5);
+    for (final var message : logMessages) {
+      if (!message.startsWith(PROGRAM_PREFIX) || isProgramOutput(message)) {
+        continue;
+      }
+      final int idEnd = message.indexOf(' ', PROGRAM_PREFIX.length());
+      if (idEnd < 0) {
+        continue;
+      }
+      final var programId = message.substring(PROGRAM_PREFIX.length(), idEnd);
+      final int from = idEnd + 1;
+      if (message.startsWith(INVOKE, from)) {
+        final int depthFrom = from + INVOKE.length();
+        final int depth = parseDigits(message, depthFrom, message.indexOf(']', depthFrom));
+        if (depth < 1 || depth > invoked.size() + 1) {
+          continue;
+        }
+        invoked.subList(depth - 1, invoked.size()).clear();
+        invoked.add(programId);
+        if (depth == 1) {
+          consumedUnits = -1;
+          if (++index >= instructions.size()) {
+            break;
+          }
+        }
+      } else if (invoked.isEmpty() || !programId.equals(invoked.getLast())) {
+        continue;
+      } else if (message.startsWith(CONSUMED, from)) {
+        if (invoked.size() == 1) {
+          final int unitsFrom = from + CONSUMED.length();
+          consumedUnits = parseDigits(message, unitsFrom, message.indexOf(' ', unitsFrom));
+        }
+      } else if (message.startsWith(SUCCESS, from)) {
+        // Failed instructions may stop early, only successful executions are representative.
+        if (invoked.size() == 1 && index >= 0 && consumedUnits > 0) {
+          final var instruction = instructions.get(index);
+          if (programId.equals(instruction.programId().publicKey().toBase58())
+              && calibrate(instruction, consumedUnits)) {
+            ++calibrated;
+          }
+        }
+        invoked.removeLast();
+      } else if (message.startsWith(FAILED, from)) {
+        invoked.removeLast();
+      }
+    }
+    return calibrated;
+  }
+
+  @Override
+  public void resetCalibration() {
+    for (final var table : tables.values()) {
+      table.reset();
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package software.sava.solana.programs.compute_budget;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.core.tx.Instruction;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Compute units per instruction of a single program, indexed by discriminator.  Builtin programs charge a fixed
+// amount per instruction, BPF programs start from the default table and are raised to the largest observed
+// consumption as calibration samples arrive.
+final class ComputeUnitTable {
+
+  private final PublicKey program;
+  private final int discriminatorLength;
+  private final int emptyDataDiscriminator;
+  private final int[] defaultUnits;
+  private final int unknownUnits;
+  private final AtomicIntegerArray observedUnits;
+
+  ComputeUnitTable(final PublicKey program,
+                   final int discriminatorLength,
+                   final int emptyDataDiscriminator,
+                   final int[] defaultUnits,
+                   final int unknownUnits,
+                   final boolean builtin) {
+    this.program = program;
+    this.discriminatorLength = discriminatorLength;
+    this.emptyDataDiscriminator = emptyDataDiscriminator;
+    this.defaultUnits = defaultUnits;
+    this.unknownUnits = unknownUnits;
+    this.observedUnits = builtin ? null : new AtomicIntegerArray(defaultUnits.length);
+  }
+
+  static int[] units(final int numInstructions, final int units) {
+    final int[] table = new int[numInstructions];
+    Arrays.fill(table, units);
+    return table;
+  }
+
+  PublicKey program() {
+    return program;
+  }
+
+  int discriminator(final Instruction instruction) {
+    final int len = instruction.len();
+    if (len == 0) {
+      return emptyDataDiscriminator;
+    } else if (len < discriminatorLength) {
+      return -1;
+    } else if (discriminatorLength == 1) {
+      return instruction.data()[instruction.offset()] & 0xFF;
+    } else {
+      return ByteUtil.getInt32LE(instruction.data(), instruction.offset());
+    }
+  }
+
+  int estimate(final int discriminator) {
+    if (discriminator < 0 || discriminator >= defaultUnits.length) {
+      return unknownUnits;
+    } else if (observedUnits != null) {
+      // Samples only ever raise the conservative default.
+      return Math.max(defaultUnits[discriminator], observedUnits.get(discriminator));
+    } else {
+      return defaultUnits[discriminator];
+    }
+  }
+
+  boolean calibrate(final int discriminator, final int consumedUnits) {
+    if (observedUnits == null || discriminator < 0 || discriminator >= defaultUnits.length || consumedUnits <= 0) {
+      return false;
+    }
+    observedUnits.accumulateAndGet(discriminator, consumedUnits, Math::max);
+    return true;
+  }
+
+  void reset() {
+    if (observedUnits != null) {
+      for (int i = 0; i < observedUnits.length(); ++i) {
+        observedUnits.set(i, 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package software.sava.solana.programs.encoding;
+
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Reusable backing storage for instruction data and account meta lists.  Instructions built against a buffer reference
+// slices of it, they remain valid only until the buffer is reset, so serialize the transaction first.
+//
+// This removes the data array and key list per instruction, it is not allocation free: builders still create an
+// AccountMeta per key and the Instruction itself.
+//
+// Not thread safe, use one buffer per sending thread.  threadLocalBuffer() only pays off on long-lived platform
+// threads, each virtual thread gets its own buffer which is discarded with it, so virtual thread senders should
+// hand out buffers from their own pool.
+public final class InstructionBuffer {
+
+  public static final int DEFAULT_DATA_CAPACITY = 1_232;
+  public static final int DEFAULT_METAS_CAPACITY = 256;
+
+  private static final ThreadLocal<InstructionBuffer> THREAD_LOCAL_BUFFER = ThreadLocal.withInitial(InstructionBuffer::createBuffer);
+
+  public static InstructionBuffer createBuffer(final int dataCapacity, final int metasCapacity) {
+    return new InstructionBuffer(dataCapacity, metasCapacity);
+  }
+
+  public static InstructionBuffer createBuffer() {
+    return createBuffer(DEFAULT_DATA_CAPACITY, DEFAULT_METAS_CAPACITY);
+  }
+
+  // The calling thread's buffer, reset it once the instructions built against it are no longer needed.  Not reused
+  // across virtual threads.
+  public static InstructionBuffer threadLocalBuffer() {
+    return THREAD_LOCAL_BUFFER.get();
+  }
+
+  private final byte[] data;
+  private int position;
+
+  private final AccountMeta[] metas;
+  private int metasPosition;
+  private MetaList[] metaLists;
+  private int numMetaLists;
+
+  private InstructionBuffer(final int dataCapacity, final int metasCapacity) {
+    this.data = new byte[dataCapacity];
+    this.metas = new AccountMeta[metasCapacity];
+    this.metaLists = new MetaList[16];
+  }
+
+  public byte[] data() {
+    return data;
+  }
+
+  public int position() {
+    return position;
+  }
+
+  public int remaining() {
+    return data.length - position;
+  }
+
+  // Returns the offset of length zeroed bytes reserved in data().
+  public int reserve(final int length) {
+    final int offset = position;
+    final int end = offset + length;
+    if (end > data.length) {
+      throw new IllegalStateException(String.format(
+          "Instruction buffer of %d bytes cannot fit another %d bytes.", data.length, length
+      ));
+    }
+    Arrays.fill(data, offset, end, (byte) 0);
+    position = end;
+    return offset;
+  }
+
+  public Instruction instruction(final AccountMeta invokedProgram,
+                                 final List<AccountMeta> keys,
+                                 final int offset,
+                                 final int length) {
+    return Instruction.createInstruction(invokedProgram, keys, data, offset, length);
+  }
+
+  private int reserveMetas(final int numMetas) {
+    final int offset = metasPosition;
+    if (offset + numMetas > metas.length) {
+      throw new IllegalStateException(String.format(
+          "Instruction buffer of %d account metas cannot fit another %d.", metas.length, numMetas
+      ));
+    }
+    metasPosition += numMetas;
+    return offset;
+  }
+
+  private List<AccountMeta> metaList(final int offset, final int size) {
+    if (numMetaLists == metaLists.length) {
+      metaLists = Arrays.copyOf(metaLists, numMetaLists << 1);
+    }
+    var list = metaLists[numMetaLists];
+    if (list == null) {
+      list = new MetaList(metas);
+      metaLists[numMetaLists] = list;
+    }
+    ++numMetaLists;
+    list.offset = offset;
+    list.size = size;
+    return list;
+  }
+
+  public List<AccountMeta> keys(final AccountMeta a) {
+    final int offset = reserveMetas(1);
+    metas[offset] = a;
+    return metaList(offset, 1);
+  }
+
+  public List<AccountMeta> keys(final AccountMeta a, final AccountMeta b) {
+    final int offset = reserveMetas(2);
+    metas[offset] = a;
+    metas[offset + 1] = b;
+    return metaList(offset, 2);
+  }
+
+  public List<AccountMeta> keys(final AccountMeta a, final AccountMeta b, final AccountMeta c) {
+    final int offset = reserveMetas(3);
+    metas[offset] = a;
+    metas[offset + 1] = b;
+    metas[offset + 2] = c;
+    return metaList(offset, 3);
+  }
+
+  public List<AccountMeta> keys(final AccountMeta a,
+                                final AccountMeta b,
+                                final AccountMeta c,
+                                final AccountMeta d) {
+    final int offset = reserveMetas(4);
+    metas[offset] = a;
+    metas[offset + 1] = b;
+    metas[offset + 2] = c;
+    metas[offset + 3] = d;
+    return metaList(offset, 4);
+  }
+
+  public List<AccountMeta> keys(final AccountMeta a,
+                                final AccountMeta b,
+                                final AccountMeta c,
+                                final AccountMeta d,
+                                final AccountMeta e) {
+    final int offset = reserveMetas(5);
+    metas[offset] = a;
+    metas[offset + 1] = b;
+    metas[offset + 2] = c;
+    metas[offset + 3] = d;
+    metas[offset + 4] = e;
+    return metaList(offset, 5);
+  }
+
+  public List<AccountMeta> keys(final AccountMeta... keys) {
+    final int offset = reserveMetas(keys.length);
+    System.arraycopy(keys, 0, metas, offset, keys.length);
+    return metaList(offset, keys.length);
+  }
+
+  public void reset() {
+    position = 0;
+    Arrays.fill(metas, 0, metasPosition, null);
+    metasPosition = 0;
+    numMetaLists = 0;
+  }
+
+  private static final class MetaList extends AbstractList<AccountMeta> implements RandomAccess {
+
+    private final AccountMeta[] metas;
+    private int offset;
+    private int size;
+
+    private MetaList(final AccountMeta[] metas) {
+      this.metas = metas;
+    }
+
+    @Override
+    public AccountMeta get(final int index) {
+      return metas[offset + Objects.checkIndex(index, size)];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+// Off-heap, reference counted intern table of 32-byte keys.  Each intern takes a reference which is returned via
+// release, once a key has no references left it is removed and its id is reused by the next new key.  Ids are stable
+// for as long as the key is referenced.
+final class PublicKeySlots {
+
+  private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(LITTLE_ENDIAN);
+
+  private MemorySegment keys;
+  private MemorySegment refCounts;
+  private int capacity;
+  // Ids below nextId have been assigned, freed ids are pushed onto freeIds.
+  private int nextId;
+  private MemorySegment freeIds;
+  private int numFree;
+  // Open addressing table of id + 1, zero marks an empty slot.
+  private MemorySegment table;
+  private int mask;
+
+  PublicKeySlots(final int initialCapacity) {
+    allocate(Math.max(16, Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1));
+  }
+
+  private void allocate(final int capacity) {
+    this.capacity = capacity;
+    this.keys = allocate(Arena.ofAuto(), (long) capacity * PUBLIC_KEY_LENGTH);
+    this.refCounts = allocate(Arena.ofAuto(), (long) capacity * Integer.BYTES);
+    this.freeIds = allocate(Arena.ofAuto(), (long) capacity * Integer.BYTES);
+    final int tableSize = capacity << 1;
+    this.table = allocate(Arena.ofAuto(), (long) tableSize * Integer.BYTES);
+    this.mask = tableSize - 1;
+  }
+
+  static MemorySegment allocate(final Arena arena, final long bytes) {
+    return arena.allocate(Math.max(Long.BYTES, bytes), Long.BYTES);
+  }
+
+  int size() {
+    return nextId - numFree;
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  void clear() {
+    table.fill((byte) 0);
+    nextId = 0;
+    numFree = 0;
+  }
+
+  private static int hash(final long firstWord) {
+    final long h = firstWord * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private boolean keyEquals(final int id, final byte[] key, final int offset) {
+    final long base = (long) id * PUBLIC_KEY_LENGTH;
+    return keys.get(LONG, base) == ByteUtil.getInt64LE(key, offset)
+        && keys.get(LONG, base + 8) == ByteUtil.getInt64LE(key, offset + 8)
+        && keys.get(LONG, base + 16) == ByteUtil.getInt64LE(key, offset + 16)
+        && keys.get(LONG, base + 24) == ByteUtil.getInt64LE(key, offset + 24);
+  }
+
+  // -1 if the key has not been interned.
+  int find(final byte[] key, final int offset) {
+    for (int i = hash(ByteUtil.getInt64LE(key, offset)) & mask; ; i = (i + 1) & mask) {
+      final int slot = table.getAtIndex(JAVA_INT, i);
+      if (slot == 0) {
+        return -1;
+      } else if (keyEquals(slot - 1, key, offset)) {
+        return slot - 1;
+      }
+    }
+  }
+
+  int find(final PublicKey key) {
+    return find(key.toByteArray(), 0);
+  }
+
+  // Returns the id of the key, interning it if absent, and takes a reference to it.
+  int intern(final byte[] key, final int offset) {
+    int i = hash(ByteUtil.getInt64LE(key, offset)) & mask;
+    for (int slot; (slot = table.getAtIndex(JAVA_INT, i)) != 0; i = (i + 1) & mask) {
+      if (keyEquals(slot - 1, key, offset)) {
+        final int id = slot - 1;
+        refCounts.setAtIndex(JAVA_INT, id, refCounts.getAtIndex(JAVA_INT, id) + 1);
+        return id;
+      }
+    }
+    final int id;
+    if (numFree > 0) {
+      id = freeIds.getAtIndex(JAVA_INT, --numFree);
+    } else if (nextId == capacity) {
+      grow();
+      return intern(key, offset);
+    } else {
+      id = nextId++;
+    }
+    MemorySegment.copy(key, offset, keys, JAVA_BYTE, (long) id * PUBLIC_KEY_LENGTH, PUBLIC_KEY_LENGTH);
+    refCounts.setAtIndex(JAVA_INT, id, 1);
+    table.setAtIndex(JAVA_INT, i, id + 1);
+    return id;
+  }
+
+  int intern(final PublicKey key) {
+    return intern(key.toByteArray(), 0);
+  }
+
+  // Drops a reference to the key, removing it once none are left.  Returns true if the key was removed.
+  boolean release(final int id) {
+    final int refCount = refCounts.getAtIndex(JAVA_INT, id) - 1;
+    refCounts.setAtIndex(JAVA_INT, id, refCount);
+    if (refCount > 0) {
+      return false;
+    }
+    int i = hash(keys.get(LONG, (long) id * PUBLIC_KEY_LENGTH)) & mask;
+    while (table.getAtIndex(JAVA_INT, i) != id + 1) {
+      i = (i + 1) & mask;
+    }
+    // Backward shift deletion, move later entries of the probe run into the hole unless they would precede their home.
+    table.setAtIndex(JAVA_INT, i, 0);
+    for (int j = (i + 1) & mask, slot; (slot = table.getAtIndex(JAVA_INT, j)) != 0; j = (j + 1) & mask) {
+      final int home = hash(keys.get(LONG, (long) (slot - 1) * PUBLIC_KEY_LENGTH)) & mask;
+      if (i <= j ? (i < home && home <= j) : (i < home || home <= j)) {
+        continue;
+      }
+      table.setAtIndex(JAVA_INT, i, slot);
+      table.setAtIndex(JAVA_INT, j, 0);
+      i = j;
+    }
+    freeIds.setAtIndex(JAVA_INT, numFree++, id);
+    return true;
+  }
+
+  private void grow() {
+    final var previousKeys = keys;
+    final var previousRefCounts = refCounts;
+    allocate(capacity << 1);
+    MemorySegment.copy(previousKeys, 0, keys, 0, (long) nextId * PUBLIC_KEY_LENGTH);
+    MemorySegment.copy(previousRefCounts, 0, refCounts, 0, (long) nextId * Integer.BYTES);
+    for (int id = 0; id < nextId; ++id) {
+      int i = hash(keys.get(LONG, (long) id * PUBLIC_KEY_LENGTH)) & mask;
+      while (table.getAtIndex(JAVA_INT, i) != 0) {
+        i = (i + 1) & mask;
+      }
+      table.setAtIndex(JAVA_INT, i, id + 1);
+    }
+  }
+
+  void copy(final int id, final byte[] dest, final int offset) {
+    MemorySegment.copy(keys, JAVA_BYTE, (long) id * PUBLIC_KEY_LENGTH, dest, offset, PUBLIC_KEY_LENGTH);
+  }
+
+  PublicKey get(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    copy(id, key, 0);
+    return PublicKey.createPubKey(key);
+  }
+}
@@ -35,7 +35,7 @@ public record StakeAccount(PublicKey address,
     INACTIVE
   }
 
-  public State state(final long currentEpoch) {
+  public static State state(final long activationEpoch, final long deActivationEpoch, final long currentEpoch) {
     if (deActivationEpoch < 0) {
       return activationEpoch > 0 && activationEpoch < currentEpoch ? State.ACTIVE : State.ACTIVATING;
     } else {
@@ -43,6 +43,10 @@ public record StakeAccount(PublicKey address,
     }
   }
 
+  public State state(final long currentEpoch) {
+    return state(activationEpoch, deActivationEpoch, currentEpoch);
+  }
+
   public static final int BYTES = 200;
   public static final Filter DATA_SIZE_FILTER = createDataSizeFilter(BYTES);
 
@@ -0,0 +1,120 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+
+import java.util.function.IntConsumer;
+
+// Columnar, off-heap store of stake accounts.  Each field is held in its own primitive column and every public key is
+// interned into a shared table of 32-byte slots, referenced from the columns by an int id.  Keys are released once no
+// row references them, and their ids reused.  Rows are dense, removal moves the last row into the vacated slot, so row
+// indices are only stable between mutations.
+//
+// Not thread safe, mutate from a single thread or guard externally.
+public interface StakeAccountStore {
+
+  int DEFAULT_INITIAL_CAPACITY = 1 << 12;
+
+  enum Index {
+
+    VOTER,
+    STAKE_AUTHORITY,
+    WITHDRAW_AUTHORITY,
+    CUSTODIAN
+  }
+
+  static StakeAccountStore createStore(final int initialCapacity) {
+    return new StakeAccountStoreImpl(initialCapacity);
+  }
+
+  static StakeAccountStore createStore() {
+    return createStore(DEFAULT_INITIAL_CAPACITY);
+  }
+
+  int size();
+
+  // Number of distinct keys referenced by the stored rows.
+  int numKeys();
+
+  // Returns the row of the upserted account.
+  int put(final PublicKey address, final byte[] data, final int offset);
+
+  default int put(final PublicKey address, final byte[] data) {
+    return put(address, data, 0);
+  }
+
+  int put(final StakeAccount stakeAccount);
+
+  boolean remove(final PublicKey address);
+
+  // Drops all rows and interned keys.
+  void clear();
+
+  // -1 if absent.
+  int row(final PublicKey address);
+
+  int row(final byte[] address, final int offset);
+
+  PublicKey address(final int row);
+
+  StakeState state(final int row);
+
+  long rentExemptReserve(final int row);
+
+  PublicKey stakeAuthority(final int row);
+
+  PublicKey withdrawAuthority(final int row);
+
+  long lockupUnixTimestamp(final int row);
+
+  long lockupEpoch(final int row);
+
+  PublicKey custodian(final int row);
+
+  PublicKey voterPublicKey(final int row);
+
+  long stake(final int row);
+
+  long activationEpoch(final int row);
+
+  long deActivationEpoch(final int row);
+
+  double warmupCoolDownRate(final int row);
+
+  long creditsObserved(final int row);
+
+  byte stakeFlags(final int row);
+
+  default StakeAccount.State state(final int row, final long currentEpoch) {
+    return StakeAccount.state(activationEpoch(row), deActivationEpoch(row), currentEpoch);
+  }
+
+  // Interned key id for the given index column, compare ids to test key equality between rows.  Ids are stable while
+  // any row references the key.
+  int keyId(final Index index, final int row);
+
+  // Copies the key of the given index column without allocating a PublicKey, returns the number of bytes written.
+  int copyKey(final Index index, final int row, final byte[] dest, final int offset);
+
+  StakeAccount materialize(final int row);
+
+  // Returns the number of matching rows.
+  int forEach(final Index index, final PublicKey key, final IntConsumer rowConsumer);
+
+  int[] rows(final Index index, final PublicKey key);
+
+  default int[] rowsForValidator(final PublicKey voteAccount) {
+    return rows(Index.VOTER, voteAccount);
+  }
+
+  default int[] rowsByStakeAuthority(final PublicKey staker) {
+    return rows(Index.STAKE_AUTHORITY, staker);
+  }
+
+  default int[] rowsByWithdrawAuthority(final PublicKey withdrawer) {
+    return rows(Index.WITHDRAW_AUTHORITY, withdrawer);
+  }
+
+  default int[] rowsWithCustodian(final PublicKey custodian) {
+    return rows(Index.CUSTODIAN, custodian);
+  }
+}
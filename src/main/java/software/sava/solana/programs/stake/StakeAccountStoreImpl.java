@@ -0,0 +1,471 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.function.IntConsumer;
+
+import static java.lang.foreign.ValueLayout.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.PublicKeySlots.allocate;
+import static software.sava.solana.programs.stake.StakeAccount.*;
+
+final class StakeAccountStoreImpl implements StakeAccountStore {
+
+  private static final StakeState[] STAKE_STATES = StakeState.values();
+  private static final Index[] INDEXES = Index.values();
+  private static final int NUM_INDEXES = INDEXES.length;
+
+  private final PublicKeySlots keys;
+
+  private int capacity;
+  private int size;
+
+  private MemorySegment addressIds;
+  private MemorySegment states;
+  private MemorySegment rentExemptReserves;
+  private MemorySegment lockupUnixTimestamps;
+  private MemorySegment lockupEpochs;
+  private MemorySegment stakes;
+  private MemorySegment activationEpochs;
+  private MemorySegment deActivationEpochs;
+  private MemorySegment warmupCoolDownRates;
+  private MemorySegment creditsObserved;
+  private MemorySegment stakeFlags;
+
+  // Per index: key id column, and a doubly linked list of rows threaded through next/prev, rooted at heads[keyId].
+  private final MemorySegment[] indexKeyIds = new MemorySegment[NUM_INDEXES];
+  private final MemorySegment[] next = new MemorySegment[NUM_INDEXES];
+  private final MemorySegment[] prev = new MemorySegment[NUM_INDEXES];
+
+  private int keyCapacity;
+  private final MemorySegment[] heads = new MemorySegment[NUM_INDEXES];
+  private MemorySegment rowByAddress;
+
+  StakeAccountStoreImpl(final int initialCapacity) {
+    this.keys = new PublicKeySlots(initialCapacity << 1);
+    this.capacity = Math.max(16, initialCapacity);
+    this.addressIds = allocate(Arena.ofAuto(), (long) capacity * Integer.BYTES);
+    this.states = allocate(Arena.ofAuto(), capacity);
+    this.rentExemptReserves = allocate(Arena.ofAuto(), (long) capacity * Long.BYTES);
+    this.lockupUnixTimestamps = allocate(Arena.ofAuto(), (long) capacity * Long.BYTES);
+    this.lockupEpochs = allocate(Arena.ofAuto(), (long) capacity * Long.BYTES);
+    this.stakes = allocate(Arena.ofAuto(), (long) capacity * Long.BYTES);
+    this.activationEpochs = allocate(Arena.ofAuto(), (long) capacity * Long.BYTES);
+    this.deActivationEpochs = allocate(Arena.ofAuto(), (long) capacity * Long.BYTES);
+    this.warmupCoolDownRates = allocate(Arena.ofAuto(), (long) capacity * Double.BYTES);
+    this.creditsObserved = allocate(Arena.ofAuto(), (long) capacity * Long.BYTES);
+    this.stakeFlags = allocate(Arena.ofAuto(), capacity);
+    for (int i = 0; i < NUM_INDEXES; ++i) {
+      indexKeyIds[i] = allocate(Arena.ofAuto(), (long) capacity * Integer.BYTES);
+      next[i] = allocate(Arena.ofAuto(), (long) capacity * Integer.BYTES);
+      prev[i] = allocate(Arena.ofAuto(), (long) capacity * Integer.BYTES);
+    }
+    this.keyCapacity = keys.capacity();
+    for (int i = 0; i < NUM_INDEXES; ++i) {
+      heads[i] = allocate(Arena.ofAuto(), (long) keyCapacity * Integer.BYTES);
+      heads[i].fill((byte) -1);
+    }
+    this.rowByAddress = allocate(Arena.ofAuto(), (long) keyCapacity * Integer.BYTES);
+    rowByAddress.fill((byte) -1);
+  }
+
+  private static MemorySegment grow(final MemorySegment column, final long newBytes) {
+    final var grown = allocate(Arena.ofAuto(), newBytes);
+    MemorySegment.copy(column, 0, grown, 0, column.byteSize());
+    return grown;
+  }
+
+  private static MemorySegment growEmpty(final MemorySegment column, final long newBytes) {
+    final var grown = grow(column, newBytes);
+    grown.asSlice(column.byteSize()).fill((byte) -1);
+    return grown;
+  }
+
+  private void ensureRowCapacity() {
+    if (size == capacity) {
+      final int newCapacity = capacity << 1;
+      addressIds = grow(addressIds, (long) newCapacity * Integer.BYTES);
+      states = grow(states, newCapacity);
+      rentExemptReserves = grow(rentExemptReserves, (long) newCapacity * Long.BYTES);
+      lockupUnixTimestamps = grow(lockupUnixTimestamps, (long) newCapacity * Long.BYTES);
+      lockupEpochs = grow(lockupEpochs, (long) newCapacity * Long.BYTES);
+      stakes = grow(stakes, (long) newCapacity * Long.BYTES);
+      activationEpochs = grow(activationEpochs, (long) newCapacity * Long.BYTES);
+      deActivationEpochs = grow(deActivationEpochs, (long) newCapacity * Long.BYTES);
+      warmupCoolDownRates = grow(warmupCoolDownRates, (long) newCapacity * Double.BYTES);
+      creditsObserved = grow(creditsObserved, (long) newCapacity * Long.BYTES);
+      stakeFlags = grow(stakeFlags, newCapacity);
+      for (int i = 0; i < NUM_INDEXES; ++i) {
+        indexKeyIds[i] = grow(indexKeyIds[i], (long) newCapacity * Integer.BYTES);
+        next[i] = grow(next[i], (long) newCapacity * Integer.BYTES);
+        prev[i] = grow(prev[i], (long) newCapacity * Integer.BYTES);
+      }
+      capacity = newCapacity;
+    }
+  }
+
+  private void ensureKeyCapacity() {
+    final int newKeyCapacity = keys.capacity();
+    if (newKeyCapacity != keyCapacity) {
+      for (int i = 0; i < NUM_INDEXES; ++i) {
+        heads[i] = growEmpty(heads[i], (long) newKeyCapacity * Integer.BYTES);
+      }
+      rowByAddress = growEmpty(rowByAddress, (long) newKeyCapacity * Integer.BYTES);
+      keyCapacity = newKeyCapacity;
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int numKeys() {
+    return keys.size();
+  }
+
+  private void link(final int index, final int row, final int keyId) {
+    final var heads = this.heads[index];
+    final int head = heads.getAtIndex(JAVA_INT, keyId);
+    indexKeyIds[index].setAtIndex(JAVA_INT, row, keyId);
+    next[index].setAtIndex(JAVA_INT, row, head);
+    prev[index].setAtIndex(JAVA_INT, row, -1);
+    if (head >= 0) {
+      prev[index].setAtIndex(JAVA_INT, head, row);
+    }
+    heads.setAtIndex(JAVA_INT, keyId, row);
+  }
+
+  private void unlink(final int index, final int row) {
+    final int prevRow = prev[index].getAtIndex(JAVA_INT, row);
+    final int nextRow = next[index].getAtIndex(JAVA_INT, row);
+    if (prevRow >= 0) {
+      next[index].setAtIndex(JAVA_INT, prevRow, nextRow);
+    } else {
+      heads[index].setAtIndex(JAVA_INT, indexKeyIds[index].getAtIndex(JAVA_INT, row), nextRow);
+    }
+    if (nextRow >= 0) {
+      prev[index].setAtIndex(JAVA_INT, nextRow, prevRow);
+    }
+  }
+
+  private int upsertRow(final int addressId,
+                        final int voterId,
+                        final int stakeAuthorityId,
+                        final int withdrawAuthorityId,
+                        final int custodianId) {
+    ensureKeyCapacity();
+    int row = rowByAddress.getAtIndex(JAVA_INT, addressId);
+    if (row < 0) {
+      ensureRowCapacity();
+      row = size++;
+      addressIds.setAtIndex(JAVA_INT, row, addressId);
+      rowByAddress.setAtIndex(JAVA_INT, addressId, row);
+      link(Index.VOTER.ordinal(), row, voterId);
+      link(Index.STAKE_AUTHORITY.ordinal(), row, stakeAuthorityId);
+      link(Index.WITHDRAW_AUTHORITY.ordinal(), row, withdrawAuthorityId);
+      link(Index.CUSTODIAN.ordinal(), row, custodianId);
+    } else {
+      // The row already holds a reference to its address, and releases those of the keys it is re-linked away from.
+      keys.release(addressId);
+      relink(Index.VOTER.ordinal(), row, voterId);
+      relink(Index.STAKE_AUTHORITY.ordinal(), row, stakeAuthorityId);
+      relink(Index.WITHDRAW_AUTHORITY.ordinal(), row, withdrawAuthorityId);
+      relink(Index.CUSTODIAN.ordinal(), row, custodianId);
+    }
+    return row;
+  }
+
+  private void relink(final int index, final int row, final int keyId) {
+    final int previousKeyId = indexKeyIds[index].getAtIndex(JAVA_INT, row);
+    unlink(index, row);
+    link(index, row, keyId);
+    keys.release(previousKeyId);
+  }
+
+  @Override
+  public int put(final PublicKey address, final byte[] data, final int offset) {
+    final int row = upsertRow(
+        keys.intern(address),
+        keys.intern(data, offset + VOTER_PUBLIC_KEY_OFFSET),
+        keys.intern(data, offset + STAKE_AUTHORITY_OFFSET),
+        keys.intern(data, offset + WITHDRAW_AUTHORITY_OFFSET),
+        keys.intern(data, offset + LOCKUP_CUSTODIAN_OFFSET)
+    );
+    states.set(JAVA_BYTE, row, (byte) ByteUtil.getInt32LE(data, offset + STATE_OFFSET));
+    rentExemptReserves.setAtIndex(JAVA_LONG, row, ByteUtil.getInt64LE(data, offset + RENT_EXEMPT_RESERVE_OFFSET));
+    lockupUnixTimestamps.setAtIndex(JAVA_LONG, row, ByteUtil.getInt64LE(data, offset + LOCKUP_TIMESTAMP_OFFSET));
+    lockupEpochs.setAtIndex(JAVA_LONG, row, ByteUtil.getInt64LE(data, offset + LOCKUP_EPOCH_OFFSET));
+    stakes.setAtIndex(JAVA_LONG, row, ByteUtil.getInt64LE(data, offset + STAKE_OFFSET));
+    activationEpochs.setAtIndex(JAVA_LONG, row, ByteUtil.getInt64LE(data, offset + ACTIVATION_EPOCH_OFFSET));
+    deActivationEpochs.setAtIndex(JAVA_LONG, row, ByteUtil.getInt64LE(data, offset + DE_ACTIVATION_EPOCH_OFFSET));
+    warmupCoolDownRates.setAtIndex(JAVA_DOUBLE, row, ByteUtil.getFloat64LE(data, offset + WARMUP_COOLDOWN_RATE_OFFSET));
+    creditsObserved.setAtIndex(JAVA_LONG, row, ByteUtil.getInt64LE(data, offset + CREDITS_OBSERVED_OFFSET));
+    stakeFlags.set(JAVA_BYTE, row, data[offset + STAKE_FLAGS_OFFSET]);
+    return row;
+  }
+
+  @Override
+  public int put(final StakeAccount stakeAccount) {
+    final var lockup = stakeAccount.lockup();
+    final int row = upsertRow(
+        keys.intern(stakeAccount.address()),
+        keys.intern(stakeAccount.voterPublicKey()),
+        keys.intern(stakeAccount.stakeAuthority()),
+        keys.intern(stakeAccount.withdrawAuthority()),
+        keys.intern(lockup.custodian())
+    );
+    states.set(JAVA_BYTE, row, (byte) stakeAccount.state().ordinal());
+    rentExemptReserves.setAtIndex(JAVA_LONG, row, stakeAccount.rentExemptReserve());
+    lockupUnixTimestamps.setAtIndex(JAVA_LONG, row, lockup.unixTimestamp());
+    lockupEpochs.setAtIndex(JAVA_LONG, row, lockup.epoch());
+    stakes.setAtIndex(JAVA_LONG, row, stakeAccount.stake());
+    activationEpochs.setAtIndex(JAVA_LONG, row, stakeAccount.activationEpoch());
+    deActivationEpochs.setAtIndex(JAVA_LONG, row, stakeAccount.deActivationEpoch());
+    warmupCoolDownRates.setAtIndex(JAVA_DOUBLE, row, stakeAccount.warmupCoolDownRate());
+    creditsObserved.setAtIndex(JAVA_LONG, row, stakeAccount.creditsObserved());
+    stakeFlags.set(JAVA_BYTE, row, stakeAccount.stakeFlags());
+    return row;
+  }
+
+  private static void moveLong(final MemorySegment column, final int from, final int to) {
+    column.setAtIndex(JAVA_LONG, to, column.getAtIndex(JAVA_LONG, from));
+  }
+
+  private void moveRow(final int from, final int to) {
+    final int addressId = addressIds.getAtIndex(JAVA_INT, from);
+    addressIds.setAtIndex(JAVA_INT, to, addressId);
+    rowByAddress.setAtIndex(JAVA_INT, addressId, to);
+    states.set(JAVA_BYTE, to, states.get(JAVA_BYTE, from));
+    moveLong(rentExemptReserves, from, to);
+    moveLong(lockupUnixTimestamps, from, to);
+    moveLong(lockupEpochs, from, to);
+    moveLong(stakes, from, to);
+    moveLong(activationEpochs, from, to);
+    moveLong(deActivationEpochs, from, to);
+    warmupCoolDownRates.setAtIndex(JAVA_DOUBLE, to, warmupCoolDownRates.getAtIndex(JAVA_DOUBLE, from));
+    moveLong(creditsObserved, from, to);
+    stakeFlags.set(JAVA_BYTE, to, stakeFlags.get(JAVA_BYTE, from));
+    for (int i = 0; i < NUM_INDEXES; ++i) {
+      final int keyId = indexKeyIds[i].getAtIndex(JAVA_INT, from);
+      final int prevRow = prev[i].getAtIndex(JAVA_INT, from);
+      final int nextRow = next[i].getAtIndex(JAVA_INT, from);
+      indexKeyIds[i].setAtIndex(JAVA_INT, to, keyId);
+      prev[i].setAtIndex(JAVA_INT, to, prevRow);
+      next[i].setAtIndex(JAVA_INT, to, nextRow);
+      if (prevRow >= 0) {
+        next[i].setAtIndex(JAVA_INT, prevRow, to);
+      } else {
+        heads[i].setAtIndex(JAVA_INT, keyId, to);
+      }
+      if (nextRow >= 0) {
+        prev[i].setAtIndex(JAVA_INT, nextRow, to);
+      }
+    }
+  }
+
+  @Override
+  public boolean remove(final PublicKey address) {
+    final int row = row(address);
+    if (row < 0) {
+      return false;
+    }
+    for (int i = 0; i < NUM_INDEXES; ++i) {
+      unlink(i, row);
+      keys.release(indexKeyIds[i].getAtIndex(JAVA_INT, row));
+    }
+    final int addressId = addressIds.getAtIndex(JAVA_INT, row);
+    rowByAddress.setAtIndex(JAVA_INT, addressId, -1);
+    keys.release(addressId);
+    final int last = --size;
+    if (row != last) {
+      moveRow(last, row);
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    keys.clear();
+    for (final var heads : heads) {
+      heads.fill((byte) -1);
+    }
+    rowByAddress.fill((byte) -1);
+    size = 0;
+  }
+
+  private int row(final int addressId) {
+    return addressId < 0 ? -1 : rowByAddress.getAtIndex(JAVA_INT, addressId);
+  }
+
+  @Override
+  public int row(final PublicKey address) {
+    return row(keys.find(address));
+  }
+
+  @Override
+  public int row(final byte[] address, final int offset) {
+    return row(keys.find(address, offset));
+  }
+
+  private void checkRow(final int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException(String.format("Row %d, size %d", row, size));
+    }
+  }
+
+  @Override
+  public PublicKey address(final int row) {
+    checkRow(row);
+    return keys.get(addressIds.getAtIndex(JAVA_INT, row));
+  }
+
+  @Override
+  public StakeState state(final int row) {
+    checkRow(row);
+    return STAKE_STATES[states.get(JAVA_BYTE, row)];
+  }
+
+  @Override
+  public long rentExemptReserve(final int row) {
+    checkRow(row);
+    return rentExemptReserves.getAtIndex(JAVA_LONG, row);
+  }
+
+  private PublicKey indexedKey(final Index index, final int row) {
+    return keys.get(keyId(index, row));
+  }
+
+  @Override
+  public PublicKey stakeAuthority(final int row) {
+    return indexedKey(Index.STAKE_AUTHORITY, row);
+  }
+
+  @Override
+  public PublicKey withdrawAuthority(final int row) {
+    return indexedKey(Index.WITHDRAW_AUTHORITY, row);
+  }
+
+  @Override
+  public long lockupUnixTimestamp(final int row) {
+    checkRow(row);
+    return lockupUnixTimestamps.getAtIndex(JAVA_LONG, row);
+  }
+
+  @Override
+  public long lockupEpoch(final int row) {
+    checkRow(row);
+    return lockupEpochs.getAtIndex(JAVA_LONG, row);
+  }
+
+  @Override
+  public PublicKey custodian(final int row) {
+    return indexedKey(Index.CUSTODIAN, row);
+  }
+
+  @Override
+  public PublicKey voterPublicKey(final int row) {
+    return indexedKey(Index.VOTER, row);
+  }
+
+  @Override
+  public long stake(final int row) {
+    checkRow(row);
+    return stakes.getAtIndex(JAVA_LONG, row);
+  }
+
+  @Override
+  public long activationEpoch(final int row) {
+    checkRow(row);
+    return activationEpochs.getAtIndex(JAVA_LONG, row);
+  }
+
+  @Override
+  public long deActivationEpoch(final int row) {
+    checkRow(row);
+    return deActivationEpochs.getAtIndex(JAVA_LONG, row);
+  }
+
+  @Override
+  public double warmupCoolDownRate(final int row) {
+    checkRow(row);
+    return warmupCoolDownRates.getAtIndex(JAVA_DOUBLE, row);
+  }
+
+  @Override
+  public long creditsObserved(final int row) {
+    checkRow(row);
+    return creditsObserved.getAtIndex(JAVA_LONG, row);
+  }
+
+  @Override
+  public byte stakeFlags(final int row) {
+    checkRow(row);
+    return stakeFlags.get(JAVA_BYTE, row);
+  }
+
+  @Override
+  public int keyId(final Index index, final int row) {
+    checkRow(row);
+    return indexKeyIds[index.ordinal()].getAtIndex(JAVA_INT, row);
+  }
+
+  @Override
+  public int copyKey(final Index index, final int row, final byte[] dest, final int offset) {
+    keys.copy(keyId(index, row), dest, offset);
+    return PUBLIC_KEY_LENGTH;
+  }
+
+  @Override
+  public StakeAccount materialize(final int row) {
+    return new StakeAccount(
+        address(row),
+        state(row),
+        rentExemptReserve(row),
+        stakeAuthority(row),
+        withdrawAuthority(row),
+        new LockUp(lockupUnixTimestamp(row), lockupEpoch(row), custodian(row)),
+        voterPublicKey(row),
+        stake(row),
+        activationEpoch(row),
+        deActivationEpoch(row),
+        warmupCoolDownRate(row),
+        creditsObserved(row),
+        stakeFlags(row)
+    );
+  }
+
+  private int head(final Index index, final PublicKey key) {
+    final int keyId = keys.find(key);
+    return keyId < 0 ? -1 : heads[index.ordinal()].getAtIndex(JAVA_INT, keyId);
+  }
+
+  @Override
+  public int forEach(final Index index, final PublicKey key, final IntConsumer rowConsumer) {
+    final var next = this.next[index.ordinal()];
+    int count = 0;
+    for (int row = head(index, key); row >= 0; row = next.getAtIndex(JAVA_INT, row), ++count) {
+      rowConsumer.accept(row);
+    }
+    return count;
+  }
+
+  @Override
+  public int[] rows(final Index index, final PublicKey key) {
+    final var next = this.next[index.ordinal()];
+    final int head = head(index, key);
+    int count = 0;
+    for (int row = head; row >= 0; row = next.getAtIndex(JAVA_INT, row)) {
+      ++count;
+    }
+    final int[] rows = new int[count];
+    for (int row = head, i = 0; row >= 0; row = next.getAtIndex(JAVA_INT, row)) {
+      rows[i++] = row;
+    }
+    return rows;
+  }
+}
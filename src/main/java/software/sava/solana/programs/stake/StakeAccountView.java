@@ -0,0 +1,238 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.StakeAccount.*;
+
+// Re-pointable flyweight over serialized stake account data.  Fields are read on access and nothing is copied until
+// materialize() is called.  Instances are not thread safe, use one per thread and re-wrap for each account.
+public final class StakeAccountView {
+
+  private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(LITTLE_ENDIAN);
+  private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(LITTLE_ENDIAN);
+  private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(LITTLE_ENDIAN);
+  private static final StakeState[] STAKE_STATES = StakeState.values();
+
+  private Object backing;
+  private MemorySegment segment;
+  private long offset;
+  private PublicKey address;
+
+  public static StakeAccountView createView() {
+    return new StakeAccountView();
+  }
+
+  public static StakeAccountView createView(final byte[] data, final int offset) {
+    return new StakeAccountView().wrap(data, offset);
+  }
+
+  public static StakeAccountView createView(final MemorySegment segment, final long offset) {
+    return new StakeAccountView().wrap(segment, offset);
+  }
+
+  private StakeAccountView() {
+  }
+
+  public StakeAccountView wrap(final byte[] data, final int offset) {
+    if (data != backing) {
+      this.backing = data;
+      this.segment = MemorySegment.ofArray(data);
+    }
+    this.offset = offset;
+    this.address = null;
+    return this;
+  }
+
+  public StakeAccountView wrap(final ByteBuffer buffer, final int offset) {
+    if (buffer != backing) {
+      this.backing = buffer;
+      this.segment = MemorySegment.ofBuffer(buffer);
+    }
+    this.offset = offset;
+    this.address = null;
+    return this;
+  }
+
+  public StakeAccountView wrap(final MemorySegment segment, final long offset) {
+    this.backing = segment;
+    this.segment = segment;
+    this.offset = offset;
+    this.address = null;
+    return this;
+  }
+
+  // Moves to another account within the currently wrapped data.
+  public StakeAccountView position(final long offset) {
+    this.offset = offset;
+    this.address = null;
+    return this;
+  }
+
+  public StakeAccountView address(final PublicKey address) {
+    this.address = address;
+    return this;
+  }
+
+  public PublicKey address() {
+    return address;
+  }
+
+  public long offset() {
+    return offset;
+  }
+
+  public StakeState state() {
+    return STAKE_STATES[segment.get(INT, offset + STATE_OFFSET)];
+  }
+
+  public long rentExemptReserve() {
+    return segment.get(LONG, offset + RENT_EXEMPT_RESERVE_OFFSET);
+  }
+
+  public long lockupUnixTimestamp() {
+    return segment.get(LONG, offset + LOCKUP_TIMESTAMP_OFFSET);
+  }
+
+  public long lockupEpoch() {
+    return segment.get(LONG, offset + LOCKUP_EPOCH_OFFSET);
+  }
+
+  public long stake() {
+    return segment.get(LONG, offset + STAKE_OFFSET);
+  }
+
+  public long activationEpoch() {
+    return segment.get(LONG, offset + ACTIVATION_EPOCH_OFFSET);
+  }
+
+  public long deActivationEpoch() {
+    return segment.get(LONG, offset + DE_ACTIVATION_EPOCH_OFFSET);
+  }
+
+  public double warmupCoolDownRate() {
+    return segment.get(DOUBLE, offset + WARMUP_COOLDOWN_RATE_OFFSET);
+  }
+
+  public long creditsObserved() {
+    return segment.get(LONG, offset + CREDITS_OBSERVED_OFFSET);
+  }
+
+  public byte stakeFlags() {
+    return segment.get(JAVA_BYTE, offset + STAKE_FLAGS_OFFSET);
+  }
+
+  public boolean isSet(final int mask) {
+    return (stakeFlags() & mask) == mask;
+  }
+
+  public StakeAccount.State state(final long currentEpoch) {
+    return StakeAccount.state(activationEpoch(), deActivationEpoch(), currentEpoch);
+  }
+
+  private boolean keyEquals(final int keyOffset, final byte[] key, final int offset) {
+    final long from = this.offset + keyOffset;
+    for (int i = 0; i < PUBLIC_KEY_LENGTH; i += Long.BYTES) {
+      if (segment.get(LONG, from + i) != ByteUtil.getInt64LE(key, offset + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean keyEquals(final int keyOffset, final PublicKey key) {
+    return keyEquals(keyOffset, key.toByteArray(), 0);
+  }
+
+  public boolean stakeAuthorityEquals(final PublicKey stakeAuthority) {
+    return keyEquals(STAKE_AUTHORITY_OFFSET, stakeAuthority);
+  }
+
+  public boolean withdrawAuthorityEquals(final PublicKey withdrawAuthority) {
+    return keyEquals(WITHDRAW_AUTHORITY_OFFSET, withdrawAuthority);
+  }
+
+  public boolean custodianEquals(final PublicKey custodian) {
+    return keyEquals(LOCKUP_CUSTODIAN_OFFSET, custodian);
+  }
+
+  public boolean voterPublicKeyEquals(final PublicKey voterPublicKey) {
+    return keyEquals(VOTER_PUBLIC_KEY_OFFSET, voterPublicKey);
+  }
+
+  public boolean stakeAuthorityEquals(final byte[] key, final int offset) {
+    return keyEquals(STAKE_AUTHORITY_OFFSET, key, offset);
+  }
+
+  public boolean withdrawAuthorityEquals(final byte[] key, final int offset) {
+    return keyEquals(WITHDRAW_AUTHORITY_OFFSET, key, offset);
+  }
+
+  public boolean custodianEquals(final byte[] key, final int offset) {
+    return keyEquals(LOCKUP_CUSTODIAN_OFFSET, key, offset);
+  }
+
+  public boolean voterPublicKeyEquals(final byte[] key, final int offset) {
+    return keyEquals(VOTER_PUBLIC_KEY_OFFSET, key, offset);
+  }
+
+  private int copyKey(final int keyOffset, final byte[] dest, final int destOffset) {
+    MemorySegment.copy(segment, JAVA_BYTE, offset + keyOffset, dest, destOffset, PUBLIC_KEY_LENGTH);
+    return PUBLIC_KEY_LENGTH;
+  }
+
+  public int copyStakeAuthority(final byte[] dest, final int destOffset) {
+    return copyKey(STAKE_AUTHORITY_OFFSET, dest, destOffset);
+  }
+
+  public int copyWithdrawAuthority(final byte[] dest, final int destOffset) {
+    return copyKey(WITHDRAW_AUTHORITY_OFFSET, dest, destOffset);
+  }
+
+  public int copyCustodian(final byte[] dest, final int destOffset) {
+    return copyKey(LOCKUP_CUSTODIAN_OFFSET, dest, destOffset);
+  }
+
+  public int copyVoterPublicKey(final byte[] dest, final int destOffset) {
+    return copyKey(VOTER_PUBLIC_KEY_OFFSET, dest, destOffset);
+  }
+
+  private PublicKey readKey(final int keyOffset) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    copyKey(keyOffset, key, 0);
+    return PublicKey.createPubKey(key);
+  }
+
+  public PublicKey stakeAuthority() {
+    return readKey(STAKE_AUTHORITY_OFFSET);
+  }
+
+  public PublicKey withdrawAuthority() {
+    return readKey(WITHDRAW_AUTHORITY_OFFSET);
+  }
+
+  public PublicKey custodian() {
+    return readKey(LOCKUP_CUSTODIAN_OFFSET);
+  }
+
+  public PublicKey voterPublicKey() {
+    return readKey(VOTER_PUBLIC_KEY_OFFSET);
+  }
+
+  public StakeAccount materialize() {
+    if (backing instanceof byte[] data) {
+      return StakeAccount.read(address, data, (int) offset);
+    } else {
+      final byte[] data = new byte[BYTES];
+      MemorySegment.copy(segment, JAVA_BYTE, offset, data, 0, BYTES);
+      return StakeAccount.read(address, data, 0);
+    }
+  }
+}
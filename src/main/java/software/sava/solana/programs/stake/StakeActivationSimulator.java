@@ -0,0 +1,77 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+
+// Reproduces the runtime's stake warmup and cooldown, Delegation::stake_activating_and_deactivating, against a
+// StakeHistory.  The warmupCoolDownRate stored in stake accounts is deprecated and ignored by the runtime, the rate is
+// 25% per epoch until the new rate activation epoch and 9% from then on.
+//
+// Epochs are unsigned, an activation epoch of -1 marks bootstrap stake and a deactivation epoch of -1 stake which has
+// not been deactivated.
+public interface StakeActivationSimulator {
+
+  double DEFAULT_WARMUP_COOLDOWN_RATE = 0.25;
+  double NEW_WARMUP_COOLDOWN_RATE = 0.09;
+
+  // newRateActivationEpoch is -1 if the reduced warmup and cooldown rate is not active.
+  static StakeActivationSimulator createSimulator(final StakeHistory stakeHistory, final long newRateActivationEpoch) {
+    return new StakeActivationSimulatorImpl(stakeHistory, newRateActivationEpoch);
+  }
+
+  record Status(long effective, long activating, long deactivating) {
+
+    public static final Status ZERO = new Status(0, 0, 0);
+  }
+
+  StakeHistory stakeHistory();
+
+  long newRateActivationEpoch();
+
+  double warmupCoolDownRate(final long epoch);
+
+  Status status(final long stake, final long activationEpoch, final long deActivationEpoch, final long targetEpoch);
+
+  // Writes effective, activating and deactivating stake to out[0], out[1] and out[2] without allocating.
+  void status(final long stake,
+              final long activationEpoch,
+              final long deActivationEpoch,
+              final long targetEpoch,
+              final long[] out);
+
+  // Accounts without a delegation have no stake.
+  default Status status(final StakeAccount stakeAccount, final long targetEpoch) {
+    return stakeAccount.state() == StakeState.Stake
+        ? status(stakeAccount.stake(), stakeAccount.activationEpoch(), stakeAccount.deActivationEpoch(), targetEpoch)
+        : Status.ZERO;
+  }
+
+  // Writes the status of every row into the given columns, each must hold at least store.size() values.
+  // Returns the totals.
+  Status simulate(final StakeAccountStore store,
+                  final long targetEpoch,
+                  final long[] effective,
+                  final long[] activating,
+                  final long[] deactivating);
+
+  Status total(final StakeAccountStore store, final int[] rows, final long targetEpoch);
+
+  Status total(final StakeAccountStore store, final long targetEpoch);
+
+  // Extends the history through throughEpoch with the totals of the store, as the runtime does at each epoch boundary.
+  // Only exact if the store holds every delegation in the cluster and no further delegations are made.
+  StakeActivationSimulator project(final StakeAccountStore store, final long throughEpoch);
+
+  // Effective stake of the rows for each epoch in [fromEpoch, fromEpoch + numEpochs).  Epochs past the newest history
+  // entry have no cluster stake to warm up or cool down against, project the simulator first to cover them.
+  long[] projectEffectiveStake(final StakeAccountStore store,
+                               final int[] rows,
+                               final long fromEpoch,
+                               final int numEpochs);
+
+  default long[] projectEffectiveStake(final StakeAccountStore store,
+                                       final PublicKey voteAccount,
+                                       final long fromEpoch,
+                                       final int numEpochs) {
+    return projectEffectiveStake(store, store.rowsForValidator(voteAccount), fromEpoch, numEpochs);
+  }
+}
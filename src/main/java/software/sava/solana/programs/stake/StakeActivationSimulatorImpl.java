@@ -0,0 +1,274 @@
+package software.sava.solana.programs.stake;
+
+import static java.lang.Long.compareUnsigned;
+
+final class StakeActivationSimulatorImpl implements StakeActivationSimulator {
+
+  private static final int EFFECTIVE = 0;
+  private static final int ACTIVATING = 1;
+  private static final int DEACTIVATING = 2;
+
+  private final StakeHistory stakeHistory;
+  private final long newRateActivationEpoch;
+  // History columns indexed by epoch - minEpoch.
+  private final long minEpoch;
+  private final boolean[] present;
+  private final long[] clusterEffective;
+  private final long[] clusterActivating;
+  private final long[] clusterDeactivating;
+
+  StakeActivationSimulatorImpl(final StakeHistory stakeHistory, final long newRateActivationEpoch) {
+    this.stakeHistory = stakeHistory;
+    this.newRateActivationEpoch = newRateActivationEpoch;
+    final var entries = stakeHistory.entries();
+    if (entries.length == 0) {
+      this.minEpoch = 0;
+      this.present = new boolean[0];
+      this.clusterEffective = this.clusterActivating = this.clusterDeactivating = new long[0];
+    } else {
+      this.minEpoch = stakeHistory.oldestEpoch();
+      final int numEpochs = Math.toIntExact(stakeHistory.newestEpoch() - minEpoch + 1);
+      this.present = new boolean[numEpochs];
+      this.clusterEffective = new long[numEpochs];
+      this.clusterActivating = new long[numEpochs];
+      this.clusterDeactivating = new long[numEpochs];
+      for (final var entry : entries) {
+        final int index = (int) (entry.epoch() - minEpoch);
+        present[index] = true;
+        clusterEffective[index] = entry.effective();
+        clusterActivating[index] = entry.activating();
+        clusterDeactivating[index] = entry.deactivating();
+      }
+    }
+  }
+
+  @Override
+  public StakeHistory stakeHistory() {
+    return stakeHistory;
+  }
+
+  @Override
+  public long newRateActivationEpoch() {
+    return newRateActivationEpoch;
+  }
+
+  @Override
+  public double warmupCoolDownRate(final long epoch) {
+    return compareUnsigned(epoch, newRateActivationEpoch) < 0 ? DEFAULT_WARMUP_COOLDOWN_RATE : NEW_WARMUP_COOLDOWN_RATE;
+  }
+
+  // -1 if the epoch has no history entry.
+  private int historyIndex(final long epoch) {
+    final long index = epoch - minEpoch;
+    return index >= 0 && index < present.length && present[(int) index] ? (int) index : -1;
+  }
+
+  // Delegation::stake_and_activating
+  private void stakeAndActivating(final long stake,
+                                  final long activationEpoch,
+                                  final long deActivationEpoch,
+                                  final long targetEpoch,
+                                  final long[] out) {
+    if (activationEpoch == -1) {
+      out[EFFECTIVE] = stake;
+      out[ACTIVATING] = 0;
+    } else if (activationEpoch == deActivationEpoch || compareUnsigned(targetEpoch, activationEpoch) < 0) {
+      out[EFFECTIVE] = 0;
+      out[ACTIVATING] = 0;
+    } else if (targetEpoch == activationEpoch) {
+      out[EFFECTIVE] = 0;
+      out[ACTIVATING] = stake;
+    } else {
+      int prev = historyIndex(activationEpoch);
+      if (prev < 0) {
+        out[EFFECTIVE] = stake;
+        out[ACTIVATING] = 0;
+        return;
+      }
+      long prevEpoch = activationEpoch;
+      long currentEffective = 0;
+      for (; ; ) {
+        final long currentEpoch = prevEpoch + 1;
+        final long activating = clusterActivating[prev];
+        if (activating == 0) {
+          break;
+        }
+        final double weight = (double) (stake - currentEffective) / (double) activating;
+        final double newlyEffectiveClusterStake = clusterEffective[prev] * warmupCoolDownRate(currentEpoch);
+        currentEffective += Math.max(1, (long) (weight * newlyEffectiveClusterStake));
+        if (currentEffective >= stake) {
+          currentEffective = stake;
+          break;
+        }
+        if (compareUnsigned(currentEpoch, targetEpoch) >= 0 || compareUnsigned(currentEpoch, deActivationEpoch) >= 0) {
+          break;
+        }
+        final int current = historyIndex(currentEpoch);
+        if (current < 0) {
+          break;
+        }
+        prevEpoch = currentEpoch;
+        prev = current;
+      }
+      out[EFFECTIVE] = currentEffective;
+      out[ACTIVATING] = stake - currentEffective;
+    }
+  }
+
+  // Delegation::stake_activating_and_deactivating
+  @Override
+  public void status(final long stake,
+                     final long activationEpoch,
+                     final long deActivationEpoch,
+                     final long targetEpoch,
+                     final long[] out) {
+    stakeAndActivating(stake, activationEpoch, deActivationEpoch, targetEpoch, out);
+    if (compareUnsigned(targetEpoch, deActivationEpoch) < 0) {
+      out[DEACTIVATING] = 0;
+    } else if (targetEpoch == deActivationEpoch) {
+      out[ACTIVATING] = 0;
+      out[DEACTIVATING] = out[EFFECTIVE];
+    } else {
+      int prev = historyIndex(deActivationEpoch);
+      if (prev < 0) {
+        out[EFFECTIVE] = 0;
+        out[ACTIVATING] = 0;
+        out[DEACTIVATING] = 0;
+        return;
+      }
+      long prevEpoch = deActivationEpoch;
+      long currentEffective = out[EFFECTIVE];
+      for (; ; ) {
+        final long currentEpoch = prevEpoch + 1;
+        final long deactivating = clusterDeactivating[prev];
+        if (deactivating == 0) {
+          break;
+        }
+        final double weight = (double) currentEffective / (double) deactivating;
+        final double newlyNotEffectiveClusterStake = clusterEffective[prev] * warmupCoolDownRate(currentEpoch);
+        currentEffective = Math.max(0, currentEffective - Math.max(1, (long) (weight * newlyNotEffectiveClusterStake)));
+        if (currentEffective == 0 || compareUnsigned(currentEpoch, targetEpoch) >= 0) {
+          break;
+        }
+        final int current = historyIndex(currentEpoch);
+        if (current < 0) {
+          break;
+        }
+        prevEpoch = currentEpoch;
+        prev = current;
+      }
+      out[EFFECTIVE] = currentEffective;
+      out[ACTIVATING] = 0;
+      out[DEACTIVATING] = currentEffective;
+    }
+  }
+
+  private boolean status(final StakeAccountStore store, final int row, final long targetEpoch, final long[] out) {
+    if (store.state(row) == StakeState.Stake) {
+      status(store.stake(row), store.activationEpoch(row), store.deActivationEpoch(row), targetEpoch, out);
+      return true;
+    } else {
+      out[EFFECTIVE] = 0;
+      out[ACTIVATING] = 0;
+      out[DEACTIVATING] = 0;
+      return false;
+    }
+  }
+
+  @Override
+  public Status status(final long stake,
+                       final long activationEpoch,
+                       final long deActivationEpoch,
+                       final long targetEpoch) {
+    final long[] out = new long[3];
+    status(stake, activationEpoch, deActivationEpoch, targetEpoch, out);
+    return new Status(out[EFFECTIVE], out[ACTIVATING], out[DEACTIVATING]);
+  }
+
+  @Override
+  public Status simulate(final StakeAccountStore store,
+                         final long targetEpoch,
+                         final long[] effective,
+                         final long[] activating,
+                         final long[] deactivating) {
+    final long[] out = new long[3];
+    long totalEffective = 0;
+    long totalActivating = 0;
+    long totalDeactivating = 0;
+    for (int row = 0, size = store.size(); row < size; ++row) {
+      status(store, row, targetEpoch, out);
+      totalEffective += effective[row] = out[EFFECTIVE];
+      totalActivating += activating[row] = out[ACTIVATING];
+      totalDeactivating += deactivating[row] = out[DEACTIVATING];
+    }
+    return new Status(totalEffective, totalActivating, totalDeactivating);
+  }
+
+  @Override
+  public Status total(final StakeAccountStore store, final int[] rows, final long targetEpoch) {
+    final long[] out = new long[3];
+    long totalEffective = 0;
+    long totalActivating = 0;
+    long totalDeactivating = 0;
+    for (final int row : rows) {
+      if (status(store, row, targetEpoch, out)) {
+        totalEffective += out[EFFECTIVE];
+        totalActivating += out[ACTIVATING];
+        totalDeactivating += out[DEACTIVATING];
+      }
+    }
+    return new Status(totalEffective, totalActivating, totalDeactivating);
+  }
+
+  @Override
+  public Status total(final StakeAccountStore store, final long targetEpoch) {
+    final long[] out = new long[3];
+    long totalEffective = 0;
+    long totalActivating = 0;
+    long totalDeactivating = 0;
+    for (int row = 0, size = store.size(); row < size; ++row) {
+      if (status(store, row, targetEpoch, out)) {
+        totalEffective += out[EFFECTIVE];
+        totalActivating += out[ACTIVATING];
+        totalDeactivating += out[DEACTIVATING];
+      }
+    }
+    return new Status(totalEffective, totalActivating, totalDeactivating);
+  }
+
+  @Override
+  public StakeActivationSimulator project(final StakeAccountStore store, final long throughEpoch) {
+    if (stakeHistory.entries().length == 0) {
+      throw new IllegalStateException("Cannot project an empty stake history.");
+    }
+    StakeActivationSimulator simulator = this;
+    var history = stakeHistory;
+    for (long epoch = history.newestEpoch() + 1; epoch <= throughEpoch; ++epoch) {
+      final var total = simulator.total(store, epoch);
+      history = history.add(new StakeHistory.Entry(epoch, total.effective(), total.activating(), total.deactivating()));
+      simulator = new StakeActivationSimulatorImpl(history, newRateActivationEpoch);
+    }
+    return simulator;
+  }
+
+  @Override
+  public long[] projectEffectiveStake(final StakeAccountStore store,
+                                      final int[] rows,
+                                      final long fromEpoch,
+                                      final int numEpochs) {
+    final long[] effective = new long[numEpochs];
+    final long[] out = new long[3];
+    for (final int row : rows) {
+      if (store.state(row) == StakeState.Stake) {
+        final long stake = store.stake(row);
+        final long activationEpoch = store.activationEpoch(row);
+        final long deActivationEpoch = store.deActivationEpoch(row);
+        for (int i = 0; i < numEpochs; ++i) {
+          status(stake, activationEpoch, deActivationEpoch, fromEpoch + i, out);
+          effective[i] += out[EFFECTIVE];
+        }
+      }
+    }
+    return effective;
+  }
+}
@@ -0,0 +1,53 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.util.function.BiFunction;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.accounts.PublicKey.readPubKey;
+
+// Projection of the delegation of a stake account, decoded from the SLICE_LENGTH bytes at SLICE_OFFSET rather than the
+// full account.  Request the slice through the RPC dataSlice option, and filter on the Stake state server side as the
+// state is not part of the slice.
+public record StakeDelegation(PublicKey address,
+                              PublicKey voterPublicKey,
+                              long stake,
+                              long activationEpoch,
+                              long deActivationEpoch) {
+
+  public static final int SLICE_OFFSET = StakeAccount.VOTER_PUBLIC_KEY_OFFSET;
+  public static final int SLICE_LENGTH = StakeAccount.WARMUP_COOLDOWN_RATE_OFFSET - SLICE_OFFSET;
+
+  // Offsets within the slice.
+  public static final int VOTER_PUBLIC_KEY_OFFSET = 0;
+  public static final int STAKE_OFFSET = VOTER_PUBLIC_KEY_OFFSET + PUBLIC_KEY_LENGTH;
+  public static final int ACTIVATION_EPOCH_OFFSET = STAKE_OFFSET + Long.BYTES;
+  public static final int DE_ACTIVATION_EPOCH_OFFSET = ACTIVATION_EPOCH_OFFSET + Long.BYTES;
+
+  public static StakeDelegation read(final PublicKey address, final byte[] slice, final int offset) {
+    return new StakeDelegation(
+        address,
+        readPubKey(slice, offset + VOTER_PUBLIC_KEY_OFFSET),
+        ByteUtil.getInt64LE(slice, offset + STAKE_OFFSET),
+        ByteUtil.getInt64LE(slice, offset + ACTIVATION_EPOCH_OFFSET),
+        ByteUtil.getInt64LE(slice, offset + DE_ACTIVATION_EPOCH_OFFSET)
+    );
+  }
+
+  public static StakeDelegation read(final PublicKey address, final byte[] slice) {
+    return read(address, slice, 0);
+  }
+
+  public static final BiFunction<PublicKey, byte[], StakeDelegation> FACTORY = StakeDelegation::read;
+
+  // Projects full stake account data.
+  public static StakeDelegation readAccount(final PublicKey address, final byte[] data, final int offset) {
+    return read(address, data, offset + SLICE_OFFSET);
+  }
+
+  public StakeAccount.State state(final long currentEpoch) {
+    return StakeAccount.state(activationEpoch, deActivationEpoch, currentEpoch);
+  }
+}
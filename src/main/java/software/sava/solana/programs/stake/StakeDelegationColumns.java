@@ -0,0 +1,46 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+
+// Primitive columns of StakeDelegation slices, decoded without allocating per account.  Voters are interned into
+// dense ids in order of first appearance.
+//
+// Not thread safe.
+public interface StakeDelegationColumns {
+
+  int DEFAULT_INITIAL_CAPACITY = 1 << 12;
+
+  static StakeDelegationColumns createColumns(final int initialCapacity) {
+    return new StakeDelegationColumnsImpl(initialCapacity);
+  }
+
+  static StakeDelegationColumns createColumns() {
+    return createColumns(DEFAULT_INITIAL_CAPACITY);
+  }
+
+  // Decodes a slice of StakeDelegation.SLICE_LENGTH bytes, returns its row.
+  int add(final byte[] slice, final int offset);
+
+  default int add(final byte[] slice) {
+    return add(slice, 0);
+  }
+
+  int size();
+
+  int numVoters();
+
+  int voterId(final int row);
+
+  PublicKey voter(final int voterId);
+
+  // -1 if absent.
+  int voterId(final PublicKey voter);
+
+  long stake(final int row);
+
+  long activationEpoch(final int row);
+
+  long deActivationEpoch(final int row);
+
+  void clear();
+}
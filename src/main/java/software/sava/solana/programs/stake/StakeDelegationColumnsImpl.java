@@ -0,0 +1,104 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.solana.programs.collections.PublicKeySet;
+
+import java.util.Arrays;
+
+import static software.sava.solana.programs.stake.StakeDelegation.*;
+
+final class StakeDelegationColumnsImpl implements StakeDelegationColumns {
+
+  private final PublicKeySet voters;
+  private int size;
+  private int[] voterIds;
+  private long[] stake;
+  private long[] activationEpochs;
+  private long[] deActivationEpochs;
+
+  StakeDelegationColumnsImpl(final int initialCapacity) {
+    final int capacity = Math.max(16, initialCapacity);
+    this.voters = PublicKeySet.createSet(Math.max(16, capacity >> 6));
+    this.voterIds = new int[capacity];
+    this.stake = new long[capacity];
+    this.activationEpochs = new long[capacity];
+    this.deActivationEpochs = new long[capacity];
+  }
+
+  @Override
+  public int add(final byte[] slice, final int offset) {
+    if (size == voterIds.length) {
+      final int capacity = size << 1;
+      voterIds = Arrays.copyOf(voterIds, capacity);
+      stake = Arrays.copyOf(stake, capacity);
+      activationEpochs = Arrays.copyOf(activationEpochs, capacity);
+      deActivationEpochs = Arrays.copyOf(deActivationEpochs, capacity);
+    }
+    final int row = size++;
+    voterIds[row] = voters.add(slice, offset + VOTER_PUBLIC_KEY_OFFSET);
+    stake[row] = ByteUtil.getInt64LE(slice, offset + STAKE_OFFSET);
+    activationEpochs[row] = ByteUtil.getInt64LE(slice, offset + ACTIVATION_EPOCH_OFFSET);
+    deActivationEpochs[row] = ByteUtil.getInt64LE(slice, offset + DE_ACTIVATION_EPOCH_OFFSET);
+    return row;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int numVoters() {
+    return voters.size();
+  }
+
+  private void checkRow(final int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException(row);
+    }
+  }
+
+  @Override
+  public int voterId(final int row) {
+    checkRow(row);
+    return voterIds[row];
+  }
+
+  @Override
+  public PublicKey voter(final int voterId) {
+    if (voterId < 0 || voterId >= voters.size()) {
+      throw new IndexOutOfBoundsException(voterId);
+    }
+    return voters.key(voterId);
+  }
+
+  @Override
+  public int voterId(final PublicKey voter) {
+    return voters.indexOf(voter);
+  }
+
+  @Override
+  public long stake(final int row) {
+    checkRow(row);
+    return stake[row];
+  }
+
+  @Override
+  public long activationEpoch(final int row) {
+    checkRow(row);
+    return activationEpochs[row];
+  }
+
+  @Override
+  public long deActivationEpoch(final int row) {
+    checkRow(row);
+    return deActivationEpochs[row];
+  }
+
+  @Override
+  public void clear() {
+    voters.clear();
+    size = 0;
+  }
+}
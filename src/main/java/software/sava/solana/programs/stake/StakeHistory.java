@@ -0,0 +1,123 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.util.function.BiFunction;
+
+import static software.sava.core.encoding.ByteUtil.getInt64LE;
+
+// The StakeHistory sysvar, cluster wide effective, activating and deactivating stake per epoch, newest epoch first.
+// https://github.com/anza-xyz/agave/blob/master/sdk/program/src/stake_history.rs
+public record StakeHistory(PublicKey address, Entry[] entries) {
+
+  public static final int MAX_ENTRIES = 512;
+
+  public record Entry(long epoch, long effective, long activating, long deactivating) {
+
+    public static final int BYTES = Long.BYTES << 2;
+
+    public static Entry read(final byte[] data, final int offset) {
+      return new Entry(
+          getInt64LE(data, offset),
+          getInt64LE(data, offset + Long.BYTES),
+          getInt64LE(data, offset + (Long.BYTES << 1)),
+          getInt64LE(data, offset + (Long.BYTES * 3))
+      );
+    }
+
+    public int write(final byte[] data, final int offset) {
+      ByteUtil.putInt64LE(data, offset, epoch);
+      ByteUtil.putInt64LE(data, offset + Long.BYTES, effective);
+      ByteUtil.putInt64LE(data, offset + (Long.BYTES << 1), activating);
+      ByteUtil.putInt64LE(data, offset + (Long.BYTES * 3), deactivating);
+      return BYTES;
+    }
+  }
+
+  public static StakeHistory read(final byte[] data, final int offset) {
+    return read(null, data, offset);
+  }
+
+  public static StakeHistory read(final PublicKey address, final byte[] data) {
+    return read(address, data, 0);
+  }
+
+  public static final BiFunction<PublicKey, byte[], StakeHistory> FACTORY = StakeHistory::read;
+
+  public static StakeHistory read(final PublicKey address, final byte[] data, int offset) {
+    final int numEntries = (int) getInt64LE(data, offset);
+    offset += Long.BYTES;
+    final var entries = new Entry[numEntries];
+    for (int i = 0; i < numEntries; ++i, offset += Entry.BYTES) {
+      entries[i] = Entry.read(data, offset);
+    }
+    return new StakeHistory(address, entries);
+  }
+
+  public int l() {
+    return Long.BYTES + (entries.length * Entry.BYTES);
+  }
+
+  public int write(final byte[] data, int offset) {
+    ByteUtil.putInt64LE(data, offset, entries.length);
+    offset += Long.BYTES;
+    for (final var entry : entries) {
+      offset += entry.write(data, offset);
+    }
+    return l();
+  }
+
+  // -1 if empty.
+  public long newestEpoch() {
+    return entries.length == 0 ? -1 : entries[0].epoch;
+  }
+
+  public long oldestEpoch() {
+    return entries.length == 0 ? -1 : entries[entries.length - 1].epoch;
+  }
+
+  // null if the epoch is not tracked.
+  public Entry get(final long epoch) {
+    if (entries.length == 0) {
+      return null;
+    }
+    // Entries are normally contiguous, fall back to a search if any epoch was skipped.
+    final long index = entries[0].epoch - epoch;
+    if (index >= 0 && index < entries.length && entries[(int) index].epoch == epoch) {
+      return entries[(int) index];
+    }
+    int low = 0;
+    int high = entries.length - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final long midEpoch = entries[mid].epoch;
+      if (midEpoch == epoch) {
+        return entries[mid];
+      } else if (midEpoch > epoch) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return null;
+  }
+
+  // Returns a copy with the entry added, replacing any entry for the same epoch and dropping the oldest past MAX_ENTRIES.
+  public StakeHistory add(final Entry entry) {
+    int index = 0;
+    while (index < entries.length && entries[index].epoch > entry.epoch) {
+      ++index;
+    }
+    final boolean replace = index < entries.length && entries[index].epoch == entry.epoch;
+    final int length = Math.min(MAX_ENTRIES, replace ? entries.length : entries.length + 1);
+    final var added = new Entry[length];
+    System.arraycopy(entries, 0, added, 0, Math.min(index, length));
+    if (index < length) {
+      added[index] = entry;
+      final int from = replace ? index + 1 : index;
+      System.arraycopy(entries, from, added, index + 1, length - index - 1);
+    }
+    return new StakeHistory(address, added);
+  }
+}
@@ -0,0 +1,52 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.sysvar.Clock;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.util.Collection;
+import java.util.List;
+
+// Groups stake accounts which the stake program will merge, following MergeKind::get_if_mergeable and MergeKind::merge.
+// Accounts merge if their authorities match, their lockups are equal or both expired, and they share a merge kind:
+// inactive, activating in the current epoch for the same voter, or fully active for the same voter.  Inactive accounts
+// are not merged into activating ones, that would delegate their lamports as a side effect.
+//
+// A group of n accounts takes n - 1 merges, the minimum as each merge closes one source account.
+public interface StakeMergePlanner {
+
+  static StakeMergePlanner createPlanner(final StakeActivationSimulator simulator) {
+    return new StakeMergePlannerImpl(simulator);
+  }
+
+  enum MergeKind {
+
+    INACTIVE,
+    ACTIVATION_EPOCH,
+    FULLY_ACTIVE,
+    // Partially activated or deactivating, or not a stake account.
+    NONE
+  }
+
+  // The destination is the account holding the most lamports.
+  record MergeGroup(MergeKind kind,
+                    AccountInfo<StakeAccount> destination,
+                    List<AccountInfo<StakeAccount>> sources) {
+  }
+
+  static boolean isLockupInForce(final LockUp lockup, final long epoch, final long unixTimestamp) {
+    return lockup != null && (lockup.unixTimestamp() > unixTimestamp || lockup.epoch() > epoch);
+  }
+
+  StakeActivationSimulator simulator();
+
+  MergeKind mergeKind(final StakeAccount stakeAccount, final long epoch);
+
+  // Groups of at least two accounts, accounts which cannot be merged with any other are left out.
+  List<MergeGroup> plan(final Collection<AccountInfo<StakeAccount>> stakeAccounts,
+                        final long epoch,
+                        final long unixTimestamp);
+
+  default List<MergeGroup> plan(final Collection<AccountInfo<StakeAccount>> stakeAccounts, final Clock clock) {
+    return plan(stakeAccounts, clock.epoch(), clock.unixTimestamp());
+  }
+}
@@ -0,0 +1,156 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.rpc.json.http.response.AccountInfo;
+import software.sava.solana.programs.collections.PublicKeySet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+final class StakeMergePlannerImpl implements StakeMergePlanner {
+
+  // Public keys are indices into a PublicKeySet, lockups which are no longer in force compare equal.
+  private record GroupKey(MergeKind kind,
+                          int voter,
+                          int staker,
+                          int withdrawer,
+                          long lockupUnixTimestamp,
+                          long lockupEpoch,
+                          int custodian) {
+  }
+
+  private final StakeActivationSimulator simulator;
+
+  StakeMergePlannerImpl(final StakeActivationSimulator simulator) {
+    this.simulator = simulator;
+  }
+
+  @Override
+  public StakeActivationSimulator simulator() {
+    return simulator;
+  }
+
+  @Override
+  public MergeKind mergeKind(final StakeAccount stakeAccount, final long epoch) {
+    return switch (stakeAccount.state()) {
+      case Initialized -> MergeKind.INACTIVE;
+      case Stake -> {
+        final var status = simulator.status(stakeAccount, epoch);
+        if (status.effective() == 0 && status.activating() == 0 && status.deactivating() == 0) {
+          yield MergeKind.INACTIVE;
+        } else if (stakeAccount.deActivationEpoch() != -1) {
+          // Active delegations only merge if neither has been deactivated.
+          yield MergeKind.NONE;
+        } else if (status.effective() == 0) {
+          yield MergeKind.ACTIVATION_EPOCH;
+        } else if (status.activating() == 0 && status.deactivating() == 0) {
+          yield MergeKind.FULLY_ACTIVE;
+        } else {
+          yield MergeKind.NONE;
+        }
+      }
+      default -> MergeKind.NONE;
+    };
+  }
+
+  private static int find(final int[] parent, int node) {
+    while (parent[node] != node) {
+      parent[node] = parent[parent[node]];
+      node = parent[node];
+    }
+    return node;
+  }
+
+  private static void union(final int[] parent, final int[] rank, final int a, final int b) {
+    final int rootA = find(parent, a);
+    final int rootB = find(parent, b);
+    if (rootA != rootB) {
+      if (rank[rootA] < rank[rootB]) {
+        parent[rootA] = rootB;
+      } else {
+        parent[rootB] = rootA;
+        if (rank[rootA] == rank[rootB]) {
+          ++rank[rootA];
+        }
+      }
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<MergeGroup> plan(final Collection<AccountInfo<StakeAccount>> stakeAccounts,
+                               final long epoch,
+                               final long unixTimestamp) {
+    final int numAccounts = stakeAccounts.size();
+    final AccountInfo<StakeAccount>[] accounts = stakeAccounts.toArray(AccountInfo[]::new);
+    final var keys = PublicKeySet.createSet(numAccounts << 1);
+    final var representatives = HashMap.<GroupKey, Integer>newHashMap(numAccounts);
+    final var kinds = new MergeKind[numAccounts];
+    final int[] parent = new int[numAccounts];
+    final int[] rank = new int[numAccounts];
+    for (int i = 0; i < numAccounts; ++i) {
+      parent[i] = i;
+      final var stakeAccount = accounts[i].data();
+      final var kind = mergeKind(stakeAccount, epoch);
+      kinds[i] = kind;
+      if (kind != MergeKind.NONE) {
+        final var lockup = stakeAccount.lockup();
+        final boolean inForce = StakeMergePlanner.isLockupInForce(lockup, epoch, unixTimestamp);
+        final var groupKey = new GroupKey(
+            kind,
+            kind == MergeKind.INACTIVE ? -1 : keys.add(stakeAccount.voterPublicKey()),
+            keys.add(stakeAccount.stakeAuthority()),
+            keys.add(stakeAccount.withdrawAuthority()),
+            inForce ? lockup.unixTimestamp() : 0,
+            inForce ? lockup.epoch() : 0,
+            inForce ? keys.add(lockup.custodian()) : -1
+        );
+        final var representative = representatives.putIfAbsent(groupKey, i);
+        if (representative != null) {
+          union(parent, rank, representative, i);
+        }
+      }
+    }
+
+    // Bucket members by root, keeping input order within each group.
+    final int[] groupSize = new int[numAccounts];
+    final int[] roots = new int[numAccounts];
+    for (int i = 0; i < numAccounts; ++i) {
+      ++groupSize[roots[i] = find(parent, i)];
+    }
+    final int[] offsets = new int[numAccounts + 1];
+    for (int i = 0; i < numAccounts; ++i) {
+      offsets[i + 1] = offsets[i] + groupSize[i];
+    }
+    final int[] members = new int[numAccounts];
+    final int[] next = offsets.clone();
+    for (int i = 0; i < numAccounts; ++i) {
+      members[next[roots[i]]++] = i;
+    }
+
+    final var groups = new ArrayList<MergeGroup>();
+    for (int i = 0; i < numAccounts; ++i) {
+      final int root = roots[i];
+      final int from = offsets[root];
+      final int size = groupSize[root];
+      if (size < 2 || members[from] != i) {
+        continue;
+      }
+      int destination = members[from];
+      for (int m = from + 1, to = from + size; m < to; ++m) {
+        if (accounts[members[m]].lamports() > accounts[destination].lamports()) {
+          destination = members[m];
+        }
+      }
+      final var sources = new ArrayList<AccountInfo<StakeAccount>>(size - 1);
+      for (int m = from, to = from + size; m < to; ++m) {
+        if (members[m] != destination) {
+          sources.add(accounts[members[m]]);
+        }
+      }
+      groups.add(new MergeGroup(kinds[root], accounts[destination], sources));
+    }
+    return groups;
+  }
+}
@@ -8,6 +8,7 @@ import software.sava.core.borsh.Borsh;
 import software.sava.core.encoding.ByteUtil;
 import software.sava.core.programs.Discriminator;
 import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.encoding.InstructionBuffer;
 
 import java.time.Instant;
 import java.util.List;
@@ -328,6 +329,27 @@ public final class StakeProgram {
     return Instruction.createInstruction(solanaAccounts.invokedStakeProgram(), keys, data);
   }
 
+  public static Instruction split(final InstructionBuffer buffer,
+                                  final SolanaAccounts solanaAccounts,
+                                  final PublicKey splitStakeAccount,
+                                  final PublicKey unInitializedStakeAccount,
+                                  final PublicKey stakeAuthority,
+                                  final long lamports) {
+    final var keys = buffer.keys(
+        createWrite(splitStakeAccount),
+        createWrite(unInitializedStakeAccount),
+        createReadOnlySigner(stakeAuthority)
+    );
+
+    final int length = NATIVE_DISCRIMINATOR_LENGTH + Long.BYTES;
+    final int offset = buffer.reserve(length);
+    final byte[] data = buffer.data();
+    Instructions.Split.write(data, offset);
+    ByteUtil.putInt64LE(data, offset + NATIVE_DISCRIMINATOR_LENGTH, lamports);
+
+    return buffer.instruction(solanaAccounts.invokedStakeProgram(), keys, offset, length);
+  }
+
   public static Instruction merge(final SolanaAccounts solanaAccounts,
                                   final PublicKey destinationStakeAccount,
                                   final PublicKey srcStakeAccount,
@@ -343,6 +365,22 @@ public final class StakeProgram {
     return Instruction.createInstruction(solanaAccounts.invokedStakeProgram(), keys, Instructions.Merge.data);
   }
 
+  public static Instruction merge(final InstructionBuffer buffer,
+                                  final SolanaAccounts solanaAccounts,
+                                  final PublicKey destinationStakeAccount,
+                                  final PublicKey srcStakeAccount,
+                                  final PublicKey stakeAuthority) {
+    final var keys = buffer.keys(
+        createWrite(destinationStakeAccount),
+        createWrite(srcStakeAccount),
+        solanaAccounts.readClockSysVar(),
+        solanaAccounts.readStakeHistorySysVar(),
+        createReadOnlySigner(stakeAuthority)
+    );
+
+    return Instruction.createInstruction(solanaAccounts.invokedStakeProgram(), keys, Instructions.Merge.data);
+  }
+
   public static Instruction initialize(final SolanaAccounts solanaAccounts,
                                        final PublicKey unInitializedStakeAccount,
                                        final PublicKey staker,
@@ -0,0 +1,41 @@
+package software.sava.solana.programs.stake;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Sums the stake delegated to each vote account in parallel.  Ranges of accounts are split fork-join style, each leaf
+// accumulates into its own primitive map and maps are merged as the tasks join.
+//
+// Without a simulator stake is bucketed by StakeAccount.state(epoch): active, activating or deactivating, inactive
+// stake is skipped.  With a simulator the runtime's effective, activating and deactivating amounts are used instead,
+// where deactivating stake is also still effective.
+public interface ValidatorStakeAggregator {
+
+  int DEFAULT_SPLIT_THRESHOLD = 1 << 14;
+
+  static ValidatorStakeAggregator createAggregator(final ForkJoinPool pool,
+                                                   final StakeActivationSimulator simulator,
+                                                   final int splitThreshold) {
+    return new ValidatorStakeAggregatorImpl(pool, simulator, Math.max(1, splitThreshold));
+  }
+
+  static ValidatorStakeAggregator createAggregator(final StakeActivationSimulator simulator) {
+    return createAggregator(ForkJoinPool.commonPool(), simulator, DEFAULT_SPLIT_THRESHOLD);
+  }
+
+  static ValidatorStakeAggregator createAggregator() {
+    return createAggregator(null);
+  }
+
+  // Accounts which are not in the Stake state are skipped.
+  ValidatorStakeTotals aggregate(final StakeAccount[] stakeAccounts, final long epoch);
+
+  default ValidatorStakeTotals aggregate(final List<StakeAccount> stakeAccounts, final long epoch) {
+    return aggregate(stakeAccounts.toArray(StakeAccount[]::new), epoch);
+  }
+
+  // The store must not be mutated while it is being aggregated.
+  ValidatorStakeTotals aggregate(final StakeAccountStore store, final long epoch);
+
+  ValidatorStakeTotals aggregate(final StakeDelegationColumns columns, final long epoch);
+}
@@ -0,0 +1,164 @@
+package software.sava.solana.programs.stake;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.ValidatorStakeTotalsMap.*;
+
+final class ValidatorStakeAggregatorImpl implements ValidatorStakeAggregator {
+
+  private interface Leaf<R> {
+
+    R aggregate(final int from, final int to);
+  }
+
+  private final ForkJoinPool pool;
+  private final StakeActivationSimulator simulator;
+  private final int splitThreshold;
+
+  ValidatorStakeAggregatorImpl(final ForkJoinPool pool,
+                               final StakeActivationSimulator simulator,
+                               final int splitThreshold) {
+    this.pool = pool;
+    this.simulator = simulator;
+    this.splitThreshold = splitThreshold;
+  }
+
+  private final class Task<R> extends RecursiveTask<R> {
+
+    private final int from;
+    private final int to;
+    private final Leaf<R> leaf;
+    private final BinaryOperator<R> merge;
+
+    private Task(final int from, final int to, final Leaf<R> leaf, final BinaryOperator<R> merge) {
+      this.from = from;
+      this.to = to;
+      this.leaf = leaf;
+      this.merge = merge;
+    }
+
+    @Override
+    protected R compute() {
+      if (to - from <= splitThreshold) {
+        return leaf.aggregate(from, to);
+      }
+      final int mid = (from + to) >>> 1;
+      final var left = new Task<>(from, mid, leaf, merge);
+      left.fork();
+      final var right = new Task<>(mid, to, leaf, merge).compute();
+      return merge.apply(left.join(), right);
+    }
+  }
+
+  private <R> R invoke(final int size, final Leaf<R> leaf, final BinaryOperator<R> merge) {
+    return pool.invoke(new Task<>(0, size, leaf, merge));
+  }
+
+  private static ValidatorStakeTotalsMap merge(final ValidatorStakeTotalsMap a, final ValidatorStakeTotalsMap b) {
+    if (a.size() >= b.size()) {
+      a.addAll(b);
+      return a;
+    } else {
+      b.addAll(a);
+      return b;
+    }
+  }
+
+  // Writes the bucketed stake to out, returns false if there is none.
+  private boolean status(final long stake,
+                         final long activationEpoch,
+                         final long deActivationEpoch,
+                         final long epoch,
+                         final long[] out) {
+    if (simulator != null) {
+      simulator.status(stake, activationEpoch, deActivationEpoch, epoch, out);
+      return (out[ACTIVE] | out[ACTIVATING] | out[DEACTIVATING]) != 0;
+    }
+    out[ACTIVE] = 0;
+    out[ACTIVATING] = 0;
+    out[DEACTIVATING] = 0;
+    switch (StakeAccount.state(activationEpoch, deActivationEpoch, epoch)) {
+      case ACTIVE -> out[ACTIVE] = stake;
+      case ACTIVATING -> out[ACTIVATING] = stake;
+      case DE_ACTIVATING -> out[DEACTIVATING] = stake;
+      case INACTIVE -> {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public ValidatorStakeTotals aggregate(final StakeAccount[] stakeAccounts, final long epoch) {
+    return invoke(stakeAccounts.length, (from, to) -> {
+      final var totals = new ValidatorStakeTotalsMap(64);
+      final long[] out = new long[NUM_BUCKETS];
+      final byte[] voter = new byte[PUBLIC_KEY_LENGTH];
+      for (int i = from; i < to; ++i) {
+        final var stakeAccount = stakeAccounts[i];
+        if (stakeAccount.state() == StakeState.Stake && status(
+            stakeAccount.stake(), stakeAccount.activationEpoch(), stakeAccount.deActivationEpoch(), epoch, out
+        )) {
+          stakeAccount.voterPublicKey().write(voter, 0);
+          totals.add(totals.intern(voter, 0), out[ACTIVE], out[ACTIVATING], out[DEACTIVATING]);
+        }
+      }
+      return totals;
+    }, ValidatorStakeAggregatorImpl::merge);
+  }
+
+  @Override
+  public ValidatorStakeTotals aggregate(final StakeAccountStore store, final long epoch) {
+    return invoke(store.size(), (from, to) -> {
+      final var totals = new ValidatorStakeTotalsMap(64);
+      final long[] out = new long[NUM_BUCKETS];
+      final byte[] voter = new byte[PUBLIC_KEY_LENGTH];
+      for (int row = from; row < to; ++row) {
+        if (store.state(row) == StakeState.Stake && status(
+            store.stake(row), store.activationEpoch(row), store.deActivationEpoch(row), epoch, out
+        )) {
+          store.copyKey(StakeAccountStore.Index.VOTER, row, voter, 0);
+          totals.add(totals.intern(voter, 0), out[ACTIVE], out[ACTIVATING], out[DEACTIVATING]);
+        }
+      }
+      return totals;
+    }, ValidatorStakeAggregatorImpl::merge);
+  }
+
+  @Override
+  public ValidatorStakeTotals aggregate(final StakeDelegationColumns columns, final long epoch) {
+    // Voters are already dense ids, so leaves sum into flat arrays and only the result is keyed.
+    final int numVoters = columns.numVoters();
+    final long[] sums = invoke(columns.size(), (from, to) -> {
+      final long[] buckets = new long[numVoters * NUM_BUCKETS];
+      final long[] out = new long[NUM_BUCKETS];
+      for (int row = from; row < to; ++row) {
+        if (status(columns.stake(row), columns.activationEpoch(row), columns.deActivationEpoch(row), epoch, out)) {
+          final int b = columns.voterId(row) * NUM_BUCKETS;
+          buckets[b + ACTIVE] += out[ACTIVE];
+          buckets[b + ACTIVATING] += out[ACTIVATING];
+          buckets[b + DEACTIVATING] += out[DEACTIVATING];
+        }
+      }
+      return buckets;
+    }, (a, b) -> {
+      for (int i = 0; i < a.length; ++i) {
+        a[i] += b[i];
+      }
+      return a;
+    });
+    final var totals = new ValidatorStakeTotalsMap(numVoters);
+    final byte[] voter = new byte[PUBLIC_KEY_LENGTH];
+    for (int voterId = 0; voterId < numVoters; ++voterId) {
+      final int b = voterId * NUM_BUCKETS;
+      if ((sums[b + ACTIVE] | sums[b + ACTIVATING] | sums[b + DEACTIVATING]) != 0) {
+        columns.voter(voterId).write(voter, 0);
+        totals.add(totals.intern(voter, 0), sums[b + ACTIVE], sums[b + ACTIVATING], sums[b + DEACTIVATING]);
+      }
+    }
+    return totals;
+  }
+}
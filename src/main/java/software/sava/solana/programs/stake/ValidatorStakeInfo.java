@@ -68,7 +68,7 @@ public record ValidatorStakeInfo(long activeStakeLamports,
     data[i] = (byte) podStakeStatus.ordinal();
     ++i;
     voteAccountAddress.write(data, i);
-    return i + PUBLIC_KEY_LENGTH;
+    return BYTES;
   }
 
   @Override
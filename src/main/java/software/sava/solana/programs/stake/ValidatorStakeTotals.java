@@ -0,0 +1,31 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+
+// Active, activating and deactivating stake per vote account.  Vote accounts are indexed densely in no particular
+// order.
+public interface ValidatorStakeTotals {
+
+  int size();
+
+  PublicKey voter(final int index);
+
+  // -1 if the vote account has no stake.
+  int indexOf(final byte[] voter, final int offset);
+
+  default int indexOf(final PublicKey voter) {
+    return indexOf(voter.toByteArray(), 0);
+  }
+
+  long active(final int index);
+
+  long activating(final int index);
+
+  long deactivating(final int index);
+
+  long totalActive();
+
+  long totalActivating();
+
+  long totalDeactivating();
+}
@@ -0,0 +1,112 @@
+package software.sava.solana.programs.stake;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.solana.programs.collections.PublicKeySet;
+
+import java.util.Arrays;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+// Three long buckets per vote account, indexed by the dense entries of a PublicKeySet.
+final class ValidatorStakeTotalsMap implements ValidatorStakeTotals {
+
+  static final int ACTIVE = 0;
+  static final int ACTIVATING = 1;
+  static final int DEACTIVATING = 2;
+  static final int NUM_BUCKETS = 3;
+
+  private final PublicKeySet voters;
+  private long[] buckets;
+
+  ValidatorStakeTotalsMap(final int initialCapacity) {
+    this.voters = PublicKeySet.createSet(initialCapacity);
+    this.buckets = new long[Math.max(16, initialCapacity) * NUM_BUCKETS];
+  }
+
+  int intern(final byte[] key, final int offset) {
+    final int entry = voters.add(key, offset);
+    if ((entry + 1) * NUM_BUCKETS > buckets.length) {
+      buckets = Arrays.copyOf(buckets, buckets.length << 1);
+    }
+    return entry;
+  }
+
+  void add(final int entry, final long active, final long activating, final long deactivating) {
+    final int b = entry * NUM_BUCKETS;
+    buckets[b + ACTIVE] += active;
+    buckets[b + ACTIVATING] += activating;
+    buckets[b + DEACTIVATING] += deactivating;
+  }
+
+  void addAll(final ValidatorStakeTotalsMap other) {
+    final byte[] voter = new byte[PUBLIC_KEY_LENGTH];
+    for (int entry = 0, size = other.size(); entry < size; ++entry) {
+      other.voters.copyKey(entry, voter, 0);
+      final int b = entry * NUM_BUCKETS;
+      add(
+          intern(voter, 0),
+          other.buckets[b + ACTIVE], other.buckets[b + ACTIVATING], other.buckets[b + DEACTIVATING]
+      );
+    }
+  }
+
+  @Override
+  public int size() {
+    return voters.size();
+  }
+
+  @Override
+  public PublicKey voter(final int index) {
+    return voters.key(index);
+  }
+
+  @Override
+  public int indexOf(final byte[] voter, final int offset) {
+    return voters.indexOf(voter, offset);
+  }
+
+  private long bucket(final int index, final int bucket) {
+    if (index < 0 || index >= voters.size()) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return buckets[index * NUM_BUCKETS + bucket];
+  }
+
+  @Override
+  public long active(final int index) {
+    return bucket(index, ACTIVE);
+  }
+
+  @Override
+  public long activating(final int index) {
+    return bucket(index, ACTIVATING);
+  }
+
+  @Override
+  public long deactivating(final int index) {
+    return bucket(index, DEACTIVATING);
+  }
+
+  private long total(final int bucket) {
+    long total = 0;
+    for (int b = bucket, end = voters.size() * NUM_BUCKETS; b < end; b += NUM_BUCKETS) {
+      total += buckets[b];
+    }
+    return total;
+  }
+
+  @Override
+  public long totalActive() {
+    return total(ACTIVE);
+  }
+
+  @Override
+  public long totalActivating() {
+    return total(ACTIVATING);
+  }
+
+  @Override
+  public long totalDeactivating() {
+    return total(DEACTIVATING);
+  }
+}
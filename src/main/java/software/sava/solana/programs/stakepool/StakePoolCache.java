@@ -0,0 +1,71 @@
+package software.sava.solana.programs.stakepool;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.sysvar.Clock;
+import software.sava.rpc.json.http.response.AccountInfo;
+import software.sava.solana.programs.clients.AccountFetcher;
+
+import java.util.concurrent.CompletableFuture;
+
+// Caches stake pool and validator list accounts between epoch boundaries.
+//
+// Entries fetched in an earlier epoch than the current Clock, or invalidated after a deposit or withdrawal, are
+// re-fetched before being served.  Entries older than maxSlotAge slots, or whose pool has not yet been updated for the
+// current epoch, are served as is while they are refreshed in the background.  Without a Clock entries never expire.
+public interface StakePoolCache {
+
+  // Roughly one minute of slots.
+  long DEFAULT_MAX_SLOT_AGE = 150;
+
+  static StakePoolCache createCache(final AccountFetcher accountFetcher,
+                                    final PublicKey clockSysVar,
+                                    final long maxSlotAge) {
+    return new StakePoolCacheImpl(accountFetcher, clockSysVar, maxSlotAge);
+  }
+
+  static StakePoolCache createCache(final AccountFetcher accountFetcher, final SolanaAccounts solanaAccounts) {
+    return createCache(accountFetcher, solanaAccounts.clockSysVar(), DEFAULT_MAX_SLOT_AGE);
+  }
+
+  AccountFetcher accountFetcher();
+
+  long maxSlotAge();
+
+  // Older clocks are ignored.
+  void updateClock(final Clock clock);
+
+  Clock clock();
+
+  CompletableFuture<Clock> refreshClock();
+
+  // Completes with null if the account does not exist.
+  CompletableFuture<AccountInfo<StakePoolState>> stakePoolState(final PublicKey stakePool);
+
+  CompletableFuture<AccountInfo<ValidatorList>> validatorList(final PublicKey validatorList);
+
+  default CompletableFuture<AccountInfo<ValidatorList>> validatorList(final StakePoolState stakePoolState) {
+    return validatorList(stakePoolState.validatorList());
+  }
+
+  // Drops the cached account and any refresh in flight, the next lookup waits for a fresh fetch.
+  void invalidate(final PublicKey account);
+
+  default void invalidate(final StakePoolState stakePoolState) {
+    invalidate(stakePoolState.address());
+    invalidate(stakePoolState.validatorList());
+  }
+
+  void invalidateAll();
+
+  int size();
+
+  long hitCount();
+
+  // Lookups served from a stale entry while it is refreshed.
+  long staleHitCount();
+
+  long missCount();
+
+  long refreshCount();
+}
@@ -0,0 +1,222 @@
+package software.sava.solana.programs.stakepool;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.sysvar.Clock;
+import software.sava.rpc.json.http.response.AccountInfo;
+import software.sava.solana.programs.clients.AccountFetcher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+final class StakePoolCacheImpl implements StakePoolCache {
+
+  private record Entry<T>(AccountInfo<T> accountInfo, long slot, long epoch) {
+  }
+
+  private final AccountFetcher accountFetcher;
+  private final PublicKey clockSysVar;
+  private final long maxSlotAge;
+  private final AtomicReference<Clock> clock;
+  private final Accounts<StakePoolState> stakePoolStates;
+  private final Accounts<ValidatorList> validatorLists;
+  private final LongAdder hits;
+  private final LongAdder staleHits;
+  private final LongAdder misses;
+  private final LongAdder refreshes;
+
+  StakePoolCacheImpl(final AccountFetcher accountFetcher, final PublicKey clockSysVar, final long maxSlotAge) {
+    this.accountFetcher = accountFetcher;
+    this.clockSysVar = clockSysVar;
+    this.maxSlotAge = maxSlotAge;
+    this.clock = new AtomicReference<>();
+    this.stakePoolStates = new Accounts<>(StakePoolState.FACTORY, StakePoolState::lastUpdateEpoch);
+    this.validatorLists = new Accounts<>(ValidatorList.FACTORY, null);
+    this.hits = new LongAdder();
+    this.staleHits = new LongAdder();
+    this.misses = new LongAdder();
+    this.refreshes = new LongAdder();
+  }
+
+  private final class Accounts<T> {
+
+    private final BiFunction<PublicKey, byte[], T> factory;
+    private final ToLongFunction<T> lastUpdateEpoch;
+    private final ConcurrentHashMap<PublicKey, Entry<T>> entries;
+    private final ConcurrentHashMap<PublicKey, CompletableFuture<AccountInfo<T>>> inFlight;
+    private final AtomicLong generation;
+
+    private Accounts(final BiFunction<PublicKey, byte[], T> factory, final ToLongFunction<T> lastUpdateEpoch) {
+      this.factory = factory;
+      this.lastUpdateEpoch = lastUpdateEpoch;
+      this.entries = new ConcurrentHashMap<>();
+      this.inFlight = new ConcurrentHashMap<>();
+      this.generation = new AtomicLong();
+    }
+
+    private CompletableFuture<AccountInfo<T>> get(final PublicKey account) {
+      final var entry = entries.get(account);
+      if (entry != null) {
+        final var clock = StakePoolCacheImpl.this.clock.get();
+        if (clock == null) {
+          hits.increment();
+          return completedFuture(entry.accountInfo);
+        } else if (entry.epoch >= clock.epoch()) {
+          if (isStale(entry, clock)) {
+            staleHits.increment();
+            refresh(account);
+          } else {
+            hits.increment();
+          }
+          return completedFuture(entry.accountInfo);
+        }
+      }
+      misses.increment();
+      return refresh(account);
+    }
+
+    private boolean isStale(final Entry<T> entry, final Clock clock) {
+      final long slotAge = clock.slot() - entry.slot;
+      if (slotAge > maxSlotAge) {
+        return true;
+      } else if (lastUpdateEpoch != null && slotAge > 0) {
+        // The pool will change once its epoch update is cranked, re-check at most once per observed clock.
+        return lastUpdateEpoch.applyAsLong(entry.accountInfo.data()) < clock.epoch();
+      } else {
+        return false;
+      }
+    }
+
+    // The fetch is asynchronous, so stale hits refresh in the background without blocking the caller.
+    private CompletableFuture<AccountInfo<T>> refresh(final PublicKey account) {
+      final var pending = inFlight.get(account);
+      if (pending != null) {
+        return pending;
+      }
+      final var promise = new CompletableFuture<AccountInfo<T>>();
+      final var previous = inFlight.putIfAbsent(account, promise);
+      if (previous != null) {
+        return previous;
+      }
+      refreshes.increment();
+      final long generation = this.generation.get();
+      final var clock = StakePoolCacheImpl.this.clock.get();
+      accountFetcher.fetch(account, factory).whenComplete((accountInfo, throwable) -> {
+        // An invalidation while in flight removes the promise and bumps the generation, the result may pre-date it
+        // so it is not cached.  The generation is re-checked under the entry lock which invalidate also takes.
+        if (inFlight.remove(account, promise) && throwable == null) {
+          entries.compute(account, (_, current) -> {
+            if (this.generation.get() != generation) {
+              return current;
+            } else if (accountInfo == null) {
+              return null;
+            } else {
+              final var context = accountInfo.context();
+              final long slot = context != null ? context.slot() : clock != null ? clock.slot() : 0;
+              return new Entry<>(accountInfo, slot, clock != null ? clock.epoch() : 0);
+            }
+          });
+        }
+        if (throwable == null) {
+          promise.complete(accountInfo);
+        } else {
+          promise.completeExceptionally(throwable);
+        }
+      });
+      return promise;
+    }
+
+    private void invalidate(final PublicKey account) {
+      generation.incrementAndGet();
+      inFlight.remove(account);
+      entries.remove(account);
+    }
+
+    private void invalidateAll() {
+      generation.incrementAndGet();
+      inFlight.clear();
+      entries.clear();
+    }
+  }
+
+  @Override
+  public AccountFetcher accountFetcher() {
+    return accountFetcher;
+  }
+
+  @Override
+  public long maxSlotAge() {
+    return maxSlotAge;
+  }
+
+  @Override
+  public void updateClock(final Clock clock) {
+    this.clock.accumulateAndGet(clock, (current, next) -> current == null || next.slot() > current.slot() ? next : current);
+  }
+
+  @Override
+  public Clock clock() {
+    return clock.get();
+  }
+
+  @Override
+  public CompletableFuture<Clock> refreshClock() {
+    return accountFetcher.fetch(clockSysVar, Clock.FACTORY).thenApply(accountInfo -> {
+      updateClock(accountInfo.data());
+      return clock.get();
+    });
+  }
+
+  @Override
+  public CompletableFuture<AccountInfo<StakePoolState>> stakePoolState(final PublicKey stakePool) {
+    return stakePoolStates.get(stakePool);
+  }
+
+  @Override
+  public CompletableFuture<AccountInfo<ValidatorList>> validatorList(final PublicKey validatorList) {
+    return validatorLists.get(validatorList);
+  }
+
+  @Override
+  public void invalidate(final PublicKey account) {
+    stakePoolStates.invalidate(account);
+    validatorLists.invalidate(account);
+  }
+
+  @Override
+  public void invalidateAll() {
+    stakePoolStates.invalidateAll();
+    validatorLists.invalidateAll();
+  }
+
+  @Override
+  public int size() {
+    return stakePoolStates.entries.size() + validatorLists.entries.size();
+  }
+
+  @Override
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  @Override
+  public long staleHitCount() {
+    return staleHits.sum();
+  }
+
+  @Override
+  public long missCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public long refreshCount() {
+    return refreshes.sum();
+  }
+}
@@ -6,6 +6,7 @@ import software.sava.core.accounts.SolanaAccounts;
 import software.sava.core.accounts.meta.AccountMeta;
 import software.sava.core.programs.Discriminator;
 import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.encoding.InstructionBuffer;
 
 import java.util.List;
 
@@ -733,8 +734,8 @@ public final class StakePoolProgram {
   }
 
   private static List<AccountMeta> createDepositSolKeys(final SolanaAccounts solanaAccounts,
-                                                        final AccountMeta invokedStakePoolProgram,
                                                         final PublicKey stakePool,
+                                                        final PublicKey stakePoolWithdrawAuthority,
                                                         final PublicKey reserveStakeAccount,
                                                         final PublicKey solDepositAuthority,
                                                         final PublicKey poolTokenATA,
@@ -742,13 +743,9 @@ public final class StakePoolProgram {
                                                         final PublicKey poolTokenReferralFeeATA,
                                                         final PublicKey poolTokenMint,
                                                         final PublicKey stakePoolTokenProgramId) {
-    final var stakePoolWithdrawAuthority = findStakePoolWithdrawAuthority(
-        stakePool,
-        invokedStakePoolProgram.publicKey()
-    );
     return List.of(
         createWrite(stakePool),
-        createRead(stakePoolWithdrawAuthority.publicKey()),
+        createRead(stakePoolWithdrawAuthority),
         createWrite(reserveStakeAccount),
         createReadOnlySigner(solDepositAuthority),
         createWrite(poolTokenATA),
@@ -772,10 +769,40 @@ public final class StakePoolProgram {
                                                    final PublicKey stakePoolTokenProgramId,
                                                    final long lamportsIn,
                                                    final long minimumPoolTokensOut) {
-    final var keys = createDepositSolKeys(
+    return depositSolWithSlippage(
         solanaAccounts,
         invokedStakePoolProgram,
         stakePool,
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        reserveStakeAccount,
+        solDepositAuthority,
+        poolTokenATA,
+        poolTokenFeeATA,
+        poolTokenReferralFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId,
+        lamportsIn,
+        minimumPoolTokensOut
+    );
+  }
+
+  public static Instruction depositSolWithSlippage(final SolanaAccounts solanaAccounts,
+                                                   final AccountMeta invokedStakePoolProgram,
+                                                   final PublicKey stakePool,
+                                                   final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                                   final PublicKey reserveStakeAccount,
+                                                   final PublicKey solDepositAuthority,
+                                                   final PublicKey poolTokenATA,
+                                                   final PublicKey poolTokenFeeATA,
+                                                   final PublicKey poolTokenReferralFeeATA,
+                                                   final PublicKey poolTokenMint,
+                                                   final PublicKey stakePoolTokenProgramId,
+                                                   final long lamportsIn,
+                                                   final long minimumPoolTokensOut) {
+    final var keys = createDepositSolKeys(
+        solanaAccounts,
+        stakePool,
+        stakePoolWithdrawAuthority.publicKey(),
         reserveStakeAccount,
         solDepositAuthority,
         poolTokenATA,
@@ -804,10 +831,38 @@ public final class StakePoolProgram {
                                        final PublicKey poolTokenMint,
                                        final PublicKey stakePoolTokenProgramId,
                                        final long lamportsIn) {
-    final var keys = createDepositSolKeys(
+    return depositSol(
         solanaAccounts,
         invokedStakePoolProgram,
         stakePool,
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        reserveStakeAccount,
+        solDepositAuthority,
+        poolTokenATA,
+        poolTokenFeeATA,
+        poolTokenReferralFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId,
+        lamportsIn
+    );
+  }
+
+  public static Instruction depositSol(final SolanaAccounts solanaAccounts,
+                                       final AccountMeta invokedStakePoolProgram,
+                                       final PublicKey stakePool,
+                                       final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                       final PublicKey reserveStakeAccount,
+                                       final PublicKey solDepositAuthority,
+                                       final PublicKey poolTokenATA,
+                                       final PublicKey poolTokenFeeATA,
+                                       final PublicKey poolTokenReferralFeeATA,
+                                       final PublicKey poolTokenMint,
+                                       final PublicKey stakePoolTokenProgramId,
+                                       final long lamportsIn) {
+    final var keys = createDepositSolKeys(
+        solanaAccounts,
+        stakePool,
+        stakePoolWithdrawAuthority.publicKey(),
         reserveStakeAccount,
         solDepositAuthority,
         poolTokenATA,
@@ -824,9 +879,44 @@ public final class StakePoolProgram {
     return Instruction.createInstruction(invokedStakePoolProgram, keys, data);
   }
 
+  public static Instruction depositSol(final InstructionBuffer buffer,
+                                       final SolanaAccounts solanaAccounts,
+                                       final AccountMeta invokedStakePoolProgram,
+                                       final PublicKey stakePool,
+                                       final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                       final PublicKey reserveStakeAccount,
+                                       final PublicKey solDepositAuthority,
+                                       final PublicKey poolTokenATA,
+                                       final PublicKey poolTokenFeeATA,
+                                       final PublicKey poolTokenReferralFeeATA,
+                                       final PublicKey poolTokenMint,
+                                       final PublicKey stakePoolTokenProgramId,
+                                       final long lamportsIn) {
+    final var keys = buffer.keys(
+        createWrite(stakePool),
+        createRead(stakePoolWithdrawAuthority.publicKey()),
+        createWrite(reserveStakeAccount),
+        createReadOnlySigner(solDepositAuthority),
+        createWrite(poolTokenATA),
+        createWrite(poolTokenFeeATA),
+        createWrite(poolTokenReferralFeeATA),
+        createWrite(poolTokenMint),
+        solanaAccounts.readSystemProgram(),
+        createRead(stakePoolTokenProgramId)
+    );
+
+    final int length = 1 + Long.BYTES;
+    final int offset = buffer.reserve(length);
+    final byte[] data = buffer.data();
+    Instructions.DepositSol.write(data, offset);
+    putInt64LE(data, offset + 1, lamportsIn);
+
+    return buffer.instruction(invokedStakePoolProgram, keys, offset, length);
+  }
+
   private static List<AccountMeta> createDepositStakeKeys(final SolanaAccounts solanaAccounts,
-                                                          final AccountMeta invokedStakePoolProgram,
                                                           final PublicKey stakePool,
+                                                          final PublicKey stakePoolWithdrawAuthority,
                                                           final PublicKey validatorStakeListStorageAccount,
                                                           final PublicKey stakePoolDepositAuthority,
                                                           final PublicKey depositStakeAccount,
@@ -837,15 +927,11 @@ public final class StakePoolProgram {
                                                           final PublicKey poolTokenReferralFeeATA,
                                                           final PublicKey poolTokenMint,
                                                           final PublicKey stakePoolTokenProgramId) {
-    final var stakePoolWithdrawAuthority = findStakePoolWithdrawAuthority(
-        stakePool,
-        invokedStakePoolProgram.publicKey()
-    );
     return List.of(
         createWrite(stakePool),
         createWrite(validatorStakeListStorageAccount),
         createReadOnlySigner(stakePoolDepositAuthority),
-        createRead(stakePoolWithdrawAuthority.publicKey()),
+        createRead(stakePoolWithdrawAuthority),
         createWrite(depositStakeAccount),
         createWrite(validatorStakeAccount),
         createWrite(reserveStakeAccount),
@@ -874,10 +960,44 @@ public final class StakePoolProgram {
                                                      final PublicKey poolTokenMint,
                                                      final PublicKey stakePoolTokenProgramId,
                                                      final long minimumPoolTokensOut) {
-    final var keys = createDepositStakeKeys(
+    return depositStakeWithSlippage(
         solanaAccounts,
         invokedStakePoolProgram,
         stakePool,
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        validatorStakeListStorageAccount,
+        stakePoolDepositAuthority,
+        depositStakeAccount,
+        validatorStakeAccount,
+        reserveStakeAccount,
+        poolTokenATA,
+        poolTokenFeeATA,
+        poolTokenReferralFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId,
+        minimumPoolTokensOut
+    );
+  }
+
+  public static Instruction depositStakeWithSlippage(final SolanaAccounts solanaAccounts,
+                                                     final AccountMeta invokedStakePoolProgram,
+                                                     final PublicKey stakePool,
+                                                     final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                                     final PublicKey validatorStakeListStorageAccount,
+                                                     final PublicKey stakePoolDepositAuthority,
+                                                     final PublicKey depositStakeAccount,
+                                                     final PublicKey validatorStakeAccount,
+                                                     final PublicKey reserveStakeAccount,
+                                                     final PublicKey poolTokenATA,
+                                                     final PublicKey poolTokenFeeATA,
+                                                     final PublicKey poolTokenReferralFeeATA,
+                                                     final PublicKey poolTokenMint,
+                                                     final PublicKey stakePoolTokenProgramId,
+                                                     final long minimumPoolTokensOut) {
+    final var keys = createDepositStakeKeys(
+        solanaAccounts,
+        stakePool,
+        stakePoolWithdrawAuthority.publicKey(),
         validatorStakeListStorageAccount,
         stakePoolDepositAuthority,
         depositStakeAccount,
@@ -910,10 +1030,42 @@ public final class StakePoolProgram {
                                          final PublicKey poolTokenReferralFeeATA,
                                          final PublicKey poolTokenMint,
                                          final PublicKey stakePoolTokenProgramId) {
-    final var keys = createDepositStakeKeys(
+    return depositStake(
         solanaAccounts,
         invokedStakePoolProgram,
         stakePool,
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        validatorStakeListStorageAccount,
+        stakePoolDepositAuthority,
+        depositStakeAccount,
+        validatorStakeAccount,
+        reserveStakeAccount,
+        poolTokenATA,
+        poolTokenFeeATA,
+        poolTokenReferralFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId
+    );
+  }
+
+  public static Instruction depositStake(final SolanaAccounts solanaAccounts,
+                                         final AccountMeta invokedStakePoolProgram,
+                                         final PublicKey stakePool,
+                                         final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                         final PublicKey validatorStakeListStorageAccount,
+                                         final PublicKey stakePoolDepositAuthority,
+                                         final PublicKey depositStakeAccount,
+                                         final PublicKey validatorStakeAccount,
+                                         final PublicKey reserveStakeAccount,
+                                         final PublicKey poolTokenATA,
+                                         final PublicKey poolTokenFeeATA,
+                                         final PublicKey poolTokenReferralFeeATA,
+                                         final PublicKey poolTokenMint,
+                                         final PublicKey stakePoolTokenProgramId) {
+    final var keys = createDepositStakeKeys(
+        solanaAccounts,
+        stakePool,
+        stakePoolWithdrawAuthority.publicKey(),
         validatorStakeListStorageAccount,
         stakePoolDepositAuthority,
         depositStakeAccount,
@@ -930,8 +1082,8 @@ public final class StakePoolProgram {
   }
 
   private static List<AccountMeta> createWithdrawSolKeys(final SolanaAccounts solanaAccounts,
-                                                         final AccountMeta invokedStakePoolProgram,
                                                          final PublicKey stakePool,
+                                                         final PublicKey stakePoolWithdrawAuthority,
                                                          final PublicKey transferAuthority,
                                                          final PublicKey poolTokenATA,
                                                          final PublicKey reserveStakeAccount,
@@ -939,13 +1091,9 @@ public final class StakePoolProgram {
                                                          final PublicKey poolTokenFeeATA,
                                                          final PublicKey poolTokenMint,
                                                          final PublicKey stakePoolTokenProgramId) {
-    final var stakePoolWithdrawAuthority = findStakePoolWithdrawAuthority(
-        stakePool,
-        invokedStakePoolProgram.publicKey()
-    );
     return List.of(
         createWrite(stakePool),
-        createRead(stakePoolWithdrawAuthority.publicKey()),
+        createRead(stakePoolWithdrawAuthority),
         createReadOnlySigner(transferAuthority),
         createWrite(poolTokenATA),
         createWrite(reserveStakeAccount),
@@ -971,10 +1119,40 @@ public final class StakePoolProgram {
                                                     final PublicKey stakePoolTokenProgramId,
                                                     final long poolTokenAmount,
                                                     final long lamportsOut) {
-    final var keys = createWithdrawSolKeys(
+    return withdrawSolWithSlippage(
         solanaAccounts,
         invokedStakePoolProgram,
         stakePool,
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        transferAuthority,
+        poolTokenATA,
+        reserveStakeAccount,
+        receivingAccount,
+        poolTokenFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId,
+        poolTokenAmount,
+        lamportsOut
+    );
+  }
+
+  public static Instruction withdrawSolWithSlippage(final SolanaAccounts solanaAccounts,
+                                                    final AccountMeta invokedStakePoolProgram,
+                                                    final PublicKey stakePool,
+                                                    final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                                    final PublicKey transferAuthority,
+                                                    final PublicKey poolTokenATA,
+                                                    final PublicKey reserveStakeAccount,
+                                                    final PublicKey receivingAccount,
+                                                    final PublicKey poolTokenFeeATA,
+                                                    final PublicKey poolTokenMint,
+                                                    final PublicKey stakePoolTokenProgramId,
+                                                    final long poolTokenAmount,
+                                                    final long lamportsOut) {
+    final var keys = createWithdrawSolKeys(
+        solanaAccounts,
+        stakePool,
+        stakePoolWithdrawAuthority.publicKey(),
         transferAuthority,
         poolTokenATA,
         reserveStakeAccount,
@@ -1003,10 +1181,38 @@ public final class StakePoolProgram {
                                         final PublicKey poolTokenMint,
                                         final PublicKey stakePoolTokenProgramId,
                                         final long poolTokenAmount) {
-    final var keys = createWithdrawSolKeys(
+    return withdrawSol(
         solanaAccounts,
         invokedStakePoolProgram,
         stakePool,
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        transferAuthority,
+        poolTokenATA,
+        reserveStakeAccount,
+        receivingAccount,
+        poolTokenFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId,
+        poolTokenAmount
+    );
+  }
+
+  public static Instruction withdrawSol(final SolanaAccounts solanaAccounts,
+                                        final AccountMeta invokedStakePoolProgram,
+                                        final PublicKey stakePool,
+                                        final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                        final PublicKey transferAuthority,
+                                        final PublicKey poolTokenATA,
+                                        final PublicKey reserveStakeAccount,
+                                        final PublicKey receivingAccount,
+                                        final PublicKey poolTokenFeeATA,
+                                        final PublicKey poolTokenMint,
+                                        final PublicKey stakePoolTokenProgramId,
+                                        final long poolTokenAmount) {
+    final var keys = createWithdrawSolKeys(
+        solanaAccounts,
+        stakePool,
+        stakePoolWithdrawAuthority.publicKey(),
         transferAuthority,
         poolTokenATA,
         reserveStakeAccount,
@@ -1024,8 +1230,8 @@ public final class StakePoolProgram {
   }
 
   private static List<AccountMeta> createWithdrawStakeKeys(final SolanaAccounts solanaAccounts,
-                                                           final AccountMeta invokedStakePoolProgram,
                                                            final PublicKey stakePool,
+                                                           final PublicKey stakePoolWithdrawAuthority,
                                                            final PublicKey validatorStakeListStorageAccount,
                                                            final PublicKey validatorOrReserveStakeAccount,
                                                            final PublicKey uninitializedStakeAccount,
@@ -1035,14 +1241,10 @@ public final class StakePoolProgram {
                                                            final PublicKey poolTokenFeeATA,
                                                            final PublicKey poolTokenMint,
                                                            final PublicKey stakePoolTokenProgramId) {
-    final var stakePoolWithdrawAuthority = findStakePoolWithdrawAuthority(
-        stakePool,
-        invokedStakePoolProgram.publicKey()
-    );
     return List.of(
         createWrite(stakePool),
         createWrite(validatorStakeListStorageAccount),
-        createRead(stakePoolWithdrawAuthority.publicKey()),
+        createRead(stakePoolWithdrawAuthority),
         createWrite(validatorOrReserveStakeAccount),
         createWrite(uninitializedStakeAccount),
         createRead(stakeAccountWithdrawalAuthority),
@@ -1070,10 +1272,44 @@ public final class StakePoolProgram {
                                                       final PublicKey stakePoolTokenProgramId,
                                                       final long poolTokenAmount,
                                                       final long lamportsOut) {
-    final var keys = createWithdrawStakeKeys(
+    return withdrawStakeWithSlippage(
         solanaAccounts,
         invokedStakePoolProgram,
         stakePool,
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        validatorStakeListStorageAccount,
+        validatorOrReserveStakeAccount,
+        uninitializedStakeAccount,
+        stakeAccountWithdrawalAuthority,
+        transferAuthority,
+        poolTokenATA,
+        poolTokenFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId,
+        poolTokenAmount,
+        lamportsOut
+    );
+  }
+
+  public static Instruction withdrawStakeWithSlippage(final SolanaAccounts solanaAccounts,
+                                                      final AccountMeta invokedStakePoolProgram,
+                                                      final PublicKey stakePool,
+                                                      final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                                      final PublicKey validatorStakeListStorageAccount,
+                                                      final PublicKey validatorOrReserveStakeAccount,
+                                                      final PublicKey uninitializedStakeAccount,
+                                                      final PublicKey stakeAccountWithdrawalAuthority,
+                                                      final PublicKey transferAuthority,
+                                                      final PublicKey poolTokenATA,
+                                                      final PublicKey poolTokenFeeATA,
+                                                      final PublicKey poolTokenMint,
+                                                      final PublicKey stakePoolTokenProgramId,
+                                                      final long poolTokenAmount,
+                                                      final long lamportsOut) {
+    final var keys = createWithdrawStakeKeys(
+        solanaAccounts,
+        stakePool,
+        stakePoolWithdrawAuthority.publicKey(),
         validatorStakeListStorageAccount,
         validatorOrReserveStakeAccount,
         uninitializedStakeAccount,
@@ -1105,10 +1341,42 @@ public final class StakePoolProgram {
                                           final PublicKey poolTokenMint,
                                           final PublicKey stakePoolTokenProgramId,
                                           final long poolTokenAmount) {
-    final var keys = createWithdrawStakeKeys(
+    return withdrawStake(
         solanaAccounts,
         invokedStakePoolProgram,
         stakePool,
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        validatorStakeListStorageAccount,
+        validatorOrReserveStakeAccount,
+        uninitializedStakeAccount,
+        stakeAccountWithdrawalAuthority,
+        transferAuthority,
+        poolTokenATA,
+        poolTokenFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId,
+        poolTokenAmount
+    );
+  }
+
+  public static Instruction withdrawStake(final SolanaAccounts solanaAccounts,
+                                          final AccountMeta invokedStakePoolProgram,
+                                          final PublicKey stakePool,
+                                          final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                          final PublicKey validatorStakeListStorageAccount,
+                                          final PublicKey validatorOrReserveStakeAccount,
+                                          final PublicKey uninitializedStakeAccount,
+                                          final PublicKey stakeAccountWithdrawalAuthority,
+                                          final PublicKey transferAuthority,
+                                          final PublicKey poolTokenATA,
+                                          final PublicKey poolTokenFeeATA,
+                                          final PublicKey poolTokenMint,
+                                          final PublicKey stakePoolTokenProgramId,
+                                          final long poolTokenAmount) {
+    final var keys = createWithdrawStakeKeys(
+        solanaAccounts,
+        stakePool,
+        stakePoolWithdrawAuthority.publicKey(),
         validatorStakeListStorageAccount,
         validatorOrReserveStakeAccount,
         uninitializedStakeAccount,
@@ -1133,10 +1401,26 @@ public final class StakePoolProgram {
                                                    final PublicKey poolTokenFeeATA,
                                                    final PublicKey poolTokenMint,
                                                    final PublicKey stakePoolTokenProgramId) {
-    final var stakePoolWithdrawAuthority = findStakePoolWithdrawAuthority(
+    return updateStakePoolBalance(
+        invokedStakePoolProgram,
         stakePool,
-        invokedStakePoolProgram.publicKey()
+        findStakePoolWithdrawAuthority(stakePool, invokedStakePoolProgram.publicKey()),
+        validatorStakeListStorageAccount,
+        reserveStakeAccount,
+        poolTokenFeeATA,
+        poolTokenMint,
+        stakePoolTokenProgramId
     );
+  }
+
+  public static Instruction updateStakePoolBalance(final AccountMeta invokedStakePoolProgram,
+                                                   final PublicKey stakePool,
+                                                   final ProgramDerivedAddress stakePoolWithdrawAuthority,
+                                                   final PublicKey validatorStakeListStorageAccount,
+                                                   final PublicKey reserveStakeAccount,
+                                                   final PublicKey poolTokenFeeATA,
+                                                   final PublicKey poolTokenMint,
+                                                   final PublicKey stakePoolTokenProgramId) {
     final var keys = List.of(
         createWrite(stakePool),
         createRead(stakePoolWithdrawAuthority.publicKey()),
@@ -6,15 +6,22 @@ import software.sava.core.accounts.SolanaAccounts;
 import software.sava.core.tx.Instruction;
 import software.sava.rpc.json.http.client.SolanaRpcClient;
 import software.sava.rpc.json.http.response.AccountInfo;
+import software.sava.solana.programs.clients.AccountFetcher;
 import software.sava.solana.programs.clients.NativeProgramAccountClient;
 
 import java.util.concurrent.CompletableFuture;
 
 public interface StakePoolProgramClient {
 
+  static StakePoolProgramClient createClient(final NativeProgramAccountClient nativeProgramClient,
+                                             final StakePoolAccounts stakePoolAccounts,
+                                             final StakePoolRegistry stakePoolRegistry) {
+    return new StakePoolProgramClientImpl(nativeProgramClient, stakePoolAccounts, stakePoolRegistry);
+  }
+
   static StakePoolProgramClient createClient(final NativeProgramAccountClient nativeProgramClient,
                                              final StakePoolAccounts stakePoolAccounts) {
-    return new StakePoolProgramClientImpl(nativeProgramClient, stakePoolAccounts);
+    return createClient(nativeProgramClient, stakePoolAccounts, StakePoolRegistry.createRegistry());
   }
 
   static StakePoolProgramClient createClient(final NativeProgramAccountClient nativeProgramClient) {
@@ -27,6 +34,8 @@ public interface StakePoolProgramClient {
 
   StakePoolAccounts stakePoolAccounts();
 
+  StakePoolRegistry stakePoolRegistry();
+
   static CompletableFuture<AccountInfo<StakePoolState>> fetchProgramState(final SolanaRpcClient rpcClient,
                                                                           final PublicKey stakePoolPublicKey) {
     return rpcClient.getAccountInfo(stakePoolPublicKey, StakePoolState.FACTORY);
@@ -38,6 +47,16 @@ public interface StakePoolProgramClient {
     return rpcClient.getAccountInfo(destinationValidatorList, ValidatorList.FACTORY);
   }
 
+  static CompletableFuture<AccountInfo<StakePoolState>> fetchProgramState(final AccountFetcher accountFetcher,
+                                                                          final PublicKey stakePoolPublicKey) {
+    return accountFetcher.fetch(stakePoolPublicKey, StakePoolState.FACTORY);
+  }
+
+  static CompletableFuture<AccountInfo<ValidatorList>> fetchValidatorList(final AccountFetcher accountFetcher,
+                                                                          final StakePoolState programState) {
+    return accountFetcher.fetch(programState.validatorList(), ValidatorList.FACTORY);
+  }
+
   static ProgramDerivedAddress findStakePoolWithdrawAuthority(final AccountInfo<StakePoolState> stakePoolStateAccountInfo) {
     return StakePoolProgram.findStakePoolWithdrawAuthority(stakePoolStateAccountInfo.pubKey(), stakePoolStateAccountInfo.owner());
   }
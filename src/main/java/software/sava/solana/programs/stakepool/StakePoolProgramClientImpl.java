@@ -12,13 +12,16 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
   private final NativeProgramAccountClient nativeProgramClient;
   private final SolanaAccounts accounts;
   private final StakePoolAccounts stakePoolAccounts;
+  private final StakePoolRegistry stakePoolRegistry;
   private final PublicKey owner;
 
   StakePoolProgramClientImpl(final NativeProgramAccountClient nativeProgramClient,
-                             final StakePoolAccounts stakePoolAccounts) {
+                             final StakePoolAccounts stakePoolAccounts,
+                             final StakePoolRegistry stakePoolRegistry) {
     this.nativeProgramClient = nativeProgramClient;
     this.accounts = nativeProgramClient.solanaAccounts();
     this.stakePoolAccounts = stakePoolAccounts;
+    this.stakePoolRegistry = stakePoolRegistry;
     this.owner = nativeProgramClient.ownerPublicKey();
   }
 
@@ -37,6 +40,11 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
     return stakePoolAccounts;
   }
 
+  @Override
+  public StakePoolRegistry stakePoolRegistry() {
+    return stakePoolRegistry;
+  }
+
   @Override
   public PublicKey ownerPublicKey() {
     return owner;
@@ -51,6 +59,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
         accounts,
         AccountMeta.createInvoked(stakePoolStateAccountInfo.owner()),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolStateAccountInfo),
         stakePoolState.reserveStake(),
         owner,
         poolTokenATA,
@@ -72,6 +81,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
         accounts,
         AccountMeta.createInvoked(stakePoolStateAccountInfo.owner()),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolStateAccountInfo),
         stakePoolState.reserveStake(),
         owner,
         poolTokenATA,
@@ -94,6 +104,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
         accounts,
         AccountMeta.createInvoked(stakePoolStateAccountInfo.owner()),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolStateAccountInfo),
         stakePoolState.validatorList(),
         owner,
         depositStakeAccount,
@@ -118,6 +129,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
         accounts,
         AccountMeta.createInvoked(stakePoolStateAccountInfo.owner()),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolStateAccountInfo),
         stakePoolState.validatorList(),
         owner,
         depositStakeAccount,
@@ -142,6 +154,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
         accounts,
         AccountMeta.createInvoked(stakePoolStateAccountInfo.owner()),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolStateAccountInfo),
         owner,
         poolTokenATA,
         stakePoolState.reserveStake(),
@@ -164,6 +177,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
         accounts,
         AccountMeta.createInvoked(stakePoolProgram),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolState.address(), stakePoolProgram),
         owner,
         poolTokenATA,
         stakePoolState.reserveStake(),
@@ -188,6 +202,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
         accounts,
         AccountMeta.createInvoked(stakePoolStateAccountInfo.owner()),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolStateAccountInfo),
         stakePoolState.validatorList(),
         validatorOrReserveStakeAccount,
         uninitializedStakeAccount,
@@ -232,6 +247,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
         accounts,
         AccountMeta.createInvoked(poolProgram),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolState.address(), poolProgram),
         stakePoolState.validatorList(),
         validatorOrReserveStakeAccount,
         uninitializedStakeAccount,
@@ -251,6 +267,7 @@ final class StakePoolProgramClientImpl implements StakePoolProgramClient {
     return StakePoolProgram.updateStakePoolBalance(
         AccountMeta.createInvoked(stakePoolStateAccountInfo.owner()),
         stakePoolState.address(),
+        stakePoolRegistry.withdrawAuthority(stakePoolStateAccountInfo),
         stakePoolState.validatorList(),
         stakePoolState.reserveStake(),
         stakePoolState.managerFeeAccount(),
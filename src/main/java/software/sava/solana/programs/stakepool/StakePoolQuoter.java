@@ -0,0 +1,110 @@
+package software.sava.solana.programs.stakepool;
+
+import software.sava.solana.programs.stakepool.StakePoolState.Fee;
+
+// Reproduces the SPL stake pool deposit and withdrawal math against a snapshot of StakePoolState, so that slippage
+// bounds can be derived without simulating transactions.  Quotes do not account for rewards credited by a pending
+// UpdateStakePoolBalance, or for reserve and validator stake limits.
+public interface StakePoolQuoter {
+
+  // If currentEpoch is past the pool's lastUpdateEpoch, pending withdrawal fee changes are applied as the required
+  // UpdateStakePoolBalance would.
+  static StakePoolQuoter createQuoter(final StakePoolState stakePoolState, final long currentEpoch) {
+    return StakePoolQuoterImpl.createQuoter(stakePoolState, currentEpoch);
+  }
+
+  static StakePoolQuoter createQuoter(final StakePoolState stakePoolState) {
+    return createQuoter(stakePoolState, stakePoolState.lastUpdateEpoch());
+  }
+
+  record DepositQuote(long poolTokensMinted,
+                      long poolTokensUser,
+                      long managerFee,
+                      long referralFee) {
+
+    // The program rejects deposits which would mint zero tokens for the user.
+    public boolean isValid() {
+      return poolTokensUser != 0;
+    }
+  }
+
+  record WithdrawQuote(long poolTokens,
+                       long poolTokensFee,
+                       long poolTokensBurnt,
+                       long lamports) {
+
+    public boolean isValid() {
+      return lamports != 0;
+    }
+  }
+
+  StakePoolState stakePoolState();
+
+  Fee solDepositFee();
+
+  Fee stakeDepositFee();
+
+  Fee solWithdrawalFee();
+
+  Fee stakeWithdrawalFee();
+
+  DepositQuote depositSol(final long lamports);
+
+  // totalLamports is the full balance of the deposited stake account, delegatedLamports the portion that is active
+  // stake, the remainder is charged the SOL deposit fee.
+  DepositQuote depositStake(final long totalLamports, final long delegatedLamports);
+
+  WithdrawQuote withdrawSol(final long poolTokens);
+
+  WithdrawQuote withdrawStake(final long poolTokens);
+
+  long depositSolPoolTokensOut(final long lamports);
+
+  long depositStakePoolTokensOut(final long totalLamports, final long delegatedLamports);
+
+  long withdrawSolLamportsOut(final long poolTokens);
+
+  long withdrawStakeLamportsOut(final long poolTokens);
+
+  // Batch variants write the user's output for each input amount, from and to index the input arrays.
+  void depositSolPoolTokensOut(final long[] lamports, final long[] poolTokensOut, final int from, final int to);
+
+  default void depositSolPoolTokensOut(final long[] lamports, final long[] poolTokensOut) {
+    depositSolPoolTokensOut(lamports, poolTokensOut, 0, lamports.length);
+  }
+
+  void depositStakePoolTokensOut(final long[] totalLamports,
+                                 final long[] delegatedLamports,
+                                 final long[] poolTokensOut,
+                                 final int from,
+                                 final int to);
+
+  default void depositStakePoolTokensOut(final long[] totalLamports,
+                                         final long[] delegatedLamports,
+                                         final long[] poolTokensOut) {
+    depositStakePoolTokensOut(totalLamports, delegatedLamports, poolTokensOut, 0, totalLamports.length);
+  }
+
+  void withdrawSolLamportsOut(final long[] poolTokens, final long[] lamportsOut, final int from, final int to);
+
+  default void withdrawSolLamportsOut(final long[] poolTokens, final long[] lamportsOut) {
+    withdrawSolLamportsOut(poolTokens, lamportsOut, 0, poolTokens.length);
+  }
+
+  void withdrawStakeLamportsOut(final long[] poolTokens, final long[] lamportsOut, final int from, final int to);
+
+  default void withdrawStakeLamportsOut(final long[] poolTokens, final long[] lamportsOut) {
+    withdrawStakeLamportsOut(poolTokens, lamportsOut, 0, poolTokens.length);
+  }
+
+  // Minimum output accepting up to slippageBps basis points less than quoted, for the *WithSlippage instructions.
+  // Throws IllegalArgumentException unless 0 <= slippageBps <= 10_000.
+  static long minimumOut(final long quotedOut, final int slippageBps) {
+    if (slippageBps < 0 || slippageBps > 10_000) {
+      throw new IllegalArgumentException(String.format(
+          "Slippage of %d basis points is outside of [0, 10000].", slippageBps
+      ));
+    }
+    return quotedOut - UnsignedMath.mulDivCeil(quotedOut, slippageBps, 10_000);
+  }
+}
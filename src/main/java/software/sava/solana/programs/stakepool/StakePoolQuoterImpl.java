@@ -0,0 +1,129 @@
+package software.sava.solana.programs.stakepool;
+
+import software.sava.solana.programs.stakepool.StakePoolState.Fee;
+import software.sava.solana.programs.stakepool.StakePoolState.FutureEpoch;
+import software.sava.solana.programs.stakepool.StakePoolState.FutureEpochFee;
+
+import static software.sava.solana.programs.stakepool.UnsignedMath.mulDivFloor;
+
+record StakePoolQuoterImpl(StakePoolState stakePoolState,
+                           Fee solDepositFee,
+                           Fee stakeDepositFee,
+                           Fee solWithdrawalFee,
+                           Fee stakeWithdrawalFee,
+                           long solReferralFee,
+                           long stakeReferralFee) implements StakePoolQuoter {
+
+  private static final long PERCENT = 100;
+
+  // https://github.com/solana-labs/solana-program-library/blob/master/stake-pool/program/src/state.rs
+  // FutureEpochFee::get only yields a fee scheduled for the next epoch.
+  private static Fee effectiveFee(final Fee current, final FutureEpochFee next, final boolean epochUpdate) {
+    return epochUpdate && next != null && next.futureEpoch() == FutureEpoch.ONE ? next.fee() : current;
+  }
+
+  static StakePoolQuoter createQuoter(final StakePoolState stakePoolState, final long currentEpoch) {
+    final boolean epochUpdate = currentEpoch > stakePoolState.lastUpdateEpoch();
+    return new StakePoolQuoterImpl(
+        stakePoolState,
+        stakePoolState.solDepositFee(),
+        stakePoolState.stakeDepositFee(),
+        effectiveFee(stakePoolState.solWithdrawalFee(), stakePoolState.nextSolWithdrawalFee(), epochUpdate),
+        effectiveFee(stakePoolState.stakeWithdrawalFee(), stakePoolState.nextStakeWithdrawalFee(), epochUpdate),
+        stakePoolState.solReferralFee() & 0xFF,
+        stakePoolState.stakeReferralFee() & 0xFF
+    );
+  }
+
+  @Override
+  public DepositQuote depositSol(final long lamports) {
+    final long newPoolTokens = stakePoolState.calcPoolTokensForDeposit(lamports);
+    final long depositFee = solDepositFee.apply(newPoolTokens);
+    final long referralFee = mulDivFloor(depositFee, solReferralFee, PERCENT);
+    return new DepositQuote(newPoolTokens, newPoolTokens - depositFee, depositFee - referralFee, referralFee);
+  }
+
+  private long depositStakeFee(final long newPoolTokens, final long delegatedLamports) {
+    final long newPoolTokensFromStake = stakePoolState.calcPoolTokensForDeposit(delegatedLamports);
+    final long newPoolTokensFromSol = newPoolTokens - newPoolTokensFromStake;
+    return stakeDepositFee.apply(newPoolTokensFromStake) + solDepositFee.apply(newPoolTokensFromSol);
+  }
+
+  @Override
+  public DepositQuote depositStake(final long totalLamports, final long delegatedLamports) {
+    final long newPoolTokens = stakePoolState.calcPoolTokensForDeposit(totalLamports);
+    final long totalFee = depositStakeFee(newPoolTokens, delegatedLamports);
+    final long referralFee = mulDivFloor(totalFee, stakeReferralFee, PERCENT);
+    return new DepositQuote(newPoolTokens, newPoolTokens - totalFee, totalFee - referralFee, referralFee);
+  }
+
+  private WithdrawQuote withdraw(final Fee withdrawalFee, final long poolTokens) {
+    final long fee = withdrawalFee.apply(poolTokens);
+    final long burnt = poolTokens - fee;
+    return new WithdrawQuote(poolTokens, fee, burnt, stakePoolState.calcLamportsWithdrawAmount(burnt));
+  }
+
+  @Override
+  public WithdrawQuote withdrawSol(final long poolTokens) {
+    return withdraw(solWithdrawalFee, poolTokens);
+  }
+
+  @Override
+  public WithdrawQuote withdrawStake(final long poolTokens) {
+    return withdraw(stakeWithdrawalFee, poolTokens);
+  }
+
+  @Override
+  public long depositSolPoolTokensOut(final long lamports) {
+    final long newPoolTokens = stakePoolState.calcPoolTokensForDeposit(lamports);
+    return newPoolTokens - solDepositFee.apply(newPoolTokens);
+  }
+
+  @Override
+  public long depositStakePoolTokensOut(final long totalLamports, final long delegatedLamports) {
+    final long newPoolTokens = stakePoolState.calcPoolTokensForDeposit(totalLamports);
+    return newPoolTokens - depositStakeFee(newPoolTokens, delegatedLamports);
+  }
+
+  @Override
+  public long withdrawSolLamportsOut(final long poolTokens) {
+    return stakePoolState.calcLamportsWithdrawAmount(poolTokens - solWithdrawalFee.apply(poolTokens));
+  }
+
+  @Override
+  public long withdrawStakeLamportsOut(final long poolTokens) {
+    return stakePoolState.calcLamportsWithdrawAmount(poolTokens - stakeWithdrawalFee.apply(poolTokens));
+  }
+
+  @Override
+  public void depositSolPoolTokensOut(final long[] lamports, final long[] poolTokensOut, final int from, final int to) {
+    for (int i = from; i < to; ++i) {
+      poolTokensOut[i] = depositSolPoolTokensOut(lamports[i]);
+    }
+  }
+
+  @Override
+  public void depositStakePoolTokensOut(final long[] totalLamports,
+                                        final long[] delegatedLamports,
+                                        final long[] poolTokensOut,
+                                        final int from,
+                                        final int to) {
+    for (int i = from; i < to; ++i) {
+      poolTokensOut[i] = depositStakePoolTokensOut(totalLamports[i], delegatedLamports[i]);
+    }
+  }
+
+  @Override
+  public void withdrawSolLamportsOut(final long[] poolTokens, final long[] lamportsOut, final int from, final int to) {
+    for (int i = from; i < to; ++i) {
+      lamportsOut[i] = withdrawSolLamportsOut(poolTokens[i]);
+    }
+  }
+
+  @Override
+  public void withdrawStakeLamportsOut(final long[] poolTokens, final long[] lamportsOut, final int from, final int to) {
+    for (int i = from; i < to; ++i) {
+      lamportsOut[i] = withdrawStakeLamportsOut(poolTokens[i]);
+    }
+  }
+}
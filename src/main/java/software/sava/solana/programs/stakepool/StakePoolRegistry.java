@@ -0,0 +1,30 @@
+package software.sava.solana.programs.stakepool;
+
+import software.sava.core.accounts.ProgramDerivedAddress;
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+// Resolves per pool derived addresses once, the withdraw authority of a pool never changes.
+public interface StakePoolRegistry {
+
+  static StakePoolRegistry createRegistry() {
+    return new StakePoolRegistryImpl();
+  }
+
+  record Key(PublicKey stakePool, PublicKey stakePoolProgram) {
+  }
+
+  ProgramDerivedAddress withdrawAuthority(final PublicKey stakePool, final PublicKey stakePoolProgram);
+
+  default ProgramDerivedAddress withdrawAuthority(final AccountInfo<StakePoolState> stakePoolStateAccountInfo) {
+    return withdrawAuthority(stakePoolStateAccountInfo.pubKey(), stakePoolStateAccountInfo.owner());
+  }
+
+  void register(final PublicKey stakePool,
+                final PublicKey stakePoolProgram,
+                final ProgramDerivedAddress withdrawAuthority);
+
+  boolean remove(final PublicKey stakePool, final PublicKey stakePoolProgram);
+
+  int size();
+}
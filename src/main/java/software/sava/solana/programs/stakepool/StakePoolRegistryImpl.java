@@ -0,0 +1,41 @@
+package software.sava.solana.programs.stakepool;
+
+import software.sava.core.accounts.ProgramDerivedAddress;
+import software.sava.core.accounts.PublicKey;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+final class StakePoolRegistryImpl implements StakePoolRegistry {
+
+  private final ConcurrentHashMap<Key, ProgramDerivedAddress> withdrawAuthorities;
+
+  StakePoolRegistryImpl() {
+    this.withdrawAuthorities = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public ProgramDerivedAddress withdrawAuthority(final PublicKey stakePool, final PublicKey stakePoolProgram) {
+    final var key = new Key(stakePool, stakePoolProgram);
+    final var withdrawAuthority = withdrawAuthorities.get(key);
+    return withdrawAuthority == null
+        ? withdrawAuthorities.computeIfAbsent(key, k -> StakePoolProgram.findStakePoolWithdrawAuthority(k.stakePool(), k.stakePoolProgram()))
+        : withdrawAuthority;
+  }
+
+  @Override
+  public void register(final PublicKey stakePool,
+                       final PublicKey stakePoolProgram,
+                       final ProgramDerivedAddress withdrawAuthority) {
+    withdrawAuthorities.put(new Key(stakePool, stakePoolProgram), withdrawAuthority);
+  }
+
+  @Override
+  public boolean remove(final PublicKey stakePool, final PublicKey stakePoolProgram) {
+    return withdrawAuthorities.remove(new Key(stakePool, stakePoolProgram)) != null;
+  }
+
+  @Override
+  public int size() {
+    return withdrawAuthorities.size();
+  }
+}
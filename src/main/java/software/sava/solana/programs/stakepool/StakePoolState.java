@@ -12,6 +12,8 @@ import java.util.function.BiFunction;
 import static java.math.BigDecimal.ZERO;
 import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
 import static software.sava.core.accounts.PublicKey.readPubKey;
+import static software.sava.solana.programs.stakepool.UnsignedMath.mulDivCeil;
+import static software.sava.solana.programs.stakepool.UnsignedMath.mulDivFloor;
 
 // https://github.com/solana-labs/solana-program-library/blob/master/stake-pool/program/src/state.rs#L45
 public record StakePoolState(PublicKey address,
@@ -25,8 +27,8 @@ public record StakePoolState(PublicKey address,
                              PublicKey poolMint,
                              PublicKey managerFeeAccount,
                              PublicKey tokenProgramId,
-                             BigDecimal totalLamports,
-                             BigDecimal poolTokenSupply,
+                             long totalLamports,
+                             long poolTokenSupply,
                              long lastUpdateEpoch,
                              LockUp lockUp,
                              Fee epochFee,
@@ -62,16 +64,41 @@ public record StakePoolState(PublicKey address,
   public static final int EPOCH_FEE_OFFSET = LOCKUP_OFFSET + LockUp.BYTES;
   public static final int NEXT_EPOCH_FEE_OFFSET = EPOCH_FEE_OFFSET + Fee.BYTES;
 
+  // totalLamports and poolTokenSupply are unsigned u64 values.
+  public BigDecimal totalLamportsDecimal() {
+    return new BigDecimal(Long.toUnsignedString(totalLamports));
+  }
+
+  public BigDecimal poolTokenSupplyDecimal() {
+    return new BigDecimal(Long.toUnsignedString(poolTokenSupply));
+  }
+
+  // Rounding follows the on chain calc_pool_tokens_for_deposit and calc_lamports_withdraw_amount.
+  public long calcPoolTokensForDeposit(final long stakeLamports) {
+    return totalLamports == 0 || poolTokenSupply == 0
+        ? stakeLamports
+        : mulDivFloor(stakeLamports, poolTokenSupply, totalLamports);
+  }
+
+  public long calcLamportsWithdrawAmount(final long poolTokens) {
+    return poolTokenSupply == 0 ? 0 : mulDivFloor(poolTokens, totalLamports, poolTokenSupply);
+  }
+
+  // Lamports per pool token multiplied by scale, rounded down.
+  public long solPrice(final long scale) {
+    return totalLamports == 0 || poolTokenSupply == 0 ? 0 : mulDivFloor(totalLamports, scale, poolTokenSupply);
+  }
+
   public BigDecimal calculateSolPrice(final MathContext mathContext) {
-    return totalLamports.signum() == 0 || poolTokenSupply.signum() == 0
+    return totalLamports == 0 || poolTokenSupply == 0
         ? ZERO
-        : totalLamports.divide(poolTokenSupply, mathContext).stripTrailingZeros();
+        : totalLamportsDecimal().divide(poolTokenSupplyDecimal(), mathContext).stripTrailingZeros();
   }
 
   public BigDecimal calculateSolPrice(final int scale, final RoundingMode roundingMode) {
-    return totalLamports.signum() == 0 || poolTokenSupply.signum() == 0
+    return totalLamports == 0 || poolTokenSupply == 0
         ? ZERO
-        : totalLamports.divide(poolTokenSupply, scale, roundingMode).stripTrailingZeros();
+        : totalLamportsDecimal().divide(poolTokenSupplyDecimal(), scale, roundingMode).stripTrailingZeros();
   }
 
   public static final BiFunction<PublicKey, byte[], StakePoolState> FACTORY = StakePoolState::parseProgramData;
@@ -188,9 +215,6 @@ public record StakePoolState(PublicKey address,
     offset += Long.BYTES;
     final long lastEpochTotalLamports = ByteUtil.getInt64LE(data, offset);
 
-    final var bigLamports = new BigDecimal(Long.toUnsignedString(totalLamports));
-    final var bigSupply = new BigDecimal(Long.toUnsignedString(poolTokenSupply));
-
     return new StakePoolState(
         address,
         accountType,
@@ -201,7 +225,7 @@ public record StakePoolState(PublicKey address,
         poolMint,
         managerFeeAccount,
         tokenProgramId,
-        bigLamports, bigSupply,
+        totalLamports, poolTokenSupply,
         lastUpdateEpoch,
         lockUp,
         epochFee, nextEpochFee,
@@ -220,6 +244,11 @@ public record StakePoolState(PublicKey address,
       return new Fee(ByteUtil.getInt64LE(data, offset), ByteUtil.getInt64LE(data, offset + 8));
     }
 
+    // Fee owed on amount, rounded up as on chain.
+    public long apply(final long amount) {
+      return denominator == 0 ? 0 : mulDivCeil(amount, numerator, denominator);
+    }
+
     public BigDecimal toRatio(final MathContext mathContext) {
       return numerator == 0 || denominator == 0 ? ZERO
           : BigDecimal.valueOf(numerator).divide(BigDecimal.valueOf(denominator), mathContext).stripTrailingZeros();
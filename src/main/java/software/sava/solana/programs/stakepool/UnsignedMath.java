@@ -0,0 +1,69 @@
+package software.sava.solana.programs.stakepool;
+
+// Unsigned 64-bit arithmetic with 128-bit intermediates, mirroring the u128 math used on chain.
+// Results are unsigned u64 values, overflow of the final result throws ArithmeticException.
+final class UnsignedMath {
+
+  private static final long BASE = 1L << 32;
+  private static final long LOW_MASK = 0xFFFF_FFFFL;
+
+  // floor(a * b / divisor)
+  static long mulDivFloor(final long a, final long b, final long divisor) {
+    return divide(Math.unsignedMultiplyHigh(a, b), a * b, divisor);
+  }
+
+  // ceil(a * b / divisor)
+  static long mulDivCeil(final long a, final long b, final long divisor) {
+    final long low = a * b;
+    long high = Math.unsignedMultiplyHigh(a, b);
+    final long roundedLow = low + (divisor - 1);
+    if (Long.compareUnsigned(roundedLow, low) < 0) {
+      ++high;
+    }
+    return divide(high, roundedLow, divisor);
+  }
+
+  // Divides the unsigned 128-bit value high:low by divisor, Hacker's Delight divlu.
+  static long divide(final long high, final long low, long divisor) {
+    if (divisor == 0) {
+      throw new ArithmeticException("/ by zero");
+    } else if (high == 0) {
+      return Long.divideUnsigned(low, divisor);
+    } else if (Long.compareUnsigned(high, divisor) >= 0) {
+      throw new ArithmeticException("u64 overflow");
+    }
+    final int shift = Long.numberOfLeadingZeros(divisor);
+    divisor <<= shift;
+    final long divisorHigh = divisor >>> 32;
+    final long divisorLow = divisor & LOW_MASK;
+    final long numerator32 = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+    final long numerator10 = low << shift;
+    final long numerator1 = numerator10 >>> 32;
+    final long numerator0 = numerator10 & LOW_MASK;
+
+    long q1 = Long.divideUnsigned(numerator32, divisorHigh);
+    long remainder = numerator32 - q1 * divisorHigh;
+    while (Long.compareUnsigned(q1, BASE) >= 0 || Long.compareUnsigned(q1 * divisorLow, BASE * remainder + numerator1) > 0) {
+      --q1;
+      remainder += divisorHigh;
+      if (Long.compareUnsigned(remainder, BASE) >= 0) {
+        break;
+      }
+    }
+
+    final long numerator21 = numerator32 * BASE + numerator1 - q1 * divisor;
+    long q0 = Long.divideUnsigned(numerator21, divisorHigh);
+    remainder = numerator21 - q0 * divisorHigh;
+    while (Long.compareUnsigned(q0, BASE) >= 0 || Long.compareUnsigned(q0 * divisorLow, BASE * remainder + numerator0) > 0) {
+      --q0;
+      remainder += divisorHigh;
+      if (Long.compareUnsigned(remainder, BASE) >= 0) {
+        break;
+      }
+    }
+    return q1 * BASE + q0;
+  }
+
+  private UnsignedMath() {
+  }
+}
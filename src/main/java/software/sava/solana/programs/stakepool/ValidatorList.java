@@ -48,11 +48,11 @@ public record ValidatorList(PublicKey address,
   public int write(final byte[] data, final int offset) {
     data[offset] = (byte) accountType.ordinal();
     ByteUtil.putInt32LE(data, offset + 1, maxValidators);
-    return Borsh.writeArray(validators, data, offset + 1 + Integer.BYTES);
+    return 1 + Integer.BYTES + Borsh.writeArray(validators, data, offset + 1 + Integer.BYTES);
   }
 
   @Override
   public int l() {
-    return 1 + Integer.BYTES + (ValidatorStakeInfo.BYTES * validators.length);
+    return 1 + Integer.BYTES + Integer.BYTES + (ValidatorStakeInfo.BYTES * validators.length);
   }
 }
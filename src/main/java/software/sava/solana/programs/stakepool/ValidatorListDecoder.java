@@ -0,0 +1,49 @@
+package software.sava.solana.programs.stakepool;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.solana.programs.stake.ValidatorStakeInfo;
+
+import java.util.function.Consumer;
+
+// Decodes successive snapshots of a ValidatorList account, re-decoding only the 73-byte entries which differ from the
+// previous snapshot.  Entries are matched by position first and then by vote account, so removals which shift the
+// list are reported as removals rather than as changes to every following entry.
+//
+// Not thread safe.
+public interface ValidatorListDecoder {
+
+  static ValidatorListDecoder createDecoder(final PublicKey validatorList) {
+    return new ValidatorListDecoderImpl(validatorList);
+  }
+
+  static ValidatorListDecoder createDecoder() {
+    return createDecoder(null);
+  }
+
+  enum ChangeType {
+
+    ADDED,
+    REMOVED,
+    CHANGED
+  }
+
+  // index refers to the current list, or to the previous list for removals.
+  record Change(ChangeType type, int index, ValidatorStakeInfo previous, ValidatorStakeInfo current) {
+  }
+
+  // Returns the number of changes emitted.
+  int update(final byte[] data, final int offset, final Consumer<Change> changeConsumer);
+
+  default int update(final byte[] data, final Consumer<Change> changeConsumer) {
+    return update(data, 0, changeConsumer);
+  }
+
+  // Unchanged entries are the same instances as in the previous snapshot.
+  ValidatorStakeInfo[] validators();
+
+  int numValidators();
+
+  ValidatorList validatorList();
+
+  void reset();
+}
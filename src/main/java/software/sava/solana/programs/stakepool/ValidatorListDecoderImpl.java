@@ -0,0 +1,160 @@
+package software.sava.solana.programs.stakepool;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.solana.programs.stake.ValidatorStakeInfo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.accounts.PublicKey.readPubKey;
+import static software.sava.core.encoding.ByteUtil.getInt32LE;
+
+final class ValidatorListDecoderImpl implements ValidatorListDecoder {
+
+  private static final int HEADER_BYTES = 1 + Integer.BYTES + Integer.BYTES;
+  private static final int VOTE_ACCOUNT_OFFSET = ValidatorStakeInfo.BYTES - PUBLIC_KEY_LENGTH;
+  private static final ValidatorStakeInfo[] NO_VALIDATORS = new ValidatorStakeInfo[0];
+  private static final AccountType[] ACCOUNT_TYPES = AccountType.values();
+
+  private final PublicKey address;
+  private AccountType accountType;
+  private int maxValidators;
+  private byte[] entries;
+  private ValidatorStakeInfo[] validators;
+
+  ValidatorListDecoderImpl(final PublicKey address) {
+    this.address = address;
+    reset();
+  }
+
+  @Override
+  public void reset() {
+    this.accountType = null;
+    this.maxValidators = 0;
+    this.entries = new byte[0];
+    this.validators = NO_VALIDATORS;
+  }
+
+  private boolean entryEquals(final int previousIndex, final byte[] data, final int entryOffset) {
+    final int previousOffset = previousIndex * ValidatorStakeInfo.BYTES;
+    return Arrays.equals(
+        entries, previousOffset, previousOffset + ValidatorStakeInfo.BYTES,
+        data, entryOffset, entryOffset + ValidatorStakeInfo.BYTES
+    );
+  }
+
+  private boolean voteAccountEquals(final int previousIndex, final byte[] data, final int entryOffset) {
+    final int previousOffset = (previousIndex * ValidatorStakeInfo.BYTES) + VOTE_ACCOUNT_OFFSET;
+    final int voteAccountOffset = entryOffset + VOTE_ACCOUNT_OFFSET;
+    return Arrays.equals(
+        entries, previousOffset, previousOffset + PUBLIC_KEY_LENGTH,
+        data, voteAccountOffset, voteAccountOffset + PUBLIC_KEY_LENGTH
+    );
+  }
+
+  @Override
+  public int update(final byte[] data, final int offset, final Consumer<Change> changeConsumer) {
+    // Validate before emitting any change, so that truncated data leaves the previous snapshot intact.
+    final int length = data.length - offset;
+    if (length < HEADER_BYTES) {
+      throw new IllegalArgumentException(String.format(
+          "ValidatorList data holds %d bytes, the header needs %d.", length, HEADER_BYTES
+      ));
+    }
+    final int numValidators = getInt32LE(data, offset + 1 + Integer.BYTES);
+    final long requiredLength = HEADER_BYTES + ((long) numValidators * ValidatorStakeInfo.BYTES);
+    if (numValidators < 0 || length < requiredLength) {
+      throw new IllegalArgumentException(String.format(
+          "ValidatorList data holds %d bytes, %d validators need %d.", length, numValidators, requiredLength
+      ));
+    }
+    this.accountType = ACCOUNT_TYPES[data[offset] & 0xFF];
+    this.maxValidators = getInt32LE(data, offset + 1);
+    final int entriesOffset = offset + HEADER_BYTES;
+
+    final var previous = this.validators;
+    final int numPrevious = previous.length;
+    final var current = numValidators == 0 ? NO_VALIDATORS : new ValidatorStakeInfo[numValidators];
+    final boolean[] matched = new boolean[numPrevious];
+    int numChanges = 0;
+    int numUnmatched = 0;
+
+    // Fast path, the list is usually only updated in place.
+    final int numAligned = Math.min(numPrevious, numValidators);
+    for (int i = 0, entryOffset = entriesOffset; i < numAligned; ++i, entryOffset += ValidatorStakeInfo.BYTES) {
+      if (entryEquals(i, data, entryOffset)) {
+        current[i] = previous[i];
+        matched[i] = true;
+      } else if (voteAccountEquals(i, data, entryOffset)) {
+        current[i] = ValidatorStakeInfo.read(data, entryOffset);
+        matched[i] = true;
+        changeConsumer.accept(new Change(ChangeType.CHANGED, i, previous[i], current[i]));
+        ++numChanges;
+      } else {
+        ++numUnmatched;
+      }
+    }
+
+    if (numUnmatched > 0 || numValidators > numAligned) {
+      final var previousIndexes = HashMap.<PublicKey, Integer>newHashMap(numPrevious);
+      for (int i = 0; i < numPrevious; ++i) {
+        if (!matched[i]) {
+          previousIndexes.put(previous[i].voteAccountAddress(), i);
+        }
+      }
+      for (int i = 0, entryOffset = entriesOffset; i < numValidators; ++i, entryOffset += ValidatorStakeInfo.BYTES) {
+        if (current[i] != null) {
+          continue;
+        }
+        final var previousIndex = previousIndexes.remove(readPubKey(data, entryOffset + VOTE_ACCOUNT_OFFSET));
+        if (previousIndex == null) {
+          current[i] = ValidatorStakeInfo.read(data, entryOffset);
+          changeConsumer.accept(new Change(ChangeType.ADDED, i, null, current[i]));
+          ++numChanges;
+        } else {
+          final int previousI = previousIndex;
+          matched[previousI] = true;
+          if (entryEquals(previousI, data, entryOffset)) {
+            current[i] = previous[previousI];
+          } else {
+            current[i] = ValidatorStakeInfo.read(data, entryOffset);
+            changeConsumer.accept(new Change(ChangeType.CHANGED, i, previous[previousI], current[i]));
+            ++numChanges;
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < numPrevious; ++i) {
+      if (!matched[i]) {
+        changeConsumer.accept(new Change(ChangeType.REMOVED, i, previous[i], null));
+        ++numChanges;
+      }
+    }
+
+    final int entriesLength = numValidators * ValidatorStakeInfo.BYTES;
+    if (entries.length != entriesLength) {
+      entries = new byte[entriesLength];
+    }
+    System.arraycopy(data, entriesOffset, entries, 0, entriesLength);
+    this.validators = current;
+    return numChanges;
+  }
+
+  @Override
+  public ValidatorStakeInfo[] validators() {
+    return validators;
+  }
+
+  @Override
+  public int numValidators() {
+    return validators.length;
+  }
+
+  @Override
+  public ValidatorList validatorList() {
+    return new ValidatorList(address, accountType, maxValidators, validators);
+  }
+}
@@ -0,0 +1,96 @@
+package software.sava.solana.programs.system;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Leases durable nonce accounts to concurrent senders.  A consumed nonce is only leased again once a refresh
+// observes that the nonce account has advanced.  If the consuming transaction was dropped the nonce never advances,
+// such accounts are reported as stuck and can be recovered with advanceStuckAccounts.
+public interface NoncePool {
+
+  int MAX_ACCOUNTS_PER_FETCH = 100;
+  int MAX_UNCHANGED_REFRESHES = 3;
+
+  static NoncePool createPool(final SolanaAccounts solanaAccounts,
+                              final PublicKey nonceAuthority,
+                              final int capacity,
+                              final int lowWatermark) {
+    return new NoncePoolImpl(solanaAccounts, nonceAuthority, capacity, lowWatermark);
+  }
+
+  static NoncePool createPool(final PublicKey nonceAuthority, final int capacity, final int lowWatermark) {
+    return createPool(SolanaAccounts.MAIN_NET, nonceAuthority, capacity, lowWatermark);
+  }
+
+  record Lease(NoncePool pool, int slot, NonceAccount nonceAccount) {
+
+    // Sets the recent block hash and prepends the advance nonce instruction.
+    public void setNonce(final Transaction transaction) {
+      nonceAccount.setNonce(pool.solanaAccounts(), transaction);
+    }
+
+    // The transaction was submitted, the nonce will not be leased until it has advanced.
+    public void consume() {
+      pool.consume(this);
+    }
+
+    // The nonce was not used, or the transaction is known to have expired without landing.
+    public void release() {
+      pool.release(this);
+    }
+  }
+
+  SolanaAccounts solanaAccounts();
+
+  PublicKey nonceAuthority();
+
+  // Returns null if no nonce is available.
+  Lease lease();
+
+  void consume(final Lease lease);
+
+  void release(final Lease lease);
+
+  // Returns false if the pool is at capacity or already contains the account.  Throws IllegalArgumentException if an
+  // initialized account is not controlled by the pool's nonce authority.
+  boolean add(final NonceAccount nonceAccount);
+
+  int size();
+
+  int capacity();
+
+  int available();
+
+  int inFlight();
+
+  // Consumed or newly created accounts awaiting a refresh.
+  List<PublicKey> staleAccounts();
+
+  // Consumed accounts whose nonce did not advance over MAX_UNCHANGED_REFRESHES refreshes.
+  List<PublicKey> stuckAccounts();
+
+  // Advance nonce instructions for each stuck account, which must be signed by the nonce authority.  The accounts are
+  // returned to the stale set and become available once a refresh observes them advanced.
+  List<Instruction> advanceStuckAccounts();
+
+  // Fetches the stale accounts in batches of MAX_ACCOUNTS_PER_FETCH, returns the number which became available.
+  // Accounts whose authority has been changed away from the pool's are retired and never leased again.
+  CompletableFuture<Integer> refresh(final SolanaRpcClient rpcClient);
+
+  // Number of accounts needed to restore the low watermark of available nonces, counting stale accounts as pending
+  // and excluding stuck and retired accounts.
+  int deficit();
+
+  // Create and initialize instructions for each new nonce account, which must sign.  The accounts are added to the
+  // pool and become available once a refresh observes them initialized.
+  List<Instruction> createNonceAccounts(final PublicKey funder,
+                                        final Collection<PublicKey> newNonceAccounts,
+                                        final long rentExemptLamports);
+}
@@ -0,0 +1,289 @@
+package software.sava.solana.programs.system;
+
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.tx.Instruction;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+final class NoncePoolImpl implements NoncePool {
+
+  private static final int EMPTY = 0;
+  private static final int AVAILABLE = 1;
+  private static final int LEASED = 2;
+  private static final int STALE = 3;
+  private static final int REFRESHING = 4;
+  // The authority was changed away from the pool authority, never leased or refreshed again.
+  private static final int RETIRED = 5;
+  // Consumed, but the nonce did not advance over MAX_UNCHANGED_REFRESHES refreshes, the transaction was likely dropped.
+  private static final int STUCK = 6;
+
+  private final SolanaAccounts solanaAccounts;
+  private final PublicKey nonceAuthority;
+  private final int lowWatermark;
+  private final AtomicReferenceArray<PublicKey> addresses;
+  // Last observed state of each account, null until a new account has been fetched.
+  private final AtomicReferenceArray<NonceAccount> nonceAccounts;
+  private final AtomicIntegerArray states;
+  private final AtomicIntegerArray unchangedRefreshes;
+  private final ConcurrentHashMap<PublicKey, Integer> slots;
+  private final AtomicInteger size;
+  private final AtomicInteger cursor;
+
+  NoncePoolImpl(final SolanaAccounts solanaAccounts,
+                final PublicKey nonceAuthority,
+                final int capacity,
+                final int lowWatermark) {
+    this.solanaAccounts = solanaAccounts;
+    this.nonceAuthority = nonceAuthority;
+    this.lowWatermark = lowWatermark;
+    this.addresses = new AtomicReferenceArray<>(capacity);
+    this.nonceAccounts = new AtomicReferenceArray<>(capacity);
+    this.states = new AtomicIntegerArray(capacity);
+    this.unchangedRefreshes = new AtomicIntegerArray(capacity);
+    this.slots = new ConcurrentHashMap<>(capacity);
+    this.size = new AtomicInteger();
+    this.cursor = new AtomicInteger();
+  }
+
+  @Override
+  public SolanaAccounts solanaAccounts() {
+    return solanaAccounts;
+  }
+
+  @Override
+  public PublicKey nonceAuthority() {
+    return nonceAuthority;
+  }
+
+  @Override
+  public Lease lease() {
+    final int size = this.size.get();
+    if (size == 0) {
+      return null;
+    }
+    // Spread concurrent callers across the pool so they do not contend on the same slots.
+    final int start = Integer.remainderUnsigned(cursor.getAndIncrement(), size);
+    for (int i = 0, slot = start; i < size; ++i) {
+      if (states.get(slot) == AVAILABLE && states.compareAndSet(slot, AVAILABLE, LEASED)) {
+        return new Lease(this, slot, nonceAccounts.get(slot));
+      }
+      if (++slot == size) {
+        slot = 0;
+      }
+    }
+    return null;
+  }
+
+  private void checkLease(final Lease lease, final int state) {
+    if (lease.pool() != this || !states.compareAndSet(lease.slot(), LEASED, state)) {
+      throw new IllegalStateException("Nonce account is not leased from this pool: " + lease.nonceAccount().address());
+    }
+  }
+
+  @Override
+  public void consume(final Lease lease) {
+    checkLease(lease, STALE);
+  }
+
+  @Override
+  public void release(final Lease lease) {
+    checkLease(lease, AVAILABLE);
+  }
+
+  private boolean add(final PublicKey address, final NonceAccount nonceAccount, final int state) {
+    if (slots.putIfAbsent(address, -1) != null) {
+      return false;
+    }
+    final int capacity = states.length();
+    final int slot = size.getAndUpdate(s -> s < capacity ? s + 1 : s);
+    if (slot == capacity) {
+      slots.remove(address);
+      return false;
+    }
+    slots.put(address, slot);
+    addresses.set(slot, address);
+    nonceAccounts.set(slot, nonceAccount);
+    // Published last, lease and refresh skip EMPTY slots.
+    states.set(slot, state);
+    return true;
+  }
+
+  @Override
+  public boolean add(final NonceAccount nonceAccount) {
+    if (nonceAccount.state() == NonceAccount.State.Initialized && !nonceAuthority.equals(nonceAccount.authority())) {
+      throw new IllegalArgumentException(String.format(
+          "Nonce account %s authority %s is not the pool authority %s.",
+          nonceAccount.address(), nonceAccount.authority(), nonceAuthority
+      ));
+    }
+    final int state = nonceAccount.state() == NonceAccount.State.Initialized ? AVAILABLE : STALE;
+    return add(nonceAccount.address(), state == AVAILABLE ? nonceAccount : null, state);
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public int capacity() {
+    return states.length();
+  }
+
+  private int count(final int state) {
+    int count = 0;
+    for (int slot = 0, size = this.size.get(); slot < size; ++slot) {
+      if (states.get(slot) == state) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return count(AVAILABLE);
+  }
+
+  @Override
+  public int inFlight() {
+    return count(LEASED);
+  }
+
+  private List<PublicKey> accounts(final int state) {
+    final var accounts = new ArrayList<PublicKey>();
+    for (int slot = 0, size = this.size.get(); slot < size; ++slot) {
+      if (states.get(slot) == state) {
+        accounts.add(addresses.get(slot));
+      }
+    }
+    return accounts;
+  }
+
+  @Override
+  public List<PublicKey> staleAccounts() {
+    return accounts(STALE);
+  }
+
+  @Override
+  public List<PublicKey> stuckAccounts() {
+    return accounts(STUCK);
+  }
+
+  @Override
+  public List<Instruction> advanceStuckAccounts() {
+    final var instructions = new ArrayList<Instruction>();
+    for (int slot = 0, size = this.size.get(); slot < size; ++slot) {
+      if (states.compareAndSet(slot, STUCK, STALE)) {
+        unchangedRefreshes.set(slot, 0);
+        instructions.add(SystemProgram.advanceNonceAccount(solanaAccounts, addresses.get(slot), nonceAuthority));
+      }
+    }
+    return instructions;
+  }
+
+  // Adopts the fetched account if it has been initialized or advanced since it was last leased.  A consumed nonce that
+  // keeps the same value across MAX_UNCHANGED_REFRESHES refreshes is marked stuck.
+  private boolean refreshed(final int slot, final AccountInfo<NonceAccount> accountInfo) {
+    if (accountInfo != null && accountInfo.data() != null) {
+      final var fetched = accountInfo.data();
+      final var previous = nonceAccounts.get(slot);
+      if (fetched.state() == NonceAccount.State.Initialized && !nonceAuthority.equals(fetched.authority())) {
+        nonceAccounts.set(slot, null);
+        states.set(slot, RETIRED);
+        return false;
+      } else if (fetched.state() == NonceAccount.State.Initialized) {
+        if (previous == null || !Arrays.equals(previous.nonce(), fetched.nonce())) {
+          nonceAccounts.set(slot, fetched);
+          unchangedRefreshes.set(slot, 0);
+          states.set(slot, AVAILABLE);
+          return true;
+        } else if (unchangedRefreshes.incrementAndGet(slot) >= MAX_UNCHANGED_REFRESHES) {
+          states.set(slot, STUCK);
+          return false;
+        }
+      }
+    }
+    states.set(slot, STALE);
+    return false;
+  }
+
+  @Override
+  public CompletableFuture<Integer> refresh(final SolanaRpcClient rpcClient) {
+    final var batches = new ArrayList<CompletableFuture<Integer>>();
+    final var keys = new ArrayList<PublicKey>(MAX_ACCOUNTS_PER_FETCH);
+    final int[] batchSlots = new int[MAX_ACCOUNTS_PER_FETCH];
+    for (int slot = 0, size = this.size.get(); slot < size; ++slot) {
+      if (states.compareAndSet(slot, STALE, REFRESHING)) {
+        batchSlots[keys.size()] = slot;
+        keys.add(addresses.get(slot));
+        if (keys.size() == MAX_ACCOUNTS_PER_FETCH) {
+          batches.add(fetch(rpcClient, List.copyOf(keys), batchSlots.clone()));
+          keys.clear();
+        }
+      }
+    }
+    if (!keys.isEmpty()) {
+      batches.add(fetch(rpcClient, List.copyOf(keys), Arrays.copyOf(batchSlots, keys.size())));
+    }
+    return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(_ -> {
+      int available = 0;
+      for (final var batch : batches) {
+        available += batch.join();
+      }
+      return available;
+    });
+  }
+
+  private CompletableFuture<Integer> fetch(final SolanaRpcClient rpcClient,
+                                           final List<PublicKey> keys,
+                                           final int[] batchSlots) {
+    return rpcClient.getMultipleAccounts(keys, NonceAccount.FACTORY).handle((accountInfos, throwable) -> {
+      int available = 0;
+      for (int i = 0; i < batchSlots.length; ++i) {
+        final var accountInfo = throwable == null && i < accountInfos.size() ? accountInfos.get(i) : null;
+        if (refreshed(batchSlots[i], accountInfo)) {
+          ++available;
+        }
+      }
+      return available;
+    });
+  }
+
+  @Override
+  public int deficit() {
+    return Math.max(0, lowWatermark - available() - count(STALE) - count(REFRESHING));
+  }
+
+  @Override
+  public List<Instruction> createNonceAccounts(final PublicKey funder,
+                                               final Collection<PublicKey> newNonceAccounts,
+                                               final long rentExemptLamports) {
+    final var instructions = new ArrayList<Instruction>(newNonceAccounts.size() << 1);
+    for (final var nonceAccount : newNonceAccounts) {
+      if (size.get() == states.length()) {
+        break;
+      } else if (!add(nonceAccount, null, STALE)) {
+        continue;
+      }
+      instructions.add(SystemProgram.createAccount(
+          solanaAccounts.invokedSystemProgram(),
+          funder,
+          nonceAccount,
+          rentExemptLamports,
+          NonceAccount.BYTES,
+          solanaAccounts.systemProgram()
+      ));
+      instructions.add(SystemProgram.initializeNonceAccount(solanaAccounts, nonceAccount, nonceAuthority));
+    }
+    return instructions;
+  }
+}
@@ -6,6 +6,7 @@ import software.sava.core.accounts.SolanaAccounts;
 import software.sava.core.accounts.meta.AccountMeta;
 import software.sava.core.programs.Discriminator;
 import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.encoding.InstructionBuffer;
 
 import java.util.List;
 
@@ -338,6 +339,25 @@ public final class SystemProgram {
     return createInstruction(invokedProgram, keys, data);
   }
 
+  public static Instruction transfer(final InstructionBuffer buffer,
+                                     final AccountMeta invokedProgram,
+                                     final PublicKey fromPublicKey,
+                                     final PublicKey toPublicKey,
+                                     final long lamports) {
+    final var keys = buffer.keys(
+        createWritableSigner(fromPublicKey),
+        createWrite(toPublicKey)
+    );
+
+    final int length = NATIVE_DISCRIMINATOR_LENGTH + Long.BYTES;
+    final int offset = buffer.reserve(length);
+    final byte[] data = buffer.data();
+    Instructions.Transfer.write(data, offset);
+    putInt64LE(data, offset + NATIVE_DISCRIMINATOR_LENGTH, lamports);
+
+    return buffer.instruction(invokedProgram, keys, offset, length);
+  }
+
   public static Instruction transferWithSeed(final AccountMeta invokedProgram,
                                              final AccountWithSeed accountWithSeed,
                                              final PublicKey recipientAccount,
@@ -0,0 +1,48 @@
+package software.sava.solana.programs.token;
+
+import software.sava.core.accounts.ProgramDerivedAddress;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+
+public interface ATACache {
+
+  int DEFAULT_MAXIMUM_SIZE = 1 << 16;
+
+  static ATACache createCache(final EvictionPolicy<Key> evictionPolicy) {
+    return new ATACacheImpl(evictionPolicy);
+  }
+
+  static ATACache createCache(final int maximumSize) {
+    return createCache(EvictionPolicy.createWindowTinyLFU(maximumSize));
+  }
+
+  static ATACache createCache() {
+    return createCache(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  record Key(PublicKey associatedTokenProgram, PublicKey owner, PublicKey tokenProgram, PublicKey mint) {
+  }
+
+  ProgramDerivedAddress findATA(final SolanaAccounts solanaAccounts,
+                                final PublicKey owner,
+                                final PublicKey tokenProgram,
+                                final PublicKey mint);
+
+  int size();
+
+  int maximumSize();
+
+  long hitCount();
+
+  long missCount();
+
+  long evictionCount();
+
+  default double hitRate() {
+    final long hits = hitCount();
+    final long requests = hits + missCount();
+    return requests == 0 ? 1.0 : hits / (double) requests;
+  }
+
+  void invalidateAll();
+}
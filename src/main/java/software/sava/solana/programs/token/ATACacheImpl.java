@@ -0,0 +1,104 @@
+package software.sava.solana.programs.token;
+
+import software.sava.core.accounts.ProgramDerivedAddress;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class ATACacheImpl implements ATACache {
+
+  private final EvictionPolicy<Key> evictionPolicy;
+  private final ConcurrentHashMap<Key, ProgramDerivedAddress> pdas;
+  private final ReentrantLock policyLock;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+
+  ATACacheImpl(final EvictionPolicy<Key> evictionPolicy) {
+    this.evictionPolicy = evictionPolicy;
+    this.pdas = new ConcurrentHashMap<>(Math.min(evictionPolicy.maximumSize(), 1 << 16));
+    this.policyLock = new ReentrantLock();
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+  }
+
+  @Override
+  public ProgramDerivedAddress findATA(final SolanaAccounts solanaAccounts,
+                                       final PublicKey owner,
+                                       final PublicKey tokenProgram,
+                                       final PublicKey mint) {
+    final var key = new Key(solanaAccounts.associatedTokenAccountProgram(), owner, tokenProgram, mint);
+    final var cached = pdas.get(key);
+    if (cached != null) {
+      hits.increment();
+      // Re-ordering is best effort, readers never wait on the policy.
+      if (policyLock.tryLock()) {
+        try {
+          evictionPolicy.recordAccess(key);
+        } finally {
+          policyLock.unlock();
+        }
+      }
+      return cached;
+    }
+
+    misses.increment();
+    final var pda = AssociatedTokenProgram.deriveATA(solanaAccounts, owner, tokenProgram, mint);
+    // Insert under the policy lock so the map and policy cannot diverge with a concurrent invalidateAll.
+    policyLock.lock();
+    try {
+      final var previous = pdas.putIfAbsent(key, pda);
+      if (previous != null) {
+        return previous;
+      }
+      final var evicted = evictionPolicy.recordInsert(key);
+      if (evicted != null) {
+        pdas.remove(evicted);
+        evictions.increment();
+      }
+    } finally {
+      policyLock.unlock();
+    }
+    return pda;
+  }
+
+  @Override
+  public int size() {
+    return pdas.size();
+  }
+
+  @Override
+  public int maximumSize() {
+    return evictionPolicy.maximumSize();
+  }
+
+  @Override
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  @Override
+  public long missCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public void invalidateAll() {
+    policyLock.lock();
+    try {
+      evictionPolicy.clear();
+      pdas.clear();
+    } finally {
+      policyLock.unlock();
+    }
+  }
+}
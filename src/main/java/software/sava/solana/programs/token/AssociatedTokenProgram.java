@@ -82,10 +82,14 @@ public final class AssociatedTokenProgram {
     }
   }
 
-  public static ProgramDerivedAddress findATA(final SolanaAccounts solanaAccounts,
-                                              final PublicKey owner,
-                                              final PublicKey tokenProgram,
-                                              final PublicKey mint) {
+  // Shared by findATA and the account clients, see ATA_CACHE.hitCount()/missCount()/evictionCount().
+  public static final ATACache ATA_CACHE = ATACache.createCache();
+
+  // Always performs the bump seed search, prefer findATA.
+  public static ProgramDerivedAddress deriveATA(final SolanaAccounts solanaAccounts,
+                                                final PublicKey owner,
+                                                final PublicKey tokenProgram,
+                                                final PublicKey mint) {
     return PublicKey.findProgramAddress(List.of(
             owner.toByteArray(),
             tokenProgram.toByteArray(),
@@ -94,6 +98,13 @@ public final class AssociatedTokenProgram {
     );
   }
 
+  public static ProgramDerivedAddress findATA(final SolanaAccounts solanaAccounts,
+                                              final PublicKey owner,
+                                              final PublicKey tokenProgram,
+                                              final PublicKey mint) {
+    return ATA_CACHE.findATA(solanaAccounts, owner, tokenProgram, mint);
+  }
+
   public static ProgramDerivedAddress findATA(final SolanaAccounts solanaAccounts,
                                               final PublicKey owner,
                                               final PublicKey mint) {
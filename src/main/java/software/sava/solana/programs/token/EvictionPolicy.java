@@ -0,0 +1,26 @@
+package software.sava.solana.programs.token;
+
+// Implementations are not thread safe, callers must serialize access.
+public interface EvictionPolicy<K> {
+
+  static <K> EvictionPolicy<K> createLRU(final int maximumSize) {
+    return new LRUEvictionPolicy<>(maximumSize);
+  }
+
+  // https://arxiv.org/abs/1512.00727
+  static <K> EvictionPolicy<K> createWindowTinyLFU(final int maximumSize) {
+    return new WindowTinyLFUEvictionPolicy<>(maximumSize);
+  }
+
+  int maximumSize();
+
+  void recordAccess(final K key);
+
+  // Returns the key which should be evicted as a result of inserting this key, or null if none.
+  // The returned key may be the inserted key itself if it was not admitted.
+  K recordInsert(final K key);
+
+  void remove(final K key);
+
+  void clear();
+}
@@ -0,0 +1,75 @@
+package software.sava.solana.programs.token;
+
+import java.util.Arrays;
+
+// 4-bit Count-Min sketch with periodic aging, estimates are capped at 15.
+final class FrequencySketch {
+
+  private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  FrequencySketch(final int maximumSize) {
+    final int capacity = Integer.highestOneBit(Math.max(8, maximumSize) - 1) << 1;
+    this.table = new long[capacity];
+    this.tableMask = capacity - 1;
+    this.sampleSize = 10 * Math.max(1, maximumSize);
+  }
+
+  private static int spread(final int hashCode) {
+    final int h = hashCode * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private int indexOf(final int hash, final int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return ((int) h) & tableMask;
+  }
+
+  int frequency(final Object key) {
+    final int hash = spread(key.hashCode());
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; ++i) {
+      final int offset = ((hash >>> (i << 3)) & 0xF) << 2;
+      final int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xFL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  void increment(final Object key) {
+    final int hash = spread(key.hashCode());
+    boolean added = false;
+    for (int i = 0; i < 4; ++i) {
+      final int offset = ((hash >>> (i << 3)) & 0xF) << 2;
+      final int index = indexOf(hash, i);
+      final long mask = 0xFL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; ++i) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size >>>= 1;
+  }
+
+  void clear() {
+    Arrays.fill(table, 0);
+    size = 0;
+  }
+}
@@ -0,0 +1,50 @@
+package software.sava.solana.programs.token;
+
+import java.util.LinkedHashMap;
+
+final class LRUEvictionPolicy<K> implements EvictionPolicy<K> {
+
+  private final int maximumSize;
+  private final LinkedHashMap<K, Boolean> order;
+
+  LRUEvictionPolicy(final int maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    this.order = new LinkedHashMap<>(Math.min(maximumSize, 1 << 16), 0.75f, true);
+  }
+
+  @Override
+  public int maximumSize() {
+    return maximumSize;
+  }
+
+  @Override
+  public void recordAccess(final K key) {
+    order.get(key);
+  }
+
+  @Override
+  public K recordInsert(final K key) {
+    order.put(key, Boolean.TRUE);
+    if (order.size() > maximumSize) {
+      final var iterator = order.keySet().iterator();
+      final var eldest = iterator.next();
+      iterator.remove();
+      return eldest;
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public void remove(final K key) {
+    order.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    order.clear();
+  }
+}
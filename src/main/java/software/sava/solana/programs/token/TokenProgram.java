@@ -6,6 +6,7 @@ import software.sava.core.accounts.meta.AccountMeta;
 import software.sava.core.encoding.ByteUtil;
 import software.sava.core.programs.Discriminator;
 import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.encoding.InstructionBuffer;
 
 import java.util.List;
 
@@ -494,6 +495,26 @@ public final class TokenProgram {
     return createInstruction(invokedProgram, keys, data);
   }
 
+  public static Instruction transfer(final InstructionBuffer buffer,
+                                     final AccountMeta invokedProgram,
+                                     final PublicKey source,
+                                     final PublicKey destination,
+                                     final long amount,
+                                     final PublicKey owner) {
+    final var keys = buffer.keys(
+        createWrite(source),
+        createWrite(destination),
+        createReadOnlySigner(owner)
+    );
+
+    final int offset = buffer.reserve(9);
+    final byte[] data = buffer.data();
+    data[offset] = TokenInstruction.Transfer.discriminator;
+    ByteUtil.putInt64LE(data, offset + 1, amount);
+
+    return buffer.instruction(invokedProgram, keys, offset, 9);
+  }
+
   public static Instruction transferChecked(final AccountMeta invokedProgram,
                                             final PublicKey source,
                                             final PublicKey destination,
@@ -516,6 +537,30 @@ public final class TokenProgram {
     return createInstruction(invokedProgram, keys, data);
   }
 
+  public static Instruction transferChecked(final InstructionBuffer buffer,
+                                            final AccountMeta invokedProgram,
+                                            final PublicKey source,
+                                            final PublicKey destination,
+                                            final long amount,
+                                            final int decimals,
+                                            final PublicKey owner,
+                                            final PublicKey tokenMint) {
+    final var keys = buffer.keys(
+        createWrite(source),
+        createRead(tokenMint),
+        createWrite(destination),
+        createReadOnlySigner(owner)
+    );
+
+    final int offset = buffer.reserve(10);
+    final byte[] data = buffer.data();
+    data[offset] = TokenInstruction.TransferChecked.discriminator;
+    ByteUtil.putInt64LE(data, offset + 1, amount);
+    data[offset + 9] = (byte) (decimals & 0xFF);
+
+    return buffer.instruction(invokedProgram, keys, offset, 10);
+  }
+
   public static Instruction initializeAccount(final SolanaAccounts solanaAccounts,
                                               final PublicKey account,
                                               final PublicKey mint,
@@ -0,0 +1,105 @@
+package software.sava.solana.programs.token;
+
+import java.util.LinkedHashMap;
+
+// Small LRU admission window in front of a segmented LRU main space.  Keys leaving the window only displace the main
+// space victim if they have been seen more frequently, which protects the hot set from scans of one-off keys.
+final class WindowTinyLFUEvictionPolicy<K> implements EvictionPolicy<K> {
+
+  private final int maximumSize;
+  private final int windowMaximum;
+  private final int mainMaximum;
+  private final int protectedMaximum;
+  private final FrequencySketch sketch;
+  private final LinkedHashMap<K, Boolean> window;
+  private final LinkedHashMap<K, Boolean> probation;
+  private final LinkedHashMap<K, Boolean> protectedSegment;
+
+  WindowTinyLFUEvictionPolicy(final int maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    this.windowMaximum = Math.max(1, maximumSize / 100);
+    this.mainMaximum = maximumSize - windowMaximum;
+    this.protectedMaximum = (int) (mainMaximum * 0.8);
+    this.sketch = new FrequencySketch(maximumSize);
+    final int initialCapacity = Math.min(maximumSize, 1 << 16);
+    this.window = new LinkedHashMap<>(Math.min(windowMaximum, initialCapacity), 0.75f, true);
+    this.probation = new LinkedHashMap<>(initialCapacity, 0.75f, true);
+    this.protectedSegment = new LinkedHashMap<>(initialCapacity, 0.75f, true);
+  }
+
+  private static <K> K removeEldest(final LinkedHashMap<K, Boolean> segment) {
+    final var iterator = segment.keySet().iterator();
+    final var eldest = iterator.next();
+    iterator.remove();
+    return eldest;
+  }
+
+  @Override
+  public int maximumSize() {
+    return maximumSize;
+  }
+
+  @Override
+  public void recordAccess(final K key) {
+    sketch.increment(key);
+    if (window.get(key) != null) {
+      return;
+    }
+    if (probation.remove(key) != null) {
+      protectedSegment.put(key, Boolean.TRUE);
+      if (protectedSegment.size() > protectedMaximum) {
+        probation.put(removeEldest(protectedSegment), Boolean.TRUE);
+      }
+    } else {
+      protectedSegment.get(key);
+    }
+  }
+
+  @Override
+  public K recordInsert(final K key) {
+    sketch.increment(key);
+    window.put(key, Boolean.TRUE);
+    if (window.size() <= windowMaximum) {
+      return null;
+    }
+    final var candidate = removeEldest(window);
+    if (probation.size() + protectedSegment.size() < mainMaximum) {
+      probation.put(candidate, Boolean.TRUE);
+      return null;
+    }
+    final LinkedHashMap<K, Boolean> victimSegment;
+    if (!probation.isEmpty()) {
+      victimSegment = probation;
+    } else if (!protectedSegment.isEmpty()) {
+      victimSegment = protectedSegment;
+    } else {
+      return candidate;
+    }
+    final var victim = victimSegment.keySet().iterator().next();
+    if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+      victimSegment.remove(victim);
+      probation.put(candidate, Boolean.TRUE);
+      return victim;
+    } else {
+      return candidate;
+    }
+  }
+
+  @Override
+  public void remove(final K key) {
+    if (window.remove(key) == null && probation.remove(key) == null) {
+      protectedSegment.remove(key);
+    }
+  }
+
+  @Override
+  public void clear() {
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+    sketch.clear();
+  }
+}
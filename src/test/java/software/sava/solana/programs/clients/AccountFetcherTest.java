@@ -0,0 +1,107 @@
+package software.sava.solana.programs.clients;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class AccountFetcherTest {
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = (byte) (id >> 8);
+    return PublicKey.createPubKey(key);
+  }
+
+  // Serves getMultipleAccounts with each account's data set to its key, recording the batch sizes and the sending
+  // threads.  Responses complete once released.
+  @SuppressWarnings("unchecked")
+  private static SolanaRpcClient rpcClient(final List<Integer> batchSizes,
+                                           final List<Runnable> responses,
+                                           final List<Thread> senders) {
+    return (SolanaRpcClient) Proxy.newProxyInstance(
+        SolanaRpcClient.class.getClassLoader(),
+        new Class[]{SolanaRpcClient.class},
+        (_, method, args) -> {
+          if (!method.getName().equals("getMultipleAccounts")) {
+            throw new UnsupportedOperationException(method.getName());
+          }
+          final var keys = (List<PublicKey>) args[0];
+          final var factory = (BiFunction<PublicKey, byte[], Object>) args[1];
+          senders.add(Thread.currentThread());
+          batchSizes.add(keys.size());
+          final var accountInfos = new ArrayList<AccountInfo<Object>>(keys.size());
+          for (final var key : keys) {
+            final byte[] data = key.toByteArray();
+            accountInfos.add(data[0] == 0 ? null : new AccountInfo<>(
+                key, null, false, 1, key, null, data.length, factory.apply(key, data)
+            ));
+          }
+          final var response = new CompletableFuture<List<AccountInfo<Object>>>();
+          responses.add(() -> response.complete(accountInfos));
+          return response;
+        }
+    );
+  }
+
+  private static SolanaRpcClient rpcClient(final List<Integer> batchSizes, final List<Runnable> responses) {
+    return rpcClient(batchSizes, responses, new CopyOnWriteArrayList<>());
+  }
+
+  @Test
+  public void coalescesConcurrentRequests() {
+    final var batchSizes = new CopyOnWriteArrayList<Integer>();
+    final var responses = new CopyOnWriteArrayList<Runnable>();
+    final var fetcher = AccountFetcher.createFetcher(rpcClient(batchSizes, responses), Duration.ofSeconds(30), 100);
+
+    final var futures = new ArrayList<CompletableFuture<AccountInfo<Integer>>>();
+    for (int i = 0; i < 250; ++i) {
+      final int id = 1 + (i % 150);
+      futures.add(fetcher.fetch(key(id), (_, data) -> (data[0] & 0xFF) | (data[1] & 0xFF) << 8));
+    }
+    // The first 100 distinct keys fill a batch, the rest wait for the window or a flush.
+    assertEquals(List.of(100), batchSizes);
+    fetcher.flush();
+    assertEquals(List.of(100, 50), batchSizes);
+    responses.forEach(Runnable::run);
+
+    for (int i = 0; i < futures.size(); ++i) {
+      assertEquals(1 + (i % 150), futures.get(i).join().data());
+    }
+    assertEquals(250, fetcher.requestCount());
+    assertEquals(100, fetcher.coalescedCount());
+    assertEquals(2, fetcher.rpcCount());
+  }
+
+  @Test
+  public void batchWindowFlushes() {
+    final var batchSizes = new CopyOnWriteArrayList<Integer>();
+    final var responses = new CopyOnWriteArrayList<Runnable>();
+    final var senders = new CopyOnWriteArrayList<Thread>();
+    final var fetcher = AccountFetcher.createFetcher(rpcClient(batchSizes, responses, senders), Duration.ofMillis(5), 100);
+    final var missing = fetcher.fetch(key(256), (_, data) -> data);
+    final var accounts = fetcher.fetch(List.of(key(1), key(2), key(1)), (_, data) -> data[0]);
+    // Nothing is sent until the window closes, which may split the keys across windows.
+    while (batchSizes.stream().mapToInt(Integer::intValue).sum() < 3) {
+      Thread.onSpinWait();
+    }
+    // Window flushes are sent from virtual threads rather than the shared delay scheduler.
+    assertTrue(senders.stream().allMatch(Thread::isVirtual));
+    responses.forEach(Runnable::run);
+    assertEquals(List.of((byte) 1, (byte) 2, (byte) 1), accounts.join().stream().map(AccountInfo::data).toList());
+    assertNull(missing.join());
+    assertEquals(1, fetcher.coalescedCount());
+  }
+}
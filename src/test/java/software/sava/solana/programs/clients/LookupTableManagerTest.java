@@ -0,0 +1,236 @@
+package software.sava.solana.programs.clients;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.core.tx.Instruction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.tx.Transaction.MAX_SERIALIZED_LENGTH;
+import static software.sava.solana.programs.clients.LookupTableManager.*;
+
+final class LookupTableManagerTest {
+
+  private static final PublicKey FEE_PAYER = key(1);
+  private static final AccountMeta PROGRAM = AccountMeta.createInvoked(key(2));
+  // Extend data is the discriminator and number of addresses followed by the addresses.
+  private static final int EXTEND_HEADER_LENGTH = 4 + Long.BYTES;
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = (byte) (id >> 8);
+    key[2] = 7;
+    return PublicKey.createPubKey(key);
+  }
+
+  private static List<PublicKey> keys(final int from, final int to) {
+    return IntStream.range(from, to).mapToObj(LookupTableManagerTest::key).toList();
+  }
+
+  private static AddressLookupTable table(final PublicKey address,
+                                          final PublicKey authority,
+                                          final long deactivationSlot,
+                                          final List<PublicKey> accounts) {
+    final byte[] data = new byte[56 + (accounts.size() * PUBLIC_KEY_LENGTH)];
+    ByteUtil.putInt32LE(data, 0, 1);
+    ByteUtil.putInt64LE(data, 4, deactivationSlot);
+    if (authority != null) {
+      data[21] = 1;
+      authority.write(data, 22);
+    }
+    int i = 56;
+    for (final var account : accounts) {
+      i += account.write(data, i);
+    }
+    return AddressLookupTable.FACTORY.apply(address, data);
+  }
+
+  private static int numExtendedAddresses(final Instruction extend) {
+    return (extend.len() - EXTEND_HEADER_LENGTH) / PUBLIC_KEY_LENGTH;
+  }
+
+  private static LookupTableManager createManager() {
+    return LookupTableManager.createManager(NativeProgramAccountClient.createClient(FEE_PAYER), 64, 1);
+  }
+
+  // Uses each address once more than the next, so that the hottest order is deterministic.
+  private static void use(final LookupTableManager manager, final List<PublicKey> addresses) {
+    for (int i = 0; i < addresses.size(); ++i) {
+      final var accounts = addresses.subList(0, i + 1).stream().map(AccountMeta::createWrite).toList();
+      manager.recordUsage(List.of(Instruction.createInstruction(PROGRAM, accounts, new byte[0])));
+    }
+  }
+
+  @Test
+  public void extendsFitInOneTransaction() {
+    final var client = NativeProgramAccountClient.createClient(FEE_PAYER);
+    final var computeBudgetProgram = SolanaAccounts.MAIN_NET.invokedComputeBudgetProgram();
+    final var message = new PackedMessage(client.feePayer(), computeBudgetProgram, null);
+    message.append(client.extendLookupTable(key(3), keys(100, 100 + MAX_ADDRESSES_PER_EXTEND)), 0);
+    assertTrue(message.serializedLength() <= MAX_SERIALIZED_LENGTH, Integer.toString(message.serializedLength()));
+
+    message.reset();
+    message.append(client.extendLookupTable(key(3), keys(100, 101 + MAX_ADDRESSES_PER_EXTEND)), 0);
+    assertTrue(message.serializedLength() > MAX_SERIALIZED_LENGTH);
+  }
+
+  @Test
+  public void chunksExtensions() {
+    final var manager = createManager();
+    final int numAddresses = (2 * MAX_ADDRESSES_PER_EXTEND) + 3;
+    final var extends_ = manager.extendLookupTable(key(3), keys(100, 100 + numAddresses));
+    assertEquals(
+        List.of(MAX_ADDRESSES_PER_EXTEND, MAX_ADDRESSES_PER_EXTEND, 3),
+        extends_.stream().map(LookupTableManagerTest::numExtendedAddresses).toList()
+    );
+    assertEquals(List.of(), manager.extendLookupTable(key(3), List.of()));
+  }
+
+  @Test
+  public void plansIntoRoomThenNewTable() {
+    final var manager = createManager();
+    final var ownedTable = key(3);
+    manager.refresh(List.of(
+        table(key(4), null, -1, keys(1_000, 1_010)),
+        table(key(5), key(9), -1, keys(1_010, 1_020)),
+        table(ownedTable, FEE_PAYER, -1, keys(2_000, 2_000 + MAX_ADDRESSES - 6))
+    ));
+    final var hot = keys(100, 110);
+    use(manager, hot);
+    assertEquals(hot, manager.unresolvedHotAddresses());
+
+    final long recentSlot = 1_000;
+    final var instructions = manager.planExtensions(recentSlot);
+    // Frozen and foreign tables are skipped, the owned table takes 6 and a new table the remaining 4.
+    assertEquals(3, instructions.size());
+    assertEquals(6, numExtendedAddresses(instructions.getFirst()));
+    assertEquals(ownedTable, instructions.getFirst().accounts().getFirst().publicKey());
+    final var newTable = NativeProgramAccountClient.createClient(FEE_PAYER).findLookupTableAddress(recentSlot).publicKey();
+    assertEquals(newTable, instructions.get(1).accounts().getFirst().publicKey());
+    assertEquals(newTable, instructions.get(2).accounts().getFirst().publicKey());
+    assertEquals(4, numExtendedAddresses(instructions.get(2)));
+
+    // Planned addresses are pending, and the owned table has no room left until they are observed.
+    assertEquals(List.of(), manager.unresolvedHotAddresses());
+    assertEquals(List.of(), manager.planExtensions(recentSlot + 1));
+    use(manager, keys(200, 201));
+    final var next = manager.planExtensions(recentSlot + 2);
+    assertEquals(2, next.size());
+    final var secondTable = NativeProgramAccountClient.createClient(FEE_PAYER).findLookupTableAddress(recentSlot + 2).publicKey();
+    assertEquals(secondTable, next.getFirst().accounts().getFirst().publicKey());
+
+    // Observing the extension resolves the addresses through the table.
+    final var extended = new ArrayList<>(keys(2_000, 2_000 + MAX_ADDRESSES - 6));
+    extended.addAll(hot.subList(0, 6));
+    manager.update(table(ownedTable, FEE_PAYER, -1, extended));
+    assertEquals(ownedTable, manager.findTable(hot.getFirst()).address());
+    assertNull(manager.findTable(hot.getLast()));
+  }
+
+  @Test
+  public void replansFailedExtensions() {
+    final var manager = createManager();
+    final var ownedTable = key(3);
+    manager.refresh(List.of(table(ownedTable, FEE_PAYER, -1, keys(2_000, 2_010))));
+    final var hot = keys(100, 104);
+    use(manager, hot);
+    assertEquals(1, manager.planExtensions(1_000).size());
+    assertEquals(List.of(), manager.planExtensions(1_000 + PENDING_EXTENSION_EXPIRY_SLOTS));
+
+    // The extension never landed, so the addresses are planned again once it has expired.
+    final var replanned = manager.planExtensions(1_001 + PENDING_EXTENSION_EXPIRY_SLOTS);
+    assertEquals(1, replanned.size());
+    assertEquals(4, numExtendedAddresses(replanned.getFirst()));
+
+    manager.cancelPendingExtensions(ownedTable);
+    assertEquals(hot, manager.unresolvedHotAddresses());
+    assertEquals(1, manager.planExtensions(2_000).size());
+  }
+
+  @Test
+  public void keepsInFlightChunksPending() {
+    final var manager = createManager();
+    final var ownedTable = key(3);
+    final var existing = keys(2_000, 2_010);
+    manager.refresh(List.of(table(ownedTable, FEE_PAYER, -1, existing)));
+    final var hot = keys(100, 100 + MAX_ADDRESSES_PER_EXTEND + 11);
+    use(manager, hot);
+    final var instructions = manager.planExtensions(1_000);
+    assertEquals(2, instructions.size());
+
+    // Only the first chunk has landed, the second is still in flight and must not be planned again.
+    final var firstChunk = new ArrayList<>(existing);
+    firstChunk.addAll(hot.subList(0, MAX_ADDRESSES_PER_EXTEND));
+    manager.update(table(ownedTable, FEE_PAYER, -1, firstChunk));
+    assertEquals(ownedTable, manager.findTable(hot.getFirst()).address());
+    assertNull(manager.findTable(hot.getLast()));
+    assertEquals(List.of(), manager.unresolvedHotAddresses());
+    assertEquals(List.of(), manager.planExtensions(1_001));
+
+    manager.refresh(List.of(table(ownedTable, FEE_PAYER, -1, firstChunk)));
+    assertEquals(List.of(), manager.planExtensions(1_002));
+
+    final var extended = new ArrayList<>(existing);
+    extended.addAll(hot);
+    manager.update(table(ownedTable, FEE_PAYER, -1, extended));
+    for (final var address : hot) {
+      assertEquals(ownedTable, manager.findTable(address).address());
+    }
+    assertEquals(List.of(), manager.planExtensions(1_003));
+  }
+
+  @Test
+  public void reclaimsTablesAfterCooldown() {
+    final var manager = createManager();
+    final var active = key(3);
+    final var deactivated = key(4);
+    manager.refresh(List.of(
+        table(active, FEE_PAYER, -1, keys(100, 101)),
+        table(deactivated, FEE_PAYER, 500, keys(101, 102))
+    ));
+    assertNull(manager.findTable(key(101)));
+    assertEquals(List.of(), manager.reclaimableTables(500 + DEACTIVATION_COOLDOWN_SLOTS - 1));
+    assertEquals(List.of(deactivated), manager.reclaimableTables(500 + DEACTIVATION_COOLDOWN_SLOTS));
+
+    assertNotNull(manager.deactivateLookupTable(active, 1_000));
+    assertNull(manager.findTable(key(100)));
+    assertEquals(List.of(deactivated), manager.reclaimableTables(1_000 + DEACTIVATION_COOLDOWN_SLOTS - 1));
+
+    assertEquals(2, manager.closeReclaimableTables(1_000 + DEACTIVATION_COOLDOWN_SLOTS).size());
+    assertEquals(List.of(), manager.tables());
+    assertEquals(List.of(), manager.reclaimableTables(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void ageHalvesAndTrimsCounts() {
+    final var table = new HotAddressTable(2);
+    for (int i = 0; i < 8; ++i) {
+      table.increment(key(10));
+    }
+    for (int i = 0; i < 4; ++i) {
+      table.increment(key(11));
+    }
+    table.increment(key(12));
+    table.increment(key(12));
+    table.increment(key(13));
+    assertEquals(4, table.size());
+    // Full at twice the capacity, the next new address halves every count, drops the zeros and trims to capacity.
+    table.increment(key(14));
+    assertEquals(3, table.size());
+    assertEquals(4, table.frequency(key(10)));
+    assertEquals(2, table.frequency(key(11)));
+    assertEquals(0, table.frequency(key(12)));
+    assertEquals(0, table.frequency(key(13)));
+    assertEquals(1, table.frequency(key(14)));
+    assertEquals(List.of(key(10), key(11)), table.hottest(2));
+  }
+}
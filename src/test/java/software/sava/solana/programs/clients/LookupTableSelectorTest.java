@@ -0,0 +1,131 @@
+package software.sava.solana.programs.clients;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.accounts.meta.LookupTableAccountMeta;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.core.tx.Instruction;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class LookupTableSelectorTest {
+
+  private static final PublicKey FEE_PAYER = key(1);
+  private static final AccountMeta PROGRAM = AccountMeta.createInvoked(key(2));
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = (byte) (id >> 8);
+    key[2] = 9;
+    return PublicKey.createPubKey(key);
+  }
+
+  private static List<PublicKey> keys(final int from, final int to) {
+    return IntStream.range(from, to).mapToObj(LookupTableSelectorTest::key).toList();
+  }
+
+  private static AddressLookupTable table(final int id, final long deactivationSlot, final List<PublicKey> accounts) {
+    final byte[] data = new byte[56 + (accounts.size() * PUBLIC_KEY_LENGTH)];
+    ByteUtil.putInt32LE(data, 0, 1);
+    ByteUtil.putInt64LE(data, 4, deactivationSlot);
+    int i = 56;
+    for (final var account : accounts) {
+      i += account.write(data, i);
+    }
+    return AddressLookupTable.FACTORY.apply(key(id), data);
+  }
+
+  private static AddressLookupTable table(final int id, final List<PublicKey> accounts) {
+    return table(id, -1, accounts);
+  }
+
+  private static List<Instruction> writeInstructions(final List<PublicKey> accounts) {
+    return List.of(Instruction.createInstruction(
+        PROGRAM,
+        accounts.stream().map(AccountMeta::createWrite).toList(),
+        new byte[0]
+    ));
+  }
+
+  @Test
+  public void selectsTablesGreedilyBySavings() {
+    final var a = table(1_001, keys(100, 105));
+    final var b = table(1_002, keys(103, 111));
+    final var inactive = table(1_003, 42, keys(100, 111));
+    final var selector = LookupTableSelector.createSelector(List.of(a, b, inactive));
+    assertEquals(List.of(a, b), selector.candidates());
+
+    // b indexes 8 of the keys, a the 3 left over.
+    assertEquals(List.of(b, a), selector.selectTables(FEE_PAYER, writeInstructions(keys(100, 111))));
+    assertEquals(2, selector.select(FEE_PAYER, writeInstructions(keys(100, 111))).length);
+
+    // Once a is selected b only covers one more key, which does not pay for its own 34 bytes.
+    assertEquals(List.of(a), selector.selectTables(FEE_PAYER, writeInstructions(keys(100, 106))));
+
+    // A single key saves 31 bytes, less than the cost of referencing the table.
+    assertEquals(List.of(), selector.selectTables(FEE_PAYER, writeInstructions(keys(104, 105))));
+    // Two keys save 62 bytes, netting 28.
+    assertEquals(List.of(a), selector.selectTables(FEE_PAYER, writeInstructions(keys(100, 102))));
+  }
+
+  @Test
+  public void neverIndexesStaticKeys() {
+    final var table = table(1_001, List.of(FEE_PAYER, PROGRAM.publicKey(), key(100), key(101), key(102)));
+    final var selector = LookupTableSelector.createSelector(List.of(table));
+
+    final var accounts = new ArrayList<AccountMeta>();
+    accounts.add(AccountMeta.createWrite(FEE_PAYER));
+    accounts.add(AccountMeta.createWritableSigner(key(100)));
+    accounts.add(AccountMeta.createWrite(key(101)));
+    final var instructions = List.of(Instruction.createInstruction(PROGRAM, accounts, new byte[0]));
+    // Only key(101) may be indexed.
+    assertEquals(List.of(), selector.selectTables(FEE_PAYER, instructions));
+    assertEquals(0, selector.select(FEE_PAYER, instructions).length);
+
+    // The fee payer is only static for the transaction it pays for.
+    assertEquals(List.of(table), selector.selectTables(key(3), instructions));
+  }
+
+  @Test
+  public void fallsBackToLegacyTransactions() {
+    final var used = new ArrayList<Class<?>>();
+    final InvocationHandler handler = (proxy, method, args) -> {
+      if (method.isDefault()) {
+        return InvocationHandler.invokeDefault(proxy, method, args);
+      } else if (method.getName().equals("feePayer")) {
+        return AccountMeta.createFeePayer(FEE_PAYER);
+      } else if (method.getName().equals("createTransaction")) {
+        final var parameterTypes = method.getParameterTypes();
+        used.add(parameterTypes[parameterTypes.length - 1]);
+        return null;
+      } else {
+        throw new UnsupportedOperationException(method.getName());
+      }
+    };
+    final var client = (NativeProgramAccountClient) Proxy.newProxyInstance(
+        NativeProgramAccountClient.class.getClassLoader(),
+        new Class[]{NativeProgramAccountClient.class},
+        handler
+    );
+    final var selector = LookupTableSelector.createSelector(List.of(table(1_001, keys(100, 110))));
+
+    client.createTransaction(writeInstructions(keys(100, 101)), selector);
+    client.createTransaction(200_000, 1, writeInstructions(keys(200, 210)), selector);
+    assertEquals(List.of(List.class, List.class), used);
+
+    used.clear();
+    client.createTransaction(writeInstructions(keys(100, 110)), selector);
+    client.createTransaction(200_000, 1, writeInstructions(keys(100, 110)), selector);
+    assertEquals(List.of(LookupTableAccountMeta[].class, LookupTableAccountMeta[].class), used);
+  }
+}
@@ -0,0 +1,92 @@
+package software.sava.solana.programs.clients;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class PriorityFeeOracleTest {
+
+  private static PublicKey key(final int b) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) b;
+    return PublicKey.createPubKey(key);
+  }
+
+  @Test
+  public void bucketsBoundValues() {
+    for (long value = 0; value < 1 << 20; value += 7) {
+      final int bucket = FeeHistogram.bucket(value);
+      assertTrue(bucket < FeeHistogram.NUM_BUCKETS);
+      final long upper = FeeHistogram.bucketValue(bucket);
+      assertTrue(upper >= value);
+      // Relative error bounded by the sub bucket resolution.
+      assertTrue(upper - value <= Math.max(1, value >> 3));
+    }
+    assertEquals(FeeHistogram.NUM_BUCKETS - 1, FeeHistogram.bucket(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void hotAccountsPriceAboveGlobal() {
+    final var oracle = PriorityFeeOracle.createSlidingWindow(100, 0.5, 1, 1_000_000, 16);
+    final var hot = key(1);
+    final var cold = key(2);
+    for (int slot = 0; slot < 100; ++slot) {
+      oracle.record(slot, hot, 10_000);
+      oracle.record(slot, cold, 100);
+      oracle.record(slot, List.of(), 100);
+    }
+    final long hotPrice = oracle.microLamportComputeUnitPrice(List.of(hot));
+    assertTrue(hotPrice >= 10_000 && hotPrice < 11_250, Long.toString(hotPrice));
+    assertTrue(oracle.microLamportComputeUnitPrice(List.of(cold)) < 128);
+    assertEquals(hotPrice, oracle.microLamportComputeUnitPrice(List.of(cold, hot)));
+    // Unknown accounts fall back to the global distribution.
+    assertTrue(oracle.microLamportComputeUnitPrice(List.of(key(3))) < 128);
+
+    // Observations age out of the window.
+    for (int slot = 100; slot < 300; ++slot) {
+      oracle.record(slot, hot, 50);
+    }
+    assertTrue(oracle.microLamportComputeUnitPrice(List.of(hot)) < 64);
+  }
+
+  @Test
+  public void evictsLeastRecentlyRecordedAccounts() {
+    final var oracle = PriorityFeeOracle.createSlidingWindow(100, 0.5, 1, 1_000_000, 4);
+    for (int account = 0; account < 4; ++account) {
+      oracle.record(account, key(account), 10_000);
+    }
+    for (int i = 0; i < 10; ++i) {
+      oracle.record(4, List.of(), 100);
+    }
+    // At the cap, the account last recorded at the oldest slot makes room for a new one.
+    oracle.record(5, key(4), 20_000);
+    assertTrue(oracle.microLamportComputeUnitPrice(List.of(key(4))) >= 20_000);
+    assertTrue(oracle.microLamportComputeUnitPrice(List.of(key(0))) < 10_000);
+    assertTrue(oracle.microLamportComputeUnitPrice(List.of(key(1))) >= 10_000);
+
+    // Once the window has moved past every tracked account they are all replaced.
+    for (int account = 10; account < 14; ++account) {
+      oracle.record(500 + account, key(account), 30_000 + account);
+    }
+    for (int account = 10; account < 14; ++account) {
+      assertTrue(oracle.microLamportComputeUnitPrice(List.of(key(account))) >= 30_000);
+    }
+    for (int i = 0; i < 10; ++i) {
+      oracle.record(600, List.of(), 100);
+    }
+    assertTrue(oracle.microLamportComputeUnitPrice(List.of(key(4))) < 10_000);
+  }
+
+  @Test
+  public void clampsToBounds() {
+    final var oracle = PriorityFeeOracle.createSlidingWindow(1_000, 5_000);
+    assertEquals(1_000, oracle.microLamportComputeUnitPrice(List.of(key(1))));
+    oracle.record(1, key(1), 1_000_000);
+    assertEquals(5_000, oracle.microLamportComputeUnitPrice(List.of(key(1))));
+    assertEquals(0, PriorityFeeOracle.NONE.microLamportComputeUnitPrice(List.of(key(1))));
+  }
+}
@@ -0,0 +1,78 @@
+package software.sava.solana.programs.clients;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ProgramAccountsStreamTest {
+
+  private static final String SYSTEM_PROGRAM = "11111111111111111111111111111111";
+  private static final String STAKE_PROGRAM = "Stake11111111111111111111111111111111111111";
+  private static final String VOTE_PROGRAM = "Vote111111111111111111111111111111111111111";
+
+  private static long parse(final String json, final ArrayList<ProgramAccount<byte[]>> accounts) throws IOException {
+    return ProgramAccountsStream.parse(
+        new ByteArrayInputStream(json.getBytes(UTF_8)),
+        (_, data) -> data,
+        accounts::add
+    );
+  }
+
+  @Test
+  public void parsesAccounts() throws IOException {
+    final var json = """
+        {"jsonrpc":"2.0","result":[{"account":{"data":["AQID","base64"],"executable":false,"lamports":2282880,\
+        "owner":"Stake11111111111111111111111111111111111111","rentEpoch":18446744073709551615,"space":3},\
+        "pubkey":"11111111111111111111111111111111"},{"account":{"data":["","base64"],"executable":true,\
+        "lamports":1,"owner":"Stake11111111111111111111111111111111111111","rentEpoch":0,"space":0},\
+        "pubkey":"Vote111111111111111111111111111111111111111"}],"id":1}""";
+    final var accounts = new ArrayList<ProgramAccount<byte[]>>();
+    assertEquals(2, parse(json, accounts));
+
+    final var first = accounts.getFirst();
+    assertEquals(PublicKey.fromBase58Encoded(SYSTEM_PROGRAM), first.pubKey());
+    assertEquals(PublicKey.fromBase58Encoded(STAKE_PROGRAM), first.owner());
+    assertEquals(2_282_880, first.lamports());
+    assertArrayEquals(new byte[]{1, 2, 3}, first.data());
+
+    final var second = accounts.get(1);
+    assertEquals(PublicKey.fromBase58Encoded(VOTE_PROGRAM), second.pubKey());
+    assertEquals(1, second.lamports());
+    assertEquals(0, second.data().length);
+  }
+
+  @Test
+  public void parsesAccountDataOnly() throws IOException {
+    final var json = """
+        {"jsonrpc":"2.0","result":[{"account":{"data":["AQID","base64"],"executable":false,"lamports":2282880,\
+        "owner":"Stake11111111111111111111111111111111111111","rentEpoch":18446744073709551615,"space":3},\
+        "pubkey":"11111111111111111111111111111111"},{"pubkey":"Vote111111111111111111111111111111111111111",\
+        "account":{"data":["BAU=","base64"],"lamports":1}}],"id":1}""";
+    final var data = new ArrayList<byte[]>();
+    assertEquals(2, ProgramAccountsStream.parseData(new ByteArrayInputStream(json.getBytes(UTF_8)), data::add));
+    assertArrayEquals(new byte[]{1, 2, 3}, data.getFirst());
+    assertArrayEquals(new byte[]{4, 5}, data.get(1));
+  }
+
+  @Test
+  public void parsesEmptyResult() throws IOException {
+    final var accounts = new ArrayList<ProgramAccount<byte[]>>();
+    assertEquals(0, parse("""
+        {"jsonrpc":"2.0","result":[],"id":1}""", accounts));
+    assertTrue(accounts.isEmpty());
+  }
+
+  @Test
+  public void throwsOnErrorResponse() {
+    final var json = """
+        {"jsonrpc":"2.0","error":{"code":-32010,"message":"Program accounts scan excluded"},"id":1}""";
+    final var e = assertThrows(IllegalStateException.class, () -> parse(json, new ArrayList<>()));
+    assertEquals("getProgramAccounts failed with error -32010: Program accounts scan excluded", e.getMessage());
+  }
+}
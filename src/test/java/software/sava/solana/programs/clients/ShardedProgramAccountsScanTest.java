@@ -0,0 +1,105 @@
+package software.sava.solana.programs.clients;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.rpc.Filter;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class ShardedProgramAccountsScanTest {
+
+  private static final int PREFIX_OFFSET = 40;
+
+  // Serves one account per shard, with the shard as the first byte of its key.  Shard 7 always fails and shard 9
+  // fails on its first attempt.
+  @SuppressWarnings("unchecked")
+  private static SolanaRpcClient rpcClient(final Map<Integer, AtomicInteger> attempts,
+                                           final AtomicInteger active,
+                                           final AtomicInteger maxActive) {
+    final var shardsByFilter = new HashMap<String, Integer>();
+    for (int shard = 0; shard < 256; ++shard) {
+      shardsByFilter.put(Filter.createMemCompFilter(PREFIX_OFFSET, new byte[]{(byte) shard}).toJson(), shard);
+    }
+    return (SolanaRpcClient) Proxy.newProxyInstance(
+        SolanaRpcClient.class.getClassLoader(),
+        new Class[]{SolanaRpcClient.class},
+        (_, method, args) -> {
+          if (!method.getName().equals("getProgramAccounts")) {
+            throw new UnsupportedOperationException(method.getName());
+          }
+          final var filters = (List<Filter>) args[1];
+          final var factory = (BiFunction<PublicKey, byte[], Object>) args[2];
+          final int shard = shardsByFilter.get(filters.getLast().toJson());
+          maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+          try {
+            Thread.sleep(1);
+          } finally {
+            active.decrementAndGet();
+          }
+          final int attempt = attempts.computeIfAbsent(shard, _ -> new AtomicInteger()).incrementAndGet();
+          if (shard == 7 || (shard == 9 && attempt == 1)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("shard " + shard));
+          }
+          final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+          key[0] = (byte) shard;
+          final var address = PublicKey.createPubKey(key);
+          return CompletableFuture.completedFuture(List.of(new AccountInfo<>(
+              address, null, false, 1, null, null, key.length, factory.apply(address, key)
+          )));
+        }
+    );
+  }
+
+  @Test
+  public void retriesShardsAndReportsFailures() {
+    final var attempts = new ConcurrentHashMap<Integer, AtomicInteger>();
+    final var active = new AtomicInteger();
+    final var maxActive = new AtomicInteger();
+    final var scan = ShardedProgramAccountsScan.createScan(
+        rpcClient(attempts, active, maxActive), PREFIX_OFFSET, 1, 4, 2, Duration.ofMillis(1)
+    );
+    assertEquals(256, scan.numShards());
+
+    final var programId = PublicKey.createPubKey(new byte[PUBLIC_KEY_LENGTH]);
+    final var result = scan.scan(programId, List.of(), (_, data) -> data[0] & 0xFF).join();
+    assertFalse(result.isComplete());
+    assertArrayEquals(new int[]{7}, result.failedShards());
+    assertEquals("shard 7", result.errors().getFirst().getMessage());
+    assertEquals(255, result.accounts().size());
+    for (int i = 0, shard = 0; i < result.accounts().size(); ++i, ++shard) {
+      if (shard == 7) {
+        ++shard;
+      }
+      assertEquals(shard, result.accounts().get(i).data());
+    }
+    assertEquals(2, attempts.get(7).get());
+    assertEquals(2, attempts.get(9).get());
+    assertEquals(1, attempts.get(8).get());
+    assertTrue(maxActive.get() <= 4);
+
+    final var retried = scan.retry(programId, List.of(), (_, data) -> data[0] & 0xFF, result).join();
+    assertArrayEquals(new int[]{7}, retried.failedShards());
+    assertEquals(255, retried.accounts().size());
+    assertEquals(4, attempts.get(7).get());
+
+    assertThrows(IllegalArgumentException.class, () -> scan.shardFilters(List.of(
+        Filter.createMemCompFilter(0, new byte[1]),
+        Filter.createMemCompFilter(1, new byte[1]),
+        Filter.createMemCompFilter(2, new byte[1]),
+        Filter.createMemCompFilter(3, new byte[1])
+    ), 0));
+  }
+}
@@ -0,0 +1,228 @@
+package software.sava.solana.programs.clients;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.lookup.AddressLookupTable;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.encoding.ByteUtil;
+import software.sava.core.tx.Instruction;
+import software.sava.core.tx.Transaction;
+import software.sava.solana.programs.compute_budget.ComputeUnitEstimator;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.core.tx.Transaction.BLOCK_HASH_LENGTH;
+import static software.sava.core.tx.Transaction.MAX_SERIALIZED_LENGTH;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.MAX_COMPUTE_BUDGET;
+
+final class TransactionPackerTest {
+
+  private static final AccountMeta FEE_PAYER = AccountMeta.createFeePayer(key(1));
+  private static final AccountMeta PROGRAM = AccountMeta.createInvoked(key(2));
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = (byte) (id >> 8);
+    return PublicKey.createPubKey(key);
+  }
+
+  private static Instruction instruction(final List<AccountMeta> accounts, final int dataLength) {
+    return Instruction.createInstruction(PROGRAM, accounts, new byte[dataLength]);
+  }
+
+  private static AddressLookupTable lookupTable(final List<PublicKey> accounts) {
+    final byte[] data = new byte[56 + (accounts.size() * PUBLIC_KEY_LENGTH)];
+    ByteUtil.putInt32LE(data, 0, 1);
+    ByteUtil.putInt64LE(data, 4, -1);
+    int i = 56;
+    for (final var account : accounts) {
+      i += account.write(data, i);
+    }
+    return AddressLookupTable.FACTORY.apply(key(4), data);
+  }
+
+  private static int serializedLength(final Transaction transaction) {
+    transaction.setRecentBlockHash(new byte[BLOCK_HASH_LENGTH]);
+    return Base64.getDecoder().decode(transaction.base64EncodeToString()).length;
+  }
+
+  private static List<Integer> batchSizes(final List<List<Instruction>> batches) {
+    return batches.stream().map(List::size).toList();
+  }
+
+  private static ComputeUnitEstimator fixedEstimator(final int units) {
+    return new ComputeUnitEstimator() {
+      @Override
+      public double margin() {
+        return 0;
+      }
+
+      @Override
+      public int estimate(final Instruction instruction) {
+        return units;
+      }
+
+      @Override
+      public boolean calibrate(final Instruction instruction, final int consumedUnits) {
+        return false;
+      }
+
+      @Override
+      public int calibrate(final List<Instruction> instructions, final List<String> logMessages) {
+        return 0;
+      }
+
+      @Override
+      public void resetCalibration() {
+      }
+    };
+  }
+
+  @Test
+  public void splitsAtSerializedLength() {
+    // 166 bytes of signatures, keys, header and block hash plus 304 per instruction: three fit in 1,232 bytes.
+    final var instructions = new ArrayList<Instruction>();
+    for (int i = 0; i < 10; ++i) {
+      instructions.add(instruction(List.of(), 300));
+    }
+    final var packer = TransactionPacker.createPacker(FEE_PAYER, null, null);
+    final var batches = packer.pack(instructions);
+    assertEquals(List.of(3, 3, 3, 1), batchSizes(batches));
+    assertEquals(instructions, batches.stream().flatMap(List::stream).toList());
+
+    final var message = new PackedMessage(FEE_PAYER, null, null);
+    for (int i = 0; i < 3; ++i) {
+      message.append(instructions.get(i), 0);
+    }
+    assertEquals(1_078, message.serializedLength());
+    message.append(instructions.get(3), 0);
+    assertTrue(message.serializedLength() > MAX_SERIALIZED_LENGTH);
+  }
+
+  // Instructions mixing table and static keys, writable and read-only, with table entries for a signer and the
+  // invoked program which must stay static.
+  private static List<Instruction> mixedInstructions(final int count) {
+    final var instructions = new ArrayList<Instruction>(count);
+    for (int i = 0; i < count; ++i) {
+      final int id = 100 + (i * 4);
+      instructions.add(instruction(List.of(
+          AccountMeta.createWrite(key(id)),
+          AccountMeta.createRead(key(id + 1)),
+          AccountMeta.createWrite(key(id + 2)),
+          AccountMeta.createRead(key(id + 3)),
+          AccountMeta.createRead(key(10)),
+          (i & 1) == 0 ? AccountMeta.createReadOnlySigner(key(11)) : AccountMeta.createWrite(key(12))
+      ), 24 + (i % 7)));
+    }
+    return instructions;
+  }
+
+  @Test
+  public void serializedLengthMatchesTransactions() {
+    final var client = NativeProgramAccountClient.createClient(FEE_PAYER.publicKey());
+    final var computeBudgetProgram = SolanaAccounts.MAIN_NET.invokedComputeBudgetProgram();
+    final var instructions = mixedInstructions(60);
+
+    final var tableAccounts = new ArrayList<PublicKey>();
+    tableAccounts.add(key(2));
+    tableAccounts.add(key(11));
+    tableAccounts.add(key(12));
+    for (int i = 0; i < 60; i += 2) {
+      tableAccounts.add(key(100 + (i * 4)));
+      tableAccounts.add(key(101 + (i * 4)));
+    }
+    final var lookupTable = lookupTable(tableAccounts);
+
+    for (final var table : new AddressLookupTable[]{null, lookupTable}) {
+      for (final var budgetProgram : new AccountMeta[]{null, computeBudgetProgram}) {
+        final var packer = TransactionPacker.createPacker(FEE_PAYER, budgetProgram, null);
+        final var batches = table == null ? packer.pack(instructions) : packer.pack(instructions, table);
+        assertTrue(batches.size() > 1);
+        assertEquals(instructions, batches.stream().flatMap(List::stream).toList());
+        for (final var batch : batches) {
+          final var message = new PackedMessage(FEE_PAYER, budgetProgram, table);
+          for (final var instruction : batch) {
+            message.append(instruction, 0);
+          }
+          final Transaction transaction;
+          if (budgetProgram == null) {
+            transaction = table == null
+                ? client.createTransaction(batch)
+                : client.createTransaction(batch, table);
+          } else {
+            transaction = table == null
+                ? client.createTransaction(200_000, 1_000, batch)
+                : client.createTransaction(200_000, 1_000, batch, table);
+          }
+          final int serializedLength = serializedLength(transaction);
+          assertEquals(serializedLength, message.serializedLength());
+          assertTrue(serializedLength <= MAX_SERIALIZED_LENGTH, Integer.toString(serializedLength));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void splitsAtAccountLocks() {
+    final var packer = TransactionPacker.createPacker(
+        FEE_PAYER, null, null, Integer.MAX_VALUE, MAX_COMPUTE_BUDGET, TransactionPacker.MAX_ACCOUNT_LOCKS, Integer.MAX_VALUE
+    );
+    final var unique = new ArrayList<Instruction>();
+    final var shared = new ArrayList<Instruction>();
+    final var sharedAccounts = List.of(
+        AccountMeta.createWrite(key(10)), AccountMeta.createWrite(key(11)), AccountMeta.createRead(key(12))
+    );
+    for (int i = 0; i < 30; ++i) {
+      final var accounts = new ArrayList<AccountMeta>();
+      for (int j = 0; j < 5; ++j) {
+        accounts.add(AccountMeta.createWrite(key(100 + (i * 5) + j)));
+      }
+      unique.add(instruction(accounts, 8));
+      shared.add(instruction(sharedAccounts, 8));
+    }
+    // The fee payer and program plus 5 accounts per instruction: 12 instructions lock 62 accounts, 13 would lock 67.
+    assertEquals(List.of(12, 12, 6), batchSizes(packer.pack(unique)));
+    // Accounts repeated across instructions are locked once.
+    assertEquals(List.of(30), batchSizes(packer.pack(shared)));
+  }
+
+  @Test
+  public void splitsAtComputeUnits() {
+    final var instructions = new ArrayList<Instruction>();
+    for (int i = 0; i < 10; ++i) {
+      instructions.add(instruction(List.of(), 8));
+    }
+    final var estimator = fixedEstimator(350_000);
+    // Four instructions use exactly the maximum compute budget.
+    assertEquals(List.of(4, 4, 2), batchSizes(TransactionPacker.createPacker(FEE_PAYER, null, estimator).pack(instructions)));
+    // The compute budget instructions themselves consume units, leaving room for three.
+    final var computeBudgetProgram = AccountMeta.createInvoked(key(3));
+    assertEquals(
+        List.of(3, 3, 3, 1),
+        batchSizes(TransactionPacker.createPacker(FEE_PAYER, computeBudgetProgram, estimator).pack(instructions))
+    );
+  }
+
+  @Test
+  public void rejectsInstructionsWhichCannotFitAlone() {
+    final var packer = TransactionPacker.createPacker(FEE_PAYER, null, null);
+    final var tooLarge = instruction(List.of(), MAX_SERIALIZED_LENGTH);
+    var e = assertThrows(IllegalArgumentException.class, () -> packer.pack(List.of(tooLarge)));
+    assertEquals("Instruction 0 does not fit in a transaction by itself.", e.getMessage());
+    e = assertThrows(IllegalArgumentException.class, () -> packer.pack(List.of(instruction(List.of(), 8), tooLarge)));
+    assertEquals("Instruction 1 does not fit in a transaction by itself.", e.getMessage());
+
+    final var estimator = fixedEstimator(MAX_COMPUTE_BUDGET + 1);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> TransactionPacker.createPacker(FEE_PAYER, null, estimator).pack(List.of(instruction(List.of(), 8)))
+    );
+    assertEquals(List.of(), TransactionPacker.createPacker(FEE_PAYER, null, estimator).pack(List.of()));
+  }
+}
@@ -0,0 +1,75 @@
+package software.sava.solana.programs.collections;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class PublicKeyMapTest {
+
+  @Test
+  public void matchesHashMap() {
+    final var random = new Random(25);
+    final var keys = new ArrayList<PublicKey>();
+    for (int i = 0; i < 2_000; ++i) {
+      final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+      random.nextBytes(key);
+      // Keys which only differ past the first word must not collide into one slot chain.
+      if (i % 4 == 0) {
+        key[0] = key[1] = key[2] = key[3] = key[4] = key[5] = key[6] = key[7] = 0;
+      }
+      keys.add(PublicKey.createPubKey(key));
+    }
+    keys.add(PublicKey.NONE);
+
+    final var longMap = PublicKeyLongMap.createMap(4);
+    final var intMap = PublicKeyIntMap.createMap();
+    final PublicKeyMap<PublicKey> objectMap = PublicKeyMap.createMap();
+    final var expected = new HashMap<PublicKey, Long>();
+    for (int i = 0; i < 20_000; ++i) {
+      final var key = keys.get(random.nextInt(keys.size()));
+      if (random.nextInt(4) == 0) {
+        final int index = longMap.remove(key);
+        assertEquals(expected.remove(key) == null, index < 0);
+        assertEquals(index, intMap.remove(key));
+        assertEquals(index, objectMap.remove(key));
+      } else {
+        final long delta = random.nextInt(1_000);
+        assertEquals(expected.merge(key, delta, Long::sum), longMap.addTo(key, delta));
+        intMap.addTo(key, (int) delta);
+        objectMap.computeIfAbsent(key, k -> k);
+      }
+      assertEquals(expected.size(), longMap.size());
+    }
+
+    // Probe straight from account data at an offset.
+    final byte[] data = new byte[PUBLIC_KEY_LENGTH + 7];
+    for (final var key : keys) {
+      key.write(data, 7);
+      final Long value = expected.get(key);
+      final int index = longMap.indexOf(data, 7);
+      assertEquals(value == null, index < 0);
+      assertEquals(value == null ? -1 : value, longMap.get(data, 7, -1));
+      if (value != null) {
+        assertEquals(key, longMap.key(index));
+        assertEquals(index, intMap.indexOf(key));
+        assertEquals(value.intValue(), intMap.value(index));
+        assertEquals(key, objectMap.get(data, 7));
+      }
+    }
+
+    final var set = PublicKeySet.createSet();
+    assertEquals(0, set.add(PublicKey.NONE));
+    assertEquals(0, set.add(PublicKey.NONE));
+    assertTrue(set.contains(PublicKey.NONE));
+    longMap.clear();
+    assertTrue(longMap.isEmpty());
+    assertEquals(-1, longMap.indexOf(keys.getFirst()));
+    assertEquals(0, longMap.addTo(keys.getFirst(), 0));
+  }
+}
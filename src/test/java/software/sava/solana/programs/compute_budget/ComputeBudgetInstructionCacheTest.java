@@ -0,0 +1,112 @@
+package software.sava.solana.programs.compute_budget;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.MAX_COMPUTE_BUDGET;
+
+final class ComputeBudgetInstructionCacheTest {
+
+  private static final AccountMeta PROGRAM = SolanaAccounts.MAIN_NET.invokedComputeBudgetProgram();
+
+  private static byte[] data(final Instruction instruction) {
+    return Arrays.copyOfRange(instruction.data(), instruction.offset(), instruction.offset() + instruction.len());
+  }
+
+  private static void assertSameInstruction(final Instruction expected, final Instruction actual) {
+    assertEquals(expected.programId().publicKey(), actual.programId().publicKey());
+    assertEquals(expected.accounts(), actual.accounts());
+    assertArrayEquals(data(expected), data(actual));
+  }
+
+  @Test
+  public void cachedInstructionsMatchBuilders() {
+    final var cache = ComputeBudgetInstructionCache.createCache();
+    for (final int units : new int[]{0, 1, 200_000, MAX_COMPUTE_BUDGET}) {
+      final var expected = ComputeBudgetProgram.setComputeUnitLimit(PROGRAM, units);
+      final var miss = cache.computeUnitLimit(PROGRAM, units);
+      assertSameInstruction(expected, miss);
+      assertSame(miss, cache.computeUnitLimit(PROGRAM, units));
+    }
+    for (final long microLamports : new long[]{0, 1, 1_234_567, Long.MAX_VALUE}) {
+      final var expected = ComputeBudgetProgram.setComputeUnitPrice(PROGRAM, microLamports);
+      final var miss = cache.computeUnitPrice(PROGRAM, microLamports);
+      assertSameInstruction(expected, miss);
+      assertSame(miss, cache.computeUnitPrice(PROGRAM, microLamports));
+    }
+    assertEquals(8, cache.missCount());
+    assertEquals(8, cache.hitCount());
+  }
+
+  @Test
+  public void limitAndPriceDoNotCollide() {
+    final var cache = ComputeBudgetInstructionCache.createCache();
+    final var limit = cache.computeUnitLimit(PROGRAM, 0);
+    final var price = cache.computeUnitPrice(PROGRAM, 0);
+    assertNotSame(limit, price);
+    assertSameInstruction(ComputeBudgetProgram.setComputeUnitPrice(PROGRAM, 0), price);
+    assertSame(limit, cache.computeUnitLimit(PROGRAM, 0));
+
+    final byte[] otherKey = new byte[PUBLIC_KEY_LENGTH];
+    otherKey[0] = 1;
+    final var otherProgram = AccountMeta.createInvoked(PublicKey.createPubKey(otherKey));
+    final var other = cache.computeUnitLimit(otherProgram, 0);
+    assertEquals(otherProgram.publicKey(), other.programId().publicKey());
+    assertEquals(3, cache.missCount());
+    assertEquals(1, cache.hitCount());
+  }
+
+  @Test
+  public void countsHitsAndMisses() {
+    final var cache = ComputeBudgetInstructionCache.createCache();
+    assertEquals(1.0, cache.hitRate());
+    cache.computeUnitLimit(PROGRAM, 100);
+    cache.computeUnitLimit(PROGRAM, 100);
+    cache.computeUnitLimit(PROGRAM, 100);
+    cache.computeUnitPrice(PROGRAM, 100);
+    assertEquals(2, cache.hitCount());
+    assertEquals(2, cache.missCount());
+    assertEquals(0.5, cache.hitRate());
+
+    cache.invalidateAll();
+    cache.computeUnitLimit(PROGRAM, 100);
+    assertEquals(3, cache.missCount());
+    assertEquals(0, cache.evictionCount());
+  }
+
+  @Test
+  public void evictsOldestWayOfSet() {
+    // A single two-way set, every value maps to it.
+    final var cache = ComputeBudgetInstructionCache.createCache(2);
+    assertEquals(2, cache.maximumSize());
+    final var a = cache.computeUnitLimit(PROGRAM, 1);
+    final var b = cache.computeUnitLimit(PROGRAM, 2);
+    assertSame(a, cache.computeUnitLimit(PROGRAM, 1));
+    assertSame(b, cache.computeUnitLimit(PROGRAM, 2));
+    assertEquals(0, cache.evictionCount());
+
+    // The third value takes the first way, demotes the second value and evicts the first.
+    final var c = cache.computeUnitLimit(PROGRAM, 3);
+    assertEquals(1, cache.evictionCount());
+    assertSame(b, cache.computeUnitLimit(PROGRAM, 2));
+    assertSame(c, cache.computeUnitLimit(PROGRAM, 3));
+    final long misses = cache.missCount();
+    final var reloaded = cache.computeUnitLimit(PROGRAM, 1);
+    assertNotSame(a, reloaded);
+    assertSameInstruction(a, reloaded);
+    assertEquals(misses + 1, cache.missCount());
+    assertEquals(2, cache.evictionCount());
+
+    // Sizes round up to a power of two of whole sets.
+    assertEquals(2, ComputeBudgetInstructionCache.createCache(1).maximumSize());
+    assertEquals(8, ComputeBudgetInstructionCache.createCache(5).maximumSize());
+    assertEquals(8, ComputeBudgetInstructionCache.createCache(8).maximumSize());
+  }
+}
@@ -0,0 +1,173 @@
+package software.sava.solana.programs.compute_budget;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.stake.StakeProgram;
+import software.sava.solana.programs.token.AssociatedTokenProgram;
+import software.sava.solana.programs.token.TokenProgram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ComputeUnitEstimatorTest {
+
+  private static final String COMPUTE_BUDGET = "ComputeBudget111111111111111111111111111111";
+  private static final String TOKEN = "TokenkegQfeZyiNwAJbNbGKPFXCWuBvf9Ss623VQ5DA";
+  private static final String ATA = "ATokenGPvbdGVxr1b2hvZbsiqW5xWH25efTNsLJA8knL";
+  private static final String SYSTEM = "11111111111111111111111111111111";
+  private static final String STAKE = "Stake11111111111111111111111111111111111111";
+
+  private static Instruction instruction(final AccountMeta program, final int discriminator) {
+    return Instruction.createInstruction(program, List.of(), new byte[]{(byte) discriminator, 0, 0, 0, 0, 0, 0, 0, 0});
+  }
+
+  private static List<String> succeeded(final String program, final int consumedUnits) {
+    return List.of(
+        "Program " + program + " invoke [1]",
+        "Program " + program + " consumed " + consumedUnits + " of 200000 compute units",
+        "Program " + program + " success"
+    );
+  }
+
+  @Test
+  public void calibratesFromTopLevelLogs() {
+    final var accounts = SolanaAccounts.MAIN_NET;
+    final var estimator = ComputeUnitEstimator.createEstimator();
+    final var setLimit = instruction(accounts.invokedComputeBudgetProgram(), 2);
+    final var transferChecked = instruction(
+        accounts.invokedTokenProgram(), TokenProgram.TokenInstruction.TransferChecked.ordinal()
+    );
+    final var createIdempotent = instruction(
+        accounts.invokedAssociatedTokenAccountProgram(), AssociatedTokenProgram.Instructions.CreateIdempotent.ordinal()
+    );
+    assertEquals(6_300, estimator.estimate(transferChecked));
+    assertEquals(25_000, estimator.estimate(createIdempotent));
+
+    final var logs = List.of(
+        "Program " + COMPUTE_BUDGET + " invoke [1]",
+        "Program " + COMPUTE_BUDGET + " success",
+        "Program " + TOKEN + " invoke [1]",
+        "Program log: Instruction: TransferChecked",
+        "Program " + TOKEN + " consumed 6200 of 1399850 compute units",
+        "Program " + TOKEN + " success",
+        "Program " + ATA + " invoke [1]",
+        "Program log: CreateIdempotent",
+        "Program " + TOKEN + " invoke [2]",
+        "Program log: Instruction: GetAccountDataSize",
+        "Program " + TOKEN + " consumed 1569 of 1387446 compute units",
+        "Program return: " + TOKEN + " pQAAAAAAAAA=",
+        "Program " + TOKEN + " success",
+        "Program " + SYSTEM + " invoke [2]",
+        "Program " + SYSTEM + " success",
+        "Program log: Initialize the associated token account",
+        "Program " + TOKEN + " invoke [2]",
+        "Program log: Instruction: InitializeImmutableOwner",
+        "Program log: Please upgrade to SPL Token 2022 for immutable owner support",
+        "Program " + TOKEN + " consumed 1405 of 1380959 compute units",
+        "Program " + TOKEN + " success",
+        "Program " + TOKEN + " invoke [2]",
+        "Program log: Instruction: InitializeAccount3",
+        "Program " + TOKEN + " consumed 4188 of 1377077 compute units",
+        "Program " + TOKEN + " success",
+        "Program " + ATA + " consumed 27367 of 1393650 compute units",
+        "Program " + ATA + " success"
+    );
+    // The compute budget program is a builtin with fixed costs, nested invocations are attributed to their parent.
+    assertEquals(2, estimator.calibrate(List.of(setLimit, transferChecked, createIdempotent), logs));
+    assertEquals(27_367, estimator.estimate(createIdempotent));
+    // A sample below the default does not lower the estimate.
+    assertEquals(6_300, estimator.estimate(transferChecked));
+    assertEquals(150, estimator.estimate(setLimit));
+
+    estimator.resetCalibration();
+    assertEquals(25_000, estimator.estimate(createIdempotent));
+  }
+
+  @Test
+  public void ignoresFailedInstructions() {
+    final var estimator = ComputeUnitEstimator.createEstimator();
+    final var transfer = instruction(
+        SolanaAccounts.MAIN_NET.invokedTokenProgram(), TokenProgram.TokenInstruction.Transfer.ordinal()
+    );
+    final var failed = List.of(
+        "Program " + TOKEN + " invoke [1]",
+        "Program log: Instruction: Transfer",
+        "Program log: Error: insufficient funds",
+        "Program " + TOKEN + " consumed 9000 of 200000 compute units",
+        "Program " + TOKEN + " failed: custom program error: 0x1"
+    );
+    assertEquals(0, estimator.calibrate(List.of(transfer), failed));
+    assertEquals(4_700, estimator.estimate(transfer));
+
+    final var succeeded = List.of(
+        "Program " + TOKEN + " invoke [1]",
+        "Program log: Instruction: Transfer",
+        "Program " + TOKEN + " consumed 9000 of 200000 compute units",
+        "Program " + TOKEN + " success"
+    );
+    assertEquals(1, estimator.calibrate(List.of(transfer), succeeded));
+    assertEquals(9_000, estimator.estimate(transfer));
+    // Logs of a different program than the instruction at that position are not attributed.
+    final var createIdempotent = instruction(
+        SolanaAccounts.MAIN_NET.invokedAssociatedTokenAccountProgram(),
+        AssociatedTokenProgram.Instructions.CreateIdempotent.ordinal()
+    );
+    assertEquals(0, estimator.calibrate(List.of(createIdempotent), succeeded));
+  }
+
+  @Test
+  public void calibratesStakeProgram() {
+    final var estimator = ComputeUnitEstimator.createEstimator();
+    final var stakeProgram = SolanaAccounts.MAIN_NET.invokedStakeProgram();
+    final var split = instruction(stakeProgram, StakeProgram.Instructions.Split.ordinal());
+    final var merge = instruction(stakeProgram, StakeProgram.Instructions.Merge.ordinal());
+    assertEquals(15_000, estimator.estimate(split));
+    assertEquals(20_000, estimator.estimate(merge));
+
+    // A consolidation transaction: split off part of one account, then merge two others.
+    final var logs = new ArrayList<String>();
+    logs.addAll(succeeded(COMPUTE_BUDGET, 150));
+    logs.addAll(succeeded(STAKE, 17_842));
+    logs.addAll(succeeded(STAKE, 26_530));
+    final var setLimit = instruction(SolanaAccounts.MAIN_NET.invokedComputeBudgetProgram(), 2);
+    assertEquals(2, estimator.calibrate(List.of(setLimit, split, merge), logs));
+    assertEquals(17_842, estimator.estimate(split));
+    assertEquals(26_530, estimator.estimate(merge));
+  }
+
+  @Test
+  public void ignoresProgramControlledLogLines() {
+    final var estimator = ComputeUnitEstimator.createEstimator();
+    final var accounts = SolanaAccounts.MAIN_NET;
+    final var createIdempotent = instruction(
+        accounts.invokedAssociatedTokenAccountProgram(), AssociatedTokenProgram.Instructions.CreateIdempotent.ordinal()
+    );
+    final var transfer = instruction(accounts.invokedTokenProgram(), TokenProgram.TokenInstruction.Transfer.ordinal());
+    final var logs = List.of(
+        "Program " + ATA + " invoke [1]",
+        "Program log: " + ATA + " success",
+        "Program log: success",
+        "Program log: consumed many of the compute units",
+        "Program data: " + ATA + " consumed 1 of 2 compute units",
+        "Program " + TOKEN + " invoke [2]",
+        // A nested program's messages are not attributed to the top level instruction.
+        "Program " + ATA + " consumed 99999 of 1380959 compute units",
+        "Program " + TOKEN + " consumed 4188 of 1377077 compute units",
+        "Program return: " + TOKEN + " success",
+        "Program " + TOKEN + " success",
+        "Program " + ATA + " consumed 30123 of 1393650 compute units",
+        "Program " + ATA + " success",
+        "Program " + TOKEN + " invoke [1]",
+        "Program log: Instruction: Transfer",
+        "Program " + TOKEN + " consumed 8100 of 1363527 compute units",
+        "Program " + TOKEN + " success"
+    );
+    assertEquals(2, estimator.calibrate(List.of(createIdempotent, transfer), logs));
+    assertEquals(30_123, estimator.estimate(createIdempotent));
+    assertEquals(8_100, estimator.estimate(transfer));
+  }
+}
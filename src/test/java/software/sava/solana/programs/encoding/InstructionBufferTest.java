@@ -0,0 +1,174 @@
+package software.sava.solana.programs.encoding;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.solana.programs.compute_budget.ComputeBudgetProgram;
+import software.sava.solana.programs.stake.StakeProgram;
+import software.sava.solana.programs.stakepool.StakePoolProgram;
+import software.sava.solana.programs.system.SystemProgram;
+import software.sava.solana.programs.token.TokenProgram;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.compute_budget.ComputeBudgetProgram.MAX_COMPUTE_BUDGET;
+
+final class InstructionBufferTest {
+
+  private static final SolanaAccounts SOLANA_ACCOUNTS = SolanaAccounts.MAIN_NET;
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = 11;
+    return PublicKey.createPubKey(key);
+  }
+
+  private static byte[] data(final Instruction instruction) {
+    return Arrays.copyOfRange(instruction.data(), instruction.offset(), instruction.offset() + instruction.len());
+  }
+
+  private static void assertSameInstruction(final Instruction expected, final Instruction actual) {
+    assertEquals(expected.programId().publicKey(), actual.programId().publicKey());
+    final var expectedKeys = expected.accounts();
+    final var actualKeys = actual.accounts();
+    assertEquals(expectedKeys.size(), actualKeys.size());
+    for (int i = 0; i < expectedKeys.size(); ++i) {
+      final var expectedKey = expectedKeys.get(i);
+      final var actualKey = actualKeys.get(i);
+      assertEquals(expectedKey.publicKey(), actualKey.publicKey());
+      assertEquals(expectedKey.signer(), actualKey.signer());
+      assertEquals(expectedKey.write(), actualKey.write());
+    }
+    assertArrayEquals(data(expected), data(actual));
+  }
+
+  @Test
+  public void computeBudgetMatchesAllocating() {
+    final var buffer = InstructionBuffer.createBuffer();
+    final var program = SOLANA_ACCOUNTS.invokedComputeBudgetProgram();
+    for (final int units : new int[]{0, 1, 200_000, MAX_COMPUTE_BUDGET}) {
+      assertSameInstruction(
+          ComputeBudgetProgram.setComputeUnitLimit(program, units),
+          ComputeBudgetProgram.setComputeUnitLimit(buffer, program, units)
+      );
+      assertSameInstruction(
+          ComputeBudgetProgram.requestHeapFrame(program, units),
+          ComputeBudgetProgram.requestHeapFrame(buffer, program, units)
+      );
+      assertSameInstruction(
+          ComputeBudgetProgram.setLoadedAccountsDataSizeLimit(program, units),
+          ComputeBudgetProgram.setLoadedAccountsDataSizeLimit(buffer, program, units)
+      );
+    }
+    for (final long microLamports : new long[]{0, 1, 1_234_567, Long.MAX_VALUE}) {
+      assertSameInstruction(
+          ComputeBudgetProgram.setComputeUnitPrice(program, microLamports),
+          ComputeBudgetProgram.setComputeUnitPrice(buffer, program, microLamports)
+      );
+    }
+  }
+
+  @Test
+  public void transfersMatchAllocating() {
+    final var buffer = InstructionBuffer.createBuffer();
+    assertSameInstruction(
+        SystemProgram.transfer(SOLANA_ACCOUNTS.invokedSystemProgram(), key(1), key(2), 1_000_000),
+        SystemProgram.transfer(buffer, SOLANA_ACCOUNTS.invokedSystemProgram(), key(1), key(2), 1_000_000)
+    );
+    final var tokenProgram = SOLANA_ACCOUNTS.invokedTokenProgram();
+    assertSameInstruction(
+        TokenProgram.transfer(tokenProgram, key(3), key(4), Long.MAX_VALUE, key(5)),
+        TokenProgram.transfer(buffer, tokenProgram, key(3), key(4), Long.MAX_VALUE, key(5))
+    );
+    assertSameInstruction(
+        TokenProgram.transferChecked(tokenProgram, key(3), key(4), 42, 9, key(5), key(6)),
+        TokenProgram.transferChecked(buffer, tokenProgram, key(3), key(4), 42, 9, key(5), key(6))
+    );
+  }
+
+  @Test
+  public void stakeMatchesAllocating() {
+    final var buffer = InstructionBuffer.createBuffer();
+    assertSameInstruction(
+        StakeProgram.split(SOLANA_ACCOUNTS, key(1), key(2), key(3), 5_000_000_000L),
+        StakeProgram.split(buffer, SOLANA_ACCOUNTS, key(1), key(2), key(3), 5_000_000_000L)
+    );
+    assertSameInstruction(
+        StakeProgram.merge(SOLANA_ACCOUNTS, key(1), key(2), key(3)),
+        StakeProgram.merge(buffer, SOLANA_ACCOUNTS, key(1), key(2), key(3))
+    );
+
+    final var stakePoolProgram = AccountMeta.createInvoked(key(20));
+    final var withdrawAuthority = StakePoolProgram.findStakePoolWithdrawAuthority(key(21), stakePoolProgram.publicKey());
+    assertSameInstruction(
+        StakePoolProgram.depositSol(
+            SOLANA_ACCOUNTS, stakePoolProgram, key(21), withdrawAuthority,
+            key(22), key(23), key(24), key(25), key(26), key(27), key(28), 7_000_000
+        ),
+        StakePoolProgram.depositSol(
+            buffer, SOLANA_ACCOUNTS, stakePoolProgram, key(21), withdrawAuthority,
+            key(22), key(23), key(24), key(25), key(26), key(27), key(28), 7_000_000
+        )
+    );
+  }
+
+  @Test
+  public void instructionsShareBufferUntilReset() {
+    final var buffer = InstructionBuffer.createBuffer();
+    final var program = SOLANA_ACCOUNTS.invokedSystemProgram();
+    final var first = SystemProgram.transfer(buffer, program, key(1), key(2), 1);
+    final var second = SystemProgram.transfer(buffer, program, key(3), key(4), 2);
+    assertSame(buffer.data(), first.data());
+    assertSame(buffer.data(), second.data());
+    assertEquals(first.len(), second.offset());
+    assertEquals(first.len() + second.len(), buffer.position());
+    assertEquals(key(1), first.accounts().getFirst().publicKey());
+    assertEquals(key(3), second.accounts().getFirst().publicKey());
+
+    buffer.reset();
+    assertEquals(0, buffer.position());
+    assertEquals(buffer.data().length, buffer.remaining());
+    // Reset recycles the slices, so instructions built before it observe the new contents.
+    final var third = SystemProgram.transfer(buffer, program, key(5), key(6), 3);
+    assertEquals(0, third.offset());
+    assertArrayEquals(data(third), data(first));
+    assertEquals(key(5), first.accounts().getFirst().publicKey());
+    assertSameInstruction(SystemProgram.transfer(program, key(5), key(6), 3), third);
+  }
+
+  @Test
+  public void reserveZeroesRecycledBytes() {
+    final var buffer = InstructionBuffer.createBuffer(16, 4);
+    final int offset = buffer.reserve(16);
+    Arrays.fill(buffer.data(), offset, 16, (byte) -1);
+    buffer.reset();
+    buffer.reserve(16);
+    assertArrayEquals(new byte[16], buffer.data());
+  }
+
+  @Test
+  public void overflowThrowsWithoutConsuming() {
+    final var buffer = InstructionBuffer.createBuffer(12, 2);
+    final var program = SOLANA_ACCOUNTS.invokedSystemProgram();
+    SystemProgram.transfer(buffer, program, key(1), key(2), 1);
+    assertEquals(0, buffer.remaining());
+    assertThrows(IllegalStateException.class, () -> buffer.reserve(1));
+    assertEquals(12, buffer.position());
+    assertThrows(IllegalStateException.class, () -> buffer.keys(AccountMeta.createRead(key(3))));
+
+    buffer.reset();
+    final var instruction = SystemProgram.transfer(buffer, program, key(1), key(2), 1);
+    assertSameInstruction(SystemProgram.transfer(program, key(1), key(2), 1), instruction);
+
+    final var empty = InstructionBuffer.createBuffer(4, 8);
+    assertThrows(IllegalStateException.class, () -> ComputeBudgetProgram.setComputeUnitLimit(
+        empty, SOLANA_ACCOUNTS.invokedComputeBudgetProgram(), 1
+    ));
+    assertEquals(0, empty.position());
+  }
+}
@@ -0,0 +1,172 @@
+package software.sava.solana.programs.stake;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.StakeAccount.*;
+
+final class StakeAccountStoreTest {
+
+  private static PublicKey randomKey(final Random random) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    random.nextBytes(key);
+    return PublicKey.createPubKey(key);
+  }
+
+  private static byte[] stakeAccountData(final PublicKey voter, final PublicKey withdrawer, final long stake) {
+    final byte[] data = new byte[StakeAccount.BYTES];
+    ByteUtil.putInt32LE(data, STATE_OFFSET, StakeState.Stake.ordinal());
+    ByteUtil.putInt64LE(data, RENT_EXEMPT_RESERVE_OFFSET, 2_282_880);
+    withdrawer.write(data, STAKE_AUTHORITY_OFFSET);
+    withdrawer.write(data, WITHDRAW_AUTHORITY_OFFSET);
+    voter.write(data, VOTER_PUBLIC_KEY_OFFSET);
+    ByteUtil.putInt64LE(data, STAKE_OFFSET, stake);
+    ByteUtil.putInt64LE(data, ACTIVATION_EPOCH_OFFSET, 500);
+    ByteUtil.putInt64LE(data, DE_ACTIVATION_EPOCH_OFFSET, -1);
+    ByteUtil.putFloat64LE(data, WARMUP_COOLDOWN_RATE_OFFSET, 0.25);
+    return data;
+  }
+
+  @Test
+  public void indexesSurviveUpdatesAndRemovals() {
+    final var random = new Random(7);
+    final var validators = new PublicKey[8];
+    for (int i = 0; i < validators.length; ++i) {
+      validators[i] = randomKey(random);
+    }
+    final var withdrawer = randomKey(random);
+
+    final var store = StakeAccountStore.createStore(16);
+    final Map<PublicKey, PublicKey> expectedVoters = new HashMap<>();
+    final var addresses = new PublicKey[1_000];
+    for (int i = 0; i < addresses.length; ++i) {
+      addresses[i] = randomKey(random);
+      final var voter = validators[i % validators.length];
+      store.put(addresses[i], stakeAccountData(voter, withdrawer, i));
+      expectedVoters.put(addresses[i], voter);
+    }
+    assertEquals(addresses.length, store.size());
+    assertEquals(addresses.length + validators.length + 2, store.numKeys());
+
+    // Re-delegate a subset, then close every third account.
+    for (int i = 0; i < addresses.length; i += 5) {
+      store.put(addresses[i], stakeAccountData(validators[0], withdrawer, i));
+      expectedVoters.put(addresses[i], validators[0]);
+    }
+    for (int i = 0; i < addresses.length; i += 3) {
+      assertTrue(store.remove(addresses[i]));
+      expectedVoters.remove(addresses[i]);
+    }
+    assertFalse(store.remove(addresses[0]));
+    assertEquals(expectedVoters.size(), store.size());
+
+    for (final var validator : validators) {
+      final var expected = new HashSet<PublicKey>();
+      expectedVoters.forEach((address, voter) -> {
+        if (voter.equals(validator)) {
+          expected.add(address);
+        }
+      });
+      final int[] rows = store.rowsForValidator(validator);
+      assertEquals(expected.size(), rows.length);
+      for (final int row : rows) {
+        assertTrue(expected.contains(store.address(row)));
+        assertEquals(validator, store.voterPublicKey(row));
+      }
+    }
+    assertEquals(store.size(), store.rowsByWithdrawAuthority(withdrawer).length);
+    assertEquals(0, store.rowsForValidator(withdrawer).length);
+    assertEquals(0, store.rowsWithCustodian(randomKey(random)).length);
+  }
+
+  @Test
+  public void materializeMatchesRead() {
+    final var random = new Random(11);
+    final var address = randomKey(random);
+    final byte[] data = stakeAccountData(randomKey(random), randomKey(random), 42_000_000_000L);
+
+    final var store = StakeAccountStore.createStore();
+    final int row = store.put(address, data);
+    assertEquals(row, store.row(address));
+    assertEquals(StakeAccount.read(address, data), store.materialize(row));
+    assertEquals(StakeAccount.State.ACTIVE, store.state(row, 501));
+
+    final var stakeAccount = store.materialize(row);
+    store.clear();
+    assertEquals(-1, store.row(address));
+    assertEquals(row, store.put(stakeAccount));
+    assertEquals(stakeAccount, store.materialize(row));
+    assertTrue(Arrays.equals(address.toByteArray(), store.address(row).toByteArray()));
+  }
+
+  @Test
+  public void releasesKeysOfRemovedAccounts() {
+    final var random = new Random(13);
+    final var validator = randomKey(random);
+    final var store = StakeAccountStore.createStore(16);
+    final var retained = randomKey(random);
+    store.put(retained, stakeAccountData(validator, randomKey(random), 1));
+    assertEquals(4, store.numKeys());
+
+    final var addresses = new PublicKey[64];
+    for (int round = 0; round < 100; ++round) {
+      for (int i = 0; i < addresses.length; ++i) {
+        addresses[i] = randomKey(random);
+        store.put(addresses[i], stakeAccountData(validator, randomKey(random), i));
+      }
+      assertEquals(4 + (addresses.length << 1), store.numKeys());
+      // Moving the withdraw authority releases the previous one.
+      for (int i = 0; i < addresses.length; i += 2) {
+        store.put(addresses[i], stakeAccountData(validator, randomKey(random), i));
+      }
+      assertEquals(4 + (addresses.length << 1), store.numKeys());
+      for (final var address : addresses) {
+        assertTrue(store.remove(address));
+        assertEquals(-1, store.row(address));
+      }
+      assertEquals(4, store.numKeys());
+    }
+    assertEquals(1, store.size());
+    assertArrayEquals(new int[]{0}, store.rowsForValidator(validator));
+    assertEquals(retained, store.address(0));
+  }
+
+  @Test
+  public void reusesReleasedKeySlots() {
+    final var random = new Random(17);
+    final var keys = new PublicKeySlots(16);
+    final var retained = randomKey(random);
+    final int retainedId = keys.intern(retained);
+    final var churned = new PublicKey[12];
+    for (int round = 0; round < 1_000; ++round) {
+      for (int i = 0; i < churned.length; ++i) {
+        churned[i] = randomKey(random);
+        keys.intern(churned[i]);
+      }
+      assertEquals(1 + churned.length, keys.size());
+      for (final var key : churned) {
+        assertEquals(key, keys.get(keys.find(key)));
+        assertTrue(keys.release(keys.find(key)));
+        assertEquals(-1, keys.find(key));
+      }
+      assertEquals(retainedId, keys.find(retained));
+    }
+    assertEquals(1, keys.size());
+    assertEquals(16, keys.capacity());
+
+    // Shared keys are only removed once every reference is released.
+    assertEquals(retainedId, keys.intern(retained));
+    assertFalse(keys.release(retainedId));
+    assertTrue(keys.release(retainedId));
+    assertEquals(0, keys.size());
+  }
+}
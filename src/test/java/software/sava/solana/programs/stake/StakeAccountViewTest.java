@@ -0,0 +1,130 @@
+package software.sava.solana.programs.stake;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.StakeAccount.*;
+
+final class StakeAccountViewTest {
+
+  private static PublicKey randomKey(final Random random) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    random.nextBytes(key);
+    return PublicKey.createPubKey(key);
+  }
+
+  private static void writeAccount(final Random random,
+                                   final byte[] data,
+                                   final int offset,
+                                   final long activationEpoch,
+                                   final long deActivationEpoch) {
+    ByteUtil.putInt32LE(data, offset + STATE_OFFSET, StakeState.Stake.ordinal());
+    ByteUtil.putInt64LE(data, offset + RENT_EXEMPT_RESERVE_OFFSET, 2_282_880);
+    randomKey(random).write(data, offset + STAKE_AUTHORITY_OFFSET);
+    randomKey(random).write(data, offset + WITHDRAW_AUTHORITY_OFFSET);
+    ByteUtil.putInt64LE(data, offset + LOCKUP_TIMESTAMP_OFFSET, 1_700_000_000L);
+    ByteUtil.putInt64LE(data, offset + LOCKUP_EPOCH_OFFSET, 612);
+    randomKey(random).write(data, offset + LOCKUP_CUSTODIAN_OFFSET);
+    randomKey(random).write(data, offset + VOTER_PUBLIC_KEY_OFFSET);
+    ByteUtil.putInt64LE(data, offset + STAKE_OFFSET, random.nextLong(1, Long.MAX_VALUE));
+    ByteUtil.putInt64LE(data, offset + ACTIVATION_EPOCH_OFFSET, activationEpoch);
+    ByteUtil.putInt64LE(data, offset + DE_ACTIVATION_EPOCH_OFFSET, deActivationEpoch);
+    ByteUtil.putFloat64LE(data, offset + WARMUP_COOLDOWN_RATE_OFFSET, 0.09);
+    ByteUtil.putInt64LE(data, offset + CREDITS_OBSERVED_OFFSET, random.nextLong(Long.MAX_VALUE));
+    data[offset + STAKE_FLAGS_OFFSET] = (byte) MUST_FULLY_ACTIVATE_BEFORE_DEACTIVATION_IS_PERMITTED;
+  }
+
+  private static void assertMatches(final StakeAccount expected, final StakeAccountView view) {
+    assertEquals(expected.state(), view.state());
+    assertEquals(expected.rentExemptReserve(), view.rentExemptReserve());
+    assertEquals(expected.stakeAuthority(), view.stakeAuthority());
+    assertEquals(expected.withdrawAuthority(), view.withdrawAuthority());
+    assertEquals(expected.lockup().unixTimestamp(), view.lockupUnixTimestamp());
+    assertEquals(expected.lockup().epoch(), view.lockupEpoch());
+    assertEquals(expected.lockup().custodian(), view.custodian());
+    assertEquals(expected.voterPublicKey(), view.voterPublicKey());
+    assertEquals(expected.stake(), view.stake());
+    assertEquals(expected.activationEpoch(), view.activationEpoch());
+    assertEquals(expected.deActivationEpoch(), view.deActivationEpoch());
+    assertEquals(expected.warmupCoolDownRate(), view.warmupCoolDownRate());
+    assertEquals(expected.creditsObserved(), view.creditsObserved());
+    assertEquals(expected.stakeFlags(), view.stakeFlags());
+    assertEquals(
+        expected.isSet(MUST_FULLY_ACTIVATE_BEFORE_DEACTIVATION_IS_PERMITTED),
+        view.isSet(MUST_FULLY_ACTIVATE_BEFORE_DEACTIVATION_IS_PERMITTED)
+    );
+
+    assertTrue(view.stakeAuthorityEquals(expected.stakeAuthority()));
+    assertTrue(view.withdrawAuthorityEquals(expected.withdrawAuthority()));
+    assertTrue(view.custodianEquals(expected.lockup().custodian()));
+    assertTrue(view.voterPublicKeyEquals(expected.voterPublicKey()));
+    assertFalse(view.voterPublicKeyEquals(expected.withdrawAuthority()));
+
+    final byte[] keys = new byte[PUBLIC_KEY_LENGTH * 2];
+    assertEquals(PUBLIC_KEY_LENGTH, view.copyVoterPublicKey(keys, PUBLIC_KEY_LENGTH));
+    assertEquals(expected.voterPublicKey(), PublicKey.readPubKey(keys, PUBLIC_KEY_LENGTH));
+    assertTrue(view.voterPublicKeyEquals(keys, PUBLIC_KEY_LENGTH));
+    view.copyStakeAuthority(keys, 0);
+    assertTrue(view.stakeAuthorityEquals(keys, 0));
+    view.copyWithdrawAuthority(keys, 0);
+    assertTrue(view.withdrawAuthorityEquals(keys, 0));
+    view.copyCustodian(keys, 0);
+    assertTrue(view.custodianEquals(keys, 0));
+
+    for (long epoch = 0; epoch < 1_000; epoch += 7) {
+      assertEquals(expected.state(epoch), view.state(epoch));
+      assertEquals(StakeAccount.state(expected.activationEpoch(), expected.deActivationEpoch(), epoch), view.state(epoch));
+    }
+    assertEquals(expected, view.address(expected.address()).materialize());
+  }
+
+  @Test
+  public void segmentAccessorsMatchRead() {
+    final var random = new Random(3);
+    final long[][] epochs = {{0, -1}, {400, -1}, {400, 500}, {400, 400}, {990, -1}, {-1, -1}};
+    final int padding = 13;
+    final byte[] data = new byte[padding + (epochs.length * StakeAccount.BYTES)];
+    for (int i = 0; i < epochs.length; ++i) {
+      writeAccount(random, data, padding + (i * StakeAccount.BYTES), epochs[i][0], epochs[i][1]);
+    }
+
+    try (final var arena = Arena.ofConfined()) {
+      final var segment = arena.allocate(data.length);
+      MemorySegment.copy(data, 0, segment, JAVA_BYTE, 0, data.length);
+      final var view = StakeAccountView.createView(segment, padding);
+      for (int i = 0; i < epochs.length; ++i) {
+        final int offset = padding + (i * StakeAccount.BYTES);
+        final var address = randomKey(random);
+        final var expected = StakeAccount.read(address, data, offset);
+        assertMatches(expected, view.position(offset));
+        assertEquals(offset, view.offset());
+        assertNull(view.position(offset).address());
+      }
+    }
+  }
+
+  @Test
+  public void arrayAndBufferViewsMatchRead() {
+    final var random = new Random(7);
+    final byte[] data = new byte[StakeAccount.BYTES + 5];
+    writeAccount(random, data, 5, 350, 360);
+    final var address = randomKey(random);
+    final var expected = StakeAccount.read(address, data, 5);
+
+    final var view = StakeAccountView.createView();
+    assertMatches(expected, view.wrap(data, 5));
+    assertMatches(expected, view.wrap(ByteBuffer.wrap(data), 5));
+
+    final var direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+    assertMatches(expected, StakeAccountView.createView().wrap(direct, 5));
+  }
+}
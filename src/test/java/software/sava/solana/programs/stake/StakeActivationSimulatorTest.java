@@ -0,0 +1,108 @@
+package software.sava.solana.programs.stake;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.StakeAccount.*;
+import static software.sava.solana.programs.stake.StakeActivationSimulator.Status;
+
+final class StakeActivationSimulatorTest {
+
+  private static StakeHistory history(final StakeHistory.Entry... newestFirst) {
+    final var history = new StakeHistory(null, newestFirst);
+    final byte[] data = new byte[history.l()];
+    history.write(data, 0);
+    return StakeHistory.read(data, 0);
+  }
+
+  private static byte[] stakeAccountData(final PublicKey voter,
+                                         final long stake,
+                                         final long activationEpoch,
+                                         final long deActivationEpoch) {
+    final byte[] data = new byte[StakeAccount.BYTES];
+    ByteUtil.putInt32LE(data, STATE_OFFSET, StakeState.Stake.ordinal());
+    voter.write(data, VOTER_PUBLIC_KEY_OFFSET);
+    ByteUtil.putInt64LE(data, STAKE_OFFSET, stake);
+    ByteUtil.putInt64LE(data, ACTIVATION_EPOCH_OFFSET, activationEpoch);
+    ByteUtil.putInt64LE(data, DE_ACTIVATION_EPOCH_OFFSET, deActivationEpoch);
+    return data;
+  }
+
+  @Test
+  public void warmupAndCooldown() {
+    final var stakeHistory = history(
+        new StakeHistory.Entry(12, 1_500, 0, 562),
+        new StakeHistory.Entry(11, 1_250, 1_750, 0),
+        new StakeHistory.Entry(10, 1_000, 2_000, 0)
+    );
+    assertEquals(11, stakeHistory.get(11).epoch());
+    assertNull(stakeHistory.get(13));
+
+    final var simulator = StakeActivationSimulator.createSimulator(stakeHistory, -1);
+    assertEquals(new Status(0, 0, 0), simulator.status(1_000, 10, -1, 9));
+    assertEquals(new Status(0, 1_000, 0), simulator.status(1_000, 10, -1, 10));
+    // weight 1000 / 2000 of 25% of 1000 effective.
+    assertEquals(new Status(125, 875, 0), simulator.status(1_000, 10, -1, 11));
+    // weight 875 / 1750 of 25% of 1250 effective.
+    assertEquals(new Status(281, 719, 0), simulator.status(1_000, 10, -1, 12));
+    // No cluster stake left activating after epoch 12, warmup stalls.
+    assertEquals(new Status(281, 719, 0), simulator.status(1_000, 10, -1, 20));
+    assertEquals(new Status(1_000, 0, 0), simulator.status(1_000, -1, -1, 20));
+    assertEquals(new Status(0, 0, 0), simulator.status(1_000, 10, 10, 20));
+
+    assertEquals(new Status(281, 0, 281), simulator.status(1_000, 10, 12, 12));
+    // weight 281 / 562 of 25% of 1500 effective.
+    assertEquals(new Status(94, 0, 94), simulator.status(1_000, 10, 12, 13));
+    final var newRate = StakeActivationSimulator.createSimulator(stakeHistory, 13);
+    assertEquals(new Status(214, 0, 214), newRate.status(1_000, 10, 12, 13));
+  }
+
+  @Test
+  public void simulateStore() {
+    final var voter = PublicKey.createPubKey(new byte[PUBLIC_KEY_LENGTH]);
+    final var store = StakeAccountStore.createStore(4);
+    final long[][] delegations = {
+        {1_000, 10, -1},
+        {1_000, 10, 12},
+        {500, -1, -1},
+        {2_000, 11, -1}
+    };
+    for (int i = 0; i < delegations.length; ++i) {
+      final byte[] address = new byte[PUBLIC_KEY_LENGTH];
+      address[0] = (byte) (i + 1);
+      store.put(PublicKey.createPubKey(address), stakeAccountData(voter, delegations[i][0], delegations[i][1], delegations[i][2]));
+    }
+
+    final var simulator = StakeActivationSimulator.createSimulator(history(
+        new StakeHistory.Entry(11, 1_250, 1_750, 0),
+        new StakeHistory.Entry(10, 1_000, 2_000, 0)
+    ), -1);
+    final long[] effective = new long[store.size()];
+    final long[] activating = new long[store.size()];
+    final long[] deactivating = new long[store.size()];
+    final var total = simulator.simulate(store, 12, effective, activating, deactivating);
+    long expectedEffective = 0;
+    for (int row = 0; row < store.size(); ++row) {
+      final var status = simulator.status(store.materialize(row), 12);
+      assertEquals(status, new Status(effective[row], activating[row], deactivating[row]));
+      expectedEffective += status.effective();
+    }
+    assertEquals(expectedEffective, total.effective());
+    assertEquals(total, simulator.total(store, 12));
+    assertEquals(total, simulator.total(store, store.rowsForValidator(voter), 12));
+
+    final var projected = simulator.project(store, 15);
+    assertEquals(15, projected.stakeHistory().newestEpoch());
+    final var entry = projected.stakeHistory().get(12);
+    assertEquals(total, new Status(entry.effective(), entry.activating(), entry.deactivating()));
+
+    final long[] byEpoch = projected.projectEffectiveStake(store, voter, 12, 4);
+    for (int i = 0; i < byEpoch.length; ++i) {
+      assertEquals(projected.total(store, 12 + i).effective(), byEpoch[i]);
+    }
+    assertTrue(byEpoch[3] > byEpoch[0]);
+  }
+}
@@ -0,0 +1,68 @@
+package software.sava.solana.programs.stake;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.StakeAccount.*;
+
+final class StakeDelegationColumnsTest {
+
+  private static PublicKey randomKey(final Random random) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    random.nextBytes(key);
+    return PublicKey.createPubKey(key);
+  }
+
+  @Test
+  public void slicesMatchFullAccounts() {
+    final var random = new Random(23);
+    final var validators = new PublicKey[3];
+    for (int i = 0; i < validators.length; ++i) {
+      validators[i] = randomKey(random);
+    }
+
+    final var columns = StakeDelegationColumns.createColumns(4);
+    final var accounts = new byte[100][];
+    for (int i = 0; i < accounts.length; ++i) {
+      final byte[] data = new byte[StakeAccount.BYTES];
+      ByteUtil.putInt32LE(data, STATE_OFFSET, StakeState.Stake.ordinal());
+      validators[i % validators.length].write(data, VOTER_PUBLIC_KEY_OFFSET);
+      ByteUtil.putInt64LE(data, STAKE_OFFSET, 1_000_000L * i);
+      ByteUtil.putInt64LE(data, ACTIVATION_EPOCH_OFFSET, 400 + i);
+      ByteUtil.putInt64LE(data, DE_ACTIVATION_EPOCH_OFFSET, i % 2 == 0 ? -1 : 600);
+      accounts[i] = data;
+
+      final byte[] slice = Arrays.copyOfRange(data, StakeDelegation.SLICE_OFFSET, StakeDelegation.SLICE_OFFSET + StakeDelegation.SLICE_LENGTH);
+      assertEquals(i, columns.add(slice));
+    }
+    assertEquals(56, StakeDelegation.SLICE_LENGTH);
+    assertEquals(accounts.length, columns.size());
+    assertEquals(validators.length, columns.numVoters());
+
+    for (int row = 0; row < accounts.length; ++row) {
+      final var stakeAccount = StakeAccount.read(null, accounts[row]);
+      final var delegation = StakeDelegation.readAccount(null, accounts[row], 0);
+      assertEquals(stakeAccount.voterPublicKey(), delegation.voterPublicKey());
+      assertEquals(stakeAccount.stake(), delegation.stake());
+      assertEquals(stakeAccount.state(500), delegation.state(500));
+
+      assertEquals(stakeAccount.voterPublicKey(), columns.voter(columns.voterId(row)));
+      assertEquals(columns.voterId(row), columns.voterId(stakeAccount.voterPublicKey()));
+      assertEquals(stakeAccount.stake(), columns.stake(row));
+      assertEquals(stakeAccount.activationEpoch(), columns.activationEpoch(row));
+      assertEquals(stakeAccount.deActivationEpoch(), columns.deActivationEpoch(row));
+    }
+    assertEquals(-1, columns.voterId(randomKey(random)));
+    assertThrows(IndexOutOfBoundsException.class, () -> columns.stake(accounts.length));
+
+    columns.clear();
+    assertEquals(0, columns.size());
+    assertEquals(0, columns.numVoters());
+  }
+}
@@ -0,0 +1,85 @@
+package software.sava.solana.programs.stake;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.StakeMergePlanner.MergeKind;
+
+final class StakeMergePlannerTest {
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = (byte) (id >> 8);
+    return PublicKey.createPubKey(key);
+  }
+
+  private static AccountInfo<StakeAccount> account(final int id,
+                                                   final StakeState state,
+                                                   final PublicKey withdrawer,
+                                                   final LockUp lockup,
+                                                   final PublicKey voter,
+                                                   final long activationEpoch,
+                                                   final long deActivationEpoch,
+                                                   final long lamports) {
+    final var address = key(id);
+    final var stakeAccount = new StakeAccount(
+        address, state, 2_282_880, key(1), withdrawer, lockup, voter,
+        lamports - 2_282_880, activationEpoch, deActivationEpoch, 0.25, 0, (byte) 0
+    );
+    return new AccountInfo<>(address, null, false, lamports, null, null, StakeAccount.BYTES, stakeAccount);
+  }
+
+  @Test
+  public void groupsMergeableAccounts() {
+    final var withdrawer = key(2);
+    final var voter = key(3);
+    final var otherVoter = key(4);
+    final var expiredLockup = new LockUp(0, 5, key(5));
+    final var lockup = new LockUp(1_000, 0, key(5));
+    final var active = StakeState.Stake;
+
+    final var accounts = new ArrayList<AccountInfo<StakeAccount>>();
+    accounts.add(account(10, active, withdrawer, LockUp.NO_LOCKUP, voter, 10, -1, 5_000_000));
+    accounts.add(account(11, active, withdrawer, LockUp.NO_LOCKUP, voter, 10, -1, 9_000_000));
+    accounts.add(account(12, active, withdrawer, expiredLockup, voter, 10, -1, 4_000_000));
+    accounts.add(account(13, active, withdrawer, lockup, voter, 10, -1, 4_000_000));
+    accounts.add(account(14, active, withdrawer, LockUp.NO_LOCKUP, otherVoter, 10, -1, 4_000_000));
+    accounts.add(account(15, active, key(6), LockUp.NO_LOCKUP, voter, 10, -1, 4_000_000));
+    accounts.add(account(20, active, withdrawer, LockUp.NO_LOCKUP, voter, 20, -1, 3_000_000));
+    accounts.add(account(21, active, withdrawer, LockUp.NO_LOCKUP, voter, 20, -1, 3_000_000));
+    accounts.add(account(30, StakeState.Initialized, withdrawer, LockUp.NO_LOCKUP, PublicKey.NONE, 0, 0, 2_282_880));
+    accounts.add(account(31, active, withdrawer, LockUp.NO_LOCKUP, otherVoter, 10, 11, 6_000_000));
+    accounts.add(account(40, StakeState.Uninitialized, withdrawer, LockUp.NO_LOCKUP, voter, 10, -1, 6_000_000));
+
+    final var simulator = StakeActivationSimulator.createSimulator(new StakeHistory(null, new StakeHistory.Entry[0]), -1);
+    final var planner = StakeMergePlanner.createPlanner(simulator);
+    final var groups = planner.plan(accounts, 20, 0);
+    assertEquals(3, groups.size());
+
+    final var fullyActive = groups.getFirst();
+    assertEquals(MergeKind.FULLY_ACTIVE, fullyActive.kind());
+    assertEquals(key(11), fullyActive.destination().pubKey());
+    assertEquals(List.of(key(10), key(12)), fullyActive.sources().stream().map(AccountInfo::pubKey).toList());
+
+    final var activating = groups.get(1);
+    assertEquals(MergeKind.ACTIVATION_EPOCH, activating.kind());
+    assertEquals(key(20), activating.destination().pubKey());
+    assertEquals(List.of(key(21)), activating.sources().stream().map(AccountInfo::pubKey).toList());
+
+    final var inactive = groups.get(2);
+    assertEquals(MergeKind.INACTIVE, inactive.kind());
+    assertEquals(key(31), inactive.destination().pubKey());
+    assertEquals(List.of(key(30)), inactive.sources().stream().map(AccountInfo::pubKey).toList());
+
+    assertEquals(MergeKind.NONE, planner.mergeKind(accounts.getLast().data(), 20));
+    // Once the lockup expires it merges with the rest of the fully active group.
+    assertEquals(3, planner.plan(accounts, 20, 1_001).getFirst().sources().size());
+  }
+}
@@ -0,0 +1,83 @@
+package software.sava.solana.programs.stake;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.encoding.ByteUtil;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stake.StakeAccount.*;
+
+final class ValidatorStakeAggregatorTest {
+
+  private static PublicKey randomKey(final Random random) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    random.nextBytes(key);
+    return PublicKey.createPubKey(key);
+  }
+
+  private static void assertTotals(final HashMap<PublicKey, long[]> expected, final ValidatorStakeTotals totals) {
+    assertEquals(expected.size(), totals.size());
+    long active = 0;
+    for (final var entry : expected.entrySet()) {
+      final int index = totals.indexOf(entry.getKey());
+      assertTrue(index >= 0);
+      assertEquals(entry.getKey(), totals.voter(index));
+      final long[] buckets = entry.getValue();
+      assertEquals(buckets[0], totals.active(index));
+      assertEquals(buckets[1], totals.activating(index));
+      assertEquals(buckets[2], totals.deactivating(index));
+      active += buckets[0];
+    }
+    assertEquals(active, totals.totalActive());
+  }
+
+  @Test
+  public void parallelTotalsMatchSequential() {
+    final var random = new Random(24);
+    final var validators = new PublicKey[37];
+    for (int i = 0; i < validators.length; ++i) {
+      validators[i] = randomKey(random);
+    }
+
+    final long epoch = 500;
+    final var accounts = new StakeAccount[5_000];
+    final var store = StakeAccountStore.createStore(16);
+    final var columns = StakeDelegationColumns.createColumns(16);
+    final var expected = new HashMap<PublicKey, long[]>();
+    for (int i = 0; i < accounts.length; ++i) {
+      final byte[] data = new byte[StakeAccount.BYTES];
+      ByteUtil.putInt32LE(data, STATE_OFFSET, StakeState.Stake.ordinal());
+      final var voter = validators[random.nextInt(validators.length)];
+      voter.write(data, VOTER_PUBLIC_KEY_OFFSET);
+      ByteUtil.putInt64LE(data, STAKE_OFFSET, 1 + random.nextInt(1_000_000));
+      ByteUtil.putInt64LE(data, ACTIVATION_EPOCH_OFFSET, 490 + random.nextInt(12));
+      ByteUtil.putInt64LE(data, DE_ACTIVATION_EPOCH_OFFSET, random.nextBoolean() ? -1 : 495 + random.nextInt(10));
+      final var stakeAccount = StakeAccount.read(randomKey(random), data);
+      accounts[i] = stakeAccount;
+      store.put(stakeAccount.address(), data);
+      columns.add(Arrays.copyOfRange(data, StakeDelegation.SLICE_OFFSET, StakeDelegation.SLICE_OFFSET + StakeDelegation.SLICE_LENGTH));
+
+      final int bucket = switch (stakeAccount.state(epoch)) {
+        case ACTIVE -> 0;
+        case ACTIVATING -> 1;
+        case DE_ACTIVATING -> 2;
+        case INACTIVE -> -1;
+      };
+      if (bucket >= 0) {
+        expected.computeIfAbsent(voter, _ -> new long[3])[bucket] += stakeAccount.stake();
+      }
+    }
+
+    final var aggregator = ValidatorStakeAggregator.createAggregator(ForkJoinPool.commonPool(), null, 64);
+    assertTotals(expected, aggregator.aggregate(accounts, epoch));
+    assertTotals(expected, aggregator.aggregate(store, epoch));
+    assertTotals(expected, aggregator.aggregate(columns, epoch));
+    assertEquals(-1, aggregator.aggregate(accounts, epoch).indexOf(randomKey(random)));
+  }
+}
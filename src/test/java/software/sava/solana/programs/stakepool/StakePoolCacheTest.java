@@ -0,0 +1,145 @@
+package software.sava.solana.programs.stakepool;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.sysvar.Clock;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+import software.sava.rpc.json.http.response.Context;
+import software.sava.solana.programs.clients.AccountFetcher;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class StakePoolCacheTest {
+
+  private static final class SlotFetcher implements AccountFetcher {
+
+    private final AtomicLong slot = new AtomicLong();
+    private final AtomicInteger fetches = new AtomicInteger();
+    // When set, fetches complete once the gate does.
+    private volatile CompletableFuture<Void> gate;
+
+    @Override
+    public SolanaRpcClient rpcClient() {
+      return null;
+    }
+
+    @Override
+    public <T> CompletableFuture<AccountInfo<T>> fetch(final PublicKey account,
+                                                       final BiFunction<PublicKey, byte[], T> factory) {
+      fetches.incrementAndGet();
+      final var data = factory.apply(account, new byte[1 + Integer.BYTES + Integer.BYTES]);
+      final var context = new Context(slot.get(), null);
+      final var accountInfo = new AccountInfo<>(account, context, false, 0, null, null, 0, data);
+      final var gate = this.gate;
+      return gate == null ? CompletableFuture.completedFuture(accountInfo) : gate.thenApply(_ -> accountInfo);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<AccountInfo<T>>> fetch(final List<PublicKey> accounts,
+                                                             final BiFunction<PublicKey, byte[], T> factory) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public long requestCount() {
+      return fetches.get();
+    }
+
+    @Override
+    public long coalescedCount() {
+      return 0;
+    }
+
+    @Override
+    public long rpcCount() {
+      return fetches.get();
+    }
+  }
+
+  private static Clock clock(final long slot, final long epoch) {
+    return new Clock(slot, 0, epoch, epoch + 1, 0);
+  }
+
+  @Test
+  public void expiresByEpochAndRevalidatesBySlot() throws InterruptedException {
+    final var fetcher = new SlotFetcher();
+    final var cache = StakePoolCache.createCache(fetcher, PublicKey.NONE, 150);
+    final var validatorList = PublicKey.createPubKey(new byte[PUBLIC_KEY_LENGTH]);
+
+    fetcher.slot.set(100);
+    final var first = cache.validatorList(validatorList).join();
+    assertSame(first, cache.validatorList(validatorList).join());
+    assertEquals(1, fetcher.fetches.get());
+    assertEquals(1, cache.missCount());
+    assertEquals(1, cache.hitCount());
+
+    // Entries cached before the current epoch are re-fetched before being served.
+    cache.updateClock(clock(100, 5));
+    final var second = cache.validatorList(validatorList).join();
+    assertNotSame(first, second);
+    assertEquals(2, fetcher.fetches.get());
+    cache.updateClock(clock(99, 4));
+    assertEquals(100, cache.clock().slot());
+
+    // Stale entries are served while refreshed in the background.
+    fetcher.slot.set(400);
+    cache.updateClock(clock(400, 5));
+    assertSame(second, cache.validatorList(validatorList).join());
+    assertEquals(1, cache.staleHitCount());
+    for (int i = 0; i < 1_000 && cache.validatorList(validatorList).join() == second; ++i) {
+      Thread.sleep(1);
+    }
+    final var third = cache.validatorList(validatorList).join();
+    assertEquals(400, third.context().slot());
+    assertEquals(3, fetcher.fetches.get());
+    assertEquals(3, cache.refreshCount());
+
+    cache.invalidate(validatorList);
+    assertEquals(0, cache.size());
+    assertNotSame(third, cache.validatorList(validatorList).join());
+    assertEquals(4, fetcher.fetches.get());
+  }
+
+  @Test
+  public void dropsResultsFetchedBeforeInvalidation() {
+    final var fetcher = new SlotFetcher();
+    final var cache = StakePoolCache.createCache(fetcher, PublicKey.NONE, 150);
+    final var validatorList = PublicKey.createPubKey(new byte[PUBLIC_KEY_LENGTH]);
+
+    var gate = new CompletableFuture<Void>();
+    fetcher.gate = gate;
+    final var inFlight = cache.validatorList(validatorList);
+    assertSame(inFlight, cache.validatorList(validatorList));
+    assertEquals(1, fetcher.fetches.get());
+
+    cache.invalidate(validatorList);
+    gate.complete(null);
+    assertNotNull(inFlight.join());
+    assertEquals(0, cache.size());
+
+    // Refreshes started after the invalidation are cached again.
+    gate = new CompletableFuture<>();
+    fetcher.gate = gate;
+    final var refreshed = cache.validatorList(validatorList);
+    cache.invalidateAll();
+    final var afterInvalidateAll = cache.validatorList(validatorList);
+    assertNotSame(refreshed, afterInvalidateAll);
+    gate.complete(null);
+    assertNotNull(refreshed.join());
+    assertSame(afterInvalidateAll.join(), cache.validatorList(validatorList).join());
+    assertEquals(1, cache.size());
+    assertEquals(3, fetcher.fetches.get());
+  }
+}
@@ -0,0 +1,151 @@
+package software.sava.solana.programs.stakepool;
+
+import org.junit.jupiter.api.Test;
+import software.sava.solana.programs.stakepool.StakePoolState.Fee;
+import software.sava.solana.programs.stakepool.StakePoolState.FutureEpoch;
+import software.sava.solana.programs.stakepool.StakePoolState.FutureEpochFee;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Expected values follow the SPL stake pool processor: pool tokens are rounded down, fees are rounded up and
+// referral fees are a floored percentage of the total fee.
+final class StakePoolQuoterTest {
+
+  private static final FutureEpochFee NO_FEE_CHANGE = new FutureEpochFee(FutureEpoch.NONE, null);
+
+  private static StakePoolState state(final long totalLamports,
+                                      final long poolTokenSupply,
+                                      final Fee stakeDepositFee,
+                                      final int stakeReferralFee,
+                                      final Fee solDepositFee,
+                                      final int solReferralFee,
+                                      final Fee withdrawalFee,
+                                      final FutureEpochFee nextWithdrawalFee) {
+    return new StakePoolState(
+        null, AccountType.StakePool, null, null, null, 255, null, null, null, null, null,
+        totalLamports, poolTokenSupply, 700,
+        null, new Fee(100, 5), NO_FEE_CHANGE, null, null,
+        stakeDepositFee, withdrawalFee, nextWithdrawalFee, stakeReferralFee,
+        null, solDepositFee, solReferralFee,
+        null, withdrawalFee, nextWithdrawalFee,
+        poolTokenSupply, totalLamports
+    );
+  }
+
+  // 1.1 lamports per pool token.
+  private static StakePoolState state(final FutureEpochFee nextWithdrawalFee) {
+    return state(
+        1_100_000_000_000L, 1_000_000_000_000L,
+        new Fee(100, 1), 10,
+        new Fee(1_000, 1), 50,
+        new Fee(1_000, 3), nextWithdrawalFee
+    );
+  }
+
+  @Test
+  public void depositSol() {
+    final var quoter = StakePoolQuoter.createQuoter(state(NO_FEE_CHANGE));
+    final var quote = quoter.depositSol(1_000_000_000);
+    // 1e9 * 1e12 / 1.1e12 = 909_090_909.09, and a fee of ceil(909_090.909).
+    assertEquals(909_090_909, quote.poolTokensMinted());
+    assertEquals(908_181_818, quote.poolTokensUser());
+    // Half of the fee, rounded down, is paid to the referrer.
+    assertEquals(454_545, quote.referralFee());
+    assertEquals(454_546, quote.managerFee());
+    assertTrue(quote.isValid());
+    assertEquals(quote.poolTokensUser(), quoter.depositSolPoolTokensOut(1_000_000_000));
+  }
+
+  @Test
+  public void depositStake() {
+    final var quoter = StakePoolQuoter.createQuoter(state(NO_FEE_CHANGE));
+    // A stake account holding its rent exempt reserve on top of the delegation.
+    final var quote = quoter.depositStake(2_000_000_000, 1_997_717_120);
+    assertEquals(1_818_181_818, quote.poolTokensMinted());
+    // ceil(1% of 1_816_106_472) for the stake, plus ceil(0.1% of 2_075_346) for the reserve.
+    assertEquals(18_161_065 + 2_076, quote.managerFee() + quote.referralFee());
+    assertEquals(1_816_314, quote.referralFee());
+    assertEquals(16_346_827, quote.managerFee());
+    assertEquals(1_800_018_677, quote.poolTokensUser());
+    assertEquals(quote.poolTokensUser(), quoter.depositStakePoolTokensOut(2_000_000_000, 1_997_717_120));
+  }
+
+  @Test
+  public void withdraw() {
+    final var quoter = StakePoolQuoter.createQuoter(state(NO_FEE_CHANGE));
+    final var quote = quoter.withdrawSol(1_000_000_001);
+    // ceil(3_000_000.003)
+    assertEquals(3_000_001, quote.poolTokensFee());
+    assertEquals(997_000_000, quote.poolTokensBurnt());
+    assertEquals(1_096_700_000, quote.lamports());
+    assertEquals(quote, quoter.withdrawStake(1_000_000_001));
+    assertEquals(1_096_700_000, quoter.withdrawSolLamportsOut(1_000_000_001));
+
+    final long[] poolTokens = {1_000_000_001, 1, 0};
+    final long[] lamportsOut = new long[poolTokens.length];
+    quoter.withdrawStakeLamportsOut(poolTokens, lamportsOut);
+    // A single pool token is consumed entirely by the fee.
+    assertArrayEquals(new long[]{1_096_700_000, 0, 0}, lamportsOut);
+    assertFalse(quoter.withdrawSol(1).isValid());
+  }
+
+  @Test
+  public void appliesNextEpochWithdrawalFee() {
+    final var state = state(new FutureEpochFee(FutureEpoch.ONE, new Fee(1_000, 5)));
+    assertEquals(new Fee(1_000, 3), StakePoolQuoter.createQuoter(state).solWithdrawalFee());
+    final var quoter = StakePoolQuoter.createQuoter(state, state.lastUpdateEpoch() + 1);
+    assertEquals(new Fee(1_000, 5), quoter.solWithdrawalFee());
+    assertEquals(new Fee(1_000, 5), quoter.stakeWithdrawalFee());
+    assertEquals(5_000_000, quoter.withdrawSol(1_000_000_000).poolTokensFee());
+
+    // A fee two epochs out only becomes the next fee after the update.
+    final var twoEpochs = state(new FutureEpochFee(FutureEpoch.TWO, new Fee(1_000, 5)));
+    assertEquals(new Fee(1_000, 3), StakePoolQuoter.createQuoter(twoEpochs, 701).solWithdrawalFee());
+  }
+
+  @Test
+  public void roundsFeesUp() {
+    final var quoter = StakePoolQuoter.createQuoter(state(NO_FEE_CHANGE));
+    // 1 lamport mints nothing.
+    assertEquals(new StakePoolQuoter.DepositQuote(0, 0, 0, 0), quoter.depositSol(1));
+    // 2 lamports mint 1 token, all of which is taken by the fee.
+    final var quote = quoter.depositSol(2);
+    assertEquals(1, quote.poolTokensMinted());
+    assertEquals(0, quote.poolTokensUser());
+    assertEquals(1, quote.managerFee());
+    assertEquals(0, quote.referralFee());
+    assertFalse(quote.isValid());
+  }
+
+  @Test
+  public void emptyPoolDepositsAtPar() {
+    final var quoter = StakePoolQuoter.createQuoter(state(
+        0, 0,
+        new Fee(0, 0), 0,
+        new Fee(0, 0), 0,
+        new Fee(1_000, 3), NO_FEE_CHANGE
+    ));
+    final var quote = quoter.depositSol(1_000_000_000);
+    assertEquals(1_000_000_000, quote.poolTokensMinted());
+    assertEquals(1_000_000_000, quote.poolTokensUser());
+    assertEquals(0, quote.managerFee());
+    assertEquals(1_000_000_000, quoter.depositStakePoolTokensOut(1_000_000_000, 997_717_120));
+    assertEquals(0, quoter.withdrawSolLamportsOut(1_000_000_000));
+  }
+
+  @Test
+  public void minimumOut() {
+    assertEquals(1_096_700_000, StakePoolQuoter.minimumOut(1_096_700_000, 0));
+    // 0.5% of 1_096_700_000 is exactly 5_483_500.
+    assertEquals(1_091_216_500, StakePoolQuoter.minimumOut(1_096_700_000, 50));
+    // The allowance is rounded up, erring towards a lower minimum.
+    assertEquals(998, StakePoolQuoter.minimumOut(999, 1));
+    assertEquals(0, StakePoolQuoter.minimumOut(999, 10_000));
+
+    var e = assertThrows(IllegalArgumentException.class, () -> StakePoolQuoter.minimumOut(999, -1));
+    assertEquals("Slippage of -1 basis points is outside of [0, 10000].", e.getMessage());
+    e = assertThrows(IllegalArgumentException.class, () -> StakePoolQuoter.minimumOut(999, 10_001));
+    assertEquals("Slippage of 10001 basis points is outside of [0, 10000].", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> StakePoolQuoter.minimumOut(999, Integer.MIN_VALUE));
+  }
+}
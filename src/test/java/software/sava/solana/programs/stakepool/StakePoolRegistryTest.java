@@ -0,0 +1,171 @@
+package software.sava.solana.programs.stakepool;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+import software.sava.core.accounts.meta.AccountMeta;
+import software.sava.core.tx.Instruction;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class StakePoolRegistryTest {
+
+  private static final SolanaAccounts SOLANA_ACCOUNTS = SolanaAccounts.MAIN_NET;
+  private static final StakePoolAccounts STAKE_POOL_ACCOUNTS = StakePoolAccounts.MAIN_NET;
+
+  private static final List<PublicKey> POOL_PROGRAMS = List.of(
+      STAKE_POOL_ACCOUNTS.stakePoolProgram(),
+      STAKE_POOL_ACCOUNTS.singleValidatorStakePoolProgram(),
+      STAKE_POOL_ACCOUNTS.sanctumMultiValidatorStakePoolProgram(),
+      STAKE_POOL_ACCOUNTS.sanctumSingleValidatorStakePoolProgram()
+  );
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = 13;
+    return PublicKey.createPubKey(key);
+  }
+
+  private static void assertSameInstruction(final Instruction expected, final Instruction actual) {
+    assertEquals(expected.programId().publicKey(), actual.programId().publicKey());
+    final var expectedKeys = expected.accounts();
+    final var actualKeys = actual.accounts();
+    assertEquals(expectedKeys.size(), actualKeys.size());
+    for (int i = 0; i < expectedKeys.size(); ++i) {
+      assertEquals(expectedKeys.get(i).publicKey(), actualKeys.get(i).publicKey());
+      assertEquals(expectedKeys.get(i).signer(), actualKeys.get(i).signer());
+      assertEquals(expectedKeys.get(i).write(), actualKeys.get(i).write());
+    }
+    assertArrayEquals(
+        Arrays.copyOfRange(expected.data(), expected.offset(), expected.offset() + expected.len()),
+        Arrays.copyOfRange(actual.data(), actual.offset(), actual.offset() + actual.len())
+    );
+  }
+
+  @Test
+  public void resolvesWithdrawAuthorityPerProgram() {
+    final var registry = StakePoolRegistry.createRegistry();
+    final var stakePool = key(1);
+    for (final var poolProgram : POOL_PROGRAMS) {
+      final var expected = StakePoolProgram.findStakePoolWithdrawAuthority(stakePool, poolProgram);
+      final var withdrawAuthority = registry.withdrawAuthority(stakePool, poolProgram);
+      assertEquals(expected.publicKey(), withdrawAuthority.publicKey());
+      assertEquals(expected.nonce(), withdrawAuthority.nonce());
+      assertSame(withdrawAuthority, registry.withdrawAuthority(stakePool, poolProgram));
+    }
+    assertEquals(POOL_PROGRAMS.size(), registry.size());
+
+    // The same pool address under different programs derives different authorities.
+    final long distinct = POOL_PROGRAMS.stream()
+        .map(poolProgram -> registry.withdrawAuthority(stakePool, poolProgram).publicKey())
+        .distinct()
+        .count();
+    assertEquals(POOL_PROGRAMS.size(), distinct);
+
+    final var accountInfo = new AccountInfo<StakePoolState>(
+        stakePool, null, false, 0, STAKE_POOL_ACCOUNTS.singleValidatorStakePoolProgram(), null, 0, null
+    );
+    assertSame(
+        registry.withdrawAuthority(stakePool, STAKE_POOL_ACCOUNTS.singleValidatorStakePoolProgram()),
+        registry.withdrawAuthority(accountInfo)
+    );
+  }
+
+  @Test
+  public void registerAndRemoveAreKeyedByProgram() {
+    final var registry = StakePoolRegistry.createRegistry();
+    final var stakePool = key(2);
+    final var splProgram = STAKE_POOL_ACCOUNTS.stakePoolProgram();
+    final var sanctumProgram = STAKE_POOL_ACCOUNTS.sanctumMultiValidatorStakePoolProgram();
+    final var registered = StakePoolProgram.findStakePoolWithdrawAuthority(stakePool, splProgram);
+    registry.register(stakePool, splProgram, registered);
+    assertSame(registered, registry.withdrawAuthority(stakePool, splProgram));
+    assertEquals(1, registry.size());
+
+    final var sanctum = registry.withdrawAuthority(stakePool, sanctumProgram);
+    assertNotEquals(registered.publicKey(), sanctum.publicKey());
+    assertEquals(2, registry.size());
+
+    assertTrue(registry.remove(stakePool, sanctumProgram));
+    assertFalse(registry.remove(stakePool, sanctumProgram));
+    assertSame(registered, registry.withdrawAuthority(stakePool, splProgram));
+    assertEquals(1, registry.size());
+    assertFalse(registry.remove(key(3), splProgram));
+  }
+
+  @Test
+  public void registryInstructionsMatchDerivingOverloads() {
+    final var registry = StakePoolRegistry.createRegistry();
+    for (final var poolProgram : POOL_PROGRAMS) {
+      final var invoked = AccountMeta.createInvoked(poolProgram);
+      final var stakePool = key(10);
+      final var withdrawAuthority = registry.withdrawAuthority(stakePool, poolProgram);
+      final var tokenProgram = SOLANA_ACCOUNTS.tokenProgram();
+
+      assertSameInstruction(
+          StakePoolProgram.depositSol(
+              SOLANA_ACCOUNTS, invoked, stakePool,
+              key(11), key(12), key(13), key(14), key(15), key(16), tokenProgram, 1_000
+          ),
+          StakePoolProgram.depositSol(
+              SOLANA_ACCOUNTS, invoked, stakePool, withdrawAuthority,
+              key(11), key(12), key(13), key(14), key(15), key(16), tokenProgram, 1_000
+          )
+      );
+      assertSameInstruction(
+          StakePoolProgram.depositSolWithSlippage(
+              SOLANA_ACCOUNTS, invoked, stakePool,
+              key(11), key(12), key(13), key(14), key(15), key(16), tokenProgram, 1_000, 990
+          ),
+          StakePoolProgram.depositSolWithSlippage(
+              SOLANA_ACCOUNTS, invoked, stakePool, withdrawAuthority,
+              key(11), key(12), key(13), key(14), key(15), key(16), tokenProgram, 1_000, 990
+          )
+      );
+      assertSameInstruction(
+          StakePoolProgram.depositStake(
+              SOLANA_ACCOUNTS, invoked, stakePool,
+              key(20), key(21), key(22), key(23), key(24), key(25), key(26), key(27), key(28), tokenProgram
+          ),
+          StakePoolProgram.depositStake(
+              SOLANA_ACCOUNTS, invoked, stakePool, withdrawAuthority,
+              key(20), key(21), key(22), key(23), key(24), key(25), key(26), key(27), key(28), tokenProgram
+          )
+      );
+      assertSameInstruction(
+          StakePoolProgram.withdrawSol(
+              SOLANA_ACCOUNTS, invoked, stakePool,
+              key(30), key(31), key(32), key(33), key(34), key(35), tokenProgram, 2_000
+          ),
+          StakePoolProgram.withdrawSol(
+              SOLANA_ACCOUNTS, invoked, stakePool, withdrawAuthority,
+              key(30), key(31), key(32), key(33), key(34), key(35), tokenProgram, 2_000
+          )
+      );
+      assertSameInstruction(
+          StakePoolProgram.withdrawStake(
+              SOLANA_ACCOUNTS, invoked, stakePool,
+              key(40), key(41), key(42), key(43), key(44), key(45), key(46), key(47), tokenProgram, 3_000
+          ),
+          StakePoolProgram.withdrawStake(
+              SOLANA_ACCOUNTS, invoked, stakePool, withdrawAuthority,
+              key(40), key(41), key(42), key(43), key(44), key(45), key(46), key(47), tokenProgram, 3_000
+          )
+      );
+      assertSameInstruction(
+          StakePoolProgram.updateStakePoolBalance(
+              invoked, stakePool, key(50), key(51), key(52), key(53), tokenProgram
+          ),
+          StakePoolProgram.updateStakePoolBalance(
+              invoked, stakePool, withdrawAuthority, key(50), key(51), key(52), key(53), tokenProgram
+          )
+      );
+    }
+  }
+}
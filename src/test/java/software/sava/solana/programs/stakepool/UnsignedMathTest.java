@@ -0,0 +1,41 @@
+package software.sava.solana.programs.stakepool;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class UnsignedMathTest {
+
+  private static final BigInteger U64_MAX = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+  private static BigInteger unsigned(final long value) {
+    return new BigInteger(Long.toUnsignedString(value));
+  }
+
+  @Test
+  public void mulDivMatchesBigInteger() {
+    final var random = new Random(3);
+    for (int i = 0; i < 100_000; ++i) {
+      final long a = random.nextLong() >>> random.nextInt(64);
+      final long b = random.nextLong() >>> random.nextInt(64);
+      final long divisor = (random.nextLong() >>> random.nextInt(64)) | 1;
+
+      final var product = unsigned(a).multiply(unsigned(b));
+      final var divisorBig = unsigned(divisor);
+      final var floor = product.divide(divisorBig);
+      final var ceil = product.add(divisorBig).subtract(BigInteger.ONE).divide(divisorBig);
+      if (floor.compareTo(U64_MAX) > 0) {
+        assertThrows(ArithmeticException.class, () -> UnsignedMath.mulDivFloor(a, b, divisor));
+      } else {
+        assertEquals(floor, unsigned(UnsignedMath.mulDivFloor(a, b, divisor)));
+      }
+      if (ceil.compareTo(U64_MAX) <= 0) {
+        assertEquals(ceil, unsigned(UnsignedMath.mulDivCeil(a, b, divisor)));
+      }
+    }
+    assertThrows(ArithmeticException.class, () -> UnsignedMath.mulDivFloor(1, 1, 0));
+  }
+}
@@ -0,0 +1,115 @@
+package software.sava.solana.programs.stakepool;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.solana.programs.stake.StakeStatus;
+import software.sava.solana.programs.stake.ValidatorStakeInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+import static software.sava.solana.programs.stakepool.ValidatorListDecoder.ChangeType.*;
+
+final class ValidatorListDecoderTest {
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[31] = 3;
+    return PublicKey.createPubKey(key);
+  }
+
+  private static ValidatorStakeInfo validator(final int id, final long activeStakeLamports) {
+    return new ValidatorStakeInfo(
+        activeStakeLamports, 0, 700, 0, 0, id, StakeStatus.Active, key(id)
+    );
+  }
+
+  // Accounts are allocated for maxValidators, so the encoded list is followed by unused space.
+  private static byte[] write(final ValidatorStakeInfo... validators) {
+    final var validatorList = new ValidatorList(null, AccountType.ValidatorList, 8, validators);
+    final byte[] data = new byte[9 + (8 * ValidatorStakeInfo.BYTES)];
+    assertEquals(validatorList.l(), validatorList.write(data, 0));
+    return data;
+  }
+
+  @Test
+  public void roundTripsWrittenLists() {
+    final var validators = new ValidatorStakeInfo[]{validator(1, 100), validator(2, 200), validator(3, 300)};
+    final byte[] data = write(validators);
+    final var decoder = ValidatorListDecoder.createDecoder(key(99));
+    final var changes = new ArrayList<ValidatorListDecoder.Change>();
+    assertEquals(3, decoder.update(data, changes::add));
+    assertEquals(List.of(ADDED, ADDED, ADDED), changes.stream().map(ValidatorListDecoder.Change::type).toList());
+    assertArrayEquals(validators, decoder.validators());
+
+    final var validatorList = decoder.validatorList();
+    assertEquals(key(99), validatorList.address());
+    assertEquals(AccountType.ValidatorList, validatorList.accountType());
+    assertEquals(8, validatorList.maxValidators());
+    assertArrayEquals(validators, ValidatorList.read(data, 0).validators());
+
+    final byte[] rewritten = new byte[data.length];
+    validatorList.write(rewritten, 0);
+    assertArrayEquals(data, rewritten);
+
+    // Entries can start at an offset within a larger buffer.
+    final byte[] shifted = new byte[data.length + 5];
+    System.arraycopy(data, 0, shifted, 5, data.length);
+    final var offsetDecoder = ValidatorListDecoder.createDecoder();
+    assertEquals(3, offsetDecoder.update(shifted, 5, _ -> {
+    }));
+    assertArrayEquals(validators, offsetDecoder.validators());
+  }
+
+  @Test
+  public void reportsOnlyChangedEntries() {
+    final var decoder = ValidatorListDecoder.createDecoder();
+    decoder.update(write(validator(1, 100), validator(2, 200), validator(3, 300)), _ -> {
+    });
+    final var previous = decoder.validators().clone();
+
+    final var changes = new ArrayList<ValidatorListDecoder.Change>();
+    assertEquals(1, decoder.update(write(validator(1, 100), validator(2, 250), validator(3, 300)), changes::add));
+    assertEquals(new ValidatorListDecoder.Change(CHANGED, 1, previous[1], validator(2, 250)), changes.getFirst());
+    assertSame(previous[0], decoder.validators()[0]);
+    assertSame(previous[2], decoder.validators()[2]);
+
+    // Removing the first entry shifts the others, which are still matched by vote account.
+    changes.clear();
+    final var shifted = decoder.validators().clone();
+    assertEquals(2, decoder.update(write(validator(2, 250), validator(3, 300), validator(4, 400)), changes::add));
+    assertEquals(List.of(
+        new ValidatorListDecoder.Change(ADDED, 2, null, validator(4, 400)),
+        new ValidatorListDecoder.Change(REMOVED, 0, shifted[0], null)
+    ), changes);
+    assertSame(shifted[1], decoder.validators()[0]);
+    assertSame(shifted[2], decoder.validators()[1]);
+  }
+
+  @Test
+  public void rejectsTruncatedData() {
+    final var decoder = ValidatorListDecoder.createDecoder();
+    final var validators = new ValidatorStakeInfo[]{validator(1, 100), validator(2, 200)};
+    final byte[] data = write(validators);
+    decoder.update(data, _ -> {
+    });
+    final var snapshot = decoder.validators();
+
+    final var changes = new ArrayList<ValidatorListDecoder.Change>();
+    final int listLength = new ValidatorList(null, AccountType.ValidatorList, 8, validators).l();
+    final byte[] changed = write(validator(3, 300), validator(2, 250));
+    assertThrows(IllegalArgumentException.class, () -> decoder.update(Arrays.copyOf(changed, listLength - 1), changes::add));
+    assertThrows(IllegalArgumentException.class, () -> decoder.update(Arrays.copyOf(changed, 8), changes::add));
+    assertThrows(IllegalArgumentException.class, () -> decoder.update(changed, changed.length - 8, changes::add));
+    assertEquals(List.of(), changes);
+    assertSame(snapshot, decoder.validators());
+
+    // The previous snapshot is still the baseline for the next complete update.
+    assertEquals(3, decoder.update(changed, changes::add));
+    assertEquals(List.of(CHANGED, ADDED, REMOVED), changes.stream().map(ValidatorListDecoder.Change::type).toList());
+  }
+}
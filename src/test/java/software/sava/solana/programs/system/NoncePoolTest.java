@@ -0,0 +1,192 @@
+package software.sava.solana.programs.system;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.rpc.json.http.client.SolanaRpcClient;
+import software.sava.rpc.json.http.response.AccountInfo;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class NoncePoolTest {
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = (byte) (id >> 8);
+    return PublicKey.createPubKey(key);
+  }
+
+  private static NonceAccount nonceAccount(final int id, final PublicKey authority) {
+    final byte[] nonce = new byte[32];
+    nonce[0] = (byte) id;
+    return new NonceAccount(key(id), 1, NonceAccount.State.Initialized, authority, nonce, 5_000);
+  }
+
+  // Serves getMultipleAccounts from the given account state.
+  private static SolanaRpcClient rpcClient(final Function<PublicKey, NonceAccount> nonceAccounts) {
+    return (SolanaRpcClient) Proxy.newProxyInstance(
+        SolanaRpcClient.class.getClassLoader(),
+        new Class[]{SolanaRpcClient.class},
+        (_, method, args) -> {
+          if (!method.getName().equals("getMultipleAccounts")) {
+            throw new UnsupportedOperationException(method.getName());
+          }
+          @SuppressWarnings("unchecked") final var keys = (List<PublicKey>) args[0];
+          final var accountInfos = new ArrayList<AccountInfo<NonceAccount>>();
+          for (final var address : keys) {
+            final var nonceAccount = nonceAccounts.apply(address);
+            accountInfos.add(new AccountInfo<>(address, null, false, 1, null, null, NonceAccount.BYTES, nonceAccount));
+          }
+          return CompletableFuture.completedFuture(accountInfos);
+        }
+    );
+  }
+
+  @Test
+  public void consumedNoncesAreNotLeasedAgain() {
+    final var authority = key(1_000);
+    final var pool = NoncePool.createPool(authority, 4, 2);
+    for (int i = 0; i < 3; ++i) {
+      assertTrue(pool.add(nonceAccount(i, authority)));
+    }
+    assertFalse(pool.add(nonceAccount(0, authority)));
+    assertTrue(pool.add(new NonceAccount(key(3), 1, NonceAccount.State.Uninitialized, authority, new byte[32], 0)));
+    assertFalse(pool.add(nonceAccount(4, authority)));
+    assertEquals(4, pool.size());
+    assertEquals(3, pool.available());
+    assertEquals(1, pool.staleAccounts().size());
+
+    final var first = pool.lease();
+    final var second = pool.lease();
+    final var third = pool.lease();
+    assertNull(pool.lease());
+    assertEquals(3, pool.inFlight());
+
+    first.consume();
+    second.release();
+    assertThrows(IllegalStateException.class, first::release);
+    assertEquals(1, pool.available());
+    assertEquals(2, pool.staleAccounts().size());
+    assertEquals(second.nonceAccount(), pool.lease().nonceAccount());
+    assertNull(pool.lease());
+    third.release();
+    assertEquals(0, pool.deficit());
+  }
+
+  @Test
+  public void concurrentLeasesAreExclusive() throws Exception {
+    final var authority = key(1_000);
+    final var pool = NoncePool.createPool(authority, 16, 0);
+    for (int i = 0; i < 16; ++i) {
+      pool.add(nonceAccount(i, authority));
+    }
+    final var leased = ConcurrentHashMap.<PublicKey>newKeySet();
+    final var collisions = new AtomicInteger();
+    try (final var executor = Executors.newFixedThreadPool(8)) {
+      final var futures = new ArrayList<Future<?>>();
+      for (int t = 0; t < 8; ++t) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; ++i) {
+            final var lease = pool.lease();
+            if (lease == null) {
+              continue;
+            }
+            final var address = lease.nonceAccount().address();
+            if (!leased.add(address)) {
+              collisions.incrementAndGet();
+            }
+            leased.remove(address);
+            lease.release();
+          }
+        }));
+      }
+      for (final var future : futures) {
+        future.get();
+      }
+    }
+    assertEquals(0, collisions.get());
+    assertEquals(16, pool.available());
+  }
+
+  @Test
+  public void rejectsForeignAuthorities() {
+    final var authority = key(1_000);
+    final var pool = NoncePool.createPool(authority, 4, 0);
+    assertThrows(IllegalArgumentException.class, () -> pool.add(nonceAccount(0, key(1_001))));
+    assertEquals(0, pool.size());
+    assertTrue(pool.add(nonceAccount(0, authority)));
+    assertTrue(pool.add(nonceAccount(1, authority)));
+
+    pool.lease().consume();
+    pool.lease().consume();
+    assertEquals(2, pool.staleAccounts().size());
+
+    // Both nonces advanced, but the authority of one was changed while it was leased.
+    final var rpcClient = rpcClient(address -> {
+      final int id = address.toByteArray()[0];
+      return new NonceAccount(
+          address, 1, NonceAccount.State.Initialized,
+          id == 0 ? authority : key(1_001), nonceAccount(id + 100, authority).nonce(), 5_000
+      );
+    });
+    assertEquals(1, pool.refresh(rpcClient).join());
+    assertEquals(1, pool.available());
+    assertEquals(List.of(), pool.staleAccounts());
+    final var lease = pool.lease();
+    assertEquals(key(0), lease.nonceAccount().address());
+    assertNull(pool.lease());
+    lease.release();
+  }
+
+  @Test
+  public void recoversNoncesOfDroppedTransactions() {
+    final var authority = key(1_000);
+    final var pool = NoncePool.createPool(authority, 2, 2);
+    pool.add(nonceAccount(0, authority));
+    pool.add(nonceAccount(1, authority));
+    pool.lease().consume();
+    final var consumed = pool.staleAccounts().getFirst();
+    final int id = consumed.toByteArray()[0];
+
+    // The transaction was dropped, so the nonce never advances.
+    final var unchanged = rpcClient(_ -> nonceAccount(id, authority));
+    for (int i = 1; i < NoncePool.MAX_UNCHANGED_REFRESHES; ++i) {
+      assertEquals(0, pool.refresh(unchanged).join());
+      assertEquals(List.of(consumed), pool.staleAccounts());
+      assertEquals(0, pool.deficit());
+    }
+    assertEquals(0, pool.refresh(unchanged).join());
+    assertEquals(List.of(), pool.staleAccounts());
+    assertEquals(List.of(consumed), pool.stuckAccounts());
+    assertEquals(1, pool.available());
+    assertEquals(1, pool.deficit());
+    // Stuck accounts are not refreshed again until advanced.
+    assertEquals(0, pool.refresh(unchanged).join());
+    assertEquals(List.of(consumed), pool.stuckAccounts());
+
+    final var advance = pool.advanceStuckAccounts();
+    assertEquals(1, advance.size());
+    assertEquals(List.of(), pool.advanceStuckAccounts());
+    assertEquals(List.of(consumed), pool.staleAccounts());
+    assertEquals(0, pool.deficit());
+
+    final byte[] advancedNonce = nonceAccount(id + 100, authority).nonce();
+    final var advanced = rpcClient(address -> new NonceAccount(
+        address, 1, NonceAccount.State.Initialized, authority, advancedNonce, 5_000
+    ));
+    assertEquals(1, pool.refresh(advanced).join());
+    assertEquals(2, pool.available());
+    assertEquals(List.of(), pool.stuckAccounts());
+  }
+}
@@ -0,0 +1,129 @@
+package software.sava.solana.programs.token;
+
+import org.junit.jupiter.api.Test;
+import software.sava.core.accounts.PublicKey;
+import software.sava.core.accounts.SolanaAccounts;
+
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static software.sava.core.accounts.PublicKey.PUBLIC_KEY_LENGTH;
+
+final class ATACacheTest {
+
+  private static PublicKey key(final int id) {
+    final byte[] key = new byte[PUBLIC_KEY_LENGTH];
+    key[0] = (byte) id;
+    key[1] = (byte) (id >> 8);
+    key[31] = 1;
+    return PublicKey.createPubKey(key);
+  }
+
+  @Test
+  public void countsHitsMissesAndEvictions() {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var tokenProgram = solanaAccounts.tokenProgram();
+    final var mint = key(1_000);
+    final var cache = ATACache.createCache(EvictionPolicy.createLRU(2));
+    assertEquals(2, cache.maximumSize());
+    assertEquals(1.0, cache.hitRate());
+
+    final var expected = AssociatedTokenProgram.deriveATA(solanaAccounts, key(0), tokenProgram, mint).publicKey();
+    assertEquals(expected, cache.findATA(solanaAccounts, key(0), tokenProgram, mint).publicKey());
+    assertEquals(expected, cache.findATA(solanaAccounts, key(0), tokenProgram, mint).publicKey());
+    assertEquals(1, cache.hitCount());
+    assertEquals(1, cache.missCount());
+    assertEquals(0.5, cache.hitRate());
+
+    cache.findATA(solanaAccounts, key(1), tokenProgram, mint);
+    cache.findATA(solanaAccounts, key(2), tokenProgram, mint);
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.evictionCount());
+
+    // key(0) was the least recently used, so it has to be derived again.
+    assertEquals(expected, cache.findATA(solanaAccounts, key(0), tokenProgram, mint).publicKey());
+    assertEquals(1, cache.hitCount());
+    assertEquals(4, cache.missCount());
+    assertEquals(2, cache.evictionCount());
+
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+    assertEquals(expected, cache.findATA(solanaAccounts, key(0), tokenProgram, mint).publicKey());
+    assertEquals(5, cache.missCount());
+    assertEquals(1, cache.size());
+  }
+
+  // Tracks the keys the policy considers resident, calls are serialized by the cache.
+  private static final class TrackingPolicy implements EvictionPolicy<ATACache.Key> {
+
+    private final EvictionPolicy<ATACache.Key> delegate = EvictionPolicy.createLRU(64);
+    private final HashSet<ATACache.Key> resident = new HashSet<>();
+    private volatile Runnable beforeInsert;
+
+    @Override
+    public int maximumSize() {
+      return delegate.maximumSize();
+    }
+
+    @Override
+    public void recordAccess(final ATACache.Key key) {
+      delegate.recordAccess(key);
+    }
+
+    @Override
+    public ATACache.Key recordInsert(final ATACache.Key key) {
+      final var beforeInsert = this.beforeInsert;
+      if (beforeInsert != null) {
+        beforeInsert.run();
+      }
+      resident.add(key);
+      final var evicted = delegate.recordInsert(key);
+      if (evicted != null) {
+        resident.remove(evicted);
+      }
+      return evicted;
+    }
+
+    @Override
+    public void remove(final ATACache.Key key) {
+      resident.remove(key);
+      delegate.remove(key);
+    }
+
+    @Override
+    public void clear() {
+      resident.clear();
+      delegate.clear();
+    }
+  }
+
+  @Test
+  public void invalidateAllDuringInsertLeavesNoPhantomEntries() throws InterruptedException {
+    final var solanaAccounts = SolanaAccounts.MAIN_NET;
+    final var policy = new TrackingPolicy();
+    final var cache = ATACache.createCache(policy);
+    final var invalidating = new CountDownLatch(1);
+    final var invalidator = Thread.ofPlatform().unstarted(() -> {
+      invalidating.countDown();
+      cache.invalidateAll();
+    });
+    // Hold the insert until the invalidation has either completed or is blocked behind it.
+    policy.beforeInsert = () -> {
+      policy.beforeInsert = null;
+      invalidator.start();
+      try {
+        invalidating.await();
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      for (Thread.State state; (state = invalidator.getState()) != Thread.State.TERMINATED
+          && state != Thread.State.WAITING; ) {
+        Thread.onSpinWait();
+      }
+    };
+    cache.findATA(solanaAccounts, key(0), solanaAccounts.tokenProgram(), key(1_000));
+    invalidator.join();
+    assertEquals(policy.resident.size(), cache.size());
+  }
+}
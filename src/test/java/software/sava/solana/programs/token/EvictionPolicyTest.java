@@ -0,0 +1,47 @@
+package software.sava.solana.programs.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class EvictionPolicyTest {
+
+  @Test
+  public void lruEvictsLeastRecentlyAccessed() {
+    final EvictionPolicy<Integer> policy = EvictionPolicy.createLRU(3);
+    assertNull(policy.recordInsert(1));
+    assertNull(policy.recordInsert(2));
+    assertNull(policy.recordInsert(3));
+    policy.recordAccess(1);
+    assertEquals(2, policy.recordInsert(4));
+    assertEquals(3, policy.recordInsert(5));
+  }
+
+  @Test
+  public void windowTinyLFUProtectsFrequentKeysFromScans() {
+    final int maximumSize = 200;
+    final EvictionPolicy<Integer> policy = EvictionPolicy.createWindowTinyLFU(maximumSize);
+    final var resident = new HashSet<Integer>();
+    for (int i = 0; i < maximumSize; ++i) {
+      assertNull(policy.recordInsert(i));
+      resident.add(i);
+    }
+    for (int round = 0; round < 4; ++round) {
+      for (int i = 0; i < 50; ++i) {
+        policy.recordAccess(i);
+      }
+    }
+    for (int i = 1_000; i < 11_000; ++i) {
+      resident.add(i);
+      final var evicted = policy.recordInsert(i);
+      assertNotNull(evicted);
+      assertTrue(resident.remove(evicted));
+    }
+    assertEquals(maximumSize, resident.size());
+    for (int i = 0; i < 50; ++i) {
+      assertTrue(resident.contains(i), "hot key " + i + " was evicted");
+    }
+  }
+}